@@ -0,0 +1,116 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sammelbox.controller.filesystem.BackupArchiveWriter;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+
+/**
+ * Compares the former backup, which copied the home directory to a temporary folder and deflated it with zipFolderToFile,
+ * with the BackupArchiveWriter. The folder either contains 64 MB of pictures, or a 64 MB database dump which compresses well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BackupArchiveBenchmark {
+	private static final int FOLDER_SIZE_IN_BYTES = 64 * 1024 * 1024;
+	private static final int PICTURE_SIZE_IN_BYTES = 4 * 1024 * 1024;
+	
+	@Param({ "pictures", "database" })
+	private String content;
+	
+	private File benchmarkDirectory;
+	private File sourceDirectory;
+	private File temporaryDirectory;
+	private File archiveFile;
+	
+	@Setup(Level.Trial)
+	public void createFolder() throws IOException {
+		benchmarkDirectory = Files.createTempDirectory("sammelbox-backup-benchmark").toFile();
+		sourceDirectory = new File(benchmarkDirectory, "source");
+		sourceDirectory.mkdir();
+		temporaryDirectory = new File(benchmarkDirectory, "temporary");
+		archiveFile = new File(benchmarkDirectory, "backup.cbk");
+		
+		Random random = new Random(1);
+		if ("pictures".equals(content)) {
+			byte[] picture = new byte[PICTURE_SIZE_IN_BYTES];
+			for (int i=0; i<FOLDER_SIZE_IN_BYTES / PICTURE_SIZE_IN_BYTES; i++) {
+				random.nextBytes(picture);
+				Files.write(new File(sourceDirectory, "picture" + i + ".jpg").toPath(), picture);
+			}
+		} else {
+			try (BufferedWriter writer = Files.newBufferedWriter(new File(sourceDirectory, "restore.db").toPath(), StandardCharsets.UTF_8)) {
+				for (long length = 0; length < FOLDER_SIZE_IN_BYTES; ) {
+					String row = "item " + random.nextInt(100000) + ";" + BenchmarkHome.COMMON_WORD + " " + random.nextInt(1000) + ";" 
+							+ random.nextDouble() + ";2013-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) + "\n";
+					writer.write(row);
+					length += row.length();
+				}
+			}
+		}
+	}
+	
+	@TearDown(Level.Invocation)
+	public void removeArchive() {
+		FileSystemAccessWrapper.deleteDirectoryRecursively(temporaryDirectory);
+		archiveFile.delete();
+	}
+	
+	@TearDown(Level.Trial)
+	public void removeFolder() {
+		FileSystemAccessWrapper.deleteDirectoryRecursively(benchmarkDirectory);
+	}
+	
+	@Benchmark
+	public void copyAndZipFolder() throws IOException {
+		FileSystemAccessWrapper.copyDirectory(sourceDirectory, temporaryDirectory);
+		FileSystemAccessWrapper.zipFolderToFile(temporaryDirectory.getPath(), archiveFile.getPath());
+	}
+	
+	@Benchmark
+	public void writeBackupArchive() throws IOException {
+		BackupArchiveWriter.writeArchive(BackupArchiveWriter.collectEntries(sourceDirectory, null), archiveFile);
+	}
+}
@@ -0,0 +1,140 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.sammelbox.Sammelbox;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+/**
+ * Sets up an isolated Sammelbox home in a temporary directory and fills benchmark albums. 
+ * The field types of an album cycle through text, integer, decimal and date fields. The first field is quick searchable.
+ */
+public final class BenchmarkHome {
+	/** All items of an album contain this word in their first field, hence quick searches for it match every item */
+	public static final String COMMON_WORD = "sammelbox";
+	private static final FieldType[] FIELD_TYPES = new FieldType[] { FieldType.TEXT, FieldType.INTEGER, FieldType.DECIMAL, FieldType.DATE };
+	private static final String[] WORDS = new String[] { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel" };
+	
+	private BenchmarkHome() {
+		// use static methods
+	}
+	
+	/** Creates an empty home in a new temporary directory, makes it the active home and opens the database connection */
+	public static void setUp() throws IOException, ClassNotFoundException, DatabaseWrapperOperationException {
+		FileSystemLocations.setActiveHomeDir(Files.createTempDirectory("sammelbox-benchmark").toString());
+		Class.forName(Sammelbox.ORG_SQLITE_JDBC);
+		FileSystemAccessWrapper.updateSammelboxFileStructure();
+		ConnectionManager.openConnection();
+		FileSystemAccessWrapper.updateAlbumFileStructure(ConnectionManager.getConnection());
+	}
+	
+	/** Closes the database connection and removes the active home */
+	public static void tearDown() throws DatabaseWrapperOperationException {
+		ConnectionManager.closeConnection();
+		FileSystemAccessWrapper.removeHomeDirectory();
+	}
+	
+	/** Returns the fields of a benchmark album with the specified number of fields */
+	public static List<MetaItemField> createFields(int fieldCount) {
+		List<MetaItemField> fields = new ArrayList<MetaItemField>();
+		
+		for (int i=0; i<fieldCount; i++) {
+			fields.add(new MetaItemField("Field " + i, FIELD_TYPES[i % FIELD_TYPES.length], i == 0));
+		}
+		
+		return fields;
+	}
+	
+	/** Creates an album with the specified number of fields and adds the specified number of items using batched inserts */
+	public static List<MetaItemField> createAlbum(String albumName, int fieldCount, int albumSize) throws DatabaseWrapperOperationException {
+		List<MetaItemField> fields = createFields(fieldCount);
+		DatabaseOperations.createNewAlbum(albumName, fields, false);
+		DatabaseOperations.addAlbumItems(albumName, createAlbumItems(albumName, fields, albumSize));
+		
+		return fields;
+	}
+	
+	/** Creates the item with the specified index. The values are derived from the index, so that the same items are created for every run */
+	public static AlbumItem createAlbumItem(String albumName, List<MetaItemField> fields, int index) {
+		AlbumItem albumItem = new AlbumItem(albumName);
+		
+		for (MetaItemField field : fields) {
+			switch (field.getType()) {
+			case TEXT:
+				albumItem.addField(field.getName(), field.getType(), COMMON_WORD + " " + WORDS[index % WORDS.length] + " " + index, field.isQuickSearchable());
+				break;
+			case INTEGER:
+				albumItem.addField(field.getName(), field.getType(), index, field.isQuickSearchable());
+				break;
+			case DECIMAL:
+				albumItem.addField(field.getName(), field.getType(), index / 100.0d, field.isQuickSearchable());
+				break;
+			case DATE:
+				albumItem.addField(field.getName(), field.getType(), new Date(index * 86400000L), field.isQuickSearchable());
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported benchmark field type " + field.getType());
+			}
+		}
+		
+		return albumItem;
+	}
+	
+	/** Creates the items lazily, so that large albums are not held in memory completely */
+	private static Iterable<AlbumItem> createAlbumItems(final String albumName, final List<MetaItemField> fields, final int albumSize) {
+		return new Iterable<AlbumItem>() {
+			@Override
+			public Iterator<AlbumItem> iterator() {
+				return new Iterator<AlbumItem>() {
+					private int index = 0;
+					
+					@Override
+					public boolean hasNext() {
+						return index < albumSize;
+					}
+					
+					@Override
+					public AlbumItem next() {
+						return createAlbumItem(albumName, fields, index++);
+					}
+					
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,179 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.benchmark;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.QueryComponent;
+import org.sammelbox.model.database.QueryOperator;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.database.operations.QueryResultCache;
+
+/**
+ * Measures the throughput and the latency distribution of the frequently used database operations.
+ * Every trial runs against a new temporary home containing a single album of the parameterized size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DatabaseOperationsBenchmark {
+	private static final String ALBUM_NAME = "Benchmark Album";
+	private static final int PAGE_SIZE = 30;
+	
+	@Param({ "1000", "10000", "100000" })
+	private int albumSize;
+	
+	@Param({ "4", "16" })
+	private int fieldCount;
+	
+	private List<MetaItemField> fields;
+	private int nextItemIndex;
+	private Random random;
+	private String selectStarQuery;
+	private ParameterizedQuery sortedQuery;
+	private ArrayList<QueryComponent> queryComponents;
+	private AlbumItem albumItemToUpdate;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkHome.setUp();
+		fields = BenchmarkHome.createAlbum(ALBUM_NAME, fieldCount, albumSize);
+		nextItemIndex = albumSize;
+		random = new Random(42);
+		selectStarQuery = QueryBuilder.createSelectStarQuery(ALBUM_NAME);
+		sortedQuery = QueryBuilder.buildParameterizedQuery(new ArrayList<QueryComponent>(), true, ALBUM_NAME, fields.get(0).getName(), true);
+		
+		// one condition per field, which is satisfied by the items from the middle of the album onwards. Dates are compared by their milliseconds
+		queryComponents = new ArrayList<QueryComponent>();
+		AlbumItem medianAlbumItem = BenchmarkHome.createAlbumItem(ALBUM_NAME, fields, albumSize / 2);
+		for (MetaItemField field : fields) {
+			Object value = medianAlbumItem.getField(field.getName()).getValue();
+			queryComponents.add(QueryBuilder.getQueryComponent(field.getName(), QueryOperator.BIGGER_OR_EQUAL, 
+					value instanceof Date ? String.valueOf(((Date) value).getTime()) : value.toString()));
+		}
+	}
+	
+	@Setup(Level.Iteration)
+	public void fetchAlbumItemToUpdate() throws Exception {
+		albumItemToUpdate = DatabaseOperations.getAlbumItem(ALBUM_NAME, randomItemId());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkHome.tearDown();
+	}
+	
+	@Benchmark
+	public long addAlbumItem() throws Exception {
+		return DatabaseOperations.addAlbumItem(BenchmarkHome.createAlbumItem(ALBUM_NAME, fields, nextItemIndex++), true);
+	}
+	
+	@Benchmark
+	public void updateAlbumItem() throws Exception {
+		albumItemToUpdate.getField(fields.get(0).getName()).setValue(BenchmarkHome.COMMON_WORD + " updated " + nextItemIndex++);
+		DatabaseOperations.updateAlbumItem(albumItemToUpdate);
+	}
+	
+	/** Loads the complete album, as e.g. exports do */
+	@Benchmark
+	public List<AlbumItem> getAlbumItems() throws Exception {
+		return DatabaseOperations.getAlbumItems(selectStarQuery);
+	}
+	
+	/** 
+	 * Loads a page at a random position of the sorted album, as the album view does while scrolling. The result cache is emptied 
+	 * before every invocation, so that each page is read from the database as before the cache existed
+	 */
+	@Benchmark
+	public List<AlbumItem> getAlbumItemPage(EmptyResultCache emptyResultCache) throws Exception {
+		return DatabaseOperations.getAlbumItemPage(ALBUM_NAME, sortedQuery, randomItemId(), PAGE_SIZE);
+	}
+	
+	/** Loads the same page again, as switching back to a previously shown album does. All but the first page are cache hits */
+	@Benchmark
+	public List<AlbumItem> getCachedAlbumItemPage() throws Exception {
+		return DatabaseOperations.getAlbumItemPage(ALBUM_NAME, sortedQuery, (long) albumSize / 2, PAGE_SIZE);
+	}
+	
+	/** Searches for a word which is contained in every eighth item and reads all results */
+	@Benchmark
+	public void executeQuickSearch(Blackhole blackhole) throws Exception {
+		AlbumItemResultSet albumItemResultSet = DatabaseOperations.executeQuickSearch(ALBUM_NAME, Arrays.asList("alpha"));
+		
+		try {
+			while (albumItemResultSet.moveToNext()) {
+				blackhole.consume(albumItemResultSet.getFieldValue(1));
+			}
+		} finally {
+			albumItemResultSet.close();
+		}
+	}
+	
+	@Benchmark
+	public String buildQuery() {
+		return QueryBuilder.buildQuery(queryComponents, true, ALBUM_NAME);
+	}
+	
+	@Benchmark
+	public ParameterizedQuery buildParameterizedQuery() {
+		return QueryBuilder.buildParameterizedQuery(queryComponents, true, ALBUM_NAME);
+	}
+	
+	private long randomItemId() {
+		// item ids start at one
+		return 1 + random.nextInt(albumSize);
+	}
+	
+	/** Empties the query result cache before every invocation of the benchmarks which use this state */
+	@State(Scope.Thread)
+	public static class EmptyResultCache {
+		@Setup(Level.Invocation)
+		public void invalidateResultCache() {
+			QueryResultCache.invalidateAll();
+		}
+	}
+}
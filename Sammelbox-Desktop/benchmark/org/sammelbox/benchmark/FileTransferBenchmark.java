@@ -0,0 +1,163 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+
+/**
+ * Compares the former 1 KB byte array loops of the FileSystemAccessWrapper with the FileTransfer based implementation
+ * for copying, zipping and unzipping a folder of pictures. Every folder contains 64 MB of incompressible data, like JPEG files,
+ * hence the throughput in MB/s is 64000 divided by the reported milliseconds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FileTransferBenchmark {
+	private static final int FOLDER_SIZE_IN_KILOBYTES = 64 * 1024;
+	private static final int ONE_KB_BUFFER_SIZE = 1024;
+	
+	/** The size of a single picture. 4 MB corresponds to the JPEG of a 24 MP camera */
+	@Param({ "256", "4096" })
+	private int pictureSizeInKilobytes;
+	
+	private File benchmarkDirectory;
+	private File sourceDirectory;
+	private File targetDirectory;
+	private File zipFile;
+	
+	@Setup(Level.Trial)
+	public void createPictureFolder() throws IOException {
+		benchmarkDirectory = Files.createTempDirectory("sammelbox-transfer-benchmark").toFile();
+		sourceDirectory = new File(benchmarkDirectory, "source");
+		sourceDirectory.mkdir();
+		
+		Random random = new Random(1);
+		byte[] picture = new byte[pictureSizeInKilobytes * 1024];
+		for (int i=0; i<FOLDER_SIZE_IN_KILOBYTES / pictureSizeInKilobytes; i++) {
+			random.nextBytes(picture);
+			Files.write(new File(sourceDirectory, "picture" + i + ".jpg").toPath(), picture);
+		}
+		
+		zipFile = new File(benchmarkDirectory, "pictures.zip");
+		FileSystemAccessWrapper.zipFolderToFile(sourceDirectory.getPath(), zipFile.getPath());
+	}
+	
+	@Setup(Level.Invocation)
+	public void createTargetDirectory() {
+		targetDirectory = new File(benchmarkDirectory, "target");
+		FileSystemAccessWrapper.deleteDirectoryRecursively(targetDirectory);
+		targetDirectory.mkdir();
+	}
+	
+	@TearDown(Level.Trial)
+	public void removePictureFolder() {
+		FileSystemAccessWrapper.deleteDirectoryRecursively(benchmarkDirectory);
+	}
+	
+	@Benchmark
+	public void copyDirectoryByteArrayLoop() throws IOException {
+		for (File picture : sourceDirectory.listFiles()) {
+			try (InputStream inputStream = new FileInputStream(picture);
+				 OutputStream outputStream = new FileOutputStream(new File(targetDirectory, picture.getName()))) {
+				copyByteArrayLoop(inputStream, outputStream);
+			}
+		}
+	}
+	
+	@Benchmark
+	public void copyDirectoryTransfer() throws IOException {
+		FileSystemAccessWrapper.copyDirectory(sourceDirectory, targetDirectory);
+	}
+	
+	@Benchmark
+	public void zipFolderByteArrayLoop() throws IOException {
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(new File(targetDirectory, "pictures.zip")))) {
+			for (File picture : sourceDirectory.listFiles()) {
+				try (InputStream inputStream = new FileInputStream(picture)) {
+					zipOutputStream.putNextEntry(new ZipEntry(picture.getName()));
+					copyByteArrayLoop(inputStream, zipOutputStream);
+					zipOutputStream.closeEntry();
+				}
+			}
+		}
+	}
+	
+	@Benchmark
+	public void zipFolderTransfer() {
+		FileSystemAccessWrapper.zipFolderToFile(sourceDirectory.getPath(), new File(targetDirectory, "pictures.zip").getPath());
+	}
+	
+	@Benchmark
+	public void unzipFileByteArrayLoop() throws IOException {
+		try (ZipFile zip = new ZipFile(zipFile)) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				try (InputStream inputStream = zip.getInputStream(entry);
+					 OutputStream outputStream = new FileOutputStream(new File(targetDirectory, entry.getName()))) {
+					copyByteArrayLoop(inputStream, outputStream);
+				}
+			}
+		}
+	}
+	
+	@Benchmark
+	public void unzipFileTransfer() {
+		FileSystemAccessWrapper.unzipFileToFolder(zipFile.getPath(), targetDirectory.getPath());
+	}
+	
+	private static void copyByteArrayLoop(InputStream inputStream, OutputStream outputStream) throws IOException {
+		byte[] buffer = new byte[ONE_KB_BUFFER_SIZE];
+		int length;
+		while ((length = inputStream.read(buffer)) > 0) {
+			outputStream.write(buffer, 0, length);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.benchmark;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sammelbox.view.image.ImageScaler;
+
+/**
+ * Compares the creation of a thumbnail by decoding the complete picture and scaling it with Image.getScaledInstance
+ * (the former implementation of the ImageManipulator) with the subsampled decoding and stepwise downscaling of the ImageScaler.
+ * The bytes allocated per thumbnail (gc.alloc.rate.norm of the gc profiler) are dominated by the decoded raster and thus
+ * indicate the peak memory needed for a single picture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImageScalingBenchmark {
+	private static final int THUMBNAIL_SIZE_IN_PIXELS = 200;
+	
+	/** The size of the original picture. 6000x4000 corresponds to a 24 MP camera */
+	@Param({ "1600x1200", "6000x4000" })
+	private String pictureSize;
+	
+	@Param({ "jpg", "png" })
+	private String pictureFormat;
+	
+	private File pictureDirectory;
+	private File pictureFile;
+	
+	@Setup(Level.Trial)
+	public void createPicture() throws IOException {
+		String[] widthAndHeight = pictureSize.split("x");
+		int width = Integer.parseInt(widthAndHeight[0]);
+		int height = Integer.parseInt(widthAndHeight[1]);
+		
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, width, height, Color.ORANGE));
+		graphics.fillRect(0, 0, width, height);
+		
+		// some details, so that the picture does not compress unrealistically well
+		Random random = new Random(1);
+		for (int i=0; i<2000; i++) {
+			graphics.setColor(new Color(random.nextInt(0x1000000)));
+			graphics.fillOval(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(width / 10), 1 + random.nextInt(height / 10));
+		}
+		graphics.dispose();
+		
+		pictureDirectory = Files.createTempDirectory("sammelbox-image-benchmark").toFile();
+		pictureFile = new File(pictureDirectory, "picture." + pictureFormat);
+		ImageIO.write(image, pictureFormat, pictureFile);
+	}
+	
+	@TearDown(Level.Trial)
+	public void removePicture() {
+		pictureFile.delete();
+		pictureDirectory.delete();
+	}
+	
+	@Benchmark
+	public BufferedImage scaleFullResolution() throws IOException, ImageReadException {
+		BufferedImage image = Imaging.getBufferedImage(pictureFile);
+		
+		int newWidth = THUMBNAIL_SIZE_IN_PIXELS;
+		int newHeight = THUMBNAIL_SIZE_IN_PIXELS;
+		if (image.getWidth() >= image.getHeight()) {
+			newHeight = (int) (THUMBNAIL_SIZE_IN_PIXELS / ((double) image.getWidth() / (double) image.getHeight()));
+		} else {
+			newWidth = (int) (THUMBNAIL_SIZE_IN_PIXELS / ((double) image.getHeight() / (double) image.getWidth()));
+		}
+		
+		Image resizedImage = image.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
+		BufferedImage thumbnail = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+		thumbnail.getGraphics().drawImage(resizedImage, 0, 0, null);
+		
+		return thumbnail;
+	}
+	
+	@Benchmark
+	public BufferedImage scaleSubsampled() throws IOException, ImageReadException {
+		return ImageScaler.readScaledImage(pictureFile, THUMBNAIL_SIZE_IN_PIXELS, THUMBNAIL_SIZE_IN_PIXELS);
+	}
+}
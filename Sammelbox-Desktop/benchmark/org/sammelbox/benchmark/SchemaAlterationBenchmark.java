@@ -0,0 +1,110 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+/**
+ * Measures the duration of the schema alterations, which rebuild the complete album table. Since every alteration 
+ * changes the album, each measurement is a single alteration of a freshly created album of the parameterized size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SchemaAlterationBenchmark {
+	private static final String ALBUM_NAME = "Benchmark Album";
+	
+	@Param({ "1000", "10000", "100000" })
+	private int albumSize;
+	
+	@Param({ "4", "16" })
+	private int fieldCount;
+	
+	private List<MetaItemField> fields;
+	
+	@Setup(Level.Trial)
+	public void setUpHome() throws Exception {
+		BenchmarkHome.setUp();
+	}
+	
+	@Setup(Level.Iteration)
+	public void createAlbum() throws Exception {
+		fields = BenchmarkHome.createAlbum(ALBUM_NAME, fieldCount, albumSize);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void removeAlbum() throws Exception {
+		DatabaseOperations.removeAlbumAndAlbumPictures(ALBUM_NAME);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDownHome() throws Exception {
+		BenchmarkHome.tearDown();
+	}
+	
+	@Benchmark
+	public void appendNewAlbumField() throws Exception {
+		DatabaseOperations.appendNewAlbumField(ALBUM_NAME, new MetaItemField("Appended Field", FieldType.TEXT, true));
+	}
+	
+	@Benchmark
+	public void renameAlbumItemField() throws Exception {
+		MetaItemField field = fields.get(fields.size() - 1);
+		DatabaseOperations.renameAlbumItemField(ALBUM_NAME, field, new MetaItemField("Renamed Field", field.getType(), field.isQuickSearchable()));
+	}
+	
+	@Benchmark
+	public void removeAlbumItemField() throws Exception {
+		DatabaseOperations.removeAlbumItemField(ALBUM_NAME, fields.get(fields.size() - 1));
+	}
+	
+	/** Moves the last field to the front */
+	@Benchmark
+	public void reorderAlbumItemField() throws Exception {
+		DatabaseOperations.reorderAlbumItemField(ALBUM_NAME, fields.get(fields.size() - 1), null);
+	}
+	
+	@Benchmark
+	public void updateQuickSearchable() throws Exception {
+		MetaItemField field = fields.get(fields.size() - 1);
+		DatabaseOperations.updateQuickSearchable(ALBUM_NAME, new MetaItemField(field.getName(), field.getType(), !field.isQuickSearchable()));
+	}
+}
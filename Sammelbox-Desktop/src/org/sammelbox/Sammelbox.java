@@ -24,8 +24,10 @@ import java.nio.channels.FileChannel;
 import org.eclipse.swt.SWT;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.PictureStoreMigration;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.controller.managers.AutoSaveScheduler;
 import org.sammelbox.controller.managers.BuildInformationManager;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.WelcomePageManager;
@@ -86,11 +88,18 @@ public final class Sammelbox {
 			if (fileChannel.tryLock() != null) {
 				// Initialize the Database connection
 				setupConnectionAndFilesystem();
+				
+				// Pictures stored by previous versions are moved into the fan-out of their folder while the application is running
+				PictureStoreMigration.start();
+				// The database is saved in the background whenever it has been changed
+				AutoSaveScheduler.start();
 
 				// create the shell and show the user interface. This blocks until the shell is closed
 				ApplicationUI.initialize(ApplicationUI.getShell());
 
 				// close the database connection if the the shell is closed
+				AutoSaveScheduler.stop();
+				PictureStoreMigration.stop();
 				ConnectionManager.closeConnection();
 
 				// close file & channel
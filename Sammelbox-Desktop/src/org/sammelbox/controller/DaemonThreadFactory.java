@@ -0,0 +1,45 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller;
+
+import java.util.concurrent.ThreadFactory;
+
+/** Creates named daemon threads for the background executors, so that they never keep the application from exiting */
+public final class DaemonThreadFactory implements ThreadFactory {
+	private final String threadName;
+	private volatile Thread lastCreatedThread = null;
+
+	/** @param threadName the name of all created threads */
+	public DaemonThreadFactory(String threadName) {
+		this.threadName = threadName;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, threadName);
+		thread.setDaemon(true);
+		lastCreatedThread = thread;
+		return thread;
+	}
+
+	/** @return the most recently created thread (e.g. the thread of a single thread executor), or null if none has been created yet */
+	public Thread getLastCreatedThread() {
+		return lastCreatedThread;
+	}
+}
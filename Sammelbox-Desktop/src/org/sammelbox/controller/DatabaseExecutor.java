@@ -0,0 +1,165 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+import org.sammelbox.view.ApplicationUI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the changes to the database on a single database thread, so that the user interface keeps painting while an 
+ * album is altered or an item is saved. The tasks are executed one after the other in the order of their submission. 
+ * Since all tasks share the default connection of the ConnectionManager, the shell is disabled while a task which has 
+ * been submitted by the user interface is executed. Hence no other database operation is started from the user interface meanwhile.
+ */
+public final class DatabaseExecutor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseExecutor.class);
+	private static final DaemonThreadFactory DATABASE_THREAD_FACTORY = new DaemonThreadFactory("Database");
+	private static final ExecutorService DATABASE_THREAD = Executors.newSingleThreadExecutor(DATABASE_THREAD_FACTORY);
+	
+	/** A unit of work which is executed on the database thread */
+	public interface DatabaseTask<T> {
+		/** @return the result which is passed on to the caller, or null if there is none */
+		T execute() throws DatabaseWrapperOperationException;
+	}
+	
+	/** Is informed on the UI thread about the outcome of a database task */
+	public abstract static class DatabaseTaskCallback<T> {
+		/** Called after the task has been executed successfully */
+		public abstract void taskSucceeded(T result);
+		
+		/** Called after the task has failed. The error is logged unless this method is overridden */
+		public void taskFailed(DatabaseWrapperOperationException ex) {
+			LOGGER.error("A database related error occured", ex);
+		}
+	}
+	
+	private DatabaseExecutor() {
+		// use static methods
+	}
+	
+	/**
+	 * Schedules the task to be executed on the database thread
+	 * @return a future which yields the result of the task. A failed task throws an ExecutionException whose cause is the 
+	 * DatabaseWrapperOperationException of the task
+	 */
+	public static <T> Future<T> submit(final DatabaseTask<T> task) {
+		return DATABASE_THREAD.submit(new Callable<T>() {
+			@Override
+			public T call() throws DatabaseWrapperOperationException {
+				return task.execute();
+			}
+		});
+	}
+	
+	/**
+	 * Executes the task on the database thread and waits for its result. Tasks which are executed on the database thread
+	 * itself are executed directly.
+	 * @return the result of the task
+	 * @throws DatabaseWrapperOperationException if the task failed or the calling thread has been interrupted while waiting
+	 */
+	public static <T> T execute(DatabaseTask<T> task) throws DatabaseWrapperOperationException {
+		if (isDatabaseThread()) {
+			return task.execute();
+		}
+		
+		try {
+			return submit(task).get();
+		} catch (ExecutionException ex) {
+			throw toDatabaseWrapperOperationException(ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, ex);
+		}
+	}
+	
+	/**
+	 * Executes the task on the database thread without blocking the user interface. The shell is disabled until the task 
+	 * has been executed, and the callback is informed on the UI thread afterwards. Must be called on the UI thread.
+	 * @param task the task which is executed on the database thread
+	 * @param callback the callback which is informed on the UI thread
+	 */
+	public static <T> void executeInBackground(final DatabaseTask<T> task, final DatabaseTaskCallback<T> callback) {
+		final Display display = Display.getCurrent();
+		final Shell shell = ApplicationUI.getShell();
+		shell.setEnabled(false);
+		shell.setCursor(display.getSystemCursor(SWT.CURSOR_WAIT));
+		
+		DATABASE_THREAD.execute(new Runnable() {
+			@Override
+			public void run() {
+				T result = null;
+				DatabaseWrapperOperationException failure = null;
+				
+				try {
+					result = task.execute();
+				} catch (DatabaseWrapperOperationException ex) {
+					failure = ex;
+				} catch (RuntimeException ex) {
+					failure = new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, ex);
+				}
+				
+				final T taskResult = result;
+				final DatabaseWrapperOperationException taskFailure = failure;
+				if (!display.isDisposed()) {
+					display.asyncExec(new Runnable() {
+						@Override
+						public void run() {
+							if (!shell.isDisposed()) {
+								shell.setCursor(null);
+								shell.setEnabled(true);
+							}
+							
+							if (taskFailure == null) {
+								callback.taskSucceeded(taskResult);
+							} else {
+								callback.taskFailed(taskFailure);
+							}
+						}
+					});
+				}
+			}
+		});
+	}
+	
+	/** @return true if the calling thread is the database thread */
+	public static boolean isDatabaseThread() {
+		return Thread.currentThread() == DATABASE_THREAD_FACTORY.getLastCreatedThread();
+	}
+	
+	private static DatabaseWrapperOperationException toDatabaseWrapperOperationException(Throwable cause) {
+		if (cause instanceof DatabaseWrapperOperationException) {
+			return (DatabaseWrapperOperationException) cause;
+		}
+		
+		return new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, cause);
+	}
+}
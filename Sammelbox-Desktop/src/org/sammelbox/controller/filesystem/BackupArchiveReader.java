@@ -0,0 +1,148 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/** 
+ * Extracts backup archives using several threads. Every thread reads its share of the entries through its own ZipFile,
+ * since the entries of a single ZipFile are read one at a time.
+ */
+public final class BackupArchiveReader {
+	/** Extracting is mostly waiting for the disk, hence single core machines benefit from a second thread as well */
+	private static final int MINIMUM_NUMBER_OF_THREADS = 2;
+	
+	private BackupArchiveReader() {
+		// use static methods
+	}
+	
+	/**
+	 * Extracts all files of the archive to the target directory, recreating the original file structure within it.
+	 * @param archiveFile The archive to be extracted.
+	 * @param targetDirectory The directory to which the files are extracted.
+	 * @throws IOException Exception raised if the archive cannot be read, a file cannot be written or an entry points outside of the target directory.
+	 */
+	public static void extractAll(File archiveFile, File targetDirectory) throws IOException {
+		Map<File, String> entryNames = new LinkedHashMap<>();
+		
+		try (ZipFile zipFile = new ZipFile(archiveFile)) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (!entry.isDirectory()) {
+					entryNames.put(new File(targetDirectory, entry.getName()), entry.getName());
+				}
+			}
+		}
+		
+		extractEntries(archiveFile, targetDirectory, entryNames);
+	}
+	
+	/**
+	 * Extracts the specified entries of the archive.
+	 * @param archiveFile The archive containing the entries.
+	 * @param targetDirectory The directory which must contain all files to which the entries are extracted.
+	 * @param entryNames The names of the entries keyed by the files to which they are extracted. An entry may be extracted to several files.
+	 * @throws IOException Exception raised if the archive cannot be read, an entry does not exist, a file cannot be written 
+	 * or a file points outside of the target directory.
+	 */
+	public static void extractEntries(final File archiveFile, File targetDirectory, Map<File, String> entryNames) throws IOException {
+		// the paths stem from the archive or its manifest, hence they must not be trusted
+		String targetDirectoryPath = targetDirectory.getCanonicalPath() + File.separator;
+		for (Map.Entry<File, String> entryName : entryNames.entrySet()) {
+			if (!entryName.getKey().getCanonicalPath().startsWith(targetDirectoryPath)) {
+				throw new IOException("The entry " + entryName.getValue() + " of " + archiveFile + " points outside of the target directory");
+			}
+		}
+		
+		int numberOfThreads = Math.min(Math.max(MINIMUM_NUMBER_OF_THREADS, Runtime.getRuntime().availableProcessors()), entryNames.size());
+		if (numberOfThreads == 0) {
+			return;
+		}
+		
+		// the entries are dealt out, so that the large pictures are spread over all threads
+		final List<List<Map.Entry<File, String>>> shares = new ArrayList<>();
+		for (int i=0; i<numberOfThreads; i++) {
+			shares.add(new ArrayList<Map.Entry<File, String>>());
+		}
+		int entryIndex = 0;
+		for (Map.Entry<File, String> entryName : entryNames.entrySet()) {
+			shares.get(entryIndex++ % numberOfThreads).add(entryName);
+		}
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<Void>> extractions = new ArrayList<>();
+			for (final List<Map.Entry<File, String>> share : shares) {
+				extractions.add(executorService.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						extractShare(archiveFile, share);
+						return null;
+					}
+				}));
+			}
+			
+			for (Future<Void> extraction : extractions) {
+				extraction.get();
+			}
+		} catch (ExecutionException ee) {
+			throw ee.getCause() instanceof IOException ? (IOException) ee.getCause() : new IOException(ee.getCause());
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Extracting " + archiveFile + " has been interrupted");
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+	
+	private static void extractShare(File archiveFile, List<Map.Entry<File, String>> share) throws IOException {
+		try (ZipFile zipFile = new ZipFile(archiveFile)) {
+			for (Map.Entry<File, String> entryName : share) {
+				ZipEntry entry = zipFile.getEntry(entryName.getValue());
+				if (entry == null) {
+					throw new IOException("The archive " + archiveFile + " does not contain " + entryName.getValue());
+				}
+				
+				File parentDirectory = entryName.getKey().getParentFile();
+				if (!parentDirectory.isDirectory() && !parentDirectory.mkdirs() && !parentDirectory.isDirectory()) {
+					throw new IOException("The directory " + parentDirectory + " cannot be created");
+				}
+				
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					FileTransfer.copyStreamToFile(inputStream, entryName.getKey());
+				}
+			}
+		}
+	}
+}
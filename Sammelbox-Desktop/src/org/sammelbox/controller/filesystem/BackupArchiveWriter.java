@@ -0,0 +1,490 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes backup archives in the zip format, streaming every entry directly from its source file.
+ * Already compressed media, like pictures, is stored as it is. All other files are split into chunks which are deflated 
+ * in parallel and concatenated afterwards, like pigz does. Each chunk is primed with the end of the previous chunk,
+ * so that the compression ratio is almost the same as if the file was deflated at once.
+ * Archives larger than 4 GB or with more than 65535 entries use the ZIP64 extensions.
+ */
+public final class BackupArchiveWriter {
+	/** Files with these extensions are already compressed, hence deflating them would cost time without saving space */
+	private static final Set<String> COMPRESSED_FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+			"jpg", "jpeg", "png", "gif", "webp", "pack", "zip", "cbk", "gz", "mp3", "mp4", "avi", "mov", "mkv"));
+	private static final int CHUNK_SIZE = 1024 * 1024;
+	/** The window of the deflate algorithm, which is the amount of data a chunk is primed with */
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 4;
+	/** Entries larger than this use the ZIP64 extensions, leaving room for deflated data which turns out larger than the original */
+	private static final long ZIP64_ENTRY_THRESHOLD = Integer.MAX_VALUE;
+	private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+	
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final short ZIP64_EXTRA_FIELD_ID = 0x0001;
+	private static final short VERSION_DEFAULT = 20;
+	private static final short VERSION_ZIP64 = 45;
+	/** Bit 11 marks UTF-8 encoded entry names */
+	private static final short UTF8_FLAG = 0x0800;
+	private static final short METHOD_STORED = 0;
+	private static final short METHOD_DEFLATED = 8;
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+	
+	private BackupArchiveWriter() {
+		// use static methods
+	}
+	
+	/**
+	 * Collects all files within the source directory, keyed by their path relative to the directory.
+	 * @param sourceDirectory The directory whose files are collected.
+	 * @param excludeFileRegex Excludes files which match this regex. Null or empty string will match no file.
+	 * @return The files in the order in which they should be written to the archive.
+	 */
+	public static Map<String, File> collectEntries(File sourceDirectory, String excludeFileRegex) {
+		Map<String, File> entries = new LinkedHashMap<>();
+		collectEntries(sourceDirectory, "", excludeFileRegex, entries);
+		
+		return entries;
+	}
+	
+	private static void collectEntries(File directory, String parentName, String excludeFileRegex, Map<String, File> entries) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				collectEntries(file, parentName + file.getName() + "/", excludeFileRegex, entries);
+			} else if (excludeFileRegex == null || excludeFileRegex.isEmpty() || !file.getName().matches(excludeFileRegex)) {
+				entries.put(parentName + file.getName(), file);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the given files into a new zip archive.
+	 * @param entries The files to be written, keyed by their name within the archive. Directories are separated by '/'.
+	 * @param archiveFile The archive which is created or overwritten.
+	 * @throws IOException Exception raised if a file cannot be read, changes while it is read, or the archive cannot be written.
+	 */
+	public static void writeArchive(Map<String, File> entries, File archiveFile) throws IOException {
+		List<PendingEntry> pendingEntries = new ArrayList<>();
+		List<Chunk> chunks = new ArrayList<>();
+		for (Map.Entry<String, File> entry : entries.entrySet()) {
+			PendingEntry pendingEntry = new PendingEntry(entry.getKey(), entry.getValue());
+			pendingEntries.add(pendingEntry);
+			
+			if (pendingEntry.method == METHOD_DEFLATED) {
+				long offset = 0;
+				do {
+					int length = (int) Math.min(CHUNK_SIZE, pendingEntry.uncompressedSize - offset);
+					chunks.add(new Chunk(pendingEntry.file, offset, length, offset + length == pendingEntry.uncompressedSize));
+					offset += length;
+				} while (offset < pendingEntry.uncompressedSize);
+			}
+		}
+		
+		int numberOfThreads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+		ChunkQueue chunkQueue = new ChunkQueue(executorService, chunks, numberOfThreads * CHUNKS_IN_FLIGHT_PER_THREAD);
+		
+		try (FileChannel archiveChannel = FileChannel.open(archiveFile.toPath(), 
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			
+			for (PendingEntry pendingEntry : pendingEntries) {
+				// the chunks of the following entries are deflated while this entry is written
+				chunkQueue.fill();
+				
+				pendingEntry.localHeaderOffset = archiveChannel.position();
+				writeFully(archiveChannel, createLocalFileHeader(pendingEntry));
+				
+				long dataOffset = archiveChannel.position();
+				if (pendingEntry.method == METHOD_STORED) {
+					writeStoredData(archiveChannel, pendingEntry);
+				} else {
+					writeDeflatedData(archiveChannel, pendingEntry, chunkQueue);
+				}
+				pendingEntry.compressedSize = archiveChannel.position() - dataOffset;
+				
+				// the checksum and the compressed size are only known now
+				long endOfEntry = archiveChannel.position();
+				archiveChannel.position(pendingEntry.localHeaderOffset);
+				writeFully(archiveChannel, createLocalFileHeader(pendingEntry));
+				archiveChannel.position(endOfEntry);
+			}
+			
+			writeCentralDirectory(archiveChannel, pendingEntries);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Writing the archive " + archiveFile + " has been interrupted");
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+	
+	private static void writeStoredData(FileChannel archiveChannel, PendingEntry pendingEntry) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[CHUNK_SIZE];
+		
+		try (FileChannel sourceChannel = FileChannel.open(pendingEntry.file.toPath(), StandardOpenOption.READ)) {
+			long position = 0;
+			while (position < pendingEntry.uncompressedSize) {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, pendingEntry.uncompressedSize - position));
+				readFully(sourceChannel, byteBuffer, position, pendingEntry.file);
+				
+				crc.update(buffer, 0, byteBuffer.limit());
+				byteBuffer.flip();
+				writeFully(archiveChannel, byteBuffer);
+				position += byteBuffer.limit();
+			}
+		}
+		
+		pendingEntry.crc = crc.getValue();
+	}
+	
+	private static void writeDeflatedData(FileChannel archiveChannel, PendingEntry pendingEntry, ChunkQueue chunkQueue) 
+			throws IOException, InterruptedException {
+		
+		CRC32 crc = new CRC32();
+		DeflatedChunk deflatedChunk;
+		
+		do {
+			deflatedChunk = chunkQueue.take();
+			crc.update(deflatedChunk.uncompressedData);
+			writeFully(archiveChannel, ByteBuffer.wrap(deflatedChunk.compressedData, 0, deflatedChunk.compressedLength));
+		} while (!deflatedChunk.isLast);
+		
+		pendingEntry.crc = crc.getValue();
+	}
+	
+	private static ByteBuffer createLocalFileHeader(PendingEntry pendingEntry) {
+		boolean isZip64 = pendingEntry.uncompressedSize > ZIP64_ENTRY_THRESHOLD;
+		ByteBuffer header = allocate(LOCAL_FILE_HEADER_SIZE + pendingEntry.name.length + (isZip64 ? 20 : 0));
+		
+		header.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+		header.putShort(isZip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+		header.putShort(UTF8_FLAG);
+		header.putShort(pendingEntry.method);
+		header.putInt(pendingEntry.dosTime);
+		header.putInt((int) pendingEntry.crc);
+		header.putInt((int) (isZip64 ? ZIP64_MAGIC_VALUE : pendingEntry.compressedSize));
+		header.putInt((int) (isZip64 ? ZIP64_MAGIC_VALUE : pendingEntry.uncompressedSize));
+		header.putShort((short) pendingEntry.name.length);
+		header.putShort((short) (isZip64 ? 20 : 0));
+		header.put(pendingEntry.name);
+		
+		if (isZip64) {
+			header.putShort(ZIP64_EXTRA_FIELD_ID);
+			header.putShort((short) 16);
+			header.putLong(pendingEntry.uncompressedSize);
+			header.putLong(pendingEntry.compressedSize);
+		}
+		
+		header.flip();
+		return header;
+	}
+	
+	private static void writeCentralDirectory(FileChannel archiveChannel, List<PendingEntry> pendingEntries) throws IOException {
+		long centralDirectoryOffset = archiveChannel.position();
+		
+		for (PendingEntry pendingEntry : pendingEntries) {
+			// only those values which do not fit into their field are moved into the ZIP64 extra field
+			boolean isUncompressedSizeZip64 = pendingEntry.uncompressedSize >= ZIP64_MAGIC_VALUE;
+			boolean isCompressedSizeZip64 = pendingEntry.compressedSize >= ZIP64_MAGIC_VALUE;
+			boolean isOffsetZip64 = pendingEntry.localHeaderOffset >= ZIP64_MAGIC_VALUE;
+			int extraFieldDataLength = (isUncompressedSizeZip64 ? 8 : 0) + (isCompressedSizeZip64 ? 8 : 0) + (isOffsetZip64 ? 8 : 0);
+			int extraFieldLength = extraFieldDataLength == 0 ? 0 : 4 + extraFieldDataLength;
+			short version = extraFieldLength == 0 ? VERSION_DEFAULT : VERSION_ZIP64;
+			
+			ByteBuffer header = allocate(46 + pendingEntry.name.length + extraFieldLength);
+			header.putInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+			header.putShort(version);
+			header.putShort(version);
+			header.putShort(UTF8_FLAG);
+			header.putShort(pendingEntry.method);
+			header.putInt(pendingEntry.dosTime);
+			header.putInt((int) pendingEntry.crc);
+			header.putInt((int) (isCompressedSizeZip64 ? ZIP64_MAGIC_VALUE : pendingEntry.compressedSize));
+			header.putInt((int) (isUncompressedSizeZip64 ? ZIP64_MAGIC_VALUE : pendingEntry.uncompressedSize));
+			header.putShort((short) pendingEntry.name.length);
+			header.putShort((short) extraFieldLength);
+			header.putShort((short) 0); // comment length
+			header.putShort((short) 0); // disk number
+			header.putShort((short) 0); // internal attributes
+			header.putInt(0); // external attributes
+			header.putInt((int) (isOffsetZip64 ? ZIP64_MAGIC_VALUE : pendingEntry.localHeaderOffset));
+			header.put(pendingEntry.name);
+			
+			if (extraFieldLength != 0) {
+				header.putShort(ZIP64_EXTRA_FIELD_ID);
+				header.putShort((short) extraFieldDataLength);
+				if (isUncompressedSizeZip64) {
+					header.putLong(pendingEntry.uncompressedSize);
+				}
+				if (isCompressedSizeZip64) {
+					header.putLong(pendingEntry.compressedSize);
+				}
+				if (isOffsetZip64) {
+					header.putLong(pendingEntry.localHeaderOffset);
+				}
+			}
+			
+			header.flip();
+			writeFully(archiveChannel, header);
+		}
+		
+		long centralDirectoryEnd = archiveChannel.position();
+		long centralDirectorySize = centralDirectoryEnd - centralDirectoryOffset;
+		boolean isZip64 = pendingEntries.size() >= ZIP64_MAGIC_COUNT 
+				|| centralDirectoryOffset >= ZIP64_MAGIC_VALUE || centralDirectorySize >= ZIP64_MAGIC_VALUE;
+		
+		if (isZip64) {
+			ByteBuffer zip64End = allocate(56 + 20);
+			zip64End.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			zip64End.putLong(44); // size of the remaining record
+			zip64End.putShort(VERSION_ZIP64);
+			zip64End.putShort(VERSION_ZIP64);
+			zip64End.putInt(0); // number of this disk
+			zip64End.putInt(0); // disk with the central directory
+			zip64End.putLong(pendingEntries.size());
+			zip64End.putLong(pendingEntries.size());
+			zip64End.putLong(centralDirectorySize);
+			zip64End.putLong(centralDirectoryOffset);
+			
+			zip64End.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+			zip64End.putInt(0); // disk with the ZIP64 end of central directory
+			zip64End.putLong(centralDirectoryEnd);
+			zip64End.putInt(1); // total number of disks
+			
+			zip64End.flip();
+			writeFully(archiveChannel, zip64End);
+		}
+		
+		ByteBuffer end = allocate(22);
+		end.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		end.putShort((short) 0); // number of this disk
+		end.putShort((short) 0); // disk with the central directory
+		end.putShort((short) Math.min(pendingEntries.size(), ZIP64_MAGIC_COUNT));
+		end.putShort((short) Math.min(pendingEntries.size(), ZIP64_MAGIC_COUNT));
+		end.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC_VALUE));
+		end.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC_VALUE));
+		end.putShort((short) 0); // comment length
+		
+		end.flip();
+		writeFully(archiveChannel, end);
+	}
+	
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position, File file) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("The file " + file + " has been truncated while it was written to the archive");
+			}
+		}
+	}
+	
+	/** Converts the time to the MS-DOS format used by zip archives, with the time in the lower and the date in the upper half */
+	private static int toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		
+		return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21 | calendar.get(Calendar.DAY_OF_MONTH) << 16 
+				| calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+	}
+	
+	private static boolean isCompressed(String fileName) {
+		return COMPRESSED_FILE_EXTENSIONS.contains(FileSystemAccessWrapper.getFileExtension(fileName).toLowerCase());
+	}
+	
+	/** An entry of the archive, whose checksum, compressed size and offset are set while it is written */
+	private static final class PendingEntry {
+		private final byte[] name;
+		private final File file;
+		private final short method;
+		private final int dosTime;
+		private final long uncompressedSize;
+		private long compressedSize;
+		private long crc;
+		private long localHeaderOffset;
+		
+		private PendingEntry(String name, File file) {
+			this.name = name.getBytes(StandardCharsets.UTF_8);
+			this.file = file;
+			this.method = isCompressed(file.getName()) ? METHOD_STORED : METHOD_DEFLATED;
+			this.dosTime = toDosTime(file.lastModified());
+			this.uncompressedSize = file.length();
+		}
+	}
+	
+	/** A part of a file which is deflated independently of the other parts */
+	private static final class Chunk implements Callable<DeflatedChunk> {
+		private final File file;
+		private final long offset;
+		private final int length;
+		private final boolean isLast;
+		
+		private Chunk(File file, long offset, int length, boolean isLast) {
+			this.file = file;
+			this.offset = offset;
+			this.length = length;
+			this.isLast = isLast;
+		}
+		
+		@Override
+		public DeflatedChunk call() throws IOException {
+			int dictionaryLength = (int) Math.min(DICTIONARY_SIZE, offset);
+			byte[] data = new byte[dictionaryLength + length];
+			try (FileChannel sourceChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				readFully(sourceChannel, ByteBuffer.wrap(data), offset - dictionaryLength, file);
+			}
+			
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			try {
+				if (dictionaryLength > 0) {
+					deflater.setDictionary(data, 0, dictionaryLength);
+				}
+				deflater.setInput(data, dictionaryLength, length);
+				
+				// the last chunk ends the deflate stream, the others end on a byte boundary so that they can be concatenated
+				byte[] compressedData = new byte[length + length / 8 + 64];
+				int compressedLength = 0;
+				if (isLast) {
+					deflater.finish();
+				}
+				
+				while (true) {
+					if (compressedLength == compressedData.length) {
+						compressedData = Arrays.copyOf(compressedData, compressedData.length * 2);
+					}
+					
+					int availableSpace = compressedData.length - compressedLength;
+					int deflatedLength = isLast ? deflater.deflate(compressedData, compressedLength, availableSpace) 
+							: deflater.deflate(compressedData, compressedLength, availableSpace, Deflater.SYNC_FLUSH);
+					compressedLength += deflatedLength;
+					
+					if (isLast ? deflater.finished() : deflatedLength < availableSpace) {
+						break;
+					}
+				}
+				
+				return new DeflatedChunk(Arrays.copyOfRange(data, dictionaryLength, data.length), compressedData, compressedLength, isLast);
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+	
+	private static final class DeflatedChunk {
+		private final byte[] uncompressedData;
+		private final byte[] compressedData;
+		private final int compressedLength;
+		private final boolean isLast;
+		
+		private DeflatedChunk(byte[] uncompressedData, byte[] compressedData, int compressedLength, boolean isLast) {
+			this.uncompressedData = uncompressedData;
+			this.compressedData = compressedData;
+			this.compressedLength = compressedLength;
+			this.isLast = isLast;
+		}
+	}
+	
+	/** Submits the chunks in archive order, while limiting the number of deflated chunks held in memory */
+	private static final class ChunkQueue {
+		private final ExecutorService executorService;
+		private final List<Chunk> chunks;
+		private final int maximumChunksInFlight;
+		private final Deque<Future<DeflatedChunk>> chunksInFlight = new ArrayDeque<>();
+		private int nextChunkIndex = 0;
+		
+		private ChunkQueue(ExecutorService executorService, List<Chunk> chunks, int maximumChunksInFlight) {
+			this.executorService = executorService;
+			this.chunks = chunks;
+			this.maximumChunksInFlight = maximumChunksInFlight;
+		}
+		
+		private void fill() {
+			while (chunksInFlight.size() < maximumChunksInFlight && nextChunkIndex < chunks.size()) {
+				chunksInFlight.add(executorService.submit(chunks.get(nextChunkIndex++)));
+			}
+		}
+		
+		private DeflatedChunk take() throws IOException, InterruptedException {
+			fill();
+			
+			try {
+				DeflatedChunk deflatedChunk = chunksInFlight.remove().get();
+				fill();
+				
+				return deflatedChunk;
+			} catch (ExecutionException ee) {
+				throw ee.getCause() instanceof IOException ? (IOException) ee.getCause() : new IOException(ee.getCause());
+			}
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lists every file of an incremental backup together with its hash, size and modification time, and the archive of 
+ * the backup chain which contains its content. Every increment contains the manifest of the complete home directory,
+ * but only the content of those files which are not contained in a previous increment.
+ */
+public final class BackupManifest {
+	/** The name of the manifest within the archive of an increment */
+	public static final String MANIFEST_ENTRY_NAME = "backup-manifest.txt";
+	private static final String MANIFEST_HEADER = "# Sammelbox backup manifest 1";
+	private static final String SEPARATOR = "\t";
+	/** The fields of a line are the hash, size, modification time, archive name, name within the archive and the path */
+	private static final int NUMBER_OF_FIELDS = 6;
+	
+	/** The files of the backup keyed by their path relative to the home directory */
+	private final Map<String, ManifestEntry> entries = new LinkedHashMap<>();
+	
+	private BackupManifest() {
+	}
+	
+	/**
+	 * Creates the manifest of a new increment.
+	 * @param files The files of the home directory which are backed up, keyed by their path relative to the home directory.
+	 * @param previousManifest The manifest of the previous increment, or null if this is the first increment of the chain.
+	 * @param backupDirectory The directory of the backup chain. Files of previous increments are only referenced if their archive still exists.
+	 * @param archiveName The file name of the new increment.
+	 * @param filesToArchive Is filled with those files whose content needs to be written to the new increment.
+	 * @return The manifest of the new increment.
+	 * @throws IOException Exception raised if a new or changed file cannot be hashed.
+	 */
+	public static BackupManifest createIncrement(Map<String, File> files, BackupManifest previousManifest, 
+			File backupDirectory, String archiveName, Map<String, File> filesToArchive) throws IOException {
+		
+		BackupManifest manifest = new BackupManifest();
+		Map<String, ManifestEntry> previousEntriesByHash = new HashMap<>();
+		Set<String> existingArchiveNames = new HashSet<>();
+		if (previousManifest != null) {
+			for (ManifestEntry previousEntry : previousManifest.entries.values()) {
+				if (existingArchiveNames.contains(previousEntry.archiveName) || new File(backupDirectory, previousEntry.archiveName).exists()) {
+					existingArchiveNames.add(previousEntry.archiveName);
+					previousEntriesByHash.put(previousEntry.hash, previousEntry);
+				}
+			}
+		}
+		
+		for (Map.Entry<String, File> file : files.entrySet()) {
+			String path = file.getKey();
+			long size = file.getValue().length();
+			long lastModified = file.getValue().lastModified();
+			
+			// unchanged files are recognized without reading them
+			ManifestEntry previousEntry = previousManifest == null ? null : previousManifest.entries.get(path);
+			if (previousEntry != null && previousEntry.size == size && previousEntry.lastModified == lastModified 
+					&& existingArchiveNames.contains(previousEntry.archiveName)) {
+				manifest.entries.put(path, previousEntry);
+				continue;
+			}
+			
+			// moved or restored files are referenced if their content has already been backed up
+			String hash = PictureStore.computeContentHash(file.getValue());
+			ManifestEntry archivedEntry = previousEntriesByHash.get(hash);
+			if (archivedEntry != null && archivedEntry.size == size) {
+				manifest.entries.put(path, new ManifestEntry(hash, size, lastModified, archivedEntry.archiveName, archivedEntry.archivedPath));
+			} else {
+				manifest.entries.put(path, new ManifestEntry(hash, size, lastModified, archiveName, path));
+				filesToArchive.put(path, file.getValue());
+			}
+		}
+		
+		return manifest;
+	}
+	
+	/**
+	 * Reads the manifest of an increment.
+	 * @param archiveFile The archive of the increment.
+	 * @return The manifest, or null if the archive is a full backup without a manifest.
+	 * @throws IOException Exception raised if the archive or the manifest cannot be read.
+	 */
+	public static BackupManifest readFromArchive(File archiveFile) throws IOException {
+		try (ZipFile zipFile = new ZipFile(archiveFile)) {
+			ZipEntry manifestEntry = zipFile.getEntry(MANIFEST_ENTRY_NAME);
+			if (manifestEntry == null) {
+				return null;
+			}
+			
+			try (InputStream inputStream = zipFile.getInputStream(manifestEntry)) {
+				return read(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+			}
+		}
+	}
+	
+	/**
+	 * Reads a manifest which has been extracted from an increment.
+	 * @param manifestFile The manifest file.
+	 * @return The manifest.
+	 * @throws IOException Exception raised if the manifest cannot be read or is malformed.
+	 */
+	public static BackupManifest readFromFile(File manifestFile) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			return read(reader);
+		}
+	}
+	
+	private static BackupManifest read(BufferedReader reader) throws IOException {
+		if (!MANIFEST_HEADER.equals(reader.readLine())) {
+			throw new IOException("The backup manifest has an unknown format");
+		}
+		
+		BackupManifest manifest = new BackupManifest();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String[] fields = line.split(SEPARATOR, NUMBER_OF_FIELDS);
+			if (fields.length != NUMBER_OF_FIELDS) {
+				throw new IOException("The backup manifest contains a malformed line: " + line);
+			}
+			
+			try {
+				manifest.entries.put(fields[5], new ManifestEntry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3], fields[4]));
+			} catch (NumberFormatException nfe) {
+				throw new IOException("The backup manifest contains a malformed line: " + line, nfe);
+			}
+		}
+		
+		return manifest;
+	}
+	
+	/**
+	 * Writes the manifest to the specified file.
+	 * @param manifestFile The file which is created or overwritten.
+	 * @throws IOException Exception raised if the file cannot be written.
+	 */
+	public void writeToFile(File manifestFile) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(MANIFEST_HEADER);
+			writer.newLine();
+			
+			for (Map.Entry<String, ManifestEntry> entry : entries.entrySet()) {
+				ManifestEntry manifestEntry = entry.getValue();
+				writer.write(manifestEntry.hash + SEPARATOR + manifestEntry.size + SEPARATOR + manifestEntry.lastModified + SEPARATOR 
+						+ manifestEntry.archiveName + SEPARATOR + manifestEntry.archivedPath + SEPARATOR + entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+	
+	/**
+	 * Extracts all files of the manifest which are contained in previous increments of the chain. 
+	 * The files of the increment itself are expected to be extracted already.
+	 * @param backupDirectory The directory containing the archives of the backup chain.
+	 * @param archiveName The file name of the increment to which this manifest belongs.
+	 * @param targetDirectory The directory to which the files are extracted.
+	 * @throws IOException Exception raised if an archive of the chain is missing or cannot be read or a path points outside of the target directory.
+	 */
+	public void extractFilesOfPreviousIncrements(File backupDirectory, String archiveName, File targetDirectory) throws IOException {
+		Map<String, List<String>> pathsByArchiveName = new LinkedHashMap<>();
+		for (Map.Entry<String, ManifestEntry> entry : entries.entrySet()) {
+			String entryArchiveName = entry.getValue().archiveName;
+			if (!entryArchiveName.equals(archiveName)) {
+				if (!pathsByArchiveName.containsKey(entryArchiveName)) {
+					pathsByArchiveName.put(entryArchiveName, new ArrayList<String>());
+				}
+				pathsByArchiveName.get(entryArchiveName).add(entry.getKey());
+			}
+		}
+		
+		for (Map.Entry<String, List<String>> archive : pathsByArchiveName.entrySet()) {
+			File archiveFile = new File(backupDirectory, archive.getKey());
+			if (!archiveFile.exists()) {
+				throw new IOException("The increment " + archiveFile + " of the backup chain is missing");
+			}
+			
+			Map<File, String> entryNames = new LinkedHashMap<>();
+			for (String path : archive.getValue()) {
+				entryNames.put(new File(targetDirectory, path), entries.get(path).archivedPath);
+			}
+			BackupArchiveReader.extractEntries(archiveFile, targetDirectory, entryNames);
+		}
+	}
+	
+	private static final class ManifestEntry {
+		private final String hash;
+		private final long size;
+		private final long lastModified;
+		/** The file name of the increment which contains the content */
+		private final String archiveName;
+		/** The name of the content within the archive, which differs from the path if the file has been moved since */
+		private final String archivedPath;
+		
+		private ManifestEntry(String hash, long size, long lastModified, String archiveName, String archivedPath) {
+			this.hash = hash;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.archiveName = archiveName;
+			this.archivedPath = archivedPath;
+		}
+	}
+}
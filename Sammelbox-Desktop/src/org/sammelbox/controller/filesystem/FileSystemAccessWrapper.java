@@ -19,6 +19,7 @@
 package org.sammelbox.controller.filesystem;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -26,14 +27,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
@@ -42,7 +40,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class FileSystemAccessWrapper {
-	private static final int ONE_KB_BUFFER_SIZE = 1024;
 	private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemAccessWrapper.class);
 	private static final boolean OVERWRITE_EXISITING_FILES = true;	
 	/** A simple regular expression.. to prevent album names whose folders of the same name cause problems on the filesystem
@@ -74,6 +71,7 @@ public final class FileSystemAccessWrapper {
 				
 		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getActiveHomeDir());
 		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getAlbumPicturesDir());
+		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getPictureStoreDir());
 		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getThumbnailsDir());
 		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getAppDataDir());
 		errorOccurred = errorOccurred || createDirectoryAndLogError(FileSystemLocations.getBackupDir());
@@ -123,15 +121,9 @@ public final class FileSystemAccessWrapper {
 		File resource = new File(outputResourcePath);
 		
 		if (!resource.exists() || OVERWRITE_EXISITING_FILES) {			
-			try (InputStream istream = FileSystemAccessWrapper.class.getClassLoader().getResourceAsStream(resourceName);
-				 OutputStream ostream = new FileOutputStream(outputResourcePath);)
+			try (InputStream istream = FileSystemAccessWrapper.class.getClassLoader().getResourceAsStream(resourceName))
 			{
-				byte buffer[] = new byte[ONE_KB_BUFFER_SIZE];
-				int length;
-
-				while ((length=istream.read(buffer)) > 0) {
-					ostream.write(buffer, 0, length);
-				}
+				FileTransfer.copyStreamToFile(istream, resource);
 			} catch (IOException ioe) {
 				LOGGER.error("An error occured while extracting the resource (" + resourceName + ") to " + outputResourcePath, ioe);
 			}
@@ -191,7 +183,16 @@ public final class FileSystemAccessWrapper {
 	 * @throws IOException Exception raised if a problem is encountered during the copy process.
 	 */
 	public static void copyDirectory(File sourceLocation , File targetLocation, String excludeFileRegex) throws IOException {
-
+		// the directories are created first, so that the files can be copied in parallel afterwards
+		List<File[]> filesToCopy = new ArrayList<>();
+		createDirectoriesAndCollectFiles(sourceLocation, targetLocation, excludeFileRegex, filesToCopy);
+		
+		FileTransfer.copyFilesInParallel(filesToCopy);
+	}
+	
+	private static void createDirectoriesAndCollectFiles(File sourceLocation , File targetLocation, 
+			String excludeFileRegex, List<File[]> filesToCopy) throws IOException {
+		
 		if (sourceLocation.isDirectory()) {
 			if (!targetLocation.exists()) {
 				targetLocation.mkdir();
@@ -199,25 +200,19 @@ public final class FileSystemAccessWrapper {
 
 			String[] children = sourceLocation.list();
 			for (int i=0; i<children.length; i++) {
-				copyDirectory(	new File(sourceLocation, children[i]), new File(targetLocation, children[i]), excludeFileRegex);
+				createDirectoriesAndCollectFiles(new File(sourceLocation, children[i]), new File(targetLocation, children[i]), excludeFileRegex, filesToCopy);
 			}
 		} else {
 			if (excludeFileRegex != null && !excludeFileRegex.isEmpty() && sourceLocation.getCanonicalFile().getName().matches(excludeFileRegex)) {
 				return;
 			}
-			copyFile(sourceLocation, targetLocation);
+			filesToCopy.add(new File[] { sourceLocation, targetLocation });
 		}
 	}
 
 	public static void copyFile(File sourceLocation , File targetLocation) throws IOException {
-		try (InputStream in = new FileInputStream(sourceLocation);
-			 OutputStream out = new FileOutputStream(targetLocation);)
-		{
-			byte[] buf = new byte[ONE_KB_BUFFER_SIZE];
-			int len;
-			while ((len = in.read(buf)) > 0) {
-				out.write(buf, 0, len);
-			}
+		try {
+			FileTransfer.copyFile(sourceLocation, targetLocation);
 		} catch (IOException ioe) {
 			LOGGER.error("An error occured while copying the file", ioe);
 		}
@@ -240,6 +235,9 @@ public final class FileSystemAccessWrapper {
 	 * @return True if either the folder was succesfully renamed or the new folder was successfully create. False if either operation failed.
 	 */
 	public static boolean renameAlbumPictureFolder(String oldAlbumName, String newAlbumName) {
+		// The thumbnail pack is renamed together with the album folder
+		ThumbnailPack.closeAll();
+		
 		// Get the standard old picturefolderpath
 		File oldalbumPicDir = new File (getFilePathForAlbum(oldAlbumName));
 		// Get the standard new picturefolderpath
@@ -277,19 +275,13 @@ public final class FileSystemAccessWrapper {
 
 			// being here means that we have a file and not a directory
 			try {
-				byte[] buffer = new byte[ONE_KB_BUFFER_SIZE];
-				FileInputStream fileInputStream = new FileInputStream(files[i]);
 				zipOutputStream.putNextEntry(new ZipEntry(parentName + files[i].getName()));
 
 				// Store the file inside the zip
-				int length;
-				while((length = fileInputStream.read(buffer)) > 0) {
-					zipOutputStream.write(buffer, 0, length);
-				}
+				FileTransfer.copyFileToStream(files[i], zipOutputStream);
 
-				// close current zip entry and the input stream of the current file
+				// close current zip entry
 				zipOutputStream.closeEntry();
-				fileInputStream.close();
 			}
 			catch(IOException ioe){
 				LOGGER.error("Adding folder {} to zip file failed.", ioe);				
@@ -304,8 +296,9 @@ public final class FileSystemAccessWrapper {
 	 */
 	public static void zipFolderToFile(String folderLocation, String zipLocation) {
 		try {
+			// the deflater writes small chunks, which are collected before they are written to the file
 			FileOutputStream fileOutputStream = new FileOutputStream(zipLocation);
-			ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream);
+			ZipOutputStream zipOutputStream = new ZipOutputStream(new BufferedOutputStream(fileOutputStream, FileTransfer.STREAM_BUFFER_SIZE));
 
 			File folderLocationFile = new File(folderLocation);
 			addDirectory(zipOutputStream, "", folderLocationFile);
@@ -324,40 +317,10 @@ public final class FileSystemAccessWrapper {
 	 */
 	public static void unzipFileToFolder(String zipLocation, String folderLocation) {		
 		try {
-			ZipFile zipFile = new ZipFile(new File(zipLocation), ZipFile.OPEN_READ);
-
-			Enumeration<? extends ZipEntry> zipFileEntries = zipFile.entries();
-
-			while (zipFileEntries.hasMoreElements()) {
-				ZipEntry entry = (ZipEntry) zipFileEntries.nextElement();
-
-				if (!entry.isDirectory()) {
-					File destFile = new File(folderLocation, entry.getName());
-					File destinationParent = destFile.getParentFile();
-
-					destinationParent.mkdirs();
-
-					try (FileOutputStream fileOutputStream = new FileOutputStream(destFile);
-						 InputStream inputStream = zipFile.getInputStream(entry);) {
-	
-						// Copy the bits from inputStream to fileOutputStream
-						byte[] buf = new byte[ONE_KB_BUFFER_SIZE];
-						int len;
-	
-						while ((len = inputStream.read(buf)) > 0) {
-							fileOutputStream.write(buf, 0, len);
-						}
-					} catch (IOException ioe) {
-						LOGGER.error("An error occured while unzipping " + zipLocation + " to " + folderLocation, ioe);
-					}
-				}
-			}
-			
-			zipFile.close();
+			BackupArchiveReader.extractAll(new File(zipLocation), new File(folderLocation));
 		} catch (IOException ioe) {
-			LOGGER.error("An error occured while unziping the archive to the folder", ioe);
+			LOGGER.error("An error occured while unzipping " + zipLocation + " to " + folderLocation, ioe);
 		}
-
 	}
 
 	/**
@@ -405,6 +368,10 @@ public final class FileSystemAccessWrapper {
 	 * The home directory as well as the database will still exist after calling this method. 
 	 */
 	public static void clearHomeDirectory() {	
+		// The pictures must not be moved while they are deleted
+		PictureStoreMigration.stop();
+		ThumbnailPack.closeAll();
+		
 		File[] files = new File(FileSystemLocations.getActiveHomeDir()).listFiles();
 
 		for (int i=0; i<files.length; i++) {
@@ -45,6 +45,7 @@ public final class FileSystemLocations {
 	public static String getThumbnailsDir() 		{ return activeHomeDir + File.separatorChar + "thumbnails"; }
 	public static String getBackupDir() 			{ return activeHomeDir + File.separatorChar + "backups"; }
 	public static String getAlbumPicturesDir()		{ return activeHomeDir + File.separatorChar + "album-pictures"; }
+	public static String getPictureStoreDir()		{ return activeHomeDir + File.separatorChar + "picture-store"; }
 	public static String getDatabaseFile() 			{ return activeHomeDir + File.separatorChar + DATABASE_NAME; }
 	public static String getDatabaseRestoreFile() 	{ return activeHomeDir + File.separatorChar + DATABASE_TO_RESTORE_NAME; }
 	
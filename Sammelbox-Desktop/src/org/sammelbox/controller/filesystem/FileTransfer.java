@@ -0,0 +1,192 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** 
+ * Moves file contents with as few copies as possible. Files are copied by the operating system through
+ * FileChannel.transferTo, while streams (e.g. zip entries or resources) are copied through a large buffer per thread.
+ */
+public final class FileTransfer {
+	/** java.io streams only accept arrays, hence a direct buffer would add another copy instead of avoiding one */
+	static final int STREAM_BUFFER_SIZE = 256 * 1024;
+	/** Some platforms fail to transfer more than 2 GB at once, and a smaller chunk keeps the transfer interruptible */
+	private static final long MAX_TRANSFER_SIZE = 64L * 1024 * 1024;
+	/** More threads than this do not speed up copying files located on the same disk */
+	private static final int MAX_PARALLEL_TRANSFERS = 4;
+	private static final ThreadLocal<byte[]> STREAM_BUFFER = new ThreadLocal<byte[]>() {
+		@Override
+		protected byte[] initialValue() {
+			return new byte[STREAM_BUFFER_SIZE];
+		}
+	};
+	
+	private FileTransfer() {
+		// use static methods
+	}
+	
+	/**
+	 * Copies the source file to the target file, which is overwritten if it exists. The copy is aborted between two chunks 
+	 * if the calling thread has been interrupted.
+	 * @param sourceFile The file to be copied.
+	 * @param targetFile The file to which the content is copied.
+	 * @throws IOException Exception raised if either file cannot be accessed or if the calling thread has been interrupted.
+	 */
+	public static void copyFile(File sourceFile, File targetFile) throws IOException {
+		try (FileChannel sourceChannel = new FileInputStream(sourceFile).getChannel();
+			 FileChannel targetChannel = new FileOutputStream(targetFile).getChannel()) {
+			
+			long size = sourceChannel.size();
+			long position = 0;
+			while (position < size) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("Copying " + sourceFile + " has been interrupted");
+				}
+				
+				long transferred = sourceChannel.transferTo(position, Math.min(MAX_TRANSFER_SIZE, size - position), targetChannel);
+				if (transferred <= 0) {
+					// Either the source file has been truncated in the meantime or the platform cannot transfer it directly
+					copyThroughBuffer(sourceFile, sourceChannel, position, targetChannel);
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+	
+	/** Copies the rest of the source channel from the given position onwards to the current position of the target channel */
+	private static void copyThroughBuffer(File sourceFile, FileChannel sourceChannel, long position, FileChannel targetChannel) throws IOException {
+		ByteBuffer byteBuffer = ByteBuffer.wrap(STREAM_BUFFER.get());
+		sourceChannel.position(position);
+		
+		while (sourceChannel.read(byteBuffer) != -1) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Copying " + sourceFile + " has been interrupted");
+			}
+			
+			byteBuffer.flip();
+			while (byteBuffer.hasRemaining()) {
+				targetChannel.write(byteBuffer);
+			}
+			byteBuffer.clear();
+		}
+	}
+	
+	/**
+	 * Copies the given files in parallel. The first failure is thrown after all copies have ended.
+	 * @param sourceAndTargetFiles Pairs of a source file and the target file to which it should be copied.
+	 * @throws IOException Exception raised if at least one of the files could not be copied.
+	 */
+	public static void copyFilesInParallel(List<File[]> sourceAndTargetFiles) throws IOException {
+		if (sourceAndTargetFiles.isEmpty()) {
+			return;
+		}
+		
+		int numberOfThreads = Math.min(Math.min(MAX_PARALLEL_TRANSFERS, Runtime.getRuntime().availableProcessors()), sourceAndTargetFiles.size());
+		ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+		
+		try {
+			List<Future<Void>> copies = new ArrayList<>();
+			for (final File[] sourceAndTargetFile : sourceAndTargetFiles) {
+				copies.add(executorService.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						copyFile(sourceAndTargetFile[0], sourceAndTargetFile[1]);
+						return null;
+					}
+				}));
+			}
+			
+			IOException firstFailure = null;
+			for (Future<Void> copy : copies) {
+				try {
+					copy.get();
+				} catch (ExecutionException ee) {
+					if (firstFailure == null) {
+						firstFailure = ee.getCause() instanceof IOException ? (IOException) ee.getCause() : new IOException(ee.getCause());
+					}
+				}
+			}
+			
+			if (firstFailure != null) {
+				throw firstFailure;
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Copying the files has been interrupted");
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Writes the remaining content of the input stream to the target file, which is overwritten if it exists.
+	 * The input stream is not closed.
+	 * @param inputStream The stream whose content is written.
+	 * @param targetFile The file to which the content is written.
+	 * @throws IOException Exception raised if the stream cannot be read or the file cannot be written.
+	 */
+	public static void copyStreamToFile(InputStream inputStream, File targetFile) throws IOException {
+		try (FileChannel targetChannel = new FileOutputStream(targetFile).getChannel()) {
+			byte[] buffer = STREAM_BUFFER.get();
+			
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+				while (byteBuffer.hasRemaining()) {
+					targetChannel.write(byteBuffer);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes the content of the source file to the output stream. The output stream is neither flushed nor closed.
+	 * @param sourceFile The file whose content is written.
+	 * @param outputStream The stream to which the content is written.
+	 * @throws IOException Exception raised if the file cannot be read or the stream cannot be written.
+	 */
+	public static void copyFileToStream(File sourceFile, OutputStream outputStream) throws IOException {
+		try (InputStream inputStream = new FileInputStream(sourceFile)) {
+			byte[] buffer = STREAM_BUFFER.get();
+			
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, length);
+			}
+		}
+	}
+}
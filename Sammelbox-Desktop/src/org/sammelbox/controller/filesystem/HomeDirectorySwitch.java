@@ -0,0 +1,116 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replaces the content of the home directory with the content of a staging directory by renaming files and folders.
+ * The previous content is moved aside and every rename is recorded, so that the switch can be reverted completely.
+ * The lock file, which is held by the running application, is kept in place, hence the folder containing it is switched
+ * file by file instead of being renamed as a whole.
+ */
+public final class HomeDirectorySwitch {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HomeDirectorySwitch.class);
+	
+	private final File stagingDirectory;
+	private final File homeDirectory;
+	private final File previousHomeDirectory;
+	private final File keptFile;
+	/** The performed renames as pairs of source and target, in the order in which they have been performed */
+	private final List<File[]> renames = new ArrayList<>();
+	
+	/**
+	 * @param stagingDirectory The directory whose content replaces the content of the home directory. It must be located on the same file system.
+	 * @param homeDirectory The home directory.
+	 * @param previousHomeDirectory The directory to which the previous content of the home directory is moved. It must not exist yet.
+	 * @param keptFile A file within the home directory which stays in place, or null if all files are switched.
+	 */
+	public HomeDirectorySwitch(File stagingDirectory, File homeDirectory, File previousHomeDirectory, File keptFile) {
+		this.stagingDirectory = stagingDirectory.getAbsoluteFile();
+		this.homeDirectory = homeDirectory.getAbsoluteFile();
+		this.previousHomeDirectory = previousHomeDirectory.getAbsoluteFile();
+		this.keptFile = keptFile == null ? null : keptFile.getAbsoluteFile();
+	}
+	
+	/**
+	 * Moves the content of the home directory aside and the content of the staging directory into the home directory.
+	 * If a rename fails, all renames performed so far are reverted before the exception is thrown.
+	 * @throws IOException Exception raised if a file or folder cannot be renamed.
+	 */
+	public void apply() throws IOException {
+		try {
+			moveContent(homeDirectory, previousHomeDirectory);
+			moveContent(stagingDirectory, homeDirectory);
+		} catch (IOException ioe) {
+			revert();
+			throw ioe;
+		}
+	}
+	
+	/**
+	 * Reverts all renames, so that the home directory and the staging directory contain their original content again.
+	 * @throws IOException Exception raised if a file or folder cannot be renamed back.
+	 */
+	public void revert() throws IOException {
+		for (int i=renames.size()-1; i>=0; i--) {
+			File[] rename = renames.get(i);
+			Files.move(rename[1].toPath(), rename[0].toPath(), StandardCopyOption.ATOMIC_MOVE);
+			renames.remove(i);
+		}
+	}
+	
+	private void moveContent(File sourceDirectory, File targetDirectory) throws IOException {
+		if (!targetDirectory.isDirectory() && !targetDirectory.mkdirs()) {
+			throw new IOException("The directory " + targetDirectory + " cannot be created");
+		}
+		
+		File[] files = sourceDirectory.listFiles();
+		if (files == null) {
+			throw new IOException("The directory " + sourceDirectory + " cannot be read");
+		}
+		
+		for (File file : files) {
+			File targetFile = new File(targetDirectory, file.getName());
+			
+			if (file.equals(keptFile) || targetFile.equals(keptFile)) {
+				LOGGER.debug("{} is kept in place", keptFile);
+			} else if (isAncestorOfKeptFile(file) || isAncestorOfKeptFile(targetFile)) {
+				// the folder containing the kept file stays in place, hence its content is moved instead
+				moveContent(file, targetFile);
+			} else {
+				Files.move(file.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				renames.add(new File[] { file, targetFile });
+			}
+		}
+	}
+	
+	private boolean isAncestorOfKeptFile(File file) {
+		return keptFile != null && keptFile.getPath().startsWith(file.getPath() + File.separator);
+	}
+}
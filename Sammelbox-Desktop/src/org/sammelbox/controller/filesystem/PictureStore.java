@@ -0,0 +1,238 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+import org.sammelbox.model.album.AlbumItemPicture;
+
+/**
+ * Stores pictures under the hash of their content, so that a picture which is added several times (e.g. to different items 
+ * or albums) is only stored once. The originals are kept in the picture store, their renditions in the thumbnail folder. 
+ * The files are shared between all pictures with the same content, hence they must only be deleted once the last 
+ * reference to them has been removed. Pictures which have been handed out but not yet saved hold a pending reference, 
+ * which keeps their files until the picture is either saved or discarded.
+ * Within each folder, the files are spread over a two-level fan-out of subfolders (e.g. thumbnails/9f/86/9f86d08...png), 
+ * since lookups and listings of folders containing hundreds of thousands of files are slow.
+ */
+public final class PictureStore {
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final String HEXADECIMAL_DIGITS = "0123456789abcdef";
+	private static final String CONTENT_ADDRESSED_NAME_REGEX = "^[0-9a-f]{64}(\\.\\w+)?$";
+	private static final String SHARD_KEY_REGEX = "^[0-9a-f]{4}.*";
+	private static final int SHARD_KEY_LENGTH = 4;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** Prevents that a picture is moved into the fan-out while it is deleted */
+	static final Object PICTURE_FILE_LOCK = new Object();
+	/** The pictures which have been handed out, but have neither been saved nor discarded yet */
+	private static final Set<AlbumItemPicture> PENDING_PICTURES = Collections.newSetFromMap(new IdentityHashMap<AlbumItemPicture, Boolean>());
+	
+	private PictureStore() {
+		// use static methods
+	}
+	
+	/** Computes the hexadecimal SHA-256 hash of the content of the given file */
+	public static String computeContentHash(File file) throws IOException {
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IOException("The " + HASH_ALGORITHM + " algorithm is not available", ex);
+		}
+		
+		try (InputStream inputStream = new FileInputStream(file)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int length;
+			while ((length = inputStream.read(buffer)) > 0) {
+				messageDigest.update(buffer, 0, length);
+			}
+		}
+		
+		StringBuilder hash = new StringBuilder();
+		for (byte hashByte : messageDigest.digest()) {
+			hash.append(HEXADECIMAL_DIGITS.charAt((hashByte >> 4) & 0xF));
+			hash.append(HEXADECIMAL_DIGITS.charAt(hashByte & 0xF));
+		}
+		
+		return hash.toString();
+	}
+	
+	/** Returns true if the original picture is stored in the picture store. Pictures added by previous versions are stored 
+	 * within the folder of their album under a random name instead */
+	public static boolean isContentAddressed(String originalPictureName) {
+		return originalPictureName != null && originalPictureName.matches(CONTENT_ADDRESSED_NAME_REGEX);
+	}
+	
+	/** Returns the name of the original picture with the given content hash, e.g. 9f86d08...0f00a08.jpg 
+	 * @param extension the extension of the picture file. The same content with different extensions is stored separately */
+	public static String getOriginalPictureName(String contentHash, String extension) {
+		return contentHash + (extension.isEmpty() ? "" : "." + extension.toLowerCase(Locale.ENGLISH));
+	}
+	
+	/** Returns the name of the thumbnail of the given original picture */
+	public static String getThumbnailPictureName(String originalPictureName) {
+		return getRenditionBaseName(originalPictureName) + ".png";
+	}
+	
+	/** Returns the name of the small rendition of the given original picture */
+	public static String getSmallPictureName(String originalPictureName) {
+		return getRenditionBaseName(originalPictureName) + "-small.png";
+	}
+	
+	/** Returns the name of the large rendition of the given original picture
+	 * @param extension the extension of the rendition (without the dot) */
+	public static String getLargePictureName(String originalPictureName, String extension) {
+		return getRenditionBaseName(originalPictureName) + "-large." + extension;
+	}
+	
+	/** Returns the path of the given original picture within the picture store */
+	public static String getOriginalPicturePath(String originalPictureName) {
+		return getShardedPath(FileSystemLocations.getPictureStoreDir(), originalPictureName);
+	}
+	
+	/** Returns the path of the given rendition within the thumbnail folder */
+	public static String getRenditionPath(String renditionPictureName) {
+		return getShardedPath(FileSystemLocations.getThumbnailsDir(), renditionPictureName);
+	}
+	
+	/** Returns the file to which the given rendition is written. Its subfolder is created if necessary */
+	public static File getRenditionFileForWriting(String renditionPictureName) throws IOException {
+		return getShardedFileForWriting(FileSystemLocations.getThumbnailsDir(), renditionPictureName);
+	}
+	
+	/** Returns the path of the file within the fan-out of the given folder. Files which have not yet been moved 
+	 * into the fan-out (see PictureStoreMigration) are still found directly within the folder 
+	 * @param directory the path of the folder containing the fan-out
+	 * @param fileName the name of the file */
+	public static String getShardedPath(String directory, String fileName) {
+		File shardedFile = getShardedFile(directory, fileName);
+		
+		if (!shardedFile.exists()) {
+			File unshardedFile = new File(directory, fileName);
+			if (unshardedFile.exists()) {
+				return unshardedFile.getPath();
+			}
+		}
+		
+		return shardedFile.getPath();
+	}
+	
+	/** Returns the location of the file within the fan-out of the given folder, regardless whether it exists */
+	static File getShardedFile(String directory, String fileName) {
+		String shardKey = getShardKey(fileName);
+		
+		return new File(directory + File.separatorChar + shardKey.substring(0, SHARD_KEY_LENGTH / 2) + 
+				File.separatorChar + shardKey.substring(SHARD_KEY_LENGTH / 2) + File.separatorChar + fileName);
+	}
+	
+	/** Returns the location of the file within the fan-out of the given folder. Its subfolder is created if necessary */
+	static File getShardedFileForWriting(String directory, String fileName) throws IOException {
+		File shardedFile = getShardedFile(directory, fileName);
+		
+		if (!shardedFile.getParentFile().isDirectory() && !shardedFile.getParentFile().mkdirs() && !shardedFile.getParentFile().isDirectory()) {
+			throw new IOException("The folder " + shardedFile.getParent() + " could not be created");
+		}
+		
+		return shardedFile;
+	}
+	
+	/** Content hashes and uuids already start with evenly distributed hexadecimal digits, hence these are used directly. 
+	 * The fan-out of all other names is derived from their hash code. */
+	private static String getShardKey(String fileName) {
+		String lowerCaseFileName = fileName.toLowerCase(Locale.ENGLISH);
+		if (lowerCaseFileName.matches(SHARD_KEY_REGEX)) {
+			return lowerCaseFileName.substring(0, SHARD_KEY_LENGTH);
+		}
+		
+		return String.format("%08x", fileName.hashCode()).substring(0, SHARD_KEY_LENGTH);
+	}
+	
+	/** Keeps the files of the picture until its pending reference is released. Must be called before it is checked 
+	 * whether the files exist, so that they cannot be deleted in between */
+	public static void addPendingReference(AlbumItemPicture picture) {
+		synchronized (PICTURE_FILE_LOCK) {
+			PENDING_PICTURES.add(picture);
+		}
+	}
+	
+	/** Releases the pending reference of the picture once it has been saved or discarded
+	 * @return true if the picture held a pending reference, false if it has been released already */
+	public static boolean releasePendingReference(AlbumItemPicture picture) {
+		synchronized (PICTURE_FILE_LOCK) {
+			return PENDING_PICTURES.remove(picture);
+		}
+	}
+	
+	/** Forgets all pending references. Must be called whenever the underlying database is exchanged (e.g. restore, new connection) */
+	public static void clearPendingReferences() {
+		synchronized (PICTURE_FILE_LOCK) {
+			PENDING_PICTURES.clear();
+		}
+	}
+	
+	/** Deletes the original and all renditions of the given picture, unless a pending picture shares them */
+	public static void deletePictureFiles(AlbumItemPicture picture) {
+		synchronized (PICTURE_FILE_LOCK) {
+			for (AlbumItemPicture pendingPicture : PENDING_PICTURES) {
+				if (pendingPicture.getOriginalPictureName().equals(picture.getOriginalPictureName())) {
+					return;
+				}
+			}
+			
+			for (String picturePath : picture.getAllPicturePaths()) {
+				FileSystemAccessWrapper.deleteFile(picturePath);
+			}
+		}
+	}
+	
+	/** Copies the picture into the store. The copy is written to a temporary file first, hence the stored original 
+	 * is either complete or does not exist at all. An existing original is not overwritten, since it has the same content. */
+	public static void storeOriginalPicture(File pictureFile, String originalPictureName) throws IOException {
+		if (new File(getOriginalPicturePath(originalPictureName)).exists()) {
+			return;
+		}
+		
+		File storedPicture = getShardedFileForWriting(FileSystemLocations.getPictureStoreDir(), originalPictureName);
+		File temporaryPicture = File.createTempFile(originalPictureName, ".tmp", storedPicture.getParentFile());
+		try {
+			Files.copy(pictureFile.toPath(), temporaryPicture.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temporaryPicture.toPath(), storedPicture.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryPicture.toPath());
+		}
+	}
+	
+	/** The renditions are named after the original including its extension, since the same content may be stored 
+	 * with different extensions, each of which is referenced separately */
+	private static String getRenditionBaseName(String originalPictureName) {
+		return originalPictureName.replace('.', '-');
+	}
+}
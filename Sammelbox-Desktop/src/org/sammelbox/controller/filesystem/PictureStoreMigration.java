@@ -0,0 +1,166 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves the pictures which have been stored directly within the thumbnail folder, the picture store and the album folders 
+ * by previous versions into the fan-out of their folder (see PictureStore). The pictures are moved in small batches on a 
+ * background thread while the application is running. Pictures which have not been moved yet are still found in their 
+ * previous location, and a migration which has been stopped continues with the remaining pictures when it is started again.
+ */
+public final class PictureStoreMigration {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PictureStoreMigration.class);
+	private static final int PICTURES_PER_BATCH = 200;
+	/** The pause between two batches leaves the disk to the user interface */
+	private static final long PAUSE_BETWEEN_BATCHES_IN_MILLISECONDS = 100;
+	
+	private static Thread migrationThread = null;
+	
+	private PictureStoreMigration() {
+		// use static methods
+	}
+	
+	/** Starts moving the pictures of the active home directory in the background. A running migration is stopped first. */
+	public static synchronized void start() {
+		stop();
+		
+		migrationThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					int numberOfMovedPictures = migrate();
+					if (numberOfMovedPictures > 0) {
+						LOGGER.info("{} pictures have been moved into the fan-out of their folder", numberOfMovedPictures);
+					}
+				} catch (InterruptedException ex) {
+					LOGGER.info("Moving the pictures into the fan-out of their folder has been stopped");
+				}
+			}
+		}, "Picture store migration");
+		migrationThread.setDaemon(true);
+		migrationThread.setPriority(Thread.MIN_PRIORITY);
+		migrationThread.start();
+	}
+	
+	/** Stops the running migration (if any) and waits until the picture which is currently moved has been moved. 
+	 * Must be called before the pictures of the active home directory are deleted or replaced. */
+	public static synchronized void stop() {
+		if (migrationThread != null) {
+			migrationThread.interrupt();
+			
+			try {
+				migrationThread.join();
+			} catch (InterruptedException ex) {
+				LOGGER.warn("Interrupted while waiting for the picture store migration to stop", ex);
+				Thread.currentThread().interrupt();
+			}
+			
+			migrationThread = null;
+		}
+	}
+	
+	/** Moves all pictures of the active home directory into the fan-out of their folder on the calling thread
+	 * @return the number of moved pictures
+	 * @throws InterruptedException if the calling thread has been interrupted */
+	public static int migrate() throws InterruptedException {
+		List<String> directories = new ArrayList<String>();
+		directories.add(FileSystemLocations.getThumbnailsDir());
+		directories.add(FileSystemLocations.getPictureStoreDir());
+		
+		File[] albumDirectories = new File(FileSystemLocations.getAlbumPicturesDir()).listFiles();
+		if (albumDirectories != null) {
+			for (File albumDirectory : albumDirectories) {
+				if (albumDirectory.isDirectory()) {
+					directories.add(albumDirectory.getPath());
+				}
+			}
+		}
+		
+		int numberOfMovedPictures = 0;
+		for (String directory : directories) {
+			numberOfMovedPictures += migrateDirectory(directory);
+		}
+		
+		return numberOfMovedPictures;
+	}
+	
+	/** Moves the pictures located directly within the given folder batch by batch. The folder is streamed instead of 
+	 * listed at once, since it may contain hundreds of thousands of files. The thumbnail pack of an album remains 
+	 * within the album folder, since it is looked up there */
+	private static int migrateDirectory(String directory) throws InterruptedException {
+		int numberOfMovedPictures = 0;
+		int numberOfProcessedPictures = 0;
+		
+		try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(new File(directory).toPath())) {
+			for (Path picture : directoryStream) {
+				if (!Files.isRegularFile(picture) || ThumbnailPack.isPackFile(picture.toFile())) {
+					continue;
+				}
+				
+				if (moveIntoFanOut(directory, picture)) {
+					numberOfMovedPictures++;
+				}
+				
+				numberOfProcessedPictures++;
+				if (numberOfProcessedPictures % PICTURES_PER_BATCH == 0) {
+					Thread.sleep(PAUSE_BETWEEN_BATCHES_IN_MILLISECONDS);
+				} else if (Thread.interrupted()) {
+					throw new InterruptedException();
+				}
+			}
+		} catch (IOException ex) {
+			LOGGER.error("The pictures in " + directory + " could not be moved into the fan-out of the folder", ex);
+		}
+		
+		return numberOfMovedPictures;
+	}
+	
+	private static boolean moveIntoFanOut(String directory, Path picture) {
+		try {
+			File shardedPicture = PictureStore.getShardedFileForWriting(directory, picture.getFileName().toString());
+			
+			synchronized (PictureStore.PICTURE_FILE_LOCK) {
+				// The picture may have been deleted since the folder has been listed
+				if (!Files.exists(picture)) {
+					return false;
+				}
+				
+				// A picture which already exists within the fan-out has the same content, hence it is replaced
+				Files.move(picture, shardedPicture.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			return true;
+		} catch (IOException ex) {
+			LOGGER.error("The picture " + picture + " could not be moved into the fan-out of its folder", ex);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,368 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.filesystem;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the thumbnails of an album within a single pack file, so that showing a gallery does not open one file per item.
+ * The thumbnails are appended to the pack file, while their offsets are appended to an index file. The thumbnails are read 
+ * through a single channel of the pack file, which is closed together with the pack. Memory mapped buffers are avoided, since 
+ * they keep the files open until they are garbage collected, which prevents renaming the album folder on Windows. 
+ * Removed thumbnails remain in the pack file until more than half of it is unused, then the remaining thumbnails are 
+ * compacted into the next generation of the pack.
+ * The pack is a copy of the thumbnail files, which are still stored as before. It is located within the album folder, 
+ * thus it is renamed and removed together with the album.
+ */
+public final class ThumbnailPack {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailPack.class);
+	private static final String PACK_FILE_PREFIX = "thumbnails.";
+	private static final String PACK_FILE_SUFFIX = ".pack";
+	private static final String INDEX_FILE_SUFFIX = ".idx";
+	private static final Charset INDEX_CHARSET = Charset.forName("UTF-8");
+	private static final byte ADDED_ENTRY = 1;
+	private static final byte REMOVED_ENTRY = 2;
+	/** Packs are not compacted before this amount of bytes is unused */
+	private static final long MINIMUM_UNUSED_BYTES_FOR_COMPACTION = 1024 * 1024;
+	/** The open packs by the path of their album folder */
+	private static final Map<String, ThumbnailPack> OPEN_PACKS = new HashMap<String, ThumbnailPack>();
+	
+	private final File albumDirectory;
+	private final Map<String, PackEntry> entriesByThumbnailName = new HashMap<String, PackEntry>();
+	private int generation;
+	private long packLength;
+	private long unusedBytes;
+	private FileChannel packChannel = null;
+	private boolean closed = false;
+	
+	private ThumbnailPack(File albumDirectory) {
+		this.albumDirectory = albumDirectory;
+	}
+	
+	/** The location and size of a thumbnail within the pack file */
+	private static final class PackEntry {
+		private final long offset;
+		private final int length;
+		
+		private PackEntry(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+	
+	/** Returns the thumbnail pack of the given album. The pack is created if it does not exist yet */
+	public static synchronized ThumbnailPack forAlbum(String albumName) throws IOException {
+		File albumDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName));
+		ThumbnailPack thumbnailPack = OPEN_PACKS.get(albumDirectory.getPath());
+		
+		if (thumbnailPack == null) {
+			thumbnailPack = new ThumbnailPack(albumDirectory);
+			thumbnailPack.open();
+			OPEN_PACKS.put(albumDirectory.getPath(), thumbnailPack);
+		}
+		
+		return thumbnailPack;
+	}
+	
+	/** Closes all open packs, such that their files are released. Must be called before album folders are renamed, removed or replaced */
+	public static synchronized void closeAll() {
+		for (ThumbnailPack thumbnailPack : OPEN_PACKS.values()) {
+			thumbnailPack.close();
+		}
+		OPEN_PACKS.clear();
+	}
+	
+	/** Removes the thumbnails of the given pictures from the pack of their album. Failures are logged, since the pack 
+	 * only contains copies of the thumbnail files */
+	public static void removeThumbnails(String albumName, List<AlbumItemPicture> pictures) {
+		if (pictures.isEmpty()) {
+			return;
+		}
+		
+		try {
+			ThumbnailPack thumbnailPack = forAlbum(albumName);
+			for (AlbumItemPicture picture : pictures) {
+				thumbnailPack.removeThumbnail(picture.getThumbnailPictureName());
+			}
+		} catch (IOException ex) {
+			LOGGER.error("The thumbnails could not be removed from the thumbnail pack of " + albumName, ex);
+		}
+	}
+	
+	/** Returns true if the file is a pack or an index file of any generation. These are located directly within the album folder */
+	public static boolean isPackFile(File file) {
+		return getGeneration(file) != null;
+	}
+	
+	/** Returns the thumbnail from the pack. Thumbnails which are not yet contained in the pack are read from the given 
+	 * file and added to the pack
+	 * @param thumbnailName the name of the thumbnail, which identifies it within the pack
+	 * @param thumbnailFile the thumbnail file which is stored under this name 
+	 * @return the content of the thumbnail file */
+	public synchronized byte[] getThumbnail(String thumbnailName, File thumbnailFile) throws IOException {
+		checkNotClosed();
+		PackEntry packEntry = entriesByThumbnailName.get(thumbnailName);
+		
+		if (packEntry == null) {
+			byte[] thumbnail = Files.readAllBytes(thumbnailFile.toPath());
+			addThumbnail(thumbnailName, thumbnail);
+			
+			return thumbnail;
+		}
+		
+		return readThumbnail(packEntry);
+	}
+	
+	/** Returns true if the pack contains a thumbnail with the given name */
+	public synchronized boolean containsThumbnail(String thumbnailName) {
+		return entriesByThumbnailName.containsKey(thumbnailName);
+	}
+	
+	/** Removes the thumbnail from the pack. The pack is compacted if the larger part of it is no longer used. */
+	public synchronized void removeThumbnail(String thumbnailName) throws IOException {
+		checkNotClosed();
+		PackEntry packEntry = entriesByThumbnailName.remove(thumbnailName);
+		if (packEntry == null) {
+			return;
+		}
+		
+		appendIndexRecord(getIndexFile(generation), REMOVED_ENTRY, thumbnailName, packEntry);
+		unusedBytes += packEntry.length;
+		
+		if (unusedBytes >= MINIMUM_UNUSED_BYTES_FOR_COMPACTION && unusedBytes * 2 > packLength) {
+			compact();
+		}
+	}
+	
+	/** Packs which have been closed must not reopen their files, since their album folder may be renamed or removed already */
+	private void checkNotClosed() throws IOException {
+		if (closed) {
+			throw new IOException("The thumbnail pack of " + albumDirectory.getName() + " has been closed");
+		}
+	}
+	
+	private synchronized void close() {
+		closed = true;
+		closePackChannel();
+	}
+	
+	private byte[] readThumbnail(PackEntry packEntry) throws IOException {
+		// The channel is opened lazily, since it is closed when the pack is compacted or its reading thread is interrupted
+		if (packChannel == null || !packChannel.isOpen()) {
+			packChannel = FileChannel.open(getPackFile(generation).toPath(), StandardOpenOption.READ);
+		}
+		
+		ByteBuffer thumbnail = ByteBuffer.allocate(packEntry.length);
+		while (thumbnail.hasRemaining()) {
+			if (packChannel.read(thumbnail, packEntry.offset + thumbnail.position()) < 0) {
+				throw new EOFException("The thumbnail pack of " + albumDirectory.getName() + " ends before the thumbnail");
+			}
+		}
+		
+		return thumbnail.array();
+	}
+	
+	private void closePackChannel() {
+		if (packChannel != null) {
+			try {
+				packChannel.close();
+			} catch (IOException ex) {
+				LOGGER.error("The thumbnail pack of " + albumDirectory.getName() + " could not be closed", ex);
+			}
+			packChannel = null;
+		}
+	}
+	
+	private void addThumbnail(String thumbnailName, byte[] thumbnail) throws IOException {
+		// The thumbnail is appended before it is indexed, hence a crash leaves at most unused bytes in the pack
+		PackEntry packEntry = new PackEntry(packLength, thumbnail.length);
+		try (RandomAccessFile packFile = new RandomAccessFile(getPackFile(generation), "rw")) {
+			packFile.seek(packLength);
+			packFile.write(thumbnail);
+		}
+		
+		appendIndexRecord(getIndexFile(generation), ADDED_ENTRY, thumbnailName, packEntry);
+		entriesByThumbnailName.put(thumbnailName, packEntry);
+		packLength += thumbnail.length;
+	}
+	
+	/** Reads the index of the newest generation and removes all other generations */
+	private void open() throws IOException {
+		if (!albumDirectory.isDirectory()) {
+			throw new IOException("The album folder " + albumDirectory + " does not exist");
+		}
+		
+		generation = 0;
+		File[] packFiles = albumDirectory.listFiles();
+		for (File packFile : packFiles) {
+			Integer packGeneration = getGeneration(packFile);
+			if (packGeneration != null && packGeneration > generation && getIndexFile(packGeneration).exists()) {
+				generation = packGeneration;
+			}
+		}
+		
+		for (File packFile : packFiles) {
+			Integer packGeneration = getGeneration(packFile);
+			if (packGeneration != null && packGeneration != generation) {
+				deletePreviousGeneration(packGeneration);
+			}
+		}
+		
+		readIndex();
+	}
+	
+	private void readIndex() throws IOException {
+		entriesByThumbnailName.clear();
+		packLength = getPackFile(generation).length();
+		long usedBytes = 0;
+		
+		File indexFile = getIndexFile(generation);
+		if (!indexFile.exists()) {
+			return;
+		}
+		
+		// The index is read at once, since it is only read when the pack is opened
+		ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+		
+		// A record which has been cut off by a crash is ignored
+		while (index.remaining() >= 3) {
+			byte recordType = index.get();
+			byte[] thumbnailName = new byte[index.getShort() & 0xFFFF];
+			if (index.remaining() < thumbnailName.length + 12) {
+				break;
+			}
+			
+			index.get(thumbnailName);
+			PackEntry packEntry = new PackEntry(index.getLong(), index.getInt());
+			
+			if (recordType == ADDED_ENTRY && packEntry.offset + packEntry.length <= packLength) {
+				entriesByThumbnailName.put(new String(thumbnailName, INDEX_CHARSET), packEntry);
+				usedBytes += packEntry.length;
+			} else if (recordType == REMOVED_ENTRY && entriesByThumbnailName.remove(new String(thumbnailName, INDEX_CHARSET)) != null) {
+				usedBytes -= packEntry.length;
+			}
+		}
+		
+		unusedBytes = packLength - usedBytes;
+	}
+	
+	/** Copies the remaining thumbnails into a new generation of the pack */
+	private void compact() throws IOException {
+		int nextGeneration = generation + 1;
+		Map<String, PackEntry> compactedEntries = new HashMap<String, PackEntry>();
+		long compactedPackLength = 0;
+		
+		try (RandomAccessFile compactedPack = new RandomAccessFile(getPackFile(nextGeneration), "rw")) {
+			compactedPack.setLength(0);
+			
+			for (Map.Entry<String, PackEntry> entry : entriesByThumbnailName.entrySet()) {
+				byte[] thumbnail = readThumbnail(entry.getValue());
+				compactedPack.write(thumbnail);
+				compactedEntries.put(entry.getKey(), new PackEntry(compactedPackLength, thumbnail.length));
+				compactedPackLength += thumbnail.length;
+			}
+		}
+		
+		// The index is written last, since its existence marks the generation as complete
+		File temporaryIndexFile = new File(albumDirectory, PACK_FILE_PREFIX + nextGeneration + INDEX_FILE_SUFFIX + ".tmp");
+		Files.deleteIfExists(temporaryIndexFile.toPath());
+		for (Map.Entry<String, PackEntry> entry : compactedEntries.entrySet()) {
+			appendIndexRecord(temporaryIndexFile, ADDED_ENTRY, entry.getKey(), entry.getValue());
+		}
+		if (!temporaryIndexFile.exists()) {
+			temporaryIndexFile.createNewFile();
+		}
+		Files.move(temporaryIndexFile.toPath(), getIndexFile(nextGeneration).toPath());
+		
+		int previousGeneration = generation;
+		generation = nextGeneration;
+		entriesByThumbnailName.clear();
+		entriesByThumbnailName.putAll(compactedEntries);
+		packLength = compactedPackLength;
+		unusedBytes = 0;
+		closePackChannel();
+		
+		deletePreviousGeneration(previousGeneration);
+		LOGGER.info("The thumbnail pack of {} has been compacted to {} bytes", albumDirectory.getName(), packLength);
+	}
+	
+	/** Deletes the files of a previous generation. Files which cannot be deleted, e.g. since another process reads them, 
+	 * are deleted when the pack is opened the next time instead */
+	private void deletePreviousGeneration(int previousGeneration) {
+		if (!getIndexFile(previousGeneration).delete() || !getPackFile(previousGeneration).delete()) {
+			LOGGER.debug("The generation {} of the thumbnail pack of {} is deleted later", previousGeneration, albumDirectory.getName());
+		}
+	}
+	
+	private static void appendIndexRecord(File indexFile, byte recordType, String thumbnailName, PackEntry packEntry) throws IOException {
+		byte[] encodedThumbnailName = thumbnailName.getBytes(INDEX_CHARSET);
+		ByteBuffer record = ByteBuffer.allocate(1 + 2 + encodedThumbnailName.length + 8 + 4);
+		record.put(recordType);
+		record.putShort((short) encodedThumbnailName.length);
+		record.put(encodedThumbnailName);
+		record.putLong(packEntry.offset);
+		record.putInt(packEntry.length);
+		record.flip();
+		
+		try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw"); FileChannel indexChannel = index.getChannel()) {
+			indexChannel.position(indexChannel.size());
+			while (record.hasRemaining()) {
+				indexChannel.write(record);
+			}
+		}
+	}
+	
+	private File getPackFile(int packGeneration) {
+		return new File(albumDirectory, PACK_FILE_PREFIX + packGeneration + PACK_FILE_SUFFIX);
+	}
+	
+	private File getIndexFile(int packGeneration) {
+		return new File(albumDirectory, PACK_FILE_PREFIX + packGeneration + INDEX_FILE_SUFFIX);
+	}
+	
+	/** Returns the generation of the given pack or index file, or null if it is no such file */
+	private static Integer getGeneration(File file) {
+		String fileName = file.getName();
+		String generation = null;
+		
+		if (fileName.startsWith(PACK_FILE_PREFIX) && fileName.endsWith(PACK_FILE_SUFFIX)) {
+			generation = fileName.substring(PACK_FILE_PREFIX.length(), fileName.length() - PACK_FILE_SUFFIX.length());
+		} else if (fileName.startsWith(PACK_FILE_PREFIX) && fileName.endsWith(INDEX_FILE_SUFFIX)) {
+			generation = fileName.substring(PACK_FILE_PREFIX.length(), fileName.length() - INDEX_FILE_SUFFIX.length());
+		}
+		
+		return generation != null && generation.matches("^\\d{1,9}$") ? Integer.valueOf(generation) : null;
+	}
+}
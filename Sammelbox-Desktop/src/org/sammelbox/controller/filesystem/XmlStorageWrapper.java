@@ -32,6 +32,7 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import org.sammelbox.controller.i18n.Language;
 import org.sammelbox.controller.managers.AlbumViewManager.AlbumView;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.settings.ApplicationSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,8 @@ import org.xml.sax.SAXException;
 
 public final class XmlStorageWrapper {
 	private static final Logger LOGGER = LoggerFactory.getLogger(XmlStorageWrapper.class);
+	/** The type attribute of view query parameters which are null */
+	private static final String NULL_PARAMETER_TYPE = "Null";
 	
 	private XmlStorageWrapper() {
 		// not needed
@@ -55,6 +58,34 @@ public final class XmlStorageWrapper {
 		return node.getNodeValue();
 	}
 	
+	/** Restores the query parameters of a view element, whose types are stored in the type attribute */
+	private static List<Object> getParameters(Element element) throws XmlParsingException {
+		List<Object> parameters = new LinkedList<Object>();
+		NodeList parameterNodes = element.getElementsByTagName("parameter");
+		
+		for (int i = 0; i < parameterNodes.getLength(); i++) {
+			Element parameterElement = (Element) parameterNodes.item(i);
+			String type = parameterElement.getAttribute("type");
+			String value = parameterElement.getTextContent();
+			
+			if (type.equals(NULL_PARAMETER_TYPE)) {
+				parameters.add(null);
+			} else if (type.equals(Long.class.getSimpleName())) {
+				parameters.add(Long.valueOf(value));
+			} else if (type.equals(Integer.class.getSimpleName())) {
+				parameters.add(Integer.valueOf(value));
+			} else if (type.equals(Double.class.getSimpleName())) {
+				parameters.add(Double.valueOf(value));
+			} else if (type.equals(String.class.getSimpleName())) {
+				parameters.add(value);
+			} else {
+				throw new XmlParsingException("Unknown type of query parameter: " + type);
+			}
+		}
+		
+		return parameters;
+	}
+	
 	public static void storeSettings(ApplicationSettings applicationSettings) {
 		StringBuilder xmlOutput = new StringBuilder();
 		
@@ -62,6 +93,9 @@ public final class XmlStorageWrapper {
 		xmlOutput.append("\t<userDefinedLanguage>" + applicationSettings.getUserDefinedLanguage().toString() + "</userDefinedLanguage>\n");
 		xmlOutput.append("\t<dateFormat>" + applicationSettings.getDateFormat() + "</dateFormat>\n");
 		xmlOutput.append("\t<detailedViewIsDefault>" + applicationSettings.isDetailedViewDefault() + "</detailedViewIsDefault>\n");
+		xmlOutput.append("\t<thumbnailPackIsEnabled>" + applicationSettings.isThumbnailPackEnabled() + "</thumbnailPackIsEnabled>\n");
+		xmlOutput.append("\t<writeAheadLogIsEnabled>" + applicationSettings.isWriteAheadLogEnabled() + "</writeAheadLogIsEnabled>\n");
+		xmlOutput.append("\t<readConnectionPoolSize>" + applicationSettings.getReadConnectionPoolSize() + "</readConnectionPoolSize>\n");
 		xmlOutput.append("</settings>\n");
 		
 		FileSystemAccessWrapper.writeToFile(xmlOutput.toString(), FileSystemLocations.getSettingsXML());
@@ -94,6 +128,13 @@ public final class XmlStorageWrapper {
 				xmlOutput.append("\t\t<name><![CDATA[" + albumView.getName() + "]]></name>\n");
 				xmlOutput.append("\t\t<album><![CDATA[" + albumView.getAlbum() + "]]></album>\n");
 				xmlOutput.append("\t\t<sqlQuery><![CDATA[" + albumView.getSqlQuery() + "]]></sqlQuery>\n");
+				for (Object parameter : albumView.getQuery().getParameters()) {
+					if (parameter == null) {
+						xmlOutput.append("\t\t<parameter type=\"" + NULL_PARAMETER_TYPE + "\"/>\n");
+					} else {
+						xmlOutput.append("\t\t<parameter type=\"" + parameter.getClass().getSimpleName() + "\"><![CDATA[" + parameter.toString().replace("]]>", "]]]]><![CDATA[>") + "]]></parameter>\n");
+					}
+				}
 				xmlOutput.append("\t</view>\n");
 			}
 		}
@@ -157,8 +198,19 @@ public final class XmlStorageWrapper {
 				applicationSettings.setUserDefinedLanguage(Language.valueOf(getValue("userDefinedLanguage", element)));
 				applicationSettings.setDateFormat(getValue("dateFormat", element));
 				applicationSettings.setDetailedViewIsDefault(Boolean.valueOf(getValue("detailedViewIsDefault", element)));
+				
+				// Settings files of previous versions do not contain this setting
+				if (element.getElementsByTagName("thumbnailPackIsEnabled").getLength() > 0) {
+					applicationSettings.setThumbnailPackIsEnabled(Boolean.valueOf(getValue("thumbnailPackIsEnabled", element)));
+				}
+				if (element.getElementsByTagName("writeAheadLogIsEnabled").getLength() > 0) {
+					applicationSettings.setWriteAheadLogIsEnabled(Boolean.valueOf(getValue("writeAheadLogIsEnabled", element)));
+				}
+				if (element.getElementsByTagName("readConnectionPoolSize").getLength() > 0) {
+					applicationSettings.setReadConnectionPoolSize(Integer.parseInt(getValue("readConnectionPoolSize", element)));
+				}
 			}
-		} catch (ParserConfigurationException | IOException | SAXException | XmlParsingException ex) {
+		} catch (ParserConfigurationException | IOException | SAXException | XmlParsingException | NumberFormatException ex) {
 			LOGGER.error("An error occured while parsing the settings XML file", ex);
 		}
 		
@@ -245,14 +297,16 @@ public final class XmlStorageWrapper {
 						name = getValue("name", element);
 						album = getValue("album", element);
 						sqlQuery = getValue("sqlQuery", element);
+						// views which have been stored before queries were parameterized simply have no parameters
+						ParameterizedQuery query = new ParameterizedQuery(sqlQuery, getParameters(element));
 						
 						if (albumNamesToAlbumViews.get(album) == null) {
 							List<AlbumView> albumViews = new LinkedList<>();
-							albumViews.add(new AlbumView(name, album, sqlQuery));
+							albumViews.add(new AlbumView(name, album, query));
 							albumNamesToAlbumViews.put(album, albumViews);
 						} else {
 							List<AlbumView> albumViews = albumNamesToAlbumViews.get(album);
-							albumViews.add(new AlbumView(name, album, sqlQuery));
+							albumViews.add(new AlbumView(name, album, query));
 							albumNamesToAlbumViews.put(album, albumViews);
 						}
 					}
@@ -24,8 +24,13 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.sql.Date;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Future;
 
 import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemPicture;
@@ -36,12 +41,17 @@ import org.sammelbox.model.album.OptionType;
 import org.sammelbox.model.album.StarRating;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.image.ImageManipulator;
+import org.sammelbox.view.image.ImageProcessingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class CSVImporter {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CSVImporter.class);
 	private static final int NO_PICTURE_INDEX = -1;
 	private static final String NO_PICTURE_COLUMN_NAME = "NO_PICTURE_COLUMN_NAME";
 	private static final String NO_PICTURE_SEPARATION_CHARACTER = "NO_PICTURE_SEPARATION_CHARACTER";
+	/** The number of lines which are parsed ahead, so that their pictures are processed while the preceding items are added */
+	private static final int READ_AHEAD_LINES = 64;
 
 	private CSVImporter() {
 	}
@@ -61,10 +71,25 @@ public final class CSVImporter {
 			String line = br.readLine();
 			pictureColumnIndex = handleFirstLine(line, albumName, separationCharacter, metaItemFields, pictureColumnName, pictureSeparationCharacter, isSimulation);
 			
-			while ((line = br.readLine()) != null) {
-				handleData(line, albumName, separationCharacter, metaItemFields, pictureSeparationCharacter, pictureColumnIndex, isSimulation);
+			final DataLineIterator dataLineIterator = new DataLineIterator(br, albumName, separationCharacter, metaItemFields, 
+					pictureSeparationCharacter, pictureColumnIndex, isSimulation);
+			
+			if (isSimulation) {
+				while (dataLineIterator.hasNext()) {
+					dataLineIterator.next();
+				}
+			} else {
+				// The items are added in chunks since adding them one by one is very slow for large files. 
+				// Lines are only parsed when the next item is added, hence the memory usage does not grow with the file size
+				DatabaseOperations.addAlbumItems(albumName, new Iterable<AlbumItem>() {
+					@Override
+					public Iterator<AlbumItem> iterator() {
+						return dataLineIterator;
+					}
+				});
 			}
-						
+		} catch (DataLineException dle) {
+			throw dle.getImportException();
 		} catch (FileNotFoundException fnfe) {
 			throw new ImportException("An error occured while handling the file", fnfe);
 		} catch (IOException ioe) {
@@ -116,8 +141,9 @@ public final class CSVImporter {
 		return pictureColumnIndex;
 	}
 	
-	private static void handleData(String line, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
-			String pictureSeperationCharacter, int pictureColumnIndex, boolean isSimulation) throws DatabaseWrapperOperationException, ImportException {
+	private static AlbumItem handleData(String line, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
+			String pictureSeperationCharacter, int pictureColumnIndex, boolean isSimulation, 
+			List<Future<AlbumItemPicture>> processedPictures) throws ImportException, InterruptedException {
 		
 		String[] fieldValues = line.split(separationCharacter, NO_PICTURE_INDEX);
 
@@ -127,7 +153,6 @@ public final class CSVImporter {
 		}
 		
 		List<ItemField> itemFields = new ArrayList<>();
-		List<AlbumItemPicture> pictures = new ArrayList<>();
 		
 		// parse item fields
 		for (int index=0; index<metaItemFields.size(); index++) {
@@ -144,18 +169,123 @@ public final class CSVImporter {
 						// if it is a simulation, just check if the specified files exist!
 						new File(filePath).exists();
 					} else {
-						pictures.add(ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(new File(filePath), albumName));
+						processedPictures.add(ImageProcessingService.submit(new File(filePath), albumName));
 					}
 				}
 			}
 		}
 		
-		AlbumItem albumItem = new AlbumItem(albumName, itemFields);
-		albumItem.setPictures(pictures);
+		return new AlbumItem(albumName, itemFields);
+	}
+	
+	/** 
+	 * Parses the data lines on demand. The pictures of the following lines are already submitted for processing,
+	 * so that they are processed in parallel while the preceding items are added. Since an iterator cannot throw
+	 * checked exceptions, import errors are wrapped into a {@link DataLineException}.
+	 */
+	private static final class DataLineIterator implements Iterator<AlbumItem> {
+		private final BufferedReader reader;
+		private final String albumName;
+		private final String separationCharacter;
+		private final List<MetaItemField> metaItemFields;
+		private final String pictureSeparationCharacter;
+		private final int pictureColumnIndex;
+		private final boolean isSimulation;
+		private final Queue<AlbumItem> parsedAlbumItems = new ArrayDeque<>();
+		private final Queue<List<Future<AlbumItemPicture>>> processedPicturesOfItems = new ArrayDeque<>();
+		private boolean endOfFileReached = false;
 		
-		if (!isSimulation) {
-			DatabaseOperations.addAlbumItem(albumItem, true);
+		private DataLineIterator(BufferedReader reader, String albumName, String separationCharacter, List<MetaItemField> metaItemFields, 
+				String pictureSeparationCharacter, int pictureColumnIndex, boolean isSimulation) {
+			this.reader = reader;
+			this.albumName = albumName;
+			this.separationCharacter = separationCharacter;
+			this.metaItemFields = metaItemFields;
+			this.pictureSeparationCharacter = pictureSeparationCharacter;
+			this.pictureColumnIndex = pictureColumnIndex;
+			this.isSimulation = isSimulation;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			readAhead();
+			return !parsedAlbumItems.isEmpty();
+		}
+
+		@Override
+		public AlbumItem next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			
+			AlbumItem albumItem = parsedAlbumItems.poll();
+			
+			try {
+				albumItem.setPictures(getProcessedPictures(processedPicturesOfItems.poll()));
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new DataLineException(new ImportException("The import has been interrupted while processing the pictures", ie));
+			}
+			
+			return albumItem;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+		private void readAhead() {
+			try {
+				String line;
+				while (!endOfFileReached && parsedAlbumItems.size() < READ_AHEAD_LINES) {
+					if ((line = reader.readLine()) == null) {
+						endOfFileReached = true;
+					} else {
+						List<Future<AlbumItemPicture>> processedPictures = new ArrayList<>();
+						parsedAlbumItems.add(handleData(line, albumName, separationCharacter, metaItemFields, 
+								pictureSeparationCharacter, pictureColumnIndex, isSimulation, processedPictures));
+						processedPicturesOfItems.add(processedPictures);
+					}
+				}
+			} catch (IOException ioe) {
+				throw new DataLineException(new ImportException("An error occured while handling the file", ioe));
+			} catch (ImportException ie) {
+				throw new DataLineException(ie);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new DataLineException(new ImportException("The import has been interrupted while processing the pictures", ie));
+			}
+		}
+	}
+	
+	/** Carries an import error out of the {@link DataLineIterator} */
+	private static final class DataLineException extends RuntimeException {
+		private static final long serialVersionUID = -4522151412366617530L;
+
+		private DataLineException(ImportException importException) {
+			super(importException);
+		}
+		
+		private ImportException getImportException() {
+			return (ImportException) getCause();
+		}
+	}
+	
+	private static List<AlbumItemPicture> getProcessedPictures(List<Future<AlbumItemPicture>> processedPictures) throws InterruptedException {
+		List<AlbumItemPicture> pictures = new ArrayList<>();
+		
+		for (Future<AlbumItemPicture> processedPicture : processedPictures) {
+			AlbumItemPicture picture = ImageProcessingService.getProcessedPicture(processedPicture);
+			
+			if (picture == null) {
+				LOGGER.warn("A picture could not be imported and is skipped");
+			} else {
+				pictures.add(picture);
+			}
 		}
+		
+		return pictures;
 	}
 	
 	private static void convertIntoDatabaseValueAndAddToItemFields(List<MetaItemField> metaItemFields, String[] fieldValues, int index, List<ItemField> itemFields) {
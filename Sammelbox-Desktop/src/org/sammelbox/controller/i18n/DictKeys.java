@@ -246,6 +246,7 @@ public final class DictKeys {
 	public static final String STATUSBAR_ADD_ALBUM_OPENED = "collector.statusbar.ADD_ALBUM_OPENED";
 	public static final String STATUSBAR_CLICK_TO_RETURN = "collector.statusbar.CLICK_TO_RETURN";
 	public static final String STATUSBAR_NUMBER_OF_ITEMS = "collector.statusbar.NUMBER_OF_ITEMS";
+	public static final String STATUSBAR_PICTURES_PROCESSED = "collector.statusbar.PICTURES_PROCESSED";
 	
 	/*   Tables   */
 	public static final String TABLE_COLUMN_QUICKSEARCH = "collector.table.colum.caption.QUICKSEARCH";
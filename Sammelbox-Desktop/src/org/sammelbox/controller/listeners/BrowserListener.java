@@ -33,6 +33,9 @@ import org.eclipse.swt.events.MenuDetectEvent;
 import org.eclipse.swt.events.MenuDetectListener;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.MessageBox;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItem;
@@ -73,6 +76,28 @@ public class BrowserListener implements LocationListener, ProgressListener, Menu
 		
 		return string;
 	}
+	
+	/** Deletes the album item on the database thread and shows the remaining items of the album afterwards */
+	private void deleteAlbumItemInBackground(final String albumName, final long albumItemId) {
+		DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+			@Override
+			public Void execute() throws DatabaseWrapperOperationException {
+				DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(albumName, albumItemId));
+				return null;
+			}
+		}, new DatabaseTaskCallback<Void>() {
+			@Override
+			public void taskSucceeded(Void result) {
+				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(albumName));
+			}
+			
+			@Override
+			public void taskFailed(DatabaseWrapperOperationException ex) {
+				LOGGER.error("A database error occured while deleting the album item #" + albumItemId + " from the album '" + albumName + "'", ex);
+				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(albumName));
+			}
+		});
+	}
 
 	@Override
 	public void changed(LocationEvent event) {}
@@ -104,15 +129,11 @@ public class BrowserListener implements LocationListener, ProgressListener, Menu
 
 			if (messageBox.open() == SWT.YES) {
 				try {
-					AlbumItem albumItemToBeDeleted = DatabaseOperations.getAlbumItem(ApplicationUI.getSelectedAlbum(), Long.parseLong(id));
-					DatabaseOperations.deleteAlbumItem(albumItemToBeDeleted);
+					deleteAlbumItemInBackground(ApplicationUI.getSelectedAlbum(), Long.parseLong(id));
 				} catch (NumberFormatException nfe) {
 					LOGGER.error("Couldn't parse the following id: '" + id + "'", nfe);
-				} catch (DatabaseWrapperOperationException ex) {
-					LOGGER.error("A database error occured while deleting the album item #" + id + " from the album '" + 
-										ApplicationUI.getSelectedAlbum() + "'", ex);
+					BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(ApplicationUI.getSelectedAlbum()));
 				}
-				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(ApplicationUI.getSelectedAlbum()));
 			}
 
 			// Do not change the page
@@ -0,0 +1,101 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller.listeners;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.widgets.Display;
+import org.sammelbox.controller.DaemonThreadFactory;
+import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.album.AlbumItemStore.FirstResults;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.QueryCancellation;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.browser.BrowserFacade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes quick searches on a background thread. Searches which are requested in quick succession (e.g. while typing) are
+ * combined, a newer search cancels the running one and only the results of the newest search are shown.
+ */
+final class QuickSearchExecutor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(QuickSearchExecutor.class);
+	/** A search is only started if no newer search has been requested within this delay */
+	private static final long DEBOUNCE_DELAY_IN_MILLISECONDS = 250;
+	private static final ScheduledExecutorService SEARCH_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("Quick search"));
+	/** Identifies the newest search. The results of all other searches are discarded */
+	private static final AtomicLong NEWEST_SEARCH_ID = new AtomicLong();
+
+	private static ScheduledFuture<?> pendingSearch = null;
+	private static QueryCancellation runningSearchCancellation = null;
+
+	private QuickSearchExecutor() {
+		// use static methods
+	}
+
+	/**
+	 * Schedules the quick search and cancels all previously scheduled searches. Must be called on the UI thread.
+	 * @param albumName the album in which the search is performed
+	 * @param query the query of the quick search
+	 */
+	static void search(final String albumName, final ParameterizedQuery query) {
+		final long searchId = NEWEST_SEARCH_ID.incrementAndGet();
+		final Display display = Display.getCurrent();
+		final QueryCancellation cancellation = new QueryCancellation();
+
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+		}
+		if (runningSearchCancellation != null) {
+			runningSearchCancellation.cancel();
+		}
+		runningSearchCancellation = cancellation;
+
+		pendingSearch = SEARCH_EXECUTOR.schedule(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					final FirstResults firstResults = AlbumItemStore.fetchFirstResults(albumName, query, cancellation);
+
+					if (searchId == NEWEST_SEARCH_ID.get() && !display.isDisposed()) {
+						display.asyncExec(new Runnable() {
+							@Override
+							public void run() {
+								// the album might have been changed while searching
+								if (searchId == NEWEST_SEARCH_ID.get() && albumName.equals(ApplicationUI.getSelectedAlbum())) {
+									BrowserFacade.showFirstResults(firstResults);
+								}
+							}
+						});
+					}
+				} catch (DatabaseWrapperOperationException ex) {
+					if (!cancellation.isCancelled()) {
+						LOGGER.error("An error occured while performing the following quick search query (" + query + ")", ex);
+					}
+				}
+			}
+		}, DEBOUNCE_DELAY_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+	}
+}
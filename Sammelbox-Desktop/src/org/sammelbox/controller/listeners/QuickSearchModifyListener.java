@@ -26,7 +26,6 @@ import org.eclipse.swt.widgets.Text;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
-import org.sammelbox.view.browser.BrowserFacade;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,16 +33,19 @@ public class QuickSearchModifyListener implements ModifyListener {
 	private static final Logger LOGGER = LoggerFactory.getLogger(QuickSearchModifyListener.class);
 	
 	@Override
-	/** This method launches a quick-search for the entered keywords if an album has been selected*/
+	/** This method schedules a quick-search for the entered keywords if an album has been selected. 
+	 * The search is performed in the background, so that typing is not blocked by the preceding searches */
 	public void modifyText(ModifyEvent e) {
 		if (!ApplicationUI.isAlbumSelectedAndShowMessageIfNot()) {
 			return;
 		}
 		try {
+			String albumName = ApplicationUI.getSelectedAlbum();
+			
 			if (((Text) e.widget).getText().equals("")) {
-				BrowserFacade.showResultSet(DatabaseOperations.executeQuickSearch(ApplicationUI.getSelectedAlbum(), null));
+				QuickSearchExecutor.search(albumName, DatabaseOperations.createQuickSearchQuery(albumName, null));
 			} else {
-				BrowserFacade.showResultSet(DatabaseOperations.executeQuickSearch(ApplicationUI.getSelectedAlbum(), 
+				QuickSearchExecutor.search(albumName, DatabaseOperations.createQuickSearchQuery(albumName, 
 						Arrays.asList(((Text) e.widget).getText().split(" "))));
 			}
 		} catch (DatabaseWrapperOperationException ex) {
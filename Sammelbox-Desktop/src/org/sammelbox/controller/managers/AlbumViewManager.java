@@ -26,6 +26,7 @@ import java.util.Map;
 import org.sammelbox.controller.events.EventObservable;
 import org.sammelbox.controller.events.SammelboxEvent;
 import org.sammelbox.controller.filesystem.XmlStorageWrapper;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.slf4j.Logger;
@@ -81,13 +82,17 @@ public final class AlbumViewManager {
 	}
 	
 	public static void addAlbumView(String name, String album, String sqlQuery) {
+		addAlbumView(name, album, new ParameterizedQuery(sqlQuery));
+	}
+	
+	public static void addAlbumView(String name, String album, ParameterizedQuery query) {
 		if (albumNamesToAlbumViews.get(album) == null) {
 			List<AlbumView> albumViews = new LinkedList<>();
-			albumViews.add(new AlbumView(name, album, sqlQuery));
+			albumViews.add(new AlbumView(name, album, query));
 			albumNamesToAlbumViews.put(album, albumViews);
 		} else {
 			List<AlbumView> albumViews = albumNamesToAlbumViews.get(album);
-			albumViews.add(new AlbumView(name, album, sqlQuery));
+			albumViews.add(new AlbumView(name, album, query));
 			albumNamesToAlbumViews.put(album, albumViews);
 		}
 		
@@ -146,12 +151,16 @@ public final class AlbumViewManager {
 	public static class AlbumView {
 		private String name;
 		private String album;
-		private String sqlQuery;
+		private ParameterizedQuery query;
 				
 		public AlbumView(String name, String album, String sqlQuery) {
+			this(name, album, new ParameterizedQuery(sqlQuery));
+		}
+		
+		public AlbumView(String name, String album, ParameterizedQuery query) {
 			this.name = name;
 			this.album = album;
-			this.sqlQuery = sqlQuery;
+			this.query = query;
 		}
 				
 		public String getName() {
@@ -171,20 +180,34 @@ public final class AlbumViewManager {
 		}
 
 		public String getSqlQuery() {
-			return sqlQuery;
+			return query.getSql();
 		}
 		
 		public void setSqlQuery(String sqlQuery) {
-			this.sqlQuery = sqlQuery;
+			this.query = new ParameterizedQuery(sqlQuery);
+		}
+		
+		public ParameterizedQuery getQuery() {
+			return query;
+		}
+		
+		public void setQuery(ParameterizedQuery query) {
+			this.query = query;
 		}
 	}
 
 	public static String getSqlQueryByViewName(String albumName, String viewName) {
+		ParameterizedQuery query = getQueryByViewName(albumName, viewName);
+		
+		return query == null ? null : query.getSql();
+	}
+	
+	public static ParameterizedQuery getQueryByViewName(String albumName, String viewName) {
 		List<AlbumView> albumViews = albumNamesToAlbumViews.get(albumName);
 		
 		for (AlbumView albumView : albumViews) {
 			if (albumView.getName().equals(viewName)) {
-				return albumView.getSqlQuery();
+				return albumView.getQuery();
 			}
 		}
 		
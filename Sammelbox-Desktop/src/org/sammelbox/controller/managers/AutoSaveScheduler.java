@@ -0,0 +1,100 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.managers;
+
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates an autosave of the database in the background whenever the database has been changed since the most recent
+ * autosave (see {@link DatabaseIntegrityManager#backupAutoSave()}). An autosave is created at most once per interval however 
+ * many changes happen in between, and only once the database has not been changed for a while. A change which is committed 
+ * while the backup reads the database has to wait until the backup releases its lock, hence the database is only copied 
+ * while the user does not edit the albums.
+ */
+public final class AutoSaveScheduler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AutoSaveScheduler.class);
+	/** The minimum time between two autosaves */
+	private static final long AUTO_SAVE_INTERVAL_IN_MILLISECONDS = 5 * 60 * 1000;
+	/** The time for which the database must not have been changed before it is copied */
+	private static final long QUIET_PERIOD_IN_MILLISECONDS = 10 * 1000;
+	/** The time between two checks whether an autosave is due */
+	private static final long CHECK_INTERVAL_IN_MILLISECONDS = 30 * 1000;
+	
+	private static Thread autoSaveThread = null;
+	
+	private AutoSaveScheduler() {
+		// use static methods
+	}
+	
+	/** Starts checking the database for changes in the background. A running scheduler is stopped first. */
+	public static synchronized void start() {
+		stop();
+		
+		autoSaveThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long lastAutoSaveTimeInMilliseconds = System.currentTimeMillis();
+				
+				try {
+					while (true) {
+						Thread.sleep(CHECK_INTERVAL_IN_MILLISECONDS);
+						
+						long now = System.currentTimeMillis();
+						long lastChangeTimeStamp = DatabaseIntegrityManager.getLastDatabaseChangeTimeStamp();
+						if (lastChangeTimeStamp == -1 || now - lastChangeTimeStamp < QUIET_PERIOD_IN_MILLISECONDS 
+								|| now - lastAutoSaveTimeInMilliseconds < AUTO_SAVE_INTERVAL_IN_MILLISECONDS) {
+							continue;
+						}
+						
+						try {
+							DatabaseIntegrityManager.backupAutoSave();
+							lastAutoSaveTimeInMilliseconds = now;
+						} catch (DatabaseWrapperOperationException ex) {
+							LOGGER.warn("Couldn't create an auto save of the database file. It is tried again with the next check", ex);
+						}
+					}
+				} catch (InterruptedException ex) {
+					LOGGER.info("The automatic backup of the database has been stopped");
+				}
+			}
+		}, "Database autosave");
+		autoSaveThread.setDaemon(true);
+		autoSaveThread.setPriority(Thread.MIN_PRIORITY);
+		autoSaveThread.start();
+	}
+	
+	/** Stops the scheduler (if running) and waits until the autosave which is currently created (if any) is complete */
+	public static synchronized void stop() {
+		if (autoSaveThread != null) {
+			autoSaveThread.interrupt();
+			
+			try {
+				autoSaveThread.join();
+			} catch (InterruptedException ex) {
+				LOGGER.warn("Interrupted while waiting for the database autosave to stop", ex);
+				Thread.currentThread().interrupt();
+			}
+			
+			autoSaveThread = null;
+		}
+	}
+}
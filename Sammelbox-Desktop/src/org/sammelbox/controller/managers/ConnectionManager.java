@@ -23,21 +23,44 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import org.jdbcdslog.ConnectionLoggingProxy;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.PictureStore;
+import org.sammelbox.controller.settings.SettingsManager;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+import org.sammelbox.model.database.operations.AlbumSchemaCache;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.model.database.operations.QueryResultCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class ConnectionManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionManager.class);
-	private static final String SQLITE_CONNECTION_STRING = "jdbc:sqlite:";
+	static final String SQLITE_CONNECTION_STRING = "jdbc:sqlite:";
+	/** The upper bound of the configurable number of read connections */
+	public static final int MAX_READ_CONNECTION_POOL_SIZE = 8;
 	private static Connection connection = null;
+	/** Separate read-only connections for queries which run next to the default connection. They only see committed changes */
+	private static ReadConnectionPool readConnectionPool = null;
+	/** If enabled, readers and the writer do not block each other, hence the read connections are used for all read-only queries */
+	private static boolean writeAheadLogEnabled = false;
+	/** The number of pages in the write-ahead log after which a commit copies the log back into the database */
+	private static final int WAL_AUTO_CHECKPOINT_PAGES = 1000;
+	/** Committing cannot reset the write-ahead log while readers use it. Beyond this size, a checkpoint is requested once they are done */
+	private static final long WAL_CHECKPOINT_THRESHOLD_IN_BYTES = 16 * 1024 * 1024;
+	private static final String WAL_FILE_SUFFIX = "-wal";
+	private static long lastCheckpointTimeStampInMS = 0;
+	/** The maximum number of compiled statements which are kept per connection */
+	private static final int MAX_CACHED_STATEMENTS_PER_CONNECTION = 64;
+	private static final PreparedStatementCache STATEMENT_CACHE = new PreparedStatementCache(MAX_CACHED_STATEMENTS_PER_CONNECTION);
 
 	private ConnectionManager() {
 		// not needed
@@ -52,20 +75,40 @@ public final class ConnectionManager {
 		// This hides all internal SQL exceptions
 		try {
 			if (ConnectionManager.connection == null || connection.isClosed()) {
+				// Cached album structures, results and statements might belong to a previously opened database
+				AlbumSchemaCache.invalidateAll();
+				QueryResultCache.invalidateAll();
+				STATEMENT_CACHE.clear();
+				
 				ConnectionManager.connection = DriverManager.getConnection(ConnectionManager.SQLITE_CONNECTION_STRING + 
 						FileSystemLocations.getDatabaseFile());
 				ConnectionManager.connection = ConnectionLoggingProxy.wrap(connection);
 				ConnectionManager.enableForeignKeySupportForCurrentSession();
 				
 				// The AutoCommit state makes little difference here since all relevant public methods roll back on
-				// failures anyway and we have only a single connection so concurrency is not relevant either.		
+				// failures anyway and only this connection writes, so concurrency is not relevant either.		
 				ConnectionManager.connection.setAutoCommit(true);
 
-				LOGGER.info("Autocommit is on {}", connection.getAutoCommit());				
+				LOGGER.info("Autocommit is on {}", connection.getAutoCommit());
+				
+				if (ConnectionManager.readConnectionPool != null) {
+					ConnectionManager.readConnectionPool.close();
+				}
+				ConnectionManager.applyJournalMode(SettingsManager.getSettings().isWriteAheadLogEnabled());
+				// Without the write-ahead log, readers block commits. Thus only a single reader is used for cancellable queries 
+				int readConnectionPoolSize = writeAheadLogEnabled ? Math.max(1, Math.min(MAX_READ_CONNECTION_POOL_SIZE, 
+						SettingsManager.getSettings().getReadConnectionPoolSize())) : 1;
+				ConnectionManager.readConnectionPool = new ReadConnectionPool(
+						FileSystemLocations.getDatabaseFile(), readConnectionPoolSize, MAX_CACHED_STATEMENTS_PER_CONNECTION);
 			}
 			
 			// Create the album master table if it does not exist 
 			DatabaseOperations.createAlbumMasterTableIfItDoesNotExist();
+			// Databases of previous versions lack the picture table indices, the picture rendition columns, the picture references and the quicksearch tables
+			DatabaseOperations.createPictureTableIndicesIfTheyDoNotExist();
+			DatabaseOperations.addPictureRenditionColumnsIfTheyDoNotExist();
+			DatabaseOperations.createPictureReferenceTableIfItDoesNotExist();
+			DatabaseOperations.createQuickSearchTablesIfTheyDoNotExist();
 
 			// Run a fetch  to check if the database connection is up and running
 			if (!ConnectionManager.isConnectionReady()) {
@@ -82,9 +125,22 @@ public final class ConnectionManager {
 	 */
 	public static synchronized void closeConnection() throws DatabaseWrapperOperationException {
 		try {
+			STATEMENT_CACHE.clear();
+			
+			// The last closed connection copies the write-ahead log back into the database and removes it
+			if (ConnectionManager.readConnectionPool != null) {
+				ConnectionManager.readConnectionPool.close();
+				ConnectionManager.readConnectionPool = null;
+			}
+			
 			if (ConnectionManager.connection != null && !ConnectionManager.connection.isClosed()) {
 				ConnectionManager.connection.close();
 			}
+			
+			AlbumSchemaCache.invalidateAll();
+			QueryResultCache.invalidateAll();
+			DatabaseIntegrityManager.discardOpenSavepoints();
+			PictureStore.clearPendingReferences();
 		} catch (SQLException sqlEx) {
 			LOGGER.error("Unable to close the database connection");
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
@@ -164,6 +220,125 @@ public final class ConnectionManager {
 		return connection;
 	}
 
+	/**
+	 * Lends a read-only connection to the same database as the default connection. Interrupting a statement on this connection 
+	 * does not affect the statements on the default connection or on other read connections. Waits if all read connections are lent.
+	 * @return A connection which must be released via {@link #releaseReadConnection(ReadConnection)} after the results are processed
+	 * @throws DatabaseWrapperOperationException if no connection is open or the read connection cannot be opened
+	 */
+	public static ReadConnection acquireReadConnection() throws DatabaseWrapperOperationException {
+		ReadConnectionPool pool = getReadConnectionPool();
+		if (pool == null) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The database connection is not open");
+		}
+		
+		try {
+			return pool.borrow();
+		} catch (SQLException sqlEx) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, ie);
+		}
+	}
+	
+	/** 
+	 * Returns the read connection to its pool. The result sets of its statements must be closed before.
+	 * If null is passed, this method has no effect.
+	 */
+	public static void releaseReadConnection(ReadConnection readConnection) {
+		if (readConnection != null && readConnection.getPool().giveBack(readConnection) && isCheckpointDue()) {
+			requestCheckpoint();
+		}
+	}
+	
+	/** Returns true if the database is in write-ahead log mode, so that reading on the read connections does not delay writes */
+	public static synchronized boolean isWriteAheadLogEnabled() {
+		return writeAheadLogEnabled;
+	}
+	
+	/**
+	 * Copies the content of the write-ahead log back into the database, such that the log is rewritten from its beginning 
+	 * by the following transactions. This fails while a transaction of the default connection is open.
+	 * @return true if the checkpoint has been performed
+	 */
+	public static synchronized boolean checkpointWriteAheadLog() {
+		if (!writeAheadLogEnabled || connection == null) {
+			return false;
+		}
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA wal_checkpoint");
+			lastCheckpointTimeStampInMS = System.currentTimeMillis();
+			return true;
+		} catch (SQLException sqlEx) {
+			LOGGER.info("The write-ahead log could not be checkpointed", sqlEx);
+			return false;
+		}
+	}
+	
+	private static synchronized ReadConnectionPool getReadConnectionPool() {
+		return readConnectionPool;
+	}
+	
+	/** A checkpoint is due if the log has grown although it has been checkpointed since the last change */
+	private static synchronized boolean isCheckpointDue() {
+		return writeAheadLogEnabled 
+				&& DatabaseIntegrityManager.getLastDatabaseChangeTimeStamp() >= lastCheckpointTimeStampInMS
+				&& new File(FileSystemLocations.getDatabaseFile() + WAL_FILE_SUFFIX).length() > WAL_CHECKPOINT_THRESHOLD_IN_BYTES;
+	}
+	
+	/** The checkpoint is performed on the database thread, such that it does not interfere with writes of the database executor */
+	private static void requestCheckpoint() {
+		DatabaseExecutor.submit(new DatabaseTask<Boolean>() {
+			@Override
+			public Boolean execute() {
+				return checkpointWriteAheadLog();
+			}
+		});
+	}
+	
+	/** 
+	 * Switches the database to the write-ahead log if requested, or back to the rollback journal otherwise.
+	 * The journal mode is stored within the database, hence it is applied whenever the connection is opened. 
+	 */
+	private static void applyJournalMode(boolean useWriteAheadLog) {
+		String requestedJournalMode = useWriteAheadLog ? "WAL" : "DELETE";
+		
+		try (Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode = " + requestedJournalMode)) {
+			writeAheadLogEnabled = resultSet.next() && "wal".equalsIgnoreCase(resultSet.getString(1));
+		} catch (SQLException sqlEx) {
+			// switching the mode fails if another connection uses the database, hence the previous mode is kept
+			LOGGER.warn("The journal mode of the database could not be set to " + requestedJournalMode, sqlEx);
+			writeAheadLogEnabled = false;
+		}
+		
+		if (useWriteAheadLog && !writeAheadLogEnabled) {
+			LOGGER.warn("The database does not support the write-ahead log and is used in rollback journal mode");
+		}
+		
+		if (writeAheadLogEnabled) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA wal_autocheckpoint = " + WAL_AUTO_CHECKPOINT_PAGES);
+			} catch (SQLException sqlEx) {
+				LOGGER.warn("The automatic checkpoint of the write-ahead log could not be configured", sqlEx);
+			}
+		}
+	}
+	
+	/**
+	 * Gets a prepared statement for the SQL on the default connection. Statements are cached by their SQL, hence the same 
+	 * statement is returned for all queries of the same shape. Therefore callers must only close the result sets but not the 
+	 * statement, and must have processed the results before the same SQL is requested again.
+	 * @param sql The SQL which may contain ? placeholders
+	 * @return A prepared statement whose parameters must be bound before it is executed
+	 * @throws SQLException 
+	 */
+	public static synchronized PreparedStatement getPreparedStatement(String sql) throws SQLException {
+		return STATEMENT_CACHE.getStatement(connection, sql);
+	}
+
 	static void enableForeignKeySupportForCurrentSession() throws DatabaseWrapperOperationException {
 
 		try (PreparedStatement preparedStatement = connection.prepareStatement("PRAGMA foreign_keys = ON");) {			
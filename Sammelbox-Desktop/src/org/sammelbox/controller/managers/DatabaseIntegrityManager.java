@@ -19,17 +19,40 @@
 package org.sammelbox.controller.managers;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
+import org.sammelbox.controller.filesystem.BackupArchiveReader;
+import org.sammelbox.controller.filesystem.BackupArchiveWriter;
+import org.sammelbox.controller.filesystem.BackupManifest;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.FileTransfer;
+import org.sammelbox.controller.filesystem.HomeDirectorySwitch;
+import org.sammelbox.controller.filesystem.PictureStoreMigration;
+import org.sammelbox.controller.filesystem.ThumbnailPack;
 import org.sammelbox.model.database.DatabaseStringUtilities;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
@@ -40,14 +63,38 @@ public final class DatabaseIntegrityManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseIntegrityManager.class);
 	/** The extension used on file names for autosaves */
 	private static final String AUTO_SAVE_EXTENSION = "autosave";
-	/** Regular expression describing the file name format including the extension of auto saves */
-	private static final String AUTO_SAVE_FILE_REGEX = "(\\w)+(\\u005F([0-9]+)+\\." + AUTO_SAVE_EXTENSION + ")$";
+	/** The extension which is appended to the extension of autosaves which are compressed */
+	private static final String COMPRESSED_AUTO_SAVE_EXTENSION = "gz";
+	/** The prefix of autosaves, followed by the program version and the last change time of the database in milliseconds */
+	private static final String AUTO_SAVE_PREFIX = "PERIODICAL_BACKUP_";
+	/** The file name format of autosaves, including those which have been stored uncompressed by previous versions */
+	private static final Pattern AUTO_SAVE_FILE_PATTERN = Pattern.compile(
+			"^" + AUTO_SAVE_PREFIX + ".*_([0-9]+)\\." + AUTO_SAVE_EXTENSION + "(\\." + COMPRESSED_AUTO_SAVE_EXTENSION + ")?$");
+	private static final int AUTO_SAVE_BUFFER_SIZE = 64 * 1024;
+	/** Autosaves are created by the AutoSaveScheduler as well as when the application is closed, but never at the same time */
+	private static final Object AUTO_SAVE_LOCK = new Object();
+	/** The prefix of the increments of an incremental backup, followed by the time of the increment in milliseconds */
+	private static final String INCREMENT_PREFIX = "increment_";
+	/** The extension used on file names for increments, which are regular backup files */
+	private static final String INCREMENT_EXTENSION = "cbk";
+	/** Regular expression describing the file name format including the extension of increments */
+	private static final String INCREMENT_FILE_REGEX = "^" + INCREMENT_PREFIX + "[0-9]+\\." + INCREMENT_EXTENSION + "$";
+	/** The suffix of the directory next to the home directory to which a backup is extracted before it is restored */
+	private static final String STAGING_DIRECTORY_SUFFIX = ".restore";
+	/** The suffix of the directory next to the home directory to which its content is moved aside while a backup is restored */
+	private static final String PREVIOUS_HOME_DIRECTORY_SUFFIX = ".previous";
 	/** A prefix for those databases that have been corrupted */
 	static final String CORRUPT_DATABASE_SNAPSHOT_PREFIX = "corruptDatabaseSnapshot_";
 	/** The maximum amount of autosaves that can be stored until the existing autosaves are overwritten */
 	private static int autoSaveLimit = 5;
-	/** The last change time in milliseconds */
-	private static long lastChangeTimeStampInMS = -1;
+	/** The last change time in milliseconds. Read by the autosave scheduler on its own thread */
+	private static volatile long lastChangeTimeStampInMS = -1;
+	/** The last change time in milliseconds of the database which has been saved by the most recent autosave of this session */
+	private static long lastAutoSaveTimeStampInMS = -1;
+	/** The savepoints which are open on the default connection, the innermost first */
+	private static final Deque<String> OPEN_SAVEPOINTS = new ArrayDeque<String>();
+	/** The actions which are performed once the changes of the open savepoints have been committed, by savepoint */
+	private static final Map<String, List<Runnable>> ACTIONS_AFTER_COMMIT = new HashMap<String, List<Runnable>>();
 	
 	private DatabaseIntegrityManager() {
 		// not needed
@@ -65,6 +112,12 @@ public final class DatabaseIntegrityManager {
 		try (PreparedStatement createSavepointStatement = ConnectionManager.getConnection().prepareStatement(
 				"SAVEPOINT " + DatabaseStringUtilities.encloseNameWithQuotes(savepointName));) {			
 			createSavepointStatement.execute();
+			
+			synchronized (OPEN_SAVEPOINTS) {
+				OPEN_SAVEPOINTS.push(savepointName);
+				ACTIONS_AFTER_COMMIT.put(savepointName, new ArrayList<Runnable>());
+			}
+			
 			return savepointName;
 		} catch (SQLException e) {
 			LOGGER.error("Creating the savepoint {} failed", savepointName);
@@ -95,6 +148,62 @@ public final class DatabaseIntegrityManager {
 			LOGGER.error("Releasing the savepoint {} failed", savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		}
+		
+		List<Runnable> committedActions = Collections.emptyList();
+		synchronized (OPEN_SAVEPOINTS) {
+			if (OPEN_SAVEPOINTS.contains(savepointName)) {
+				// Releasing a savepoint releases the savepoints which have been created after it as well
+				List<Runnable> releasedActions = new ArrayList<Runnable>();
+				String releasedSavepointName;
+				do {
+					releasedSavepointName = OPEN_SAVEPOINTS.pop();
+					releasedActions.addAll(0, ACTIONS_AFTER_COMMIT.remove(releasedSavepointName));
+				} while (!releasedSavepointName.equals(savepointName));
+				
+				if (OPEN_SAVEPOINTS.isEmpty()) {
+					committedActions = releasedActions;
+				} else {
+					ACTIONS_AFTER_COMMIT.get(OPEN_SAVEPOINTS.peek()).addAll(releasedActions);
+				}
+			}
+		}
+		
+		runActions(committedActions);
+	}
+	
+	/**
+	 * Performs the action once the current changes have been committed, i.e. after the outermost open savepoint has been released. 
+	 * The action is discarded if the savepoint within which it has been registered is rolled back. If no savepoint is open, 
+	 * the action is performed immediately. Used for changes outside of the database (e.g. deleting files) which must only 
+	 * happen if the changes within the database persist.
+	 */
+	public static void runAfterCommit(Runnable action) {
+		synchronized (OPEN_SAVEPOINTS) {
+			if (!OPEN_SAVEPOINTS.isEmpty()) {
+				ACTIONS_AFTER_COMMIT.get(OPEN_SAVEPOINTS.peek()).add(action);
+				return;
+			}
+		}
+		
+		runActions(Collections.singletonList(action));
+	}
+	
+	/** Forgets all open savepoints along with their actions, since closing the connection rolls back the open transaction */
+	static void discardOpenSavepoints() {
+		synchronized (OPEN_SAVEPOINTS) {
+			OPEN_SAVEPOINTS.clear();
+			ACTIONS_AFTER_COMMIT.clear();
+		}
+	}
+	
+	private static void runActions(List<Runnable> actions) {
+		for (Runnable action : actions) {
+			try {
+				action.run();
+			} catch (RuntimeException ex) {
+				LOGGER.error("An action after the commit of the database changes failed", ex);
+			}
+		}
 	}
 	
 	/**
@@ -116,6 +225,16 @@ public final class DatabaseIntegrityManager {
 			LOGGER.error("Rolling back the savepoint {} failed", savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		}
+		
+		synchronized (OPEN_SAVEPOINTS) {
+			if (OPEN_SAVEPOINTS.contains(savepointName)) {
+				// The savepoint remains open, while those which have been created after it are cancelled
+				while (!OPEN_SAVEPOINTS.peek().equals(savepointName)) {
+					ACTIONS_AFTER_COMMIT.remove(OPEN_SAVEPOINTS.pop());
+				}
+				ACTIONS_AFTER_COMMIT.get(savepointName).clear();
+			}
+		}
 	}
 	
 	/**
@@ -124,35 +243,117 @@ public final class DatabaseIntegrityManager {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public static void backupToFile(String filePath) throws DatabaseWrapperOperationException {
-		// create temporary directory which includes backup files
-		String tempDirName = java.util.UUID.randomUUID().toString();
-		File tempDir = new File(System.getProperty("user.home") + File.separator, tempDirName);
-		if (!tempDir.exists()) {
-			tempDir.mkdir();
+		// the autosaves within the home directory must not be replaced while they are archived
+		synchronized (AUTO_SAVE_LOCK) {
+			File databaseSnapshot = createDatabaseSnapshot();
+	
+			// stream the home directory together with the database snapshot into the archive
+			try {
+				Map<String, File> archiveEntries = collectFilesToBackup();
+				archiveEntries.put(FileSystemLocations.DATABASE_TO_RESTORE_NAME, databaseSnapshot);
+			
+				BackupArchiveWriter.writeArchive(archiveEntries, new File(filePath));
+			} catch (IOException e) {
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,e);
+			} finally {
+				FileSystemAccessWrapper.deleteFile(databaseSnapshot);
+			}
 		}
+	}
 	
-		// backup home directory
-		File tempAppDataDir = new File(tempDir.getPath());
-		File sourceAppDataDir = new File(FileSystemLocations.getActiveHomeDir());
-		try {
-			String excludeRegex = "^\\.lock$|^" + FileSystemLocations.DATABASE_NAME + "$"; 
-			FileSystemAccessWrapper.copyDirectory(sourceAppDataDir, tempAppDataDir, excludeRegex);
-		} catch (IOException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,e);
+	/**
+	 * Backs the database entries along the properties and pictures up as the next increment of the backup chain within the 
+	 * specified directory. The increment contains the complete database, but only those files which are not contained in
+	 * a previous increment. Any increment of the chain can be restored using restoreFromFile.
+	 * @param directoryPath The path of the directory containing the backup chain. It is created if it does not exist.
+	 * @return The path of the new increment.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static String backupIncrementallyToDirectory(String directoryPath) throws DatabaseWrapperOperationException {
+		File backupDirectory = new File(directoryPath);
+		if (!backupDirectory.exists() && !backupDirectory.mkdirs()) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+		
+		long incrementTimeStamp = System.currentTimeMillis();
+		File previousIncrement = getLatestIncrement(backupDirectory);
+		if (previousIncrement != null) {
+			incrementTimeStamp = Math.max(incrementTimeStamp, extractIncrementTimeStamp(previousIncrement) + 1);
+		}
+		File increment = new File(backupDirectory, INCREMENT_PREFIX + incrementTimeStamp + "." + INCREMENT_EXTENSION);
+		// the increment is written under a different name, so that an incomplete increment is never part of the chain
+		File incompleteIncrement = new File(backupDirectory, increment.getName() + ".part");
+		
+		// the autosaves within the home directory must not be replaced while they are archived
+		synchronized (AUTO_SAVE_LOCK) {
+			File databaseSnapshot = createDatabaseSnapshot();
+			File manifestFile = new File(System.getProperty("user.home"), UUID.randomUUID().toString());
+			try {
+				BackupManifest previousManifest = previousIncrement == null ? null : BackupManifest.readFromArchive(previousIncrement);
+			
+				Map<String, File> archiveEntries = new LinkedHashMap<>();
+				BackupManifest manifest = BackupManifest.createIncrement(
+						collectFilesToBackup(), previousManifest, backupDirectory, increment.getName(), archiveEntries);
+				manifest.writeToFile(manifestFile);
+				archiveEntries.put(BackupManifest.MANIFEST_ENTRY_NAME, manifestFile);
+				archiveEntries.put(FileSystemLocations.DATABASE_TO_RESTORE_NAME, databaseSnapshot);
+			
+				BackupArchiveWriter.writeArchive(archiveEntries, incompleteIncrement);
+				Files.move(incompleteIncrement.toPath(), increment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			
+				return increment.getPath();
+			} catch (IOException e) {
+				FileSystemAccessWrapper.deleteFile(incompleteIncrement);
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,e);
+			} finally {
+				FileSystemAccessWrapper.deleteFile(databaseSnapshot);
+				FileSystemAccessWrapper.deleteFile(manifestFile);
+			}
 		}
+	}
 	
-		// backup database to file
+	/** Copies the database through the SQLite backup API to a temporary file, which must be deleted by the caller */
+	private static File createDatabaseSnapshot() throws DatabaseWrapperOperationException {
+		File databaseSnapshot = new File(System.getProperty("user.home"), UUID.randomUUID().toString());
 		try (Statement statement = ConnectionManager.getConnection().createStatement()){				
-			statement.executeUpdate("backup to '" + tempDir.getPath() + File.separatorChar + FileSystemLocations.DATABASE_TO_RESTORE_NAME + "'");
+			statement.executeUpdate("backup to '" + databaseSnapshot.getPath() + "'");
 		} catch (SQLException e) {
+			FileSystemAccessWrapper.deleteFile(databaseSnapshot);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,e);
 		}
+		
+		return databaseSnapshot;
+	}
 	
-		// zip the whole temp folder
-		FileSystemAccessWrapper.zipFolderToFile(tempDir.getPath(), filePath);
+	/** 
+	 * Returns the files of the home directory, except for the database itself, keyed by their path relative to the home directory.
+	 * The write-ahead log and its index are excluded as well, since the snapshot of the database contains their committed content.
+	 */
+	private static Map<String, File> collectFilesToBackup() {
+		String excludeRegex = "^\\.lock$|^" + Pattern.quote(FileSystemLocations.DATABASE_NAME) + "(-wal|-shm)?$"; 
+		return BackupArchiveWriter.collectEntries(new File(FileSystemLocations.getActiveHomeDir()), excludeRegex);
+	}
 	
-		// delete temp folder
-		FileSystemAccessWrapper.deleteDirectoryRecursively(tempDir);
+	/** Returns the most recent increment of the backup chain within the directory, or null if the chain is empty */
+	private static File getLatestIncrement(File backupDirectory) {
+		File latestIncrement = null;
+		File[] files = backupDirectory.listFiles();
+		
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().matches(INCREMENT_FILE_REGEX) 
+						&& (latestIncrement == null || extractIncrementTimeStamp(file) > extractIncrementTimeStamp(latestIncrement))) {
+					latestIncrement = file;
+				}
+			}
+		}
+		
+		return latestIncrement;
+	}
+	
+	private static long extractIncrementTimeStamp(File increment) {
+		String fileName = increment.getName();
+		return Long.parseLong(fileName.substring(INCREMENT_PREFIX.length(), fileName.indexOf('.')));
 	}
 	
 	/**
@@ -161,22 +362,55 @@ public final class DatabaseIntegrityManager {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public static void restoreFromFile(String filePath) throws DatabaseWrapperOperationException {
-		FileSystemAccessWrapper.clearHomeDirectory();
-		FileSystemAccessWrapper.unzipFileToFolder(filePath, FileSystemLocations.getActiveHomeDir());
-	
-		try (Statement statement = ConnectionManager.getConnection().createStatement()) {			
-			statement.executeUpdate("restore from '" + FileSystemLocations.getDatabaseRestoreFile() + "'");
+		// The backup is extracted and verified next to the home directory, which is not touched until the backup is complete
+		File homeDirectory = new File(FileSystemLocations.getActiveHomeDir()).getAbsoluteFile();
+		File stagingDirectory = new File(homeDirectory.getParentFile(), homeDirectory.getName() + STAGING_DIRECTORY_SUFFIX);
+		File previousHomeDirectory = new File(homeDirectory.getParentFile(), homeDirectory.getName() + PREVIOUS_HOME_DIRECTORY_SUFFIX);
+		FileSystemAccessWrapper.deleteDirectoryRecursively(stagingDirectory);
+		FileSystemAccessWrapper.deleteDirectoryRecursively(previousHomeDirectory);
+		
+		try {
+			extractBackupToStagingDirectory(new File(filePath).getAbsoluteFile(), stagingDirectory);
+		} catch (IOException | SQLException e) {
+			FileSystemAccessWrapper.deleteDirectoryRecursively(stagingDirectory);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+		
+		// The pictures must neither be moved nor read while the content of the home directory is switched, 
+		// and the database must not be copied by an autosave
+		synchronized (AUTO_SAVE_LOCK) {
+			PictureStoreMigration.stop();
+			ThumbnailPack.closeAll();
+			ConnectionManager.closeConnection();
+			
+			HomeDirectorySwitch homeDirectorySwitch = new HomeDirectorySwitch(
+					stagingDirectory, homeDirectory, previousHomeDirectory, new File(FileSystemLocations.getLockFile()));
 			try {
-				DatabaseIntegrityManager.lastChangeTimeStampInMS = DatabaseIntegrityManager.extractTimeStamp(new File(filePath));
-			} catch (DatabaseWrapperOperationException e) {
-				DatabaseIntegrityManager.lastChangeTimeStampInMS = System.currentTimeMillis();
+				homeDirectorySwitch.apply();
+				// Backups of previous versions lack the picture table indices, the picture rendition columns, the picture references and the quicksearch tables
+				ConnectionManager.openConnection();
+			} catch (IOException | DatabaseWrapperOperationException e) {
+				revertHomeDirectorySwitch(homeDirectorySwitch);
+				FileSystemAccessWrapper.deleteDirectoryRecursively(stagingDirectory);
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 			}
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE,e);
 		}
-	
-		if (!FileSystemAccessWrapper.deleteDatabaseRestoreFile()) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
+		
+		FileSystemAccessWrapper.deleteDirectoryRecursively(previousHomeDirectory);
+		FileSystemAccessWrapper.deleteDirectoryRecursively(stagingDirectory);
+		
+		try {
+			DatabaseIntegrityManager.lastChangeTimeStampInMS = DatabaseIntegrityManager.extractTimeStamp(new File(filePath));
+		} catch (DatabaseWrapperOperationException e) {
+			DatabaseIntegrityManager.lastChangeTimeStampInMS = System.currentTimeMillis();
+		}
+		
+		// Backups of previous versions contain pictures which are not yet located within the fan-out of their folder
+		try {
+			PictureStoreMigration.migrate();
+		} catch (InterruptedException e) {
+			LOGGER.warn("The restored pictures have not all been moved into the fan-out of their folder", e);
+			Thread.currentThread().interrupt();
 		}
 	
 		if (!FileSystemAccessWrapper.updateSammelboxFileStructure()) {
@@ -191,6 +425,45 @@ public final class DatabaseIntegrityManager {
 		DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 	}
 	
+	/** Extracts the backup, including the files of previous increments, and verifies the integrity of the extracted database */
+	private static void extractBackupToStagingDirectory(File backupFile, File stagingDirectory) throws IOException, SQLException {
+		BackupArchiveReader.extractAll(backupFile, stagingDirectory);
+		
+		// An increment of an incremental backup only contains the files which are not contained in a previous increment
+		File manifestFile = new File(stagingDirectory, BackupManifest.MANIFEST_ENTRY_NAME);
+		if (manifestFile.exists()) {
+			BackupManifest.readFromFile(manifestFile).extractFilesOfPreviousIncrements(backupFile.getParentFile(), backupFile.getName(), stagingDirectory);
+			Files.delete(manifestFile.toPath());
+		}
+		
+		File stagedDatabase = new File(stagingDirectory, FileSystemLocations.DATABASE_NAME);
+		Files.move(new File(stagingDirectory, FileSystemLocations.DATABASE_TO_RESTORE_NAME).toPath(), stagedDatabase.toPath());
+		
+		try (Connection stagedConnection = DriverManager.getConnection(ConnectionManager.SQLITE_CONNECTION_STRING + stagedDatabase.getPath());
+			 Statement statement = stagedConnection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("PRAGMA integrity_check")) {
+			
+			String integrity = resultSet.next() ? resultSet.getString(1) : null;
+			if (!"ok".equals(integrity)) {
+				throw new IOException("The database of the backup " + backupFile + " is corrupt: " + integrity);
+			}
+		}
+	}
+	
+	/** Moves the previous content back into the home directory and reopens the connection to the previous database */
+	private static void revertHomeDirectorySwitch(HomeDirectorySwitch homeDirectorySwitch) throws DatabaseWrapperOperationException {
+		ConnectionManager.closeConnection();
+		
+		try {
+			homeDirectorySwitch.revert();
+		} catch (IOException e) {
+			LOGGER.error("The previous content of the home directory could not be moved back completely. Manual cleanup may be required", e);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+		
+		ConnectionManager.openConnection();
+	}
+	
 	/**
 	 * Gets the time stamp when the last change to the database happened.
 	 * @return The time in milliseconds when the last change to the database occured. -1 If not initialized.
@@ -207,16 +480,22 @@ public final class DatabaseIntegrityManager {
 	 * Gets the list of existing autosaves sorted by filename timestamp, newest to oldest.
 	 * @return List of files of previous autosaves. Empty list if none exist
 	 */
-	public static List<File> getAllAutoSaves() throws DatabaseWrapperOperationException{
-		List<File> autoSaves = FileSystemAccessWrapper.getAllMatchingFilesInHomeDirectory(DatabaseIntegrityManager.AUTO_SAVE_FILE_REGEX);
+	public static List<File> getAllAutoSaves() {
+		List<File> autoSaves = new ArrayList<File>();
+		File[] files = new File(FileSystemLocations.getBackupDir()).listFiles();
+		
+		if (files != null) {
+			for (File file : files) {
+				if (AUTO_SAVE_FILE_PATTERN.matcher(file.getName()).matches()) {
+					autoSaves.add(file);
+				}
+			}
+		}
+		
 		Collections.sort(autoSaves, new Comparator<File>() {
 			@Override
 			public int compare(File file1, File file2) {
-				try {
-					return Long.compare(DatabaseIntegrityManager.extractTimeStamp(file2),  DatabaseIntegrityManager.extractTimeStamp(file1));
-				} catch (DatabaseWrapperOperationException e) {
-					return -1;
-				}
+				return Long.compare(extractAutoSaveTimeStamp(file2), extractAutoSaveTimeStamp(file1));
 			}
 		});
 		
@@ -230,78 +509,109 @@ public final class DatabaseIntegrityManager {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	 static long extractTimeStamp(File autoSaveFile) throws DatabaseWrapperOperationException {	
-		String fileName;
-		try {
-			fileName = autoSaveFile.getCanonicalFile().getName();
-		} catch (IOException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}
-		
-		if (!fileName.matches(DatabaseIntegrityManager.AUTO_SAVE_FILE_REGEX)) {
+		if (!AUTO_SAVE_FILE_PATTERN.matcher(autoSaveFile.getName()).matches()) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
 		
 		try {
-			return Long.parseLong(fileName.substring(fileName.indexOf('_') + 1, fileName.indexOf('.')));
+			return extractAutoSaveTimeStamp(autoSaveFile);
 		} catch (NumberFormatException e) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
 	}
 	
+	/** Parses the time stamp of a file name which matches the autosave file name format */
+	private static long extractAutoSaveTimeStamp(File autoSaveFile) {
+		Matcher matcher = AUTO_SAVE_FILE_PATTERN.matcher(autoSaveFile.getName());
+		return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+	}
+	
 	/**
 	 * Creates an automatic backup when the current state of the database is newer than the most recent autosave.  
 	 * To reduce the memory footprint of the backup (i.e. in case of a large amount of pictures) only the db file is
-	 * backed up. 
+	 * backed up. The database is copied through the SQLite backup API on a connection of its own, which only locks the 
+	 * database while a step of the backup copies its pages. Hence the default connection can be used meanwhile, and changes 
+	 * which are committed while the backup is running cause the backup to start over with the changed database. The backup
+	 * gives up instead of waiting when the database is locked by the default connection. The copy is compressed and the 
+	 * oldest autosaves beyond the limit are deleted.
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	public static void backupAutoSave() throws DatabaseWrapperOperationException {		
-		String programVersion = BuildInformationManager.instance().getApplicationName() 
-				+ "_" + BuildInformationManager.instance().getVersion()
-				+ "_" + BuildInformationManager.instance().getBuildTimeStamp();
-		String timeStamp = Long.toString(getLastDatabaseChangeTimeStamp());		
-	
-		String autoSaveFilePath = FileSystemLocations.getBackupDir() + 
-				File.separator + "PERIODICAL_BACKUP_" + programVersion + "_";
-	
-		List<File> previousAutoSaveList = getAllAutoSaves();
-		if (DatabaseIntegrityManager.autoSaveLimit < 1) {			
-			return;
-		}
-	
-		if (previousAutoSaveList.isEmpty()) {
-			// When no changes were made then the timestamp is the current time
-			if (getLastDatabaseChangeTimeStamp() == -1) {
-				timeStamp = Long.toString(System.currentTimeMillis());
+		synchronized (AUTO_SAVE_LOCK) {
+			long lastChangeTimeStamp = getLastDatabaseChangeTimeStamp();
+			// No need to look for the previous autosaves when no changes were made since the last autosave of this session
+			if (DatabaseIntegrityManager.autoSaveLimit < 1 
+					|| (lastChangeTimeStamp != -1 && lastChangeTimeStamp <= DatabaseIntegrityManager.lastAutoSaveTimeStampInMS)) {
+				return;
+			}
+			
+			List<File> previousAutoSaveList = getAllAutoSaves();
+			if (!previousAutoSaveList.isEmpty()) {
+				// No need to overwrite the last auto-save when no changes were made.
+				if (lastChangeTimeStamp == -1 || lastChangeTimeStamp <= extractAutoSaveTimeStamp(previousAutoSaveList.get(0))) {
+					return;
+				}
+			} else if (lastChangeTimeStamp == -1) {
+				// When no changes were made then the timestamp is the current time
+				lastChangeTimeStamp = System.currentTimeMillis();
 			}
-			autoSaveFilePath = autoSaveFilePath + timeStamp + "." + DatabaseIntegrityManager.AUTO_SAVE_EXTENSION;
+			
+			String programVersion = BuildInformationManager.instance().getApplicationName() 
+					+ "_" + BuildInformationManager.instance().getVersion()
+					+ "_" + BuildInformationManager.instance().getBuildTimeStamp();
+			File autoSaveFile = new File(FileSystemLocations.getBackupDir(), AUTO_SAVE_PREFIX + programVersion + "_" 
+					+ lastChangeTimeStamp + "." + AUTO_SAVE_EXTENSION + "." + COMPRESSED_AUTO_SAVE_EXTENSION);
+			
+			File databaseSnapshot = new File(FileSystemLocations.getBackupDir(), UUID.randomUUID().toString());
+			File incompleteAutoSaveFile = new File(autoSaveFile.getPath() + ".part");
 			try {
-				FileSystemAccessWrapper.copyFile(new File(FileSystemLocations.getDatabaseFile()), new File(autoSaveFilePath));
-			} catch (IOException e) {
+				createDatabaseSnapshotOnSeparateConnection(databaseSnapshot);
+				
+				try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(incompleteAutoSaveFile), AUTO_SAVE_BUFFER_SIZE)) {
+					FileTransfer.copyFileToStream(databaseSnapshot, outputStream);
+				}
+				Files.move(incompleteAutoSaveFile.toPath(), autoSaveFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException | SQLException e) {
 				LOGGER.error("Autosave - backup failed");
+				FileSystemAccessWrapper.deleteFile(incompleteAutoSaveFile);
 				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+			} finally {
+				FileSystemAccessWrapper.deleteFile(databaseSnapshot);
 			}
-		// Auto-saves detected
-		} else {
-			// No need to overwrite the last auto-save when no changes were made.
-			if (getLastDatabaseChangeTimeStamp() == -1) {
-				return;
-			}
-	
+			DatabaseIntegrityManager.lastAutoSaveTimeStampInMS = lastChangeTimeStamp;
+			
 			// Auto save limit reached, delete the oldest
-			if (previousAutoSaveList.size() >= DatabaseIntegrityManager.autoSaveLimit) {
-				File oldestAutoSave = previousAutoSaveList.get(previousAutoSaveList.size()-1);
-				if (oldestAutoSave.exists() && !oldestAutoSave.delete()) {
-					LOGGER.error("Autosave - cannot delete old autosave");
-					throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
+			previousAutoSaveList.add(0, autoSaveFile);
+			for (File oldAutoSave : previousAutoSaveList.subList(Math.min(DatabaseIntegrityManager.autoSaveLimit, previousAutoSaveList.size()), previousAutoSaveList.size())) {
+				if (oldAutoSave.exists() && !oldAutoSave.delete()) {
+					LOGGER.error("Autosave - cannot delete old autosave {}", oldAutoSave);
 				}
 			}
-			autoSaveFilePath = autoSaveFilePath + timeStamp + "." + DatabaseIntegrityManager.AUTO_SAVE_EXTENSION;
+		}
+	}
 	
-			try {
-				FileSystemAccessWrapper.copyFile(new File(FileSystemLocations.getDatabaseFile()), new File(autoSaveFilePath));
-			} catch (IOException e) {
-				LOGGER.error("Autosave - backup failed");
-				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+	/** Copies the database through the SQLite backup API on a connection other than the default connection. The driver does not
+	 * report when the backup gave up because the database stayed locked, hence the copy is verified before it is used. */
+	private static void createDatabaseSnapshotOnSeparateConnection(File databaseSnapshot) throws IOException, SQLException {
+		try (Connection snapshotConnection = DriverManager.getConnection(ConnectionManager.SQLITE_CONNECTION_STRING + FileSystemLocations.getDatabaseFile());
+			 Statement statement = snapshotConnection.createStatement()) {
+			// The driver uses the query timeout as busy timeout. Without busy timeout a locked database ends the backup at once 
+			// rather than letting the default connection wait for the backup while it is waiting for the lock itself
+			statement.setQueryTimeout(0);
+			statement.executeUpdate("backup to '" + databaseSnapshot.getPath() + "'");
+		}
+		
+		if (databaseSnapshot.length() == 0) {
+			throw new IOException("The database could not be copied since it has been locked for too long");
+		}
+		
+		try (Connection snapshotConnection = DriverManager.getConnection(ConnectionManager.SQLITE_CONNECTION_STRING + databaseSnapshot.getPath());
+			 Statement statement = snapshotConnection.createStatement();
+			 ResultSet resultSet = statement.executeQuery("PRAGMA quick_check")) {
+			
+			String integrity = resultSet.next() ? resultSet.getString(1) : null;
+			if (!"ok".equals(integrity)) {
+				throw new IOException("The copy of the database is corrupt: " + integrity);
 			}
 		}
 	}
@@ -0,0 +1,83 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.controller.managers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the recently used prepared statements of a single connection by their SQL, so that queries of the same shape
+ * are only compiled once. The least recently used statement is closed as soon as the maximum number is exceeded.
+ */
+final class PreparedStatementCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+	private final Map<String, PreparedStatement> statementsBySql;
+
+	PreparedStatementCache(final int maximumNumberOfStatements) {
+		statementsBySql = new LinkedHashMap<String, PreparedStatement>(maximumNumberOfStatements + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldestStatement) {
+				if (size() > maximumNumberOfStatements) {
+					close(eldestStatement.getValue());
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/** Returns the cached statement for the SQL or prepares a new one using the given connection */
+	synchronized PreparedStatement getStatement(Connection connection, String sql) throws SQLException {
+		PreparedStatement preparedStatement = statementsBySql.get(sql);
+
+		if (preparedStatement == null) {
+			preparedStatement = connection.prepareStatement(sql);
+			statementsBySql.put(sql, preparedStatement);
+		}
+
+		return preparedStatement;
+	}
+
+	/** Closes and removes all statements. Must be called before the underlying connection is closed */
+	synchronized void clear() {
+		for (PreparedStatement preparedStatement : statementsBySql.values()) {
+			close(preparedStatement);
+		}
+
+		statementsBySql.clear();
+	}
+
+	private static void close(PreparedStatement preparedStatement) {
+		try {
+			preparedStatement.close();
+		} catch (SQLException ex) {
+			LOGGER.error("A cached prepared statement could not be closed", ex);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.managers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only connection of the read connection pool, which is lent to a single thread at a time. It must be released via 
+ * {@link ConnectionManager#releaseReadConnection(ReadConnection)} as soon as the results of its statements have been processed.
+ */
+public final class ReadConnection {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReadConnection.class);
+	
+	private final Connection connection;
+	private final ReadConnectionPool pool;
+	private final PreparedStatementCache statementCache;
+	
+	ReadConnection(Connection connection, ReadConnectionPool pool, int maximumNumberOfStatements) {
+		this.connection = connection;
+		this.pool = pool;
+		this.statementCache = new PreparedStatementCache(maximumNumberOfStatements);
+	}
+	
+	/** Gets a cached prepared statement for the SQL on this connection. See {@link ConnectionManager#getPreparedStatement(String)} */
+	public PreparedStatement getPreparedStatement(String sql) throws SQLException {
+		return statementCache.getStatement(connection, sql);
+	}
+	
+	/** Returns the underlying connection, e.g. to read metadata within the snapshot of the running query. It must not be closed. */
+	public Connection getConnection() {
+		return connection;
+	}
+	
+	/** Returns the pool which lent this connection */
+	ReadConnectionPool getPool() {
+		return pool;
+	}
+	
+	void close() {
+		statementCache.clear();
+		
+		try {
+			connection.close();
+		} catch (SQLException ex) {
+			LOGGER.error("A read connection could not be closed", ex);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.controller.managers;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jdbcdslog.ConnectionLoggingProxy;
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Lends read-only connections to the database, so that queries of several threads do not have to share a single connection.
+ * Connections are opened on demand up to the maximum size of the pool. If all of them are lent, further borrowers wait until 
+ * a connection is released. Whether the readers block the writer depends on the journal mode of the database.
+ */
+final class ReadConnectionPool {
+	private final String databaseFile;
+	private final int maximumSize;
+	private final int maximumNumberOfStatementsPerConnection;
+	private final Deque<ReadConnection> idleConnections = new ArrayDeque<ReadConnection>();
+	private int numberOfOpenConnections = 0;
+	private int numberOfLentConnections = 0;
+	private boolean closed = false;
+	
+	ReadConnectionPool(String databaseFile, int maximumSize, int maximumNumberOfStatementsPerConnection) {
+		this.databaseFile = databaseFile;
+		this.maximumSize = maximumSize;
+		this.maximumNumberOfStatementsPerConnection = maximumNumberOfStatementsPerConnection;
+	}
+	
+	/**
+	 * Lends the most recently used idle connection, which most likely has the required statements compiled already. 
+	 * @throws SQLException if a new connection cannot be opened or the pool has been closed
+	 * @throws InterruptedException if the thread is interrupted while waiting for a connection
+	 */
+	synchronized ReadConnection borrow() throws SQLException, InterruptedException {
+		while (!closed) {
+			if (!idleConnections.isEmpty()) {
+				numberOfLentConnections++;
+				return idleConnections.pop();
+			}
+			
+			if (numberOfOpenConnections < maximumSize) {
+				ReadConnection readConnection = open();
+				numberOfOpenConnections++;
+				numberOfLentConnections++;
+				return readConnection;
+			}
+			
+			wait();
+		}
+		
+		throw new SQLException("The read connection pool has been closed");
+	}
+	
+	/**
+	 * Takes the connection back. Connections which are released after the pool has been closed are closed immediately.
+	 * @return true if no connection is lent anymore
+	 */
+	synchronized boolean giveBack(ReadConnection readConnection) {
+		numberOfLentConnections--;
+		
+		if (closed) {
+			readConnection.close();
+			numberOfOpenConnections--;
+		} else {
+			idleConnections.push(readConnection);
+			notifyAll();
+		}
+		
+		return numberOfLentConnections == 0;
+	}
+	
+	/** Closes the idle connections and rejects further borrowers. Lent connections are closed as soon as they are released */
+	synchronized void close() {
+		closed = true;
+		
+		for (ReadConnection readConnection : idleConnections) {
+			readConnection.close();
+			numberOfOpenConnections--;
+		}
+		
+		idleConnections.clear();
+		notifyAll();
+	}
+	
+	private ReadConnection open() throws SQLException {
+		SQLiteConfig sqliteConfig = new SQLiteConfig();
+		sqliteConfig.setReadOnly(true);
+		
+		return new ReadConnection(ConnectionLoggingProxy.wrap(DriverManager.getConnection(
+				ConnectionManager.SQLITE_CONNECTION_STRING + databaseFile, sqliteConfig.toProperties())), 
+				this, maximumNumberOfStatementsPerConnection);
+	}
+}
@@ -80,6 +80,10 @@ public final class MenuManager {
 		backupMenuItem.setText(Translator.get(DictKeys.MENU_BACKUP_ALBUMS_TO_FILE));
 		backupMenuItem.addSelectionListener(SammelboxMenuItemListener.getBackupListener());
 		
+		MenuItem incrementalBackupMenuItem = new MenuItem(sammelboxMenu, SWT.NONE);
+		incrementalBackupMenuItem.setText(Translator.toBeTranslated("Incremental backup to folder"));
+		incrementalBackupMenuItem.addSelectionListener(SammelboxMenuItemListener.getIncrementalBackupListener());
+		
 		MenuItem restoreMenuItem = new MenuItem(sammelboxMenu, SWT.NONE);
 		restoreMenuItem.setText(Translator.get(DictKeys.MENU_RESTORE_ALBUM_FROM_FILE));
 		restoreMenuItem.addSelectionListener(SammelboxMenuItemListener.getRestoreListener());
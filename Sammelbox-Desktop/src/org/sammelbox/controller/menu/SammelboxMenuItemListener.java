@@ -3,6 +3,7 @@ package org.sammelbox.controller.menu;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.sammelbox.controller.filesystem.exporting.CSVExporter;
@@ -106,6 +107,37 @@ public final class SammelboxMenuItemListener {
 		};
 	}
 	
+	static SelectionAdapter getIncrementalBackupListener() {
+		return new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent evt) {
+				DirectoryDialog directoryDialog = new DirectoryDialog(ApplicationUI.getShell(), SWT.SAVE);
+				directoryDialog.setText(Translator.toBeTranslated("Choose the folder of the incremental backup"));
+				directoryDialog.setFilterPath(System.getProperty("user.home"));
+
+				final String backupDirectoryPath = directoryDialog.open();
+				if (backupDirectoryPath != null) {
+					BrowserFacade.showBackupInProgressPage();
+					ApplicationUI.getShell().setEnabled(false);
+					
+					Display.getDefault().asyncExec(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								DatabaseIntegrityManager.backupIncrementallyToDirectory(backupDirectoryPath);
+							} catch (DatabaseWrapperOperationException e) {
+								LOGGER.error("An error occurred while creating the incremental backup", e);
+							}
+							
+							ApplicationUI.getShell().setEnabled(true);
+							BrowserFacade.showBackupFinishedPage();
+						}
+					});
+				}
+			}
+		};
+	}
+	
 	static SelectionAdapter getRestoreListener() {
 		return new SelectionAdapter() {
 			@Override
@@ -19,18 +19,27 @@
 package org.sammelbox.model.album;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.PictureStore;
 
 public class AlbumItemPicture {
 	public static final Long PICTURE_ID_UNDEFINED = Long.MAX_VALUE;
 	public static final String ALBUM_ITEM_PICTURE = "ALBUM_ITEM_PICTURE";
 
 	private long pictureID;
-	/** Is always a uuid.extension e.g. 8bdb7e3f-c66b-4df6-9640-95642c4d823b_1348734436938.png */
+	/** Is either derived from the original e.g. 9f86d08...0f00a08-jpg.png, or a uuid.extension 
+	 * e.g. 8bdb7e3f-c66b-4df6-9640-95642c4d823b_1348734436938.png for pictures added by previous versions */
 	private String thumbnailPictureName;
-	/** Is always a uuid.extension e.g. 3294367d-7901-4bb2-8757-ad13ff3616f7_1348734351845.jpg */
+	/** Is either the content hash.extension e.g. 9f86d08...0f00a08.jpg (see PictureStore), or a uuid.extension 
+	 * e.g. 3294367d-7901-4bb2-8757-ad13ff3616f7_1348734351845.jpg for pictures added by previous versions */
 	private String originalPictureName;		
+	/** The file name of the small rendition, or null if it has not been generated */
+	private String smallPictureName = null;
+	/** The file name of the large rendition, or null if it has not been generated since the original is not larger */
+	private String largePictureName = null;
 	private String albumName;
 	private long albumItemID;
 
@@ -78,6 +87,22 @@ public class AlbumItemPicture {
 		return thumbnailPictureName;
 	}
 
+	public String getSmallPictureName() {
+		return smallPictureName;
+	}
+
+	public void setSmallPictureName(String smallPictureName) {
+		this.smallPictureName = smallPictureName;
+	}
+
+	public String getLargePictureName() {
+		return largePictureName;
+	}
+
+	public void setLargePictureName(String largePictureName) {
+		this.largePictureName = largePictureName;
+	}
+
 	public String getAlbumName() {
 		return albumName;
 	}
@@ -97,12 +122,48 @@ public class AlbumItemPicture {
 	}
 
 	public String getThumbnailPicturePath() {
-		return FileSystemLocations.getThumbnailsDir() + 
-				File.separatorChar + getThumbnailPictureName();
+		return PictureStore.getRenditionPath(getThumbnailPictureName());
 	}
 
+	/** Returns the path to the original picture within the picture store. Pictures added by previous versions 
+	 * are still located within the folder of their album */
 	public String getOriginalPicturePath() {
-		return FileSystemLocations.getAlbumPicturesDir() + 
-				File.separatorChar + albumName + File.separatorChar + getOriginalPictureName();
+		if (PictureStore.isContentAddressed(getOriginalPictureName())) {
+			return PictureStore.getOriginalPicturePath(getOriginalPictureName());
+		}
+		
+		return PictureStore.getShardedPath(FileSystemLocations.getAlbumPicturesDir() + 
+				File.separatorChar + albumName, getOriginalPictureName());
+	}
+
+	/** Returns the path to the given rendition of the picture. A rendition which has not been generated (e.g. for pictures 
+	 * added by previous versions) is substituted by the next larger one 
+	 * @param rendition the requested rendition
+	 * @return the path to the rendition or its substitute */
+	public String getPicturePath(PictureRendition rendition) {
+		switch (rendition) {
+		case SMALL:
+			return smallPictureName != null ? PictureStore.getRenditionPath(smallPictureName) : getThumbnailPicturePath();
+		case THUMBNAIL:
+			return getThumbnailPicturePath();
+		case LARGE:
+			return largePictureName != null ? PictureStore.getRenditionPath(largePictureName) : getOriginalPicturePath();
+		default:
+			return getOriginalPicturePath();
+		}
+	}
+
+	/** Returns the paths to all stored files of the picture, i.e. the original and all generated renditions */
+	public List<String> getAllPicturePaths() {
+		List<String> picturePaths = new ArrayList<String>();
+		
+		for (PictureRendition rendition : PictureRendition.values()) {
+			String picturePath = getPicturePath(rendition);
+			if (!picturePaths.contains(picturePath)) {
+				picturePaths.add(picturePath);
+			}
+		}
+		
+		return picturePaths;
 	}
 }
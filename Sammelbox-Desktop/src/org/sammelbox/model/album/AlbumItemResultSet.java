@@ -19,6 +19,7 @@
 package org.sammelbox.model.album;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -26,6 +27,7 @@ import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.sammelbox.model.database.operations.DatabaseConstants;
@@ -100,6 +102,27 @@ public class AlbumItemResultSet {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
 	}
+	
+	/**
+	 * Constructor. Same as the album name constructor but for a query whose values are bound as parameters.
+	 * @param albumName The name of the album for which a resultset should be created
+	 * @param connection The jdbc connection used to access the actual database.
+	 * @param query The parameterized query to yield the result set.
+	 * @param metaInfoMap A map containing all the metadata of the fields.
+	 * @throws DatabaseWrapperOperationException Exception which will be thrown in case anything went wrong while creating the result set.
+	 */
+	public AlbumItemResultSet(Connection connection, String albumName, ParameterizedQuery query, Map<Integer, MetaItemField> metaInfoMap) throws DatabaseWrapperOperationException {
+		this.metaInfoMap = metaInfoMap;
+		try {
+			PreparedStatement preparedStatement = connection.prepareStatement(query.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			query.bindParameters(preparedStatement);
+			this.items = preparedStatement.executeQuery();
+			this.metaData = items.getMetaData();
+			this.albumName = albumName;
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+	}
 
 	/**
 	 * Getter for the album name to which this result set refers to.
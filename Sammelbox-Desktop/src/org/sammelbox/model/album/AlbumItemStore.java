@@ -20,62 +20,165 @@ package org.sammelbox.model.album;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.QueryCancellation;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.composites.StatusBarComposite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Provides the album items of the currently shown query. Instead of materializing all results, the items are fetched 
+ * page by page from the database when they are requested. Only a bounded window of recently used pages is kept in memory.
+ */
 public final class AlbumItemStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlbumItemStore.class);
 	private static final String SAMPLE = "Sample";
-	private static final int DEFAULT_STOP_INDEX_INCREASE_AMOUNT = 30;
-	// TODO Temporarily disable the dynamic addition by loading all available album items immediately
-	// Reevaluate this sometime in the future..
-	private static final int DEFAULT_STOP_INDEX = Integer.MAX_VALUE;
+	/** The number of album items which are fetched from the database at once */
+	private static final int PAGE_SIZE = 30;
+	/** The number of album items which are fetched at once if all results are requested */
+	private static final int BULK_PAGE_SIZE = 1000;
+	/** The maximum number of pages which are kept in memory. Evicted pages are fetched again if necessary */
+	private static final int MAX_CACHED_PAGES = 10;
+	private static final int DEFAULT_STOP_INDEX_INCREASE_AMOUNT = PAGE_SIZE;
+	/** Further items are only added while scrolling, hence the initially shown items must fill the screen */
+	private static final int DEFAULT_STOP_INDEX = 2 * PAGE_SIZE - 1;
 	
-	private static List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+	private static String albumName = null;
+	private static ParameterizedQuery query = null;
+	private static int numberOfItems = 0;
 	private static int stopIndex = DEFAULT_STOP_INDEX;
 	private static int previousStopIndex = DEFAULT_STOP_INDEX;
+	/** The id of the last item of every page fetched so far. A page is located via the last item of its predecessor */
+	private static final List<Long> lastItemIdsOfPages = new ArrayList<Long>();
+	/** The recently used pages by their page number in access order */
+	private static final Map<Integer, List<AlbumItem>> cachedPages = new LinkedHashMap<Integer, List<AlbumItem>>(MAX_CACHED_PAGES + 1, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, List<AlbumItem>> eldestPage) {
+			return size() > MAX_CACHED_PAGES;
+		}
+	};
 	
 	private AlbumItemStore() {
 	}
 	
-	public static void reinitializeStore(AlbumItemResultSet albumItemResultSet) throws DatabaseWrapperOperationException {
-		albumItems.clear();
+	/** Prepares the store for the results of a query without parameters, see {@link #reinitializeStore(String, ParameterizedQuery)} */
+	public static void reinitializeStore(String albumName, String sqlQuery) throws DatabaseWrapperOperationException {
+		reinitializeStore(albumName, new ParameterizedQuery(sqlQuery));
+	}
+	
+	/**
+	 * Prepares the store for the results of the specified query and fetches the initially shown items.
+	 * @param albumName the name of the album to which the query refers
+	 * @param query a select * query on the album table, optionally sorted by a single field
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void reinitializeStore(String albumName, ParameterizedQuery query) throws DatabaseWrapperOperationException {
+		reinitializeStore(fetchFirstResults(albumName, query, null));
+	}
+	
+	/** Prepares the store for the results which have been fetched in advance via {@link #fetchFirstResults} */
+	public static void reinitializeStore(FirstResults firstResults) {
+		albumName = firstResults.albumName;
+		query = firstResults.query;
+		numberOfItems = firstResults.numberOfItems;
 		stopIndex = DEFAULT_STOP_INDEX;
 		previousStopIndex = DEFAULT_STOP_INDEX;
+		lastItemIdsOfPages.clear();
+		cachedPages.clear();
 		
-		while (albumItemResultSet.moveToNext()) {
-			List<ItemField> itemFields = new ArrayList<ItemField>();
+		for (List<AlbumItem> page : firstResults.pages) {
+			lastItemIdsOfPages.add(page.get(page.size() - 1).getItemID());
+			cachedPages.put(cachedPages.size(), page);
+		}
+		
+		StatusBarComposite.getInstance(ApplicationUI.getShell()).writeStatus(
+				Translator.get(DictKeys.STATUSBAR_NUMBER_OF_ITEMS, numberOfItems), false);
+	}
+	
+	/**
+	 * Counts the results of the specified query and fetches the initially shown items without altering the store. 
+	 * Hence this method can be used to fetch the results on another thread than the UI thread.
+	 * @param albumName the name of the album to which the query refers
+	 * @param query a select * query on the album table, optionally sorted by a single field
+	 * @param cancellation allows to abort the fetching from another thread. If not null, a read connection is used.
+	 * @throws DatabaseWrapperOperationException if the query fails or has been cancelled
+	 */
+	public static FirstResults fetchFirstResults(String albumName, ParameterizedQuery query, QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		int numberOfItems = (int) DatabaseOperations.getNumberOfResults(albumName, query, cancellation);
+		List<List<AlbumItem>> pages = new ArrayList<List<AlbumItem>>();
+		Long precedingItemId = null;
+		
+		for (int i=0; i<=Math.min(DEFAULT_STOP_INDEX, numberOfItems - 1); i+=PAGE_SIZE) {
+			List<AlbumItem> page = cancellation == null ? DatabaseOperations.getAlbumItemPage(albumName, query, precedingItemId, PAGE_SIZE) : 
+				DatabaseOperations.getAlbumItemPage(albumName, query, precedingItemId, PAGE_SIZE, cancellation);
 			
-			for (int i=1; i<=albumItemResultSet.getFieldCount(); i++) {				
-				itemFields.add(new ItemField(albumItemResultSet.getFieldName(i), albumItemResultSet.getFieldType(i), albumItemResultSet.getFieldValue(i)));
+			if (page.isEmpty()) {
+				break;
 			}
 			
-			AlbumItem albumItem = new AlbumItem(albumItemResultSet.getAlbumName(), itemFields);
-			albumItem.setFields(itemFields);
-			albumItems.add(albumItem);
+			pages.add(page);
+			precedingItemId = page.get(page.size() - 1).getItemID();
 		}
 		
-		albumItemResultSet.close();
-		
-		StatusBarComposite.getInstance(ApplicationUI.getShell()).writeStatus(
-				Translator.get(DictKeys.STATUSBAR_NUMBER_OF_ITEMS, albumItems.size()), false);
+		return new FirstResults(albumName, query, numberOfItems, pages);
 	}
 	
+	/** Fetches all results of the current query. This is expensive for large albums and should only be used e.g. for exports */
 	public static List<AlbumItem> getAllAlbumItems() {
-		return albumItems;
+		List<AlbumItem> allAlbumItems = new ArrayList<AlbumItem>(numberOfItems);
+		if (query == null) {
+			return allAlbumItems;
+		}
+		
+		try {
+			Long precedingItemId = null;
+			List<AlbumItem> page;
+			
+			do {
+				page = DatabaseOperations.getAlbumItemPage(albumName, query, precedingItemId, BULK_PAGE_SIZE);
+				allAlbumItems.addAll(page);
+				
+				if (!page.isEmpty()) {
+					precedingItemId = page.get(page.size() - 1).getItemID();
+				}
+			} while (page.size() == BULK_PAGE_SIZE);
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("An error occured while fetching all album items of the following SQL query (" + query + ")", ex);
+		}
+		
+		return allAlbumItems;
 	}
 	
 	public static List<AlbumItem> getAlbumItemsInRange(int startIndex, int stopIndex) {
 		List<AlbumItem> resultList = new ArrayList<AlbumItem>();
 		
-		for (int i=startIndex; i<=stopIndex; i++) {
-			resultList.add(albumItems.get(i));
+		try {
+			for (int i=startIndex; i<=stopIndex; i++) {
+				List<AlbumItem> page = getPage(i / PAGE_SIZE);
+				
+				// the results have changed since the store has been initialized
+				if (i % PAGE_SIZE >= page.size()) {
+					break;
+				}
+				
+				resultList.add(page.get(i % PAGE_SIZE));
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("An error occured while fetching the album items of the following SQL query (" + query + ")", ex);
 		}
 		
 		return resultList;
@@ -86,16 +189,16 @@ public final class AlbumItemStore {
 	}
 	
 	public static int getPreviousStopIndex() {
-		if (previousStopIndex >= albumItems.size() - 1) {
-			return albumItems.size() - 1;
+		if (previousStopIndex >= numberOfItems - 1) {
+			return numberOfItems - 1;
 		}
 		
 		return previousStopIndex;
 	}
 	
 	public static int getStopIndex() {
-		if (stopIndex >= albumItems.size() - 1) {
-			return albumItems.size() - 1;
+		if (stopIndex >= numberOfItems - 1) {
+			return numberOfItems - 1;
 		}
 		
 		return stopIndex;
@@ -105,25 +208,58 @@ public final class AlbumItemStore {
 		previousStopIndex = stopIndex;		
 		stopIndex += DEFAULT_STOP_INDEX_INCREASE_AMOUNT;
 		
-		if (stopIndex > albumItems.size() - 1) {
-			stopIndex = albumItems.size() - 1;
+		if (stopIndex > numberOfItems - 1) {
+			stopIndex = numberOfItems - 1;
 		}
 	}
 
 	public static boolean isStopIndexAtEnd() {
-		return stopIndex >= albumItems.size() - 1;
+		return stopIndex >= numberOfItems - 1;
 	}
 
+	/** Returns the specified album item if it is part of a page in memory, null otherwise */
 	public static AlbumItem getAlbumItem(long albumItemId) {
-		for (AlbumItem albumItem : albumItems) {
-			if (albumItem.getItemID() == albumItemId) {
-				return albumItem;
+		for (List<AlbumItem> page : cachedPages.values()) {
+			for (AlbumItem albumItem : page) {
+				if (albumItem.getItemID() == albumItemId) {
+					return albumItem;
+				}
 			}
 		}
 		
 		return null;
 	}
 	
+	private static List<AlbumItem> getPage(int pageNumber) throws DatabaseWrapperOperationException {
+		List<AlbumItem> page = cachedPages.get(pageNumber);
+		if (page != null) {
+			return page;
+		}
+		
+		// pages which have never been fetched cannot be located directly, but only after their predecessors
+		for (int i=Math.min(pageNumber, lastItemIdsOfPages.size()); i<=pageNumber; i++) {
+			page = fetchPage(i);
+			
+			if (i < pageNumber && page.size() < PAGE_SIZE) {
+				return Collections.emptyList();
+			}
+		}
+		
+		return page;
+	}
+	
+	private static List<AlbumItem> fetchPage(int pageNumber) throws DatabaseWrapperOperationException {
+		Long precedingItemId = pageNumber == 0 ? null : lastItemIdsOfPages.get(pageNumber - 1);
+		List<AlbumItem> page = DatabaseOperations.getAlbumItemPage(albumName, query, precedingItemId, PAGE_SIZE);
+		
+		if (pageNumber == lastItemIdsOfPages.size() && !page.isEmpty()) {
+			lastItemIdsOfPages.add(page.get(page.size() - 1).getItemID());
+		}
+		cachedPages.put(pageNumber, page);
+		
+		return page;
+	}
+	
 	public static AlbumItem getSamplePictureAlbumItemWithoutFields() {
 		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
 		
@@ -192,4 +328,23 @@ public final class AlbumItemStore {
 		
 		return albumItem;
 	}
+	
+	/** The number of results and the initially shown items of a query, see {@link AlbumItemStore#fetchFirstResults} */
+	public static final class FirstResults {
+		private final String albumName;
+		private final ParameterizedQuery query;
+		private final int numberOfItems;
+		private final List<List<AlbumItem>> pages;
+		
+		private FirstResults(String albumName, ParameterizedQuery query, int numberOfItems, List<List<AlbumItem>> pages) {
+			this.albumName = albumName;
+			this.query = query;
+			this.numberOfItems = numberOfItems;
+			this.pages = pages;
+		}
+		
+		public String getAlbumName() {
+			return albumName;
+		}
+	}
 }
@@ -0,0 +1,46 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.album;
+
+/**
+ * The sizes in which the pictures of album items are stored. Except for the original, every rendition is a downscaled copy 
+ * which fits into a square of the given size. Each view should use the smallest rendition that fits its display size, 
+ * since decoding large pictures is slow and needs a lot of memory.
+ */
+public enum PictureRendition {
+	/** For small previews, e.g. the alternative pictures of the detailed view */
+	SMALL     (64),
+	/** For the gallery and the main picture of the detailed view */
+	THUMBNAIL (200),
+	/** For the picture viewer */
+	LARGE     (1280),
+	/** The picture as it has been added by the user */
+	ORIGINAL  (Integer.MAX_VALUE);
+	
+	private int maxSizeInPixels;
+	
+	private PictureRendition(int maxSizeInPixels) {
+		this.maxSizeInPixels = maxSizeInPixels;
+	}
+	
+	/** Returns the maximum width and height of the rendition in pixels */
+	public int getMaxSizeInPixels() {
+		return maxSizeInPixels;
+	}
+}
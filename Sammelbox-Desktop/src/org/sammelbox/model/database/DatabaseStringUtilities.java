@@ -44,6 +44,22 @@ public final class DatabaseStringUtilities {
 		return (albumName.toLowerCase()).replace(" ", "_") + DatabaseConstants.INDEX_NAME_SUFFIX;
 	}
 	
+	/** Creates a database safe name for the index on the album item reference of the picture table. The according suffix is used! */
+	public static String generatePictureIndexName(String albumName) {
+		return generatePictureTableName(albumName) + DatabaseConstants.PICTURE_INDEX_NAME_SUFFIX;
+	}
+	
+	/** Creates a database safe name for the full-text quicksearch table of a given album. The according suffix is used! */
+	public static String generateQuickSearchTableName(String albumName) {
+		return (albumName.toLowerCase()).replace(" ", "_") + DatabaseConstants.QUICKSEARCH_TABLE_SUFFIX;
+	}
+	
+	/** Creates a database safe name for a trigger which keeps the quicksearch table of a given album up to date.
+	 * The operation (e.g. insert) is appended to the quicksearch table name */
+	public static String generateQuickSearchTriggerName(String albumName, String operation) {
+		return generateQuickSearchTableName(albumName) + "_" + operation.toLowerCase();
+	}
+	
 	/** Creates a database safe temporary table name for a given album name The according suffix is used! */
 	public static String generateTempTableName(String albumName) {
 		return (albumName.toLowerCase()).replace(" ", "_") + DatabaseConstants.TEMP_TABLE_SUFFIX;
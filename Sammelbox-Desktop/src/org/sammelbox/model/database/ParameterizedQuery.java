@@ -0,0 +1,72 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An SQL query whose values are not part of the SQL text but represented by ? placeholders. Since all queries of the
+ * same shape share the SQL text, the compiled statement can be reused for different values.
+ */
+public final class ParameterizedQuery {
+	private final String sql;
+	private final List<Object> parameters;
+
+	/** Creates a query without parameters */
+	public ParameterizedQuery(String sql) {
+		this(sql, Collections.emptyList());
+	}
+
+	/**
+	 * Creates a query with the given parameters
+	 * @param sql the SQL text containing a ? placeholder for each parameter
+	 * @param parameters the values of the placeholders in the order of their appearance. Supported are strings,
+	 * integers, longs, doubles and null
+	 */
+	public ParameterizedQuery(String sql, List<? extends Object> parameters) {
+		this.sql = sql;
+		this.parameters = Collections.unmodifiableList(new ArrayList<Object>(parameters));
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public List<Object> getParameters() {
+		return parameters;
+	}
+
+	/** Binds all parameters of this query to the placeholders of the given statement, which must be prepared from the SQL of this query */
+	public void bindParameters(PreparedStatement preparedStatement) throws SQLException {
+		preparedStatement.clearParameters();
+
+		for (int i=0; i<parameters.size(); i++) {
+			preparedStatement.setObject(i + 1, parameters.get(i));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return sql + " " + parameters;
+	}
+}
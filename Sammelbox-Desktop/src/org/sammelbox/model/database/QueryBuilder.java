@@ -21,7 +21,10 @@ package org.sammelbox.model.database;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
@@ -34,6 +37,8 @@ import org.slf4j.LoggerFactory;
 
 public final class QueryBuilder {
 	private static final Logger LOGGER = LoggerFactory.getLogger(QueryBuilder.class);
+	/** Matches the sort clause which is appended by {@link #buildQuery(ArrayList, boolean, String, String, boolean)} */
+	private static final Pattern ORDER_BY_CLAUSE = Pattern.compile("^(.*) ORDER BY (\\[[^\\]]+\\]) (ASC|DESC)$", Pattern.DOTALL);
 	
 	/** A private default constructor to forbid the creation of multiple instances */
 	private QueryBuilder() {}
@@ -138,6 +143,34 @@ public final class QueryBuilder {
 	 * @param sortAscending only if a sortField is specified. In this case, true means that the results are sorted ascending, false means descending
 	 * @return a valid SQL query as a string. By default a 'SELECT *' is performed on the field/column names. */
 	public static String buildQuery(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String albumName, String sortField, boolean sortAscending) {
+		return buildQuery(queryComponents, connectByAnd, albumName, sortField, sortAscending, null);
+	}
+	
+	/** This method builds a parameterized SQL query out of multiple query components. In contrast to buildQuery, the values
+	 * of the query components are not part of the SQL but bound as parameters. Thus the compiled statement can be reused.
+	 * @param queryComponents a list of query components.
+	 * @param connectByAnd a boolean specifying whether the query components are connected by AND (connectedByAnd == true) 
+	 * 						or by OR (connectedByAnd == false). 
+	 * @param albumName the name of the album which should be queried.
+	 * @param sortField the field upon which the results should be sorted. Can be null or empty if not needed
+	 * @param sortAscending only if a sortField is specified. In this case, true means that the results are sorted ascending, false means descending
+	 * @return a valid parameterized SQL query. By default a 'SELECT *' is performed on the field/column names. */
+	public static ParameterizedQuery buildParameterizedQuery(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, 
+			String albumName, String sortField, boolean sortAscending) {
+		List<Object> parameters = new ArrayList<Object>();
+		String query = buildQuery(queryComponents, connectByAnd, albumName, sortField, sortAscending, parameters);
+		return new ParameterizedQuery(query, parameters);
+	}
+	
+	/** See {@link #buildParameterizedQuery(ArrayList, boolean, String, String, boolean)} */
+	public static ParameterizedQuery buildParameterizedQuery(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String albumName) {
+		return buildParameterizedQuery(queryComponents, connectByAnd, albumName, null, false);
+	}
+	
+	/** Builds the query. If a parameter list is provided, the values are added to this list and replaced by placeholders. 
+	 * Otherwise they are escaped and inlined into the SQL */
+	private static String buildQuery(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String albumName, 
+			String sortField, boolean sortAscending, List<Object> parameters) {
 		StringBuilder query = new StringBuilder();
 		query.append("SELECT * FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
 		
@@ -157,7 +190,17 @@ public final class QueryBuilder {
 			if (fieldNameToFieldTypeMap.get(queryComponents.get(i).getFieldName()).equals(FieldType.OPTION) ||
 					fieldNameToFieldTypeMap.get(queryComponents.get(i).getFieldName()).equals(FieldType.URL) ||
 					fieldNameToFieldTypeMap.get(queryComponents.get(i).getFieldName()).equals(FieldType.TEXT)) {
-				if (queryComponents.get(i).getOperator() == QueryOperator.CONTAINS) {
+				if (parameters != null) {
+					query.append( "(" +
+							"[" + queryComponents.get(i).getFieldName() + "] " + 
+							toSQLOperator(queryComponents.get(i).getOperator()) + " ?)");
+					
+					if (queryComponents.get(i).getOperator() == QueryOperator.CONTAINS) {
+						parameters.add("%" + queryComponents.get(i).getValue() + "%");
+					} else {
+						parameters.add(queryComponents.get(i).getValue());
+					}
+				} else if (queryComponents.get(i).getOperator() == QueryOperator.CONTAINS) {
 					query.append( "(" +
 							"[" + queryComponents.get(i).getFieldName() + "] " + 
 							toSQLOperator(queryComponents.get(i).getOperator()) + " " + 
@@ -168,6 +211,11 @@ public final class QueryBuilder {
 							toSQLOperator(queryComponents.get(i).getOperator()) + " " + 
 							"'" + DatabaseStringUtilities.sanitizeSingleQuotesInAlbumItemValues(queryComponents.get(i).getValue()) + "')");
 				}
+			} else if (parameters != null) {
+				query.append( "(" +
+						"[" + queryComponents.get(i).getFieldName() + "] " + 
+						toSQLOperator(queryComponents.get(i).getOperator()) + " ?)");
+				parameters.add(toNumericParameter(queryComponents.get(i).getValue()));
 			} else {
 				query.append( "(" +
 						"[" + queryComponents.get(i).getFieldName() + "] " + 
@@ -196,6 +244,19 @@ public final class QueryBuilder {
 		
 		return query.toString();
 	}
+	
+	/** Binds the values of number, date and star rating fields as numbers, since they are compared to numeric columns */
+	private static Object toNumericParameter(String value) {
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException integerException) {
+			try {
+				return Double.valueOf(value);
+			} catch (NumberFormatException decimalException) {
+				return value;
+			}
+		}
+	}
 
 	/** This method builds a SQL query out of multiple query components and executes the resulting query. The result set is presented
 	 * using the BrowserContent class.
@@ -204,7 +265,7 @@ public final class QueryBuilder {
 	 * 						or by OR (connectedByAnd == false) 
 	 * @param album the name of the album which should be queried */
 	public static void buildQueryAndExecute(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String album) {
-		String query = buildQuery(queryComponents, connectByAnd, album, null, false);		
+		ParameterizedQuery query = buildParameterizedQuery(queryComponents, connectByAnd, album, null, false);		
 		BrowserFacade.performBrowserQueryAndShow(query);
 	}
 
@@ -217,7 +278,7 @@ public final class QueryBuilder {
 	 * @param sortAscending only if a sortField is specified. In this case, true means that the results are sorted ascending, false means descending
 	 * @param album the name of the album which should be queried */
 	public static void buildQueryAndExecute(ArrayList<QueryComponent> queryComponents, boolean connectByAnd, String album, String sortField, boolean sortAscending) {
-		String query = buildQuery(queryComponents, connectByAnd, album, sortField, sortAscending);
+		ParameterizedQuery query = buildParameterizedQuery(queryComponents, connectByAnd, album, sortField, sortAscending);
 		BrowserFacade.performBrowserQueryAndShow(query);
 	}
 	
@@ -253,6 +314,68 @@ public final class QueryBuilder {
 			   " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)); 
 	}
 	
+	/**
+	 * Creates a query which retrieves a single page of the results of the given query. Instead of skipping the preceding results
+	 * by an offset, the page starts right after the last item of the preceding page (keyset pagination). Hence the cost of 
+	 * fetching a page does not grow with the number of preceding results. The results are ordered by the sort field of the 
+	 * given query (if any) and by their id.
+	 * @param albumName the name of the album to which the query refers
+	 * @param query the query whose results are paged. It may end with the ORDER BY clause that is created by buildQuery
+	 * @param precedingItemId the id of the last item of the preceding page, or null to retrieve the first page
+	 * @param pageSize the maximum number of items of the page
+	 * @return the corresponding parameterized SQL query
+	 */
+	public static ParameterizedQuery createPageQuery(String albumName, ParameterizedQuery query, Long precedingItemId, int pageSize) {
+		Matcher orderByMatcher = ORDER_BY_CLAUSE.matcher(query.getSql().trim());
+		String baseQuery = orderByMatcher.matches() ? orderByMatcher.group(1) : query.getSql();
+		String sortColumn = orderByMatcher.matches() ? orderByMatcher.group(2) : null;
+		boolean sortAscending = sortColumn == null || orderByMatcher.group(3).equals("ASC");
+		
+		StringBuilder pageQuery = new StringBuilder("SELECT * FROM (" + baseQuery + ")");
+		List<Object> parameters = new ArrayList<Object>(query.getParameters());
+		
+		if (precedingItemId != null && sortColumn == null) {
+			pageQuery.append(" WHERE id > ?");
+			parameters.add(precedingItemId);
+		} else if (precedingItemId != null) {
+			// NULL values precede all other values when sorting ascending and follow them when sorting descending
+			String precedingValue = "(SELECT " + sortColumn + " FROM " + 
+					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) + " WHERE id = ?)";
+			
+			if (sortAscending) {
+				pageQuery.append(" WHERE (" + precedingValue + " IS NULL AND (" + sortColumn + " IS NOT NULL OR id > ?))" + 
+						" OR " + sortColumn + " > " + precedingValue);
+			} else {
+				pageQuery.append(" WHERE (" + sortColumn + " IS NULL AND (" + precedingValue + " IS NOT NULL OR id > ?))" + 
+						" OR " + sortColumn + " < " + precedingValue);
+			}
+			
+			pageQuery.append(" OR (" + sortColumn + " = " + precedingValue + " AND id > ?)");
+			// each of the five placeholders refers to the id of the preceding item
+			parameters.addAll(Collections.nCopies(5, precedingItemId));
+		}
+		
+		if (sortColumn == null) {
+			pageQuery.append(" ORDER BY id");
+		} else {
+			pageQuery.append(" ORDER BY " + sortColumn + (sortAscending ? " ASC" : " DESC") + ", id");
+		}
+		
+		pageQuery.append(" LIMIT " + pageSize);
+		return new ParameterizedQuery(pageQuery.toString(), parameters);
+	}
+	
+	/**
+	 * Creates a query in the form of "SELECT COUNT(*) FROM (query)" without sorting the results of the given query
+	 * @param query the query whose results should be counted
+	 * @return the corresponding parameterized SQL query
+	 */
+	public static ParameterizedQuery createCountQuery(ParameterizedQuery query) {
+		Matcher orderByMatcher = ORDER_BY_CLAUSE.matcher(query.getSql().trim());
+		return new ParameterizedQuery("SELECT COUNT(*) FROM (" + 
+				(orderByMatcher.matches() ? orderByMatcher.group(1) : query.getSql()) + ")", query.getParameters());
+	}
+	
 	/**
 	 *  Creates a query in the form of "SELECT COUNT(*) AS alias FROM albumName
 	 * @param albumName the album to be counted
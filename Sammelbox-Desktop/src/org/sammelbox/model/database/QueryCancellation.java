@@ -0,0 +1,49 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database;
+
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * Allows to abort queries which are executed by another thread. The cancellation is checked before every statement of
+ * the query is executed and while its rows are read, hence a cancelled query fails at the next check.
+ * Attention: a statement which is already executing is not interrupted. The SQLite driver evaluates counts, sorts and
+ * full-text matches within the first execution step and serializes sqlite3_interrupt with that step, hence an interrupt
+ * would only take effect once the expensive part has finished anyway.
+ */
+public final class QueryCancellation {
+	private volatile boolean cancelled = false;
+
+	/** Aborts the query at its next check. Does not block, hence it can be called on the UI thread */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/** @throws DatabaseWrapperOperationException with a clean state if the query has been cancelled */
+	public void checkNotCancelled() throws DatabaseWrapperOperationException {
+		if (cancelled) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "The query has been cancelled");
+		}
+	}
+}
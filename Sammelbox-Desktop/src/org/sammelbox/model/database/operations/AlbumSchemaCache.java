@@ -0,0 +1,208 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.model.database.operations;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+
+/**
+ * Caches the structural information (album name, field names, field types and quicksearch flags) of album tables.
+ * Each schema is loaded once from the database metadata and kept until an operation alters the structure of the album.
+ * All operations which change the structure of an album must invalidate the cached schema of that album.
+ */
+public final class AlbumSchemaCache {
+	private static final Map<String, AlbumSchema> SCHEMAS_BY_TABLE_NAME = new HashMap<String, AlbumSchema>();
+	/** Incremented by every invalidation, so that schemas loaded from an older snapshot of the database are not cached */
+	private static long version = 0;
+
+	private AlbumSchemaCache() {
+		// use static methods
+	}
+
+	/**
+	 * Retrieves the schema of the specified album table. The schema is loaded from the database if it is not cached yet.
+	 * @param tableName The name of the album table. Table name must NOT be escaped!
+	 * @return The schema of the album table.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static synchronized AlbumSchema getSchemaForTable(String tableName) throws DatabaseWrapperOperationException {
+		return getSchemaForTable(tableName, ConnectionManager.getConnection(), version);
+	}
+
+	/**
+	 * Retrieves the schema of the specified album table. An uncached schema is loaded on the specified connection, 
+	 * e.g. on the read connection of a running query, and only cached if no invalidation happened since the given version.
+	 * @param tableName The name of the album table. Table name must NOT be escaped!
+	 * @param connection The connection on which an uncached schema is loaded.
+	 * @param schemaVersion The {@link #getVersion()} from before the snapshot of the connection was taken.
+	 * @return The schema of the album table.
+	 * @throws DatabaseWrapperOperationException
+	 */
+	static synchronized AlbumSchema getSchemaForTable(String tableName, Connection connection, long schemaVersion) throws DatabaseWrapperOperationException {
+		AlbumSchema albumSchema = SCHEMAS_BY_TABLE_NAME.get(tableName);
+
+		if (albumSchema == null) {
+			albumSchema = loadSchema(tableName, connection);
+			if (schemaVersion == version) {
+				SCHEMAS_BY_TABLE_NAME.put(tableName, albumSchema);
+			}
+		}
+
+		return albumSchema;
+	}
+
+	/** Returns the current version of the cache, which must be retrieved before a query whose schema might be loaded afterwards */
+	static synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Retrieves the schema of the specified album table only if it is already cached.
+	 * @param tableName The name of the album table. Table name must NOT be escaped!
+	 * @return The cached schema of the album table or null if it has not been loaded yet.
+	 */
+	static synchronized AlbumSchema getCachedSchemaForTable(String tableName) {
+		return SCHEMAS_BY_TABLE_NAME.get(tableName);
+	}
+
+	/** See {@link #getSchemaForTable(String)} */
+	static AlbumSchema getSchemaForAlbum(String albumName) throws DatabaseWrapperOperationException {
+		return getSchemaForTable(DatabaseStringUtilities.generateTableName(albumName));
+	}
+
+	/**
+	 * Removes the cached schema of the specified album. The schema is reloaded during the next access. Since queries on read 
+	 * connections see the old schema until the change is committed, the schema is removed once more after the commit.
+	 * @param albumName The name of the album whose structure has been changed.
+	 */
+	static void invalidate(final String albumName) {
+		removeSchema(albumName);
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				removeSchema(albumName);
+			}
+		});
+	}
+
+	private static synchronized void removeSchema(String albumName) {
+		SCHEMAS_BY_TABLE_NAME.remove(DatabaseStringUtilities.generateTableName(albumName));
+		version++;
+	}
+
+	/** Removes all cached schemas. Must be called whenever the underlying database is exchanged (e.g. restore, new connection) */
+	public static synchronized void invalidateAll() {
+		SCHEMAS_BY_TABLE_NAME.clear();
+		version++;
+	}
+
+	private static AlbumSchema loadSchema(String tableName, Connection connection) throws DatabaseWrapperOperationException {
+		String albumName = QueryOperations.getAlbumName(tableName, connection);
+		List<String> quickSearchableColumnNames = QueryOperations.getIndexedColumnNames(tableName, connection);
+		Map<String, MetaItemField> fields = new LinkedHashMap<String, MetaItemField>();
+
+		try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			 ResultSet resultSet = statement.executeQuery(QueryBuilder.createSelectStarQuery(tableName))) {
+
+			// Retrieve table metadata
+			ResultSetMetaData metaData = resultSet.getMetaData();
+
+			for (int columnIndex = 1; columnIndex <= metaData.getColumnCount(); columnIndex++) {
+				String columnName = metaData.getColumnName(columnIndex);
+				FieldType type = HelperOperations.detectDataType(tableName, columnName, connection);
+				fields.put(columnName, new MetaItemField(columnName, type, quickSearchableColumnNames.contains(columnName)));
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+
+		return new AlbumSchema(albumName, fields);
+	}
+
+	/** The immutable structural information of a single album table */
+	static final class AlbumSchema {
+		private final String albumName;
+		private final Map<String, MetaItemField> fieldsByName;
+
+		private AlbumSchema(String albumName, Map<String, MetaItemField> fieldsByName) {
+			this.albumName = albumName;
+			this.fieldsByName = Collections.unmodifiableMap(fieldsByName);
+		}
+
+		/** Returns the album name which is registered for the table in the album master table. Null if the table is not an album */
+		String getAlbumName() {
+			return albumName;
+		}
+
+		/** Returns the type of the specified field or null if the album has no such field */
+		FieldType getFieldType(String fieldName) {
+			MetaItemField metaItemField = fieldsByName.get(fieldName);
+			return metaItemField == null ? null : metaItemField.getType();
+		}
+
+		/** Returns true if the album contains the specified field */
+		boolean containsField(String fieldName) {
+			return fieldsByName.containsKey(fieldName);
+		}
+
+		/** Returns true if the specified field is marked for the quicksearch feature */
+		boolean isQuickSearchable(String fieldName) {
+			MetaItemField metaItemField = fieldsByName.get(fieldName);
+			return metaItemField != null && metaItemField.isQuickSearchable();
+		}
+
+		/** Returns true if at least one field of the album is marked for the quicksearch feature */
+		boolean hasQuickSearchableFields() {
+			for (MetaItemField metaItemField : fieldsByName.values()) {
+				if (metaItemField.isQuickSearchable()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/** Returns a copy of all fields (including internal ones) in the order of the table columns.
+		 * Since meta item fields are mutable, the copies can be safely altered by the caller. */
+		List<MetaItemField> getFields() {
+			List<MetaItemField> fields = new ArrayList<MetaItemField>();
+			for (MetaItemField metaItemField : fieldsByName.values()) {
+				fields.add(new MetaItemField(metaItemField.getName(), metaItemField.getType(), metaItemField.isQuickSearchable()));
+			}
+			return fields;
+		}
+	}
+}
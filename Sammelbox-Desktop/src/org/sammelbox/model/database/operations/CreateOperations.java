@@ -23,10 +23,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.PictureStore;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.AlbumItem;
@@ -71,6 +74,10 @@ public final class CreateOperations {
 		
 		// Make columns quick-searchable
 		createIndex(DatabaseStringUtilities.generateTableName(albumName), quickSearchableColumnNames);
+		createQuickSearchTable(albumName, fields);
+		
+		AlbumSchemaCache.invalidate(albumName);
+		QueryResultCache.invalidate(albumName);
 	}
 	
 	/**
@@ -112,17 +119,64 @@ public final class CreateOperations {
 		}
 
 		// Prepare statement string
-		String createMainTableString = "";
+		String createMainTableString = createAlbumTableQuery(createTempTableSQL, tableName, typeInfoTableName, columns);
+
+		// Save the type informations in a separate table
+		createTypeInfoTable(typeInfoTableName, columns, temporary);
+		
+		// Add the album back to the album master table
+		UpdateOperations.addNewAlbumToAlbumMasterTable(albumName, albumHasPictures);
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			// Create the Album table			
+			statement.executeUpdate(createMainTableString);
+		} catch (SQLException sqlException) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlException);
+		}
+	}
+	
+	/**
+	 * Creates an album table along with its own type info table without registering it in the album master table.
+	 * Used to rebuild the table of an album next to the original one. See {@link UpdateOperations#rebuildAlbumTable}
+	 * @param fields The fields making up the album content. The id, type info and content version columns are added automatically.
+	 * @param tableName The database name of the table to be created. Table name must NOT be escaped!
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	static void createAlbumTable(List<MetaItemField> fields, String tableName) throws DatabaseWrapperOperationException {
+		List<MetaItemField> columns = new ArrayList<MetaItemField>(fields);
+		columns.add(new MetaItemField(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME, FieldType.UUID));
+		
+		String typeInfoTableName = DatabaseStringUtilities.generateTypeInfoTableName(tableName);
+		String createTableString = createAlbumTableQuery("", DatabaseStringUtilities.encloseNameWithQuotes(tableName), typeInfoTableName, columns);
+		
+		// Replace the type information before the column list is extended by the schema version
+		createTypeInfoTable(typeInfoTableName, columns, false);
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.executeUpdate(createTableString);
+		} catch (SQLException sqlException) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlException);
+		}
+	}
+	
+	/**
+	 * Builds the statement which creates an album table with the given columns plus the id and the type info column.
+	 * @param tableQualifier Either an empty string or TEMPORARY.
+	 * @param tableName The database name of the table to be created. Must be escaped.
+	 * @param typeInfoTableName The type info table which is referenced by the type info column.
+	 * @param columns The columns of the table, excluding id and type info.
+	 * @return The create table statement.
+	 */
+	private static String createAlbumTableQuery(String tableQualifier, String tableName, String typeInfoTableName, List<MetaItemField> columns) {
 		StringBuilder sb = new StringBuilder("CREATE ");
 
 		// Insert temporary table qualifier when necessary
-		sb.append(createTempTableSQL);
+		sb.append(tableQualifier);
 		
 		sb.append(" TABLE ");
 		sb.append(tableName);
 		sb.append(" ( id INTEGER PRIMARY KEY");
 
-
 		for (MetaItemField item : columns) {
 			sb.append(" , ");
 			sb.append(DatabaseStringUtilities.encloseNameWithQuotes(item.getName()));
@@ -139,20 +193,8 @@ public final class CreateOperations {
 		sb.append(") REFERENCES ");
 		sb.append(typeInfoTableName);
 		sb.append("(id))");
-		createMainTableString = sb.toString();
-
-		// Save the type informations in a separate table
-		createTypeInfoTable(typeInfoTableName, columns, temporary);
-		
-		// Add the album back to the album master table
-		UpdateOperations.addNewAlbumToAlbumMasterTable(albumName, albumHasPictures);
 		
-		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
-			// Create the Album table			
-			statement.executeUpdate(createMainTableString);
-		} catch (SQLException sqlException) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlException);
-		}
+		return sb.toString();
 	}
 	
 	/**
@@ -240,6 +282,77 @@ public final class CreateOperations {
 		}
 	}
 	
+	/**
+	 * (Re)creates the full-text table which mirrors the quicksearchable text, option and URL fields of an album. The table 
+	 * is filled with the current album items and kept in sync with the album table by triggers. The quicksearch matches
+	 * against this table instead of scanning the album table. Nothing is created if the album has no such field.
+	 * @param albumName The name of the album for which the quicksearch table is created.
+	 * @param fields The fields of the album including their quicksearch flags.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	static void createQuickSearchTable(String albumName, List<MetaItemField> fields) throws DatabaseWrapperOperationException {
+		DeleteOperations.dropQuickSearchTable(albumName);
+		
+		List<String> columnNames = new ArrayList<String>();
+		for (MetaItemField metaItemField : fields) {
+			if (metaItemField.isQuickSearchable() && QueryOperations.isFullTextSearchable(metaItemField.getType())) {
+				columnNames.add(metaItemField.getName());
+			}
+		}
+		
+		if (columnNames.isEmpty()) {
+			return;
+		}
+		
+		String tableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName));
+		String quickSearchTableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateQuickSearchTableName(albumName));
+		String quickSearchColumns = joinColumnNames(columnNames, "");
+		String insertQuickSearchEntry = "INSERT INTO " + quickSearchTableName + " (docid, " + quickSearchColumns + 
+				") VALUES (new.id, " + joinColumnNames(columnNames, "new.") + "); ";
+		String deleteQuickSearchEntry = "DELETE FROM " + quickSearchTableName + " WHERE docid = old.id; ";
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.executeUpdate("CREATE VIRTUAL TABLE " + quickSearchTableName + " USING fts3(" + quickSearchColumns + ")");
+			statement.executeUpdate("INSERT INTO " + quickSearchTableName + " (docid, " + quickSearchColumns + ") SELECT id, " + 
+					quickSearchColumns + " FROM " + tableName);
+			
+			statement.executeUpdate(createQuickSearchTriggerQuery(albumName, "INSERT", insertQuickSearchEntry));
+			statement.executeUpdate(createQuickSearchTriggerQuery(albumName, "UPDATE", deleteQuickSearchEntry + insertQuickSearchEntry));
+			statement.executeUpdate(createQuickSearchTriggerQuery(albumName, "DELETE", deleteQuickSearchEntry));
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
+	/** Creates the quicksearch tables of all existing albums which do not have one yet, since databases created by previous versions lack them */
+	static void createQuickSearchTablesIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		for (String albumName : QueryOperations.getListOfAllAlbums()) {
+			if (!QueryOperations.isQuickSearchTableAvailable(albumName)) {
+				createQuickSearchTable(albumName, QueryOperations.getAlbumItemFieldNamesAndTypes(albumName));
+			}
+		}
+	}
+	
+	private static String createQuickSearchTriggerQuery(String albumName, String operation, String triggerBody) {
+		return "CREATE TRIGGER " + DatabaseStringUtilities.encloseNameWithQuotes(
+				DatabaseStringUtilities.generateQuickSearchTriggerName(albumName, operation)) + 
+				" AFTER " + operation + " ON " + DatabaseStringUtilities.encloseNameWithQuotes(
+				DatabaseStringUtilities.generateTableName(albumName)) + " BEGIN " + triggerBody + "END";
+	}
+	
+	/** Joins the column names in square brackets, each of them preceded by the given prefix (e.g. new.) */
+	private static String joinColumnNames(List<String> columnNames, String prefix) {
+		StringBuilder sb = new StringBuilder();
+		for (String columnName : columnNames) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(prefix);
+			sb.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(columnName));
+		}
+		return sb.toString();
+	}
+	
 	static void createAlbumMasterTableIfItDoesNotExist() throws DatabaseWrapperOperationException {
 		List<MetaItemField> fields = new ArrayList<MetaItemField>();
 		
@@ -305,9 +418,101 @@ public final class CreateOperations {
 		columns.add(new MetaItemField(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE, FieldType.TEXT));
 		// The id of the album item the picture belongs to
 		columns.add(new MetaItemField(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE, FieldType.ID));
+		// The filenames of the generated renditions. These are appended since older databases obtain them by altering the table
+		columns.add(new MetaItemField(DatabaseConstants.SMALL_PICTURE_FILE_NAME_IN_PICTURE_TABLE, FieldType.TEXT));
+		columns.add(new MetaItemField(DatabaseConstants.LARGE_PICTURE_FILE_NAME_IN_PICTURE_TABLE, FieldType.TEXT));
 	
 		createTableWithIdAsPrimaryKey(DatabaseStringUtilities.encloseNameWithQuotes(
 				DatabaseStringUtilities.generatePictureTableName(albumName)), columns , false, true);
+		
+		createPictureTableIndexIfItDoesNotExist(albumName);
+	}
+	
+	/** Creates the index on the album item reference of the picture table so that the pictures of an item are 
+	 * not retrieved through a full table scan. Nothing happens if the index already exists. */
+	static void createPictureTableIndexIfItDoesNotExist(String albumName) throws DatabaseWrapperOperationException {
+		String createIndexSQL = "CREATE INDEX IF NOT EXISTS " + 
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureIndexName(albumName)) + 
+				" ON " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) + 
+				" (" + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + ")";
+		
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(createIndexSQL)) {
+			preparedStatement.execute();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
+	/** Creates the picture table indices of all existing albums, since databases created by previous versions lack them */
+	static void createPictureTableIndicesIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		for (String albumName : QueryOperations.getListOfAllAlbums()) {
+			createPictureTableIndexIfItDoesNotExist(albumName);
+		}
+	}
+	
+	/** Adds the columns of the picture renditions to the picture tables of all existing albums, since databases created by 
+	 * previous versions lack them. The renditions of their pictures remain undefined and are substituted when displayed. */
+	static void addPictureRenditionColumnsIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		for (String albumName : QueryOperations.getListOfAllAlbums()) {
+			String pictureTableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName));
+			List<String> columnNames = new ArrayList<String>();
+			
+			try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+				try (ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + pictureTableName + ")")) {
+					while (resultSet.next()) {
+						columnNames.add(resultSet.getString("name"));
+					}
+				}
+				
+				// An empty table info means that there is no picture table
+				if (!columnNames.isEmpty()) {
+					for (String renditionColumnName : new String[] { DatabaseConstants.SMALL_PICTURE_FILE_NAME_IN_PICTURE_TABLE, 
+							DatabaseConstants.LARGE_PICTURE_FILE_NAME_IN_PICTURE_TABLE }) {
+						if (!columnNames.contains(renditionColumnName)) {
+							statement.executeUpdate("ALTER TABLE " + pictureTableName + " ADD COLUMN " + 
+									DatabaseStringUtilities.encloseNameWithQuotes(renditionColumnName) + " TEXT");
+						}
+					}
+				}
+			} catch (SQLException e) {
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+			}
+		}
+	}
+	
+	/** Creates the table counting the references to each original picture file. Databases created by previous versions 
+	 * lack the table, hence it is initialized with the references of all existing picture tables when it is created. */
+	static void createPictureReferenceTableIfItDoesNotExist() throws DatabaseWrapperOperationException {
+		if (QueryOperations.isTableAvailable(DatabaseConstants.PICTURE_REFERENCE_TABLE_NAME)) {
+			return;
+		}
+		
+		// The column names are not quoted, since quoted names are string literals within expressions
+		String pictureReferenceTableName = DatabaseConstants.PICTURE_REFERENCE_TABLE_NAME;
+		String originalPictureColumnName = DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_REFERENCE_TABLE;
+		String referenceCountColumnName = DatabaseConstants.REFERENCE_COUNT_IN_PICTURE_REFERENCE_TABLE;
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.executeUpdate("CREATE TABLE " + pictureReferenceTableName + " ( " + 
+					originalPictureColumnName + " TEXT PRIMARY KEY, " + referenceCountColumnName + " INTEGER NOT NULL )");
+			
+			for (String albumName : QueryOperations.getListOfAllAlbums()) {
+				String pictureTableName = DatabaseStringUtilities.generatePictureTableName(albumName);
+				if (!QueryOperations.isTableAvailable(pictureTableName)) {
+					continue;
+				}
+				
+				String quotedPictureTableName = DatabaseStringUtilities.encloseNameWithQuotes(pictureTableName);
+				String pictureColumnName = DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE;
+				statement.executeUpdate("INSERT OR IGNORE INTO " + pictureReferenceTableName + " SELECT DISTINCT " + 
+						pictureColumnName + ", 0 FROM " + quotedPictureTableName);
+				statement.executeUpdate("UPDATE " + pictureReferenceTableName + " SET " + referenceCountColumnName + " = " + 
+						referenceCountColumnName + " + (SELECT COUNT(*) FROM " + quotedPictureTableName + " AS album_pictures WHERE " + 
+						"album_pictures." + pictureColumnName + " = " + pictureReferenceTableName + "." + originalPictureColumnName + ")");
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
 	}
 	
 	/** Adds the given album item to the corresponding album table 
@@ -319,12 +524,151 @@ public final class CreateOperations {
 	 * This flag is useful in the case where items are re-added to the table after some structural alterations have
 	 * been performed that have not modified the content */
 	static long addAlbumItem(AlbumItem albumItem, boolean addPictures, boolean updateContentVersion) throws DatabaseWrapperOperationException {
+		validateAlbumItem(albumItem.getAlbumName(), albumItem, updateContentVersion);
+		
+		List<String> columnNames = getInsertColumnNames(albumItem);
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+	
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+				createInsertQuery(albumItem.getAlbumName(), columnNames))){
+			long idOfAddedItem = albumItem.getItemID() != AlbumItem.ITEM_ID_UNDEFINED ? albumItem.getItemID() : -1;
+			
+			// Replace the wildcard character '?' by the real type values
+			setAlbumItemValues(preparedStatement, albumItem, columnNames, updateContentVersion);
+			preparedStatement.executeUpdate();
+			
+			// Retrieves the generated key used in the new  album item
+			if (albumItem.getItemID() == AlbumItem.ITEM_ID_UNDEFINED) {
+				idOfAddedItem = fetchGeneratedKey(preparedStatement);
+			}
+			
+			// If possible (and demanded) store picture links
+			if (addPictures && albumItem.getPictures() != null) {
+				for (AlbumItemPicture picture : albumItem.getPictures()) {
+					picture.setAlbumItemID(idOfAddedItem);
+					picture.setAlbumName(albumItem.getAlbumName());
+					addAlbumItemPicture(picture);
+				}
+			}
+			
+			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+			return idOfAddedItem;
+		} catch (SQLException e) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			QueryResultCache.invalidate(albumItem.getAlbumName());
+		}
+	}
+	
+	/** Adds all given album items to the specified album. Instead of building and executing an insert for every single item, 
+	 * a prepared statement is reused for all items with the same fields and executed in batches. The content version is 
+	 * written by the insert itself. Every chunk of itemsPerTransaction items is added within its own savepoint, which
+	 * commits the chunk unless the method is called within an enclosing savepoint.
+	 * @param albumName the album to which all items belong
+	 * @param albumItems the items to be added. They might be created lazily by the iterator. If the iterator throws an unchecked
+	 * exception, the current chunk is rolled back and the exception is passed on.
+	 * @param addPictures should the pictures from the given album items be added to the corresponding picture table?
+	 * @param updateContentVersion should new content versions be generated? Otherwise the content versions of the items are kept
+	 * @param itemsPerTransaction the number of items which are added within a single savepoint
+	 * @throws DatabaseWrapperOperationException If an error occurs. The chunk containing the erroneous item is rolled back, 
+	 * but the preceding chunks might have been committed already. Hence the error state is always dirty. */
+	static void addAlbumItems(String albumName, Iterable<AlbumItem> albumItems, boolean addPictures, 
+			boolean updateContentVersion, int itemsPerTransaction) throws DatabaseWrapperOperationException {
+		
+		if (itemsPerTransaction < 1) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "At least one item must be added per transaction");
+		}
+		
+		Iterator<AlbumItem> albumItemIterator = albumItems.iterator();
+		while (albumItemIterator.hasNext()) {
+			String savepointName = DatabaseIntegrityManager.createSavepoint();
+			try {
+				addAlbumItemChunk(albumName, albumItemIterator, addPictures, updateContentVersion, itemsPerTransaction);
+			} catch (DatabaseWrapperOperationException e) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+			} catch (RuntimeException e) {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+				throw e;
+			} finally {
+				DatabaseIntegrityManager.releaseSavepoint(savepointName);
+				QueryResultCache.invalidate(albumName);
+			}
+		}
+		
+		DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+	}
+	
+	/** Adds at most chunkSize items of the iterator to the album. Items are inserted through batches, except for items 
+	 * whose pictures must be linked using the generated id. These are inserted one by one. */
+	private static void addAlbumItemChunk(String albumName, Iterator<AlbumItem> albumItemIterator, boolean addPictures, 
+			boolean updateContentVersion, int chunkSize) throws DatabaseWrapperOperationException {
+		
+		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
+		List<String> columnNames = null;
+		PreparedStatement preparedStatement = null;
+		
+		try {
+			for (int itemCount = 0; itemCount < chunkSize && albumItemIterator.hasNext(); itemCount++) {
+				AlbumItem albumItem = albumItemIterator.next();
+				validateAlbumItem(albumName, albumItem, updateContentVersion);
+				
+				boolean hasPictures = addPictures && albumItem.getPictures() != null && !albumItem.getPictures().isEmpty();
+				boolean requiresGeneratedKey = hasPictures && albumItem.getItemID() == AlbumItem.ITEM_ID_UNDEFINED;
+				
+				// Items with other fields need their own statement. The same applies to single executions, since the
+				// driver does not support executing a statement directly once it has been used for batches.
+				List<String> itemColumnNames = getInsertColumnNames(albumItem);
+				if (!itemColumnNames.equals(columnNames) || requiresGeneratedKey) {
+					executeBatchAndClose(preparedStatement);
+					preparedStatement = ConnectionManager.getConnection().prepareStatement(createInsertQuery(albumName, itemColumnNames));
+					columnNames = itemColumnNames;
+				}
+				
+				setAlbumItemValues(preparedStatement, albumItem, columnNames, updateContentVersion);
+				
+				long idOfAddedItem = albumItem.getItemID();
+				if (requiresGeneratedKey) {
+					preparedStatement.executeUpdate();
+					idOfAddedItem = fetchGeneratedKey(preparedStatement);
+				} else {
+					preparedStatement.addBatch();
+				}
+				
+				if (hasPictures) {
+					for (AlbumItemPicture picture : albumItem.getPictures()) {
+						picture.setAlbumItemID(idOfAddedItem);
+						picture.setAlbumName(albumName);
+						pictures.add(picture);
+					}
+				}
+			}
+			
+			executeBatchAndClose(preparedStatement);
+			preparedStatement = null;
+			addAlbumItemPictures(albumName, pictures);
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		} finally {
+			closeQuietly(preparedStatement);
+		}
+	}
+	
+	private static void validateAlbumItem(String albumName, AlbumItem albumItem, boolean updateContentVersion) throws DatabaseWrapperOperationException {
 		// Check if the item contains a albumName
 		if (albumItem.getAlbumName().isEmpty()) {
 			LOGGER.error("Item {} has no albumName", albumItem);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
 		
+		// Check if the item belongs to the album to which it is added
+		if (!DatabaseStringUtilities.generateTableName(albumItem.getAlbumName()).equals(DatabaseStringUtilities.generateTableName(albumName))) {
+			LOGGER.error("Item {} does not belong to the album {}", albumItem, albumName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		}
+		
 		// Check if specified album Item is valid
 		if (!albumItem.isValid()) {
 			LOGGER.error("Item {} is invalid", albumItem);
@@ -337,93 +681,163 @@ public final class CreateOperations {
 					"is checked but no content version is found in the item!");
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
-
-		// Build the SQL string with place-holders '?'
-		StringBuilder sb = new StringBuilder("INSERT INTO ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumItem.getAlbumName())));
-		sb.append(" ( ");
-
+	}
+	
+	/** Returns the names of the item fields which are inserted. The type info and content version are always appended separately */
+	private static List<String> getInsertColumnNames(AlbumItem albumItem) {
+		List<String> columnNames = new ArrayList<String>();
+		
 		for (ItemField itemField : albumItem.getFields()) {
 			String name = itemField.getName();
 			// Ensure that no field with the name of typeInfoColumnName
-			if (!name.equalsIgnoreCase(DatabaseConstants.TYPE_INFO_COLUMN_NAME)) {
-				sb.append(DatabaseStringUtilities.encloseNameWithQuotes(name));
-				sb.append(", ");
+			if (!name.equalsIgnoreCase(DatabaseConstants.TYPE_INFO_COLUMN_NAME) && 
+					!name.equalsIgnoreCase(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME)) {
+				columnNames.add(name);
 			}
 		}
+		
+		return columnNames;
+	}
+	
+	/** Builds the insert SQL string with place-holders '?' for the given columns, the type info and the content version */
+	private static String createInsertQuery(String albumName, List<String> columnNames) {
+		StringBuilder sb = new StringBuilder("INSERT INTO ");
+		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
+		sb.append(" ( ");
 
-		// Add the typeInfoColumnName 
+		for (String columnName : columnNames) {
+			sb.append(DatabaseStringUtilities.encloseNameWithQuotes(columnName));
+			sb.append(", ");
+		}
+
+		// Add the typeInfoColumnName and the content version
 		sb.append(DatabaseConstants.TYPE_INFO_COLUMN_NAME);
+		sb.append(", ");
+		sb.append(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
 		sb.append(" ) VALUES ( ");
 
-		for (ItemField itemField : albumItem.getFields()) {
-			String name = itemField.getName();
-			if (!name.equalsIgnoreCase(DatabaseConstants.TYPE_INFO_COLUMN_NAME)) {
-				sb.append("?, ");
+		for (int i=0; i<columnNames.size(); i++) {
+			sb.append("?, ");
+		}
+		// Add wildcards for the typeInfoColumn and content version values
+		sb.append("?, ? )");
+		
+		return sb.toString();
+	}
+	
+	/** Replaces the place-holders of a statement created by {@link #createInsertQuery(String, List)} by the values of the item */
+	private static void setAlbumItemValues(PreparedStatement preparedStatement, AlbumItem albumItem, 
+			List<String> columnNames, boolean updateContentVersion) throws SQLException, DatabaseWrapperOperationException {
+		
+		int parameterIndex = 1;
+		for (String columnName : columnNames) {
+			HelperOperations.setValueToPreparedStatement(preparedStatement, parameterIndex, albumItem.getField(columnName), albumItem.getAlbumName());
+			parameterIndex++;
+		}
+		preparedStatement.setLong(parameterIndex, DatabaseConstants.TYPE_INFO_FOREIGN_KEY);
+		parameterIndex++;
+		
+		// Either copies the old content version over or generates a new one
+		UUID contentVersion = updateContentVersion ? UUID.randomUUID() : albumItem.getContentVersion();
+		preparedStatement.setString(parameterIndex, contentVersion.toString());
+	}
+	
+	private static long fetchGeneratedKey(PreparedStatement preparedStatement) throws SQLException {
+		try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+			if (generatedKeys.next()) {
+				return generatedKeys.getLong(1);
 			}
 		}
-		// Add wildcard for the typeInfoColumn Value
-		sb.append("? )");
 		
-		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		throw new SQLException("The id of the added album item could not be retrieved");
+	}
 	
-		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(sb.toString())){
-			long idOfAddedItem = albumItem.getItemID() != AlbumItem.ITEM_ID_UNDEFINED ? albumItem.getItemID() : -1;
-			
-			// Replace the wildcard character '?' by the real type values
-			int parameterIndex = 1;
-			for (ItemField itemField : albumItem.getFields()) {	
-				String name = itemField.getName();
-				
-				if (itemField.getType().equals(FieldType.ID) && idOfAddedItem != AlbumItem.ITEM_ID_UNDEFINED) {
-					HelperOperations.setValueToPreparedStatement(preparedStatement, parameterIndex, itemField, albumItem.getAlbumName());
+	private static void executeBatchAndClose(PreparedStatement preparedStatement) throws SQLException {
+		if (preparedStatement != null) {
+			try {
+				preparedStatement.executeBatch();
+			} finally {
+				preparedStatement.close();
+			}
+		}
+	}
+	
+	private static void closeQuietly(PreparedStatement preparedStatement) {
+		if (preparedStatement != null) {
+			try {
+				preparedStatement.close();
+			} catch (SQLException e) {
+				LOGGER.error("The insert statement could not be closed", e);
+			}
+		}
+	}
+	
+	/** Adds the given pictures to the picture table of the album using a single batch */
+	private static void addAlbumItemPictures(String albumName, List<AlbumItemPicture> pictures) throws SQLException, DatabaseWrapperOperationException {
+		if (pictures.isEmpty()) {
+			return;
+		}
+		
+		String insertPictureQuery = "INSERT INTO " + 
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) + " ( " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.SMALL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.LARGE_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + 
+				" ) VALUES ( ?, ?, ?, ?, ? )";
+		
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(insertPictureQuery)) {
+			for (AlbumItemPicture picture : pictures) {
+				if (picture instanceof SampleAlbumItemPicture) {
+					throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "Cannot persist SampleAlbumItemPicture");
 				}
 				
-				if (!name.equalsIgnoreCase(DatabaseConstants.TYPE_INFO_COLUMN_NAME)) {					
-					HelperOperations.setValueToPreparedStatement(preparedStatement, parameterIndex, itemField, albumItem.getAlbumName());
-					parameterIndex++;
-				}
+				preparedStatement.setString(1, picture.getOriginalPictureName());
+				preparedStatement.setString(2, picture.getThumbnailPictureName());
+				preparedStatement.setLong(3, picture.getAlbumItemID());
+				preparedStatement.setString(4, picture.getSmallPictureName());
+				preparedStatement.setString(5, picture.getLargePictureName());
+				preparedStatement.addBatch();
 			}
-			preparedStatement.setLong(parameterIndex, DatabaseConstants.TYPE_INFO_FOREIGN_KEY);			
-
-			// Retrieves the generated key used in the new  album item
-			preparedStatement.executeUpdate();
-			
-			if (albumItem.getItemID() == AlbumItem.ITEM_ID_UNDEFINED ) {
-				try(ResultSet generatedKeys = preparedStatement.getGeneratedKeys();) {
-					if (generatedKeys.next()) {
-						idOfAddedItem = generatedKeys.getLong(1);
-					}
-				} catch (SQLException sqlEx) {
-					DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
-					throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
+			preparedStatement.executeBatch();
+		}
+		
+		addPictureReferences(pictures);
+		
+		// Once the picture table references the files, the pending references are no longer needed to keep them
+		final List<AlbumItemPicture> savedPictures = new ArrayList<AlbumItemPicture>(pictures);
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				for (AlbumItemPicture savedPicture : savedPictures) {
+					PictureStore.releasePendingReference(savedPicture);
 				}
 			}
-			
-			// If possible (and demanded) store picture links
-			if (addPictures && albumItem.getPictures() != null) {
-				for (AlbumItemPicture picture : albumItem.getPictures()) {
-					picture.setAlbumItemID(idOfAddedItem);
-					picture.setAlbumName(albumItem.getAlbumName());
-					addAlbumItemPicture(picture);
-				}
+		});
+	}
+	
+	/** Increments the reference count of the original picture file of each given picture */
+	private static void addPictureReferences(List<AlbumItemPicture> pictures) throws SQLException {
+		// The column names are not quoted, since quoted names are string literals within expressions
+		String pictureReferenceTableName = DatabaseConstants.PICTURE_REFERENCE_TABLE_NAME;
+		String originalPictureColumnName = DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_REFERENCE_TABLE;
+		String referenceCountColumnName = DatabaseConstants.REFERENCE_COUNT_IN_PICTURE_REFERENCE_TABLE;
+		
+		try (PreparedStatement insertStatement = ConnectionManager.getConnection().prepareStatement("INSERT OR IGNORE INTO " + 
+					pictureReferenceTableName + " ( " + originalPictureColumnName + ", " + referenceCountColumnName + " ) VALUES ( ?, 0 )");
+			 PreparedStatement incrementStatement = ConnectionManager.getConnection().prepareStatement("UPDATE " + pictureReferenceTableName + 
+					" SET " + referenceCountColumnName + " = " + referenceCountColumnName + " + 1 WHERE " + originalPictureColumnName + " = ?")) {
+			for (AlbumItemPicture picture : pictures) {
+				insertStatement.setString(1, picture.getOriginalPictureName());
+				insertStatement.addBatch();
+				incrementStatement.setString(1, picture.getOriginalPictureName());
+				incrementStatement.addBatch();
 			}
 			
-			// Either copies the old content version over or generates a new one
-			UUID newUUID = UUID.randomUUID();
-			if (!updateContentVersion) {
-				// Carry over old content version
-				newUUID = albumItem.getContentVersion();
-
-			}
-			UpdateOperations.updateContentVersion(albumItem.getAlbumName(), idOfAddedItem, newUUID);
-			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
-			return idOfAddedItem;
-		} catch (SQLException e) {
-			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		} finally {
-			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			// All rows must exist before they are incremented
+			insertStatement.executeBatch();
+			incrementStatement.executeBatch();
 		}
 	}
 	
@@ -437,22 +851,8 @@ public final class CreateOperations {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, "Cannot persist SampleAlbumItemPicture");
 		}
 		
-		StringBuilder sb = new StringBuilder("INSERT INTO ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(
-				DatabaseStringUtilities.generatePictureTableName(albumItemPicture.getAlbumName())));
-		sb.append(" ( ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE));
-		
-		sb.append(") VALUES( ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(albumItemPicture.getOriginalPictureName()) + ", ");
-		sb.append(DatabaseStringUtilities.encloseNameWithQuotes(albumItemPicture.getThumbnailPictureName()) + ", ");
-		sb.append(albumItemPicture.getAlbumItemID());
-		sb.append(" ) ");
-		
-		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(sb.toString())){			
-			preparedStatement.executeUpdate();
+		try {
+			addAlbumItemPictures(albumItemPicture.getAlbumName(), Arrays.asList(albumItemPicture));
 		} catch (SQLException e) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
 		}
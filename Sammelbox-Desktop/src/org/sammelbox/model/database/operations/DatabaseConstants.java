@@ -33,6 +33,10 @@ public final class DatabaseConstants {
 	public static final String TYPE_INFO_SUFFIX = "_typeinfo";
 	/** Suffix used to append to the name of the main table to obtain the index name during index creation.*/
 	public static final String INDEX_NAME_SUFFIX = "_index";
+	/** Suffix used to append to the name of the picture table to obtain the name of the index on the album item reference.*/
+	public static final String PICTURE_INDEX_NAME_SUFFIX = "_item_index";
+	/** The suffix used to append to the main table to obtain the name of the full-text table used by the quicksearch feature.*/
+	public static final String QUICKSEARCH_TABLE_SUFFIX = "_quicksearch";
 	/** The suffix used to append to the main table to obtain the temporary table name.*/
 	public static final String TEMP_TABLE_SUFFIX = "_temptable";
 	
@@ -41,6 +45,10 @@ public final class DatabaseConstants {
 	static final String ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE = "original_picture_filename";
 	/** The name of the picture table column that stores the filename of the thumbnail picture */
 	static final String THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE = "thumbnail_picture_filename";
+	/** The name of the picture table column that stores the filename of the small rendition */
+	static final String SMALL_PICTURE_FILE_NAME_IN_PICTURE_TABLE = "small_picture_filename";
+	/** The name of the picture table column that stores the filename of the large rendition */
+	static final String LARGE_PICTURE_FILE_NAME_IN_PICTURE_TABLE = "large_picture_filename";
 	/** The reference to the album item which is associated with the current picture */
 	static final String ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE = "album_item_foreign_key";
 	/** The final foreign key of all main table entries to their type information entry */
@@ -49,6 +57,8 @@ public final class DatabaseConstants {
 	static final String SCHEMA_VERSION_COLUMN_NAME = "schema_version";
 	/** The final name of the content version column. Updated at each change of the content of the field */
 	static final String CONTENT_VERSION_COLUMN_NAME = "content_version";
+	/** The default number of album items which are committed together when several items are added at once */
+	public static final int DEFAULT_ALBUM_ITEMS_PER_TRANSACTION = 1000;
 	
 	
 	/** The name of the album master table containing all stored album table names and their type table names */
@@ -59,4 +69,11 @@ public final class DatabaseConstants {
 	static final String ALBUM_TABLENAME_IN_ALBUM_MASTER_TABLE= "album_table_name";
 	/** The final name of the picture column. Currently only a single column is supported, this is its name */
 	static final String HAS_PICTURES_COLUMN_IN_ALBUM_MASTER_TABLE = "has_pictures";
+	
+	/** The name of the table counting the references of all pictures tables to each original picture file */
+	static final String PICTURE_REFERENCE_TABLE_NAME = "picture_references";
+	/** The column name for the filename of the original picture. Matches the column of the picture tables */
+	static final String ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_REFERENCE_TABLE = ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE;
+	/** The column name for the number of picture table records referencing the original picture file */
+	static final String REFERENCE_COUNT_IN_PICTURE_REFERENCE_TABLE = "reference_count";
 }
@@ -19,6 +19,7 @@
 package org.sammelbox.model.database.operations;
 
 import java.sql.ResultSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +28,8 @@ import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.QueryCancellation;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 
 public final class DatabaseOperations {	
@@ -60,6 +63,27 @@ public final class DatabaseOperations {
 		return CreateOperations.addAlbumItem(item, updateContentVersion);
 	}
 	
+	/**
+	 * Adds all specified items to an existing album using batched inserts. New content versions are set for all items and 
+	 * album item pictures are automatically linked to their album items. Use this method instead of adding many items one by one.
+	 * The items are committed in chunks of {@link DatabaseConstants#DEFAULT_ALBUM_ITEMS_PER_TRANSACTION} items.
+	 * @param albumName The name of the album to which the items are added. All items must belong to this album.
+	 * @param albumItems The album items to be added.
+	 * @throws DatabaseWrapperOperationException If an error occurs. Previous chunks might have been committed already.
+	 */
+	public static void addAlbumItems(String albumName, Iterable<AlbumItem> albumItems) throws DatabaseWrapperOperationException {
+		CreateOperations.addAlbumItems(albumName, albumItems, true, true, DatabaseConstants.DEFAULT_ALBUM_ITEMS_PER_TRANSACTION);
+	}
+	
+	/**
+	 * Adds all specified items to an existing album using batched inserts. See {@link #addAlbumItems(String, Iterable)}
+	 * @param itemsPerTransaction The number of items which are committed together. Must be at least one.
+	 * @throws DatabaseWrapperOperationException If an error occurs. Previous chunks might have been committed already.
+	 */
+	public static void addAlbumItems(String albumName, Iterable<AlbumItem> albumItems, int itemsPerTransaction) throws DatabaseWrapperOperationException {
+		CreateOperations.addAlbumItems(albumName, albumItems, true, true, itemsPerTransaction);
+	}
+	
 	/**
 	 * Permanently renames an album in the specified database
 	 * @param oldAlbumName The old name of the album to be renamed
@@ -166,6 +190,73 @@ public final class DatabaseOperations {
 		return QueryOperations.executeQuickSearch(albumName, quickSearchTerms);
 	}
 	
+	/**
+	 * Creates the query of a quicksearch without executing it. See {@link #executeQuickSearch(String, List)}
+	 * @param albumName The name of the album to which the query refers to.
+	 * @param quickSearchTerms A list of terms to be matched against the marked fields. If null, a select * is created.
+	 * @return The query of the quicksearch. The search terms are bound as parameters.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static ParameterizedQuery createQuickSearchQuery(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
+		return QueryOperations.createQuickSearchQuery(albumName, quickSearchTerms);
+	}
+	
+	/**
+	 * Retrieves a single page of the results of the provided query. The page starts right after the specified item.
+	 * @param albumName The name of the album to which the query refers to.
+	 * @param query A select * query on the album table, optionally sorted by a single field.
+	 * @param precedingItemId The id of the last item of the preceding page, or null to retrieve the first page.
+	 * @param pageSize The maximum number of items of the page.
+	 * @return The album items of the page without their pictures. Contains less than pageSize items only for the last page.
+	 * Since recently fetched pages are cached, neither the list nor its items must be altered.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static List<AlbumItem> getAlbumItemPage(String albumName, ParameterizedQuery query, Long precedingItemId, int pageSize) throws DatabaseWrapperOperationException {
+		return QueryOperations.getAlbumItemPage(albumName, query, precedingItemId, pageSize);
+	}
+	
+	/**
+	 * Retrieves a single page of the results of the provided query on a read connection, so that it can be cancelled 
+	 * from another thread without affecting other queries. See {@link #getAlbumItemPage(String, ParameterizedQuery, Long, int)}
+	 * @param cancellation Allows to abort the query from another thread.
+	 * @throws DatabaseWrapperOperationException if the query fails or has been cancelled
+	 */
+	public static List<AlbumItem> getAlbumItemPage(String albumName, ParameterizedQuery query, Long precedingItemId, int pageSize, 
+			QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		return QueryOperations.getAlbumItemPage(albumName, query, precedingItemId, pageSize, cancellation);
+	}
+	
+	/**
+	 * Get the number of results of the provided query
+	 * @param query the query whose results should be counted
+	 * @return the number of results
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static long getNumberOfResults(ParameterizedQuery query) throws DatabaseWrapperOperationException {
+		return QueryOperations.getNumberOfResults(query);
+	}
+	
+	/**
+	 * Get the number of results of the provided query on the album. Unlike {@link #getNumberOfResults(ParameterizedQuery)}, 
+	 * the count is cached until the album is changed.
+	 * @param albumName the album to which the query refers
+	 * @param query the query whose results should be counted
+	 * @param cancellation Allows to abort the query from another thread. If not null, a read connection is used.
+	 * @throws DatabaseWrapperOperationException if the query fails or has been cancelled
+	 */
+	public static long getNumberOfResults(String albumName, ParameterizedQuery query, QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		return QueryOperations.getNumberOfResults(albumName, query, cancellation);
+	}
+	
+	/**
+	 * Get the number of results of the provided query using a read connection. See {@link #getNumberOfResults(ParameterizedQuery)}
+	 * @param cancellation Allows to abort the query from another thread.
+	 * @throws DatabaseWrapperOperationException if the query fails or has been cancelled
+	 */
+	public static long getNumberOfResults(ParameterizedQuery query, QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		return QueryOperations.getNumberOfResults(query, cancellation);
+	}
+	
 	/**
 	 * Returns the matching album name for a given table name
 	 * @param tableName the table name for which the album name is requested
@@ -363,6 +454,17 @@ public final class DatabaseOperations {
 		return QueryOperations.getAlbumItemPictures(albumName, albumItemID);
 	}
 	
+	/**
+	 * Returns the pictures of all specified album items. Use this method instead of querying the pictures item by item.
+	 * @param albumName the album which contains the relevant album items
+	 * @param albumItemIDs the ids of the album items for which the pictures are requested
+	 * @return a map from album item id to its pictures. Items without pictures are not contained in the map
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static Map<Long, List<AlbumItemPicture>> getAlbumItemPictures(String albumName, Collection<Long> albumItemIDs) throws DatabaseWrapperOperationException {
+		return QueryOperations.getAlbumItemPictures(albumName, albumItemIDs);
+	}
+	
 	/**
 	 * Creates the album master table if it does not already exist
 	 * @throws DatabaseWrapperOperationException
@@ -371,6 +473,38 @@ public final class DatabaseOperations {
 		CreateOperations.createAlbumMasterTableIfItDoesNotExist();
 	}
 	
+	/**
+	 * Creates the missing picture table indices of all albums. Databases created by older versions do not contain them
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void createPictureTableIndicesIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		CreateOperations.createPictureTableIndicesIfTheyDoNotExist();
+	}
+	
+	/**
+	 * Adds the missing picture rendition columns to the picture tables of all albums. Databases created by older versions do not contain them
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void addPictureRenditionColumnsIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		CreateOperations.addPictureRenditionColumnsIfTheyDoNotExist();
+	}
+	
+	/**
+	 * Creates the table counting the references to each original picture file. Databases created by older versions do not contain it
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void createPictureReferenceTableIfItDoesNotExist() throws DatabaseWrapperOperationException {
+		CreateOperations.createPictureReferenceTableIfItDoesNotExist();
+	}
+	
+	/**
+	 * Creates the missing full-text quicksearch tables of all albums. Databases created by older versions do not contain them
+	 * @throws DatabaseWrapperOperationException
+	 */
+	public static void createQuickSearchTablesIfTheyDoNotExist() throws DatabaseWrapperOperationException {
+		CreateOperations.createQuickSearchTablesIfTheyDoNotExist();
+	}
+	
 	/**
 	 * Permanently deletes the albumItem with the specified id from the database
 	 * @param albumName The name of the album to which the item belongs
@@ -382,6 +516,17 @@ public final class DatabaseOperations {
 		DeleteOperations.deleteAlbumItem(albumItem);
 	}
 	
+	/**
+	 * Discards pictures which have been processed (see ImageManipulator) but will never be saved, e.g. because adding 
+	 * the item has been cancelled. Their files are deleted unless another item or pending picture uses them.
+	 * Pictures which have been saved in the meantime are ignored.
+	 * @param pictures the processed pictures
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	public static void discardUnsavedPictures(List<AlbumItemPicture> pictures) throws DatabaseWrapperOperationException {
+		DeleteOperations.discardUnsavedPictures(pictures);
+	}
+	
 	/**
 	 * Permanently removes a field from an album. Removing fields of type ID is not allowed.
 	 * @param albumName The name of the album to be removed.
@@ -20,19 +20,22 @@ package org.sammelbox.model.database.operations;
 
 import java.io.File;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.PictureStore;
+import org.sammelbox.controller.filesystem.ThumbnailPack;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemPicture;
-import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.database.DatabaseStringUtilities;
-import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.slf4j.Logger;
@@ -57,11 +60,6 @@ public final class DeleteOperations {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
 		
-		// Backup the old data in java objects
-		List<AlbumItem> albumItems = QueryOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName));
-		
-		// Create the new table pointing to new typeinfo
-		boolean keepPictureField = QueryOperations.isPictureAlbum(albumName);
 		List<MetaItemField> newFields = QueryOperations.getAlbumItemFieldNamesAndTypes(albumName);
 		newFields = UpdateOperations.removeFieldFromMetaItemList(metaItemField, newFields);
 
@@ -69,52 +67,28 @@ public final class DeleteOperations {
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		
 		try {
-			// Drop the old table and typeTable
-			removeAlbum(albumName);
-		
-			// The following three columns are automatically created by createNewAlbumTable
-			newFields = UpdateOperations.removeFieldFromMetaItemList(new MetaItemField("id", FieldType.ID), newFields);
-			newFields = UpdateOperations.removeFieldFromMetaItemList(new MetaItemField(DatabaseConstants.TYPE_INFO_COLUMN_NAME, FieldType.ID), newFields);
-			CreateOperations.createNewAlbumTable(newFields, albumName, DatabaseStringUtilities.encloseNameWithQuotes(
-					DatabaseStringUtilities.generateTableName(albumName)), keepPictureField);
+			// The remaining columns are copied, the removed one is left behind in the old table
+			UpdateOperations.rebuildAlbumTable(albumName, newFields, Collections.<String, String>emptyMap());
 			
-			// Restore the old data from the java objects
-			List<AlbumItem> newAlbumItems = removeFieldFromAlbumItemList(metaItemField, albumItems);
-			for (AlbumItem albumItem : newAlbumItems) {
-				albumItem.setAlbumName(albumName);
-				CreateOperations.addAlbumItem(albumItem, false, false);
-			}
-	
-			UpdateOperations.rebuildIndexForTable(albumName, newFields);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
-			if (e.getErrorState().equals(DBErrorState.ERROR_CLEAN_STATE)) {
-				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);					
-				LOGGER.error("Unable to roll back before to state before the removal of the album item field");
-				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-			}
+			// The old table may already have been dropped at this point, hence every failure must be rolled back
+			LOGGER.error("Removing the album item field failed. Rolling back to the state before the removal", e);
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 	
-	/**
-	 * Removes the provided metaItemField from each AlbumItem entry in the albumList. Returns the result in a new list.
-	 * @param metaItemField The metaItemFiel to be removed from each entry of the list.
-	 * @param albumList The list containing all the AlbumItems.
-	 * @return The albumList with the specified metaItemField removed from each entry.
-	 */
-	private static List<AlbumItem> removeFieldFromAlbumItemList(MetaItemField metaItemField, final List<AlbumItem> albumList) {
-		List<AlbumItem> newAlbumItemList = albumList;
-		for (AlbumItem albumItem: newAlbumItemList) {
-			albumItem.removeField(metaItemField);
-		}
-		return newAlbumItemList; 
-	}
-	
 	static void removeAlbumAndAlbumPictures(String albumName) throws DatabaseWrapperOperationException {
+		// The pictures are retrieved first, since the album can no longer be resolved after its removal
+		List<AlbumItemPicture> albumPictures = QueryOperations.getAllAlbumPictures(albumName);
+		
 		removeAlbum(albumName);
-		removeAlbumPictures(albumName);
+		removeAlbumPictures(albumName, albumPictures);
 	}
 	
 	/**
@@ -127,6 +101,7 @@ public final class DeleteOperations {
 		try {	
 			String typeInfoTableName = DatabaseStringUtilities.generateTypeInfoTableName(albumName);
 			
+			dropQuickSearchTable(albumName);
 			dropTable(DatabaseStringUtilities.generateTableName(albumName));
 			dropTable(typeInfoTableName);
 			
@@ -140,21 +115,23 @@ public final class DeleteOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 
 	/**
 	 * Removes the album pictures for the given album
 	 * @param albumName the album for which the pictures should be removed
+	 * @param albumPictures the pictures stored in the picture table of the album
 	 * @throws DatabaseWrapperOperationException
 	 */
-	static void removeAlbumPictures(String albumName) throws DatabaseWrapperOperationException {
+	static void removeAlbumPictures(String albumName, List<AlbumItemPicture> albumPictures) throws DatabaseWrapperOperationException {
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		try {
 			dropTable(DatabaseStringUtilities.generatePictureTableName(albumName));
-			
-			FileSystemAccessWrapper.deleteDirectoryRecursively(
-					new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName)));
+			releasePictures(albumPictures);
+			deleteAlbumDirectoryAfterCommit(albumName);
 		} catch (DatabaseWrapperOperationException e) {
 			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
 				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
@@ -182,6 +159,109 @@ public final class DeleteOperations {
 		}
 	}
 	
+	/** Decrements the reference count of the original picture file of each given picture. The physical files of a picture 
+	 * are deleted as soon as no picture table references them any longer, since the same files are shared by all pictures 
+	 * with the same content. Must be called after the records of the pictures have been removed from their picture table.
+	 * The files are deleted only after the changes have been committed, since a rollback restores the references.
+	 * @param pictures the pictures whose records have been removed */
+	static void releasePictures(List<AlbumItemPicture> pictures) throws DatabaseWrapperOperationException {
+		if (pictures.isEmpty()) {
+			return;
+		}
+		
+		// The column names are not quoted, since quoted names are string literals within expressions
+		String pictureReferenceTableName = DatabaseConstants.PICTURE_REFERENCE_TABLE_NAME;
+		String originalPictureColumnName = DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_REFERENCE_TABLE;
+		String referenceCountColumnName = DatabaseConstants.REFERENCE_COUNT_IN_PICTURE_REFERENCE_TABLE;
+		final List<AlbumItemPicture> unreferencedPictures = new ArrayList<AlbumItemPicture>();
+		
+		try (PreparedStatement decrementStatement = ConnectionManager.getConnection().prepareStatement("UPDATE " + pictureReferenceTableName + 
+					" SET " + referenceCountColumnName + " = " + referenceCountColumnName + " - 1 WHERE " + originalPictureColumnName + " = ?");
+			 PreparedStatement countStatement = ConnectionManager.getConnection().prepareStatement("SELECT " + referenceCountColumnName + 
+					" FROM " + pictureReferenceTableName + " WHERE " + originalPictureColumnName + " = ?");
+			 PreparedStatement deleteStatement = ConnectionManager.getConnection().prepareStatement("DELETE FROM " + pictureReferenceTableName + 
+					" WHERE " + originalPictureColumnName + " = ?")) {
+			for (AlbumItemPicture picture : pictures) {
+				decrementStatement.setString(1, picture.getOriginalPictureName());
+				decrementStatement.executeUpdate();
+				
+				countStatement.setString(1, picture.getOriginalPictureName());
+				try (ResultSet resultSet = countStatement.executeQuery()) {
+					// A missing reference is treated like the last one, such that the files do not remain forever
+					if (!resultSet.next() || resultSet.getLong(1) <= 0) {
+						unreferencedPictures.add(picture);
+					}
+				}
+			}
+			
+			for (AlbumItemPicture unreferencedPicture : unreferencedPictures) {
+				deleteStatement.setString(1, unreferencedPicture.getOriginalPictureName());
+				deleteStatement.addBatch();
+			}
+			deleteStatement.executeBatch();
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+		
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				for (AlbumItemPicture unreferencedPicture : unreferencedPictures) {
+					PictureStore.deletePictureFiles(unreferencedPicture);
+				}
+			}
+		});
+	}
+	
+	/** Releases the pending references of pictures which have been processed but will never be saved. Their files are 
+	 * deleted unless they are referenced by a picture table or by another pending picture */
+	static void discardUnsavedPictures(List<AlbumItemPicture> pictures) throws DatabaseWrapperOperationException {
+		final List<AlbumItemPicture> unreferencedPictures = new ArrayList<AlbumItemPicture>();
+		
+		// The column names are not quoted, since quoted names are string literals within expressions
+		try (PreparedStatement countStatement = ConnectionManager.getConnection().prepareStatement("SELECT " + 
+				DatabaseConstants.REFERENCE_COUNT_IN_PICTURE_REFERENCE_TABLE + " FROM " + DatabaseConstants.PICTURE_REFERENCE_TABLE_NAME + 
+				" WHERE " + DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_REFERENCE_TABLE + " = ?")) {
+			for (AlbumItemPicture picture : pictures) {
+				// Saved or already discarded pictures no longer hold a pending reference
+				if (!PictureStore.releasePendingReference(picture)) {
+					continue;
+				}
+				
+				countStatement.setString(1, picture.getOriginalPictureName());
+				try (ResultSet resultSet = countStatement.executeQuery()) {
+					if (!resultSet.next() || resultSet.getLong(1) <= 0) {
+						unreferencedPictures.add(picture);
+					}
+				}
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+		
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				for (AlbumItemPicture unreferencedPicture : unreferencedPictures) {
+					PictureStore.deletePictureFiles(unreferencedPicture);
+				}
+			}
+		});
+	}
+	
+	/** Removes the album folder together with its thumbnail pack once the removal of the album pictures has been committed */
+	private static void deleteAlbumDirectoryAfterCommit(String albumName) {
+		final File albumDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName));
+		
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				ThumbnailPack.closeAll();
+				FileSystemAccessWrapper.deleteDirectoryRecursively(albumDirectory);
+			}
+		});
+	}
+	
 	/**
 	 * Drops a table if it exists. No error or side effects if it does not exist.
 	 * @param tableName The name of the table which is to be dropped.
@@ -195,6 +275,39 @@ public final class DeleteOperations {
 		}
 	}
 	
+	/**
+	 * Drops the index on the album item reference of the picture table. No error or side effects if it does not exist.
+	 * @param albumName The name of the album to which the picture table belongs.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	static void dropPictureTableIndex(String albumName) throws DatabaseWrapperOperationException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement()){		
+			statement.execute("DROP INDEX IF EXISTS " + 
+					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureIndexName(albumName)));
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
+	/**
+	 * Drops the full-text quicksearch table of an album along with the triggers keeping it up to date. 
+	 * No error or side effects if it does not exist.
+	 * @param albumName The name of the album to which the quicksearch table belongs.
+	 * @throws DatabaseWrapperOperationException 
+	 */
+	static void dropQuickSearchTable(String albumName) throws DatabaseWrapperOperationException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement()){
+			for (String operation : new String[] {"INSERT", "UPDATE", "DELETE"}) {
+				statement.execute("DROP TRIGGER IF EXISTS " + DatabaseStringUtilities.encloseNameWithQuotes(
+						DatabaseStringUtilities.generateQuickSearchTriggerName(albumName, operation)));
+			}
+			statement.execute("DROP TABLE IF EXISTS " + 
+					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateQuickSearchTableName(albumName)));
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+	}
+	
 	/**
 	 * Drops the first index associated to the given table name. 
 	 * @param tableName The name of the table to which the index belongs.
@@ -241,16 +354,15 @@ public final class DeleteOperations {
 			// delete album pictures in picture table
 			removeAllPicturesForAlbumItemFromPictureTable(albumItem);
 			
-			// delete physical files first
-			for (AlbumItemPicture albumItemPicture : picturesToBeRemoved) {
-				FileSystemAccessWrapper.deleteFile(albumItemPicture.getThumbnailPicturePath());
-				FileSystemAccessWrapper.deleteFile(albumItemPicture.getOriginalPicturePath());
-			}			
+			// delete the physical files which are no longer referenced
+			releasePictures(picturesToBeRemoved);
+			ThumbnailPack.removeThumbnails(albumItem.getAlbumName(), picturesToBeRemoved);
 		} catch (SQLException e) {
 			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			QueryResultCache.invalidate(albumItem.getAlbumName());
 		}
 	}
 	
@@ -259,18 +371,20 @@ public final class DeleteOperations {
 	static void clearPictureTable(String albumName) throws DatabaseWrapperOperationException {
 		String clearPictureTableQuery = "DELETE FROM " + 
 				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName));
+		List<AlbumItemPicture> albumPictures = QueryOperations.getAllAlbumPictures(albumName);
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		
 		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(clearPictureTableQuery)) {		
 			preparedStatement.executeUpdate();
+			releasePictures(albumPictures);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
-			
-			FileSystemAccessWrapper.deleteDirectoryRecursively(new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName)));			
+			deleteAlbumDirectoryAfterCommit(albumName);
 		} catch (SQLException e) {
 			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 }
@@ -18,6 +18,7 @@
 
 package org.sammelbox.model.database.operations;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -111,10 +112,15 @@ public final class HelperOperations {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	static FieldType detectDataType(String tableName, String columnName) throws DatabaseWrapperOperationException {
+		return detectDataType(tableName, columnName, ConnectionManager.getConnection());
+	}
+	
+	/** See {@link #detectDataType(String, String)}. The type is read on the specified connection */
+	static FieldType detectDataType(String tableName, String columnName, Connection connection) throws DatabaseWrapperOperationException {
 		DatabaseMetaData dbmetadata = null;
 		
 		try {
-			dbmetadata = ConnectionManager.getConnection().getMetaData();
+			dbmetadata = connection.getMetaData();
 		} catch (SQLException sqlEx) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, sqlEx);
 		}
@@ -135,7 +141,7 @@ public final class HelperOperations {
 
 		String dbtypeInfoTableName = DatabaseStringUtilities.generateTypeInfoTableName(tableName);
 		try (
-				Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+				Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
 				ResultSet typeResultSet = statement.executeQuery(QueryBuilder.createSelectColumnQuery(dbtypeInfoTableName, columnName));) {			
 			return FieldType.valueOf(typeResultSet.getString(1));
 			
@@ -18,7 +18,9 @@
 
 package org.sammelbox.model.database.operations;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -27,6 +29,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -36,6 +40,7 @@ import java.util.UUID;
 import java.util.regex.Pattern;
 
 import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.ReadConnection;
 import org.sammelbox.controller.settings.SettingsManager;
 import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemPicture;
@@ -44,17 +49,30 @@ import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.album.OptionType;
 import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.QueryCancellation;
 import org.sammelbox.model.database.QueryComponent;
 import org.sammelbox.model.database.QueryOperator;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+import org.sammelbox.model.database.operations.AlbumSchemaCache.AlbumSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class QueryOperations {
 	private static final String SQLITE_INDEX_COLUMN_NAME = "COLUMN_NAME";
 	private static final Logger LOGGER = LoggerFactory.getLogger(QueryOperations.class);
+	/** The maximum number of album item ids which are inlined into a single picture query */
+	private static final int MAX_ALBUM_ITEM_IDS_PER_PICTURE_QUERY = 5000;
+	/** Keeps the pictures of an album item in the order in which they have been added */
+	private static final String PICTURE_ORDER_BY_CLAUSE = " ORDER BY " + 
+			DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + ", " +
+			DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME);
+	/** Splits quicksearch terms into tokens the same way the simple full-text tokenizer splits the field values */
+	private static final Pattern QUICKSEARCH_TOKEN_SEPARATOR = Pattern.compile("[\\p{ASCII}&&[^A-Za-z0-9]]+");
+	/** Tokens which would be interpreted as operators by the full-text query syntax */
+	private static final List<String> FULL_TEXT_OPERATORS = Arrays.asList("OR", "AND", "NOT", "NEAR");
 	
 	private QueryOperations() {
 		// use static methods
@@ -82,35 +100,47 @@ public final class QueryOperations {
 	}
 	
 	static AlbumItemResultSet executeQuickSearch(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
+		Map<Integer, MetaItemField> metaInfoMap = QueryOperations.getAlbumItemMetaMap(albumName);
+		return new AlbumItemResultSet(ConnectionManager.getConnection(), albumName, createQuickSearchQuery(albumName, quickSearchTerms), metaInfoMap);
+	}
+	
+	static ParameterizedQuery createQuickSearchQuery(String albumName, List<String> quickSearchTerms) throws DatabaseWrapperOperationException {
 		List<MetaItemField> albumFields = getAllAlbumItemMetaItemFields(albumName);
-		String query = "";
+		StringBuilder query = new StringBuilder();
+		List<Object> parameters = new ArrayList<Object>();
 		ArrayList<QueryComponent> queryFields = null;
-		List<String> quicksearchFieldNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
 
 		// If no field is quicksearchable return select * from albumName or no terms have been entered
-		if (quicksearchFieldNames == null || quicksearchFieldNames.isEmpty() || quickSearchTerms == null || quickSearchTerms.isEmpty() ) {
-			query = QueryBuilder.createSelectStarQuery(albumName);
-			return executeSQLQuery(query);
+		if (!isAlbumQuicksearchable(albumName) || quickSearchTerms == null || quickSearchTerms.isEmpty() ) {
+			return new ParameterizedQuery(QueryBuilder.createSelectStarQuery(albumName));
 		}
 
-		boolean first = true;
+		boolean hasFullTextSearchableFields = false;
+		for (MetaItemField field : albumFields) {
+			hasFullTextSearchableFields |= field.isQuickSearchable() && isFullTextSearchable(field.getType());
+		}
+		
+		List<ParameterizedQuery> termQueries = new ArrayList<ParameterizedQuery>();
 		for (String term : quickSearchTerms) {
 			if (term.isEmpty()) {
 				continue;
 			}
-			if (!first) {
-				query += " UNION ";
-			} else {
-				first = false;
+			
+			// Text, option and URL fields are matched by prefix against the full-text quicksearch table
+			String matchExpression = createQuickSearchMatchExpression(term);
+			if (hasFullTextSearchableFields && matchExpression != null) {
+				String quickSearchTableName = DatabaseStringUtilities.generateQuickSearchTableName(albumName);
+				termQueries.add(new ParameterizedQuery(QueryBuilder.createSelectStarQuery(albumName) + " WHERE id IN (SELECT docid FROM " + 
+						DatabaseStringUtilities.transformColumnNameToSelectQueryName(quickSearchTableName) + " WHERE " + 
+						DatabaseStringUtilities.transformColumnNameToSelectQueryName(quickSearchTableName) + " MATCH ?)", 
+						Collections.singletonList(matchExpression)));
 			}
+			
+			// The remaining quicksearchable fields are compared for equality if the term can be parsed accordingly
 			queryFields = new ArrayList<QueryComponent>();
 			for (MetaItemField field : albumFields) {
-				if (field.isQuickSearchable()) {
-					if (field.getType().equals(FieldType.TEXT) || field.getType().equals(FieldType.OPTION) || 
-							field.getType().equals(FieldType.URL)) {
-						queryFields.add(QueryBuilder.getQueryComponent(field.getName(), QueryOperator.CONTAINS, term));
-					}
-					else if ((field.getType().equals(FieldType.INTEGER) || field.getType().equals(FieldType.STAR_RATING))
+				if (field.isQuickSearchable() && !isFullTextSearchable(field.getType())) {
+					if ((field.getType().equals(FieldType.INTEGER) || field.getType().equals(FieldType.STAR_RATING))
 							&& (Pattern.compile("-?[0-9]+").matcher(term).matches())) {
 						queryFields.add(QueryBuilder.getQueryComponent(
 								field.getName(), QueryOperator.EQUALS, Integer.valueOf(term).toString()));
@@ -133,13 +163,68 @@ public final class QueryOperations {
 					}
 				}
 			}// end of for - fields
-			if (queryFields != null && !queryFields.isEmpty()) {
-				query += QueryBuilder.buildQuery(queryFields, false, albumName);
+			if (!queryFields.isEmpty()) {
+				termQueries.add(QueryBuilder.buildParameterizedQuery(queryFields, false, albumName));
 			}
 
 		}// end of for - terms
+		
+		// None of the terms can be matched against any field, e.g. because they consist of punctuation only
+		if (termQueries.isEmpty()) {
+			return new ParameterizedQuery(QueryBuilder.createSelectStarQuery(albumName));
+		}
+		
+		for (ParameterizedQuery termQuery : termQueries) {
+			query.append(query.length() == 0 ? termQuery.getSql() : " UNION " + termQuery.getSql());
+			parameters.addAll(termQuery.getParameters());
+		}
 
-		return executeQuickSearchQuery(query, albumName);
+		return new ParameterizedQuery(query.toString(), parameters);
+	}
+	
+	/**
+	 * Transforms a quicksearch term into a full-text query in which every token of the term is matched as a prefix.
+	 * @param term The quicksearch term as entered by the user.
+	 * @return The match expression or null if the term does not contain any token.
+	 */
+	private static String createQuickSearchMatchExpression(String term) {
+		StringBuilder matchExpression = new StringBuilder();
+		for (String token : QUICKSEARCH_TOKEN_SEPARATOR.split(term)) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			if (matchExpression.length() > 0) {
+				matchExpression.append(" ");
+			}
+			// The tokenizer ignores the case of ASCII letters, but operators are only recognized in upper case
+			matchExpression.append(FULL_TEXT_OPERATORS.contains(token) ? token.toLowerCase() : token);
+			matchExpression.append("*");
+		}
+		return matchExpression.length() == 0 ? null : matchExpression.toString();
+	}
+	
+	/** Returns true if fields of the given type are mirrored in the full-text quicksearch table when marked as quicksearchable */
+	static boolean isFullTextSearchable(FieldType fieldType) {
+		return fieldType.equals(FieldType.TEXT) || fieldType.equals(FieldType.OPTION) || fieldType.equals(FieldType.URL);
+	}
+	
+	/** Returns true if the full-text quicksearch table of the given album exists */
+	static boolean isQuickSearchTableAvailable(String albumName) throws DatabaseWrapperOperationException {
+		return isTableAvailable(DatabaseStringUtilities.generateQuickSearchTableName(albumName));
+	}
+	
+	/** Returns true if a table with the given (unquoted) name exists */
+	static boolean isTableAvailable(String tableName) throws DatabaseWrapperOperationException {
+		try (PreparedStatement preparedStatement = ConnectionManager.getConnection().prepareStatement(
+				"SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+			preparedStatement.setString(1, tableName);
+			
+			try (ResultSet resultSet = preparedStatement.executeQuery()) {
+				return resultSet.next() && resultSet.getInt(1) > 0;
+			}
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
 	}
 
 	static long getNumberOfItemsInAlbum(String albumName) throws DatabaseWrapperOperationException {
@@ -157,6 +242,45 @@ public final class QueryOperations {
 		}
 	}
 	
+	static long getNumberOfResults(ParameterizedQuery query) throws DatabaseWrapperOperationException {
+		return getNumberOfResults(query, null);
+	}
+	
+	/** Counts the results of the query on the album. Repeated counts are served by the {@link QueryResultCache} */
+	static long getNumberOfResults(String albumName, ParameterizedQuery query, QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		ParameterizedQuery countQuery = QueryBuilder.createCountQuery(query);
+		checkNotCancelled(cancellation);
+		long dataVersion = QueryResultCache.getDataVersion(albumName);
+		Long numberOfResults = QueryResultCache.getNumberOfResults(albumName, countQuery, dataVersion);
+		
+		if (numberOfResults == null) {
+			numberOfResults = getNumberOfResults(query, cancellation);
+			QueryResultCache.putNumberOfResults(albumName, countQuery, dataVersion, numberOfResults);
+		}
+		
+		return numberOfResults;
+	}
+	
+	/** Counts the results of the query. See {@link #acquireReadConnectionIfSuitable(QueryCancellation)} for the used connection */
+	static long getNumberOfResults(ParameterizedQuery query, QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		ParameterizedQuery countQuery = QueryBuilder.createCountQuery(query);
+		checkNotCancelled(cancellation);
+		ReadConnection readConnection = acquireReadConnectionIfSuitable(cancellation);
+		
+		try (ResultSet resultSet = executeCachedQuery(countQuery, readConnection)) {
+			
+			if (resultSet.next()) {
+				return resultSet.getLong(1);
+			}
+			throw new DatabaseWrapperOperationException(
+					DBErrorState.ERROR_CLEAN_STATE, "The number of results could not be fetched for the query " + query);
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		} finally {
+			ConnectionManager.releaseReadConnection(readConnection);
+		}
+	}
+	
 	static List<String> getListOfAllAlbums() throws DatabaseWrapperOperationException {
 		List<String> albumList = new ArrayList<String>();
 		String queryAllAlbumsSQL = QueryBuilder.createSelectColumnQuery(
@@ -176,10 +300,15 @@ public final class QueryOperations {
 	}
 
 	static List<String> getIndexedColumnNames(String tableName) throws DatabaseWrapperOperationException {
+		return getIndexedColumnNames(tableName, ConnectionManager.getConnection());
+	}
+	
+	/** See {@link #getIndexedColumnNames(String)}. The index information is read on the specified connection */
+	static List<String> getIndexedColumnNames(String tableName, Connection connection) throws DatabaseWrapperOperationException {
 		List<String> indexedColumns = new ArrayList<String>();
 		DatabaseMetaData dbmetadata = null;
 		try {
-			dbmetadata = ConnectionManager.getConnection().getMetaData();			
+			dbmetadata = connection.getMetaData();			
 		} catch (SQLException e) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
 		}
@@ -216,41 +345,22 @@ public final class QueryOperations {
 	}
 
 	static List<MetaItemField> getAlbumItemFieldNamesAndTypes(String albumName) throws DatabaseWrapperOperationException {
-		String tableName = DatabaseStringUtilities.generateTableName(albumName);
-		List<MetaItemField> itemMetadata = new ArrayList<MetaItemField>();
-		
 		// Is available means that it does not exist in the db, hence its fields cannot be retrieved
 		if (QueryOperations.isAlbumNameAvailable(albumName)) {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
 		}
 
-		List<String> quickSearchableColumnNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
 		List<String> internalColumnNames = Arrays.asList("id", DatabaseConstants.TYPE_INFO_COLUMN_NAME, DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		List<MetaItemField> itemMetadata = new ArrayList<MetaItemField>();
 		
-		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-			ResultSet rs = statement.executeQuery(QueryBuilder.createSelectStarQuery(tableName));)
-		{
-			// Retrieve table metadata
-			ResultSetMetaData metaData = rs.getMetaData();
-
-			int columnCount = metaData.getColumnCount();
-			// Each ItemField. Classic for loop since meta data only provides access via indices.
-			for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-
-				// Excludes all columns that are for internal use only.
-				String columnName = metaData.getColumnName(columnIndex);
-				if (!internalColumnNames.contains(columnName)) {
-					FieldType type = HelperOperations.detectDataType(tableName, columnName);
-					MetaItemField metaItem = new MetaItemField(columnName, type, quickSearchableColumnNames.contains(columnName));
-					itemMetadata.add(metaItem);
-				}
+		// Excludes all columns that are for internal use only.
+		for (MetaItemField metaItemField : AlbumSchemaCache.getSchemaForAlbum(albumName).getFields()) {
+			if (!internalColumnNames.contains(metaItemField.getName())) {
+				itemMetadata.add(metaItemField);
 			}
-			
-			return itemMetadata;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}		
+		}
+		
+		return itemMetadata;
 	}
 
 	/**
@@ -260,90 +370,129 @@ public final class QueryOperations {
 	 * @throws DatabaseWrapperOperationException 
 	 */
 	static List<MetaItemField> getAllAlbumItemMetaItemFields(String albumName) throws DatabaseWrapperOperationException{
-		String tableName = DatabaseStringUtilities.generateTableName(albumName);
-		
-		List<MetaItemField> itemMetadata = new ArrayList<MetaItemField>();
-		List<String> quickSearchableColumnNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-			ResultSet rs = statement.executeQuery(QueryBuilder.createSelectStarQuery(albumName));) {					
-
-			// Retrieve table metadata
-			ResultSetMetaData metaData = rs.getMetaData();
-
-			int columnCount = metaData.getColumnCount();
-			// Each ItemField
-			for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-				String columnName = metaData.getColumnName(columnIndex);
-				FieldType type = HelperOperations.detectDataType(tableName, columnName);
-				MetaItemField metaItem = new MetaItemField(columnName, type, quickSearchableColumnNames.contains(columnName));
-				itemMetadata.add(metaItem);
-			}
-			return itemMetadata;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
-		}		
+		return AlbumSchemaCache.getSchemaForAlbum(albumName).getFields();
 	}
 
 	static Map<Integer, MetaItemField> getAlbumItemMetaMap(String albumName) throws DatabaseWrapperOperationException {
-		List<String> quickSearchableColumns = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-
 		Map<Integer, MetaItemField> itemMetaData = new HashMap<Integer, MetaItemField>();
 		
-		try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-			 ResultSet set = statement.executeQuery(QueryBuilder.createSelectStarQuery(albumName))) {			
-			
-			// Retrieve table metadata	
-			ResultSetMetaData metaData = set.getMetaData();
-			
-			int columnCount = metaData.getColumnCount();
-			// Each ItemField
-			for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-				String name = metaData.getColumnName(columnIndex);
-				
-				FieldType type = HelperOperations.detectDataType(DatabaseStringUtilities.generateTableName(albumName), name);	
-				
-				MetaItemField metaItemField = new MetaItemField(name, type, quickSearchableColumns.contains(name));
-				itemMetaData.put(columnIndex, metaItemField);
-			}
-			return itemMetaData;
-		} catch (SQLException e) {
-			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		// The cached fields are stored in the order of the table columns
+		int columnIndex = 1;
+		for (MetaItemField metaItemField : AlbumSchemaCache.getSchemaForAlbum(albumName).getFields()) {
+			itemMetaData.put(columnIndex, metaItemField);
+			columnIndex++;
 		}
+		
+		return itemMetaData;
 	}
 	
 	static List<AlbumItemPicture> getAlbumItemPictures(String albumName, long albumItemID) throws DatabaseWrapperOperationException {
 		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
 		
 		if (isPictureAlbum(albumName)) {
-			String picturesQuery = 
-				   " SELECT " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
-						DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) +
-				   " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName)) +
-				   " WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + " = " + albumItemID;
+			String picturesQuery = createPictureSelectQuery(albumName) +
+				   " WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + " = " + albumItemID + PICTURE_ORDER_BY_CLAUSE;
 			
-			try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-				 ResultSet rs = statement.executeQuery(picturesQuery);) {			
+			for (List<AlbumItemPicture> albumItemPictures : fetchAlbumItemPictures(albumName, picturesQuery).values()) {
+				pictures.addAll(albumItemPictures);
+			}
+		}
+		
+		return pictures;
+	}
+	
+	/**
+	 * Retrieves the pictures of all specified album items using as few queries as possible instead of one query per item.
+	 * @return a map from album item id to the pictures of the item. Items without pictures are not contained in the map.
+	 */
+	static Map<Long, List<AlbumItemPicture>> getAlbumItemPictures(String albumName, Collection<Long> albumItemIDs) throws DatabaseWrapperOperationException {
+		Map<Long, List<AlbumItemPicture>> picturesByAlbumItemID = new HashMap<Long, List<AlbumItemPicture>>();
+		
+		if (albumItemIDs.isEmpty() || !isPictureAlbum(albumName)) {
+			return picturesByAlbumItemID;
+		}
+		
+		// The ids are numbers and can therefore be safely inlined. Chunks keep the statement well below the SQLite length limit.
+		List<Long> remainingAlbumItemIDs = new ArrayList<Long>(albumItemIDs);
+		while (!remainingAlbumItemIDs.isEmpty()) {
+			List<Long> albumItemIDChunk = remainingAlbumItemIDs.subList(0, Math.min(MAX_ALBUM_ITEM_IDS_PER_PICTURE_QUERY, remainingAlbumItemIDs.size()));
 			
-				while (rs.next()) {
-					pictures.add(new AlbumItemPicture(rs.getLong(1), rs.getString(2), rs.getString(3), albumName, rs.getLong(4)));
-				}			
-			} catch (SQLException e) {			
-				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+			StringBuilder picturesQuery = new StringBuilder(createPictureSelectQuery(albumName));
+			picturesQuery.append(" WHERE ");
+			picturesQuery.append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE));
+			picturesQuery.append(" IN (");
+			for (int i=0; i<albumItemIDChunk.size(); i++) {
+				if (i > 0) {
+					picturesQuery.append(", ");
+				}
+				picturesQuery.append(albumItemIDChunk.get(i).longValue());
+			}
+			picturesQuery.append(")");
+			picturesQuery.append(PICTURE_ORDER_BY_CLAUSE);
+			
+			picturesByAlbumItemID.putAll(fetchAlbumItemPictures(albumName, picturesQuery.toString()));
+			albumItemIDChunk.clear();
+		}
+		
+		return picturesByAlbumItemID;
+	}
+	
+	/** Retrieves the pictures of all items of the album. The pictures are returned even if the album 
+	 * is no longer marked as a picture album, as long as its picture table exists */
+	static List<AlbumItemPicture> getAllAlbumPictures(String albumName) throws DatabaseWrapperOperationException {
+		List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
+		
+		if (isTableAvailable(DatabaseStringUtilities.generatePictureTableName(albumName))) {
+			for (List<AlbumItemPicture> albumItemPictures : fetchAlbumItemPictures(albumName, createPictureSelectQuery(albumName)).values()) {
+				pictures.addAll(albumItemPictures);
 			}
 		}
 		
 		return pictures;
 	}
 	
+	private static String createPictureSelectQuery(String albumName) {
+		return " SELECT " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ID_COLUMN_NAME) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.THUMBNAIL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ORIGINAL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_ITEM_ID_REFERENCE_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.SMALL_PICTURE_FILE_NAME_IN_PICTURE_TABLE) + ", " +
+					DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.LARGE_PICTURE_FILE_NAME_IN_PICTURE_TABLE) +
+			   " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generatePictureTableName(albumName));
+	}
+	
+	/** Executes the given picture query and groups the resulting pictures by the id of the album item they belong to */
+	private static Map<Long, List<AlbumItemPicture>> fetchAlbumItemPictures(String albumName, String picturesQuery) throws DatabaseWrapperOperationException {
+		Map<Long, List<AlbumItemPicture>> picturesByAlbumItemID = new HashMap<Long, List<AlbumItemPicture>>();
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
+			 ResultSet rs = statement.executeQuery(picturesQuery);) {			
+		
+			while (rs.next()) {
+				long albumItemID = rs.getLong(4);
+				List<AlbumItemPicture> pictures = picturesByAlbumItemID.get(albumItemID);
+				if (pictures == null) {
+					pictures = new ArrayList<AlbumItemPicture>();
+					picturesByAlbumItemID.put(albumItemID, pictures);
+				}
+				AlbumItemPicture picture = new AlbumItemPicture(rs.getLong(1), rs.getString(2), rs.getString(3), albumName, albumItemID);
+				picture.setSmallPictureName(rs.getString(5));
+				picture.setLargePictureName(rs.getString(6));
+				pictures.add(picture);
+			}			
+		} catch (SQLException e) {			
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		}
+		
+		return picturesByAlbumItemID;
+	}
+	
 	static AlbumItem getAlbumItem(String albumName, long albumItemId) throws DatabaseWrapperOperationException {
 		String queryString = QueryBuilder.createSelectStarQuery(
 				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName))) + 
-				" WHERE id = " + albumItemId;
-		List<AlbumItem> items = getAlbumItems(queryString);
+				" WHERE id = ?";
+		List<AlbumItem> items = getAlbumItems(new ParameterizedQuery(queryString, Collections.singletonList(albumItemId)), null, null, null);
 
 		AlbumItem requestedItem = null;
 		try {
@@ -354,42 +503,139 @@ public final class QueryOperations {
 		}		
 	}
 
-	static List<AlbumItem> getAlbumItems(String queryString) throws DatabaseWrapperOperationException {
+	static List<AlbumItem> getAlbumItemPage(String albumName, ParameterizedQuery query, Long precedingItemId, int pageSize) throws DatabaseWrapperOperationException {
+		return getAlbumItemPage(albumName, query, precedingItemId, pageSize, null);
+	}
+	
+	/** 
+	 * Retrieves a page of the results of the query. Repeated pages are served by the {@link QueryResultCache}, which hands out
+	 * copies of its album items, hence the returned items may be altered. See {@link #acquireReadConnectionIfSuitable(QueryCancellation)} for the used connection 
+	 */
+	static List<AlbumItem> getAlbumItemPage(String albumName, ParameterizedQuery query, Long precedingItemId, int pageSize, 
+			QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		ParameterizedQuery pageQuery = QueryBuilder.createPageQuery(albumName, query, precedingItemId, pageSize);
+		checkNotCancelled(cancellation);
+		long dataVersion = QueryResultCache.getDataVersion(albumName);
+		List<AlbumItem> cachedPage = QueryResultCache.getAlbumItems(albumName, pageQuery, dataVersion);
+		if (cachedPage != null) {
+			return cachedPage;
+		}
+		
+		ReadConnection readConnection = acquireReadConnectionIfSuitable(cancellation);
+		
+		try {
+			return QueryResultCache.putAlbumItems(albumName, pageQuery, dataVersion, getAlbumItems(pageQuery, 
+					DatabaseStringUtilities.generateTableName(albumName), readConnection, cancellation));
+		} finally {
+			ConnectionManager.releaseReadConnection(readConnection);
+		}
+	}
+	
+	/** Cancelled queries fail before the {@link QueryResultCache} is asked, so that they fail whether their results are cached or not */
+	private static void checkNotCancelled(QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		if (cancellation != null) {
+			cancellation.checkNotCancelled();
+		}
+	}
+	
+	/**
+	 * Lends a read connection if the query can be cancelled, since such queries are executed on a background thread, 
+	 * or if the write-ahead log is enabled, since then reading on a separate connection does not delay writes. 
+	 * The read connection only sees committed changes and must be released by the caller.
+	 * @return the read connection or null if the default connection is used
+	 */
+	private static ReadConnection acquireReadConnectionIfSuitable(QueryCancellation cancellation) throws DatabaseWrapperOperationException {
+		if (cancellation != null || ConnectionManager.isWriteAheadLogEnabled()) {
+			return ConnectionManager.acquireReadConnection();
+		}
+		
+		return null;
+	}
+
+	/**
+	 * Executes the query using the cached prepared statement of its SQL. The returned result set must be closed, but not its statement.
+	 * Since executing the same SQL again resets the statement, the result set must be processed before.
+	 * @param readConnection The read connection on which the query is executed. If null, the default connection is used.
+	 */
+	private static ResultSet executeCachedQuery(ParameterizedQuery query, ReadConnection readConnection) throws SQLException {
+		PreparedStatement preparedStatement = readConnection == null ? ConnectionManager.getPreparedStatement(query.getSql()) : 
+			readConnection.getPreparedStatement(query.getSql());
+		query.bindParameters(preparedStatement);
+		return preparedStatement.executeQuery();
+	}
 
+	static List<AlbumItem> getAlbumItems(String queryString) throws DatabaseWrapperOperationException {
+		return getAlbumItems(new ParameterizedQuery(queryString), null, null, null);
+	}
+	
+	/**
+	 * Retrieves the album items which are returned by the specified query.
+	 * @param query The query which selects all columns of an album table.
+	 * @param tableName The name of the queried album table. If null, the name is determined by the metadata of the result set, 
+	 * which is not possible for compound queries (e.g. UNION). Table name must NOT be escaped!
+	 * @param readConnection The read connection on which the query is executed. If null, the default connection is used.
+	 * Uncached schemas are loaded on the same connection, since only it sees the tables in the state of the query.
+	 * @param cancellation Allows to abort the query from another thread. It is checked before the query and before every row. 
+	 * If provided, a read connection must be provided as well.
+	 */
+	private static List<AlbumItem> getAlbumItems(ParameterizedQuery query, String tableName, ReadConnection readConnection, 
+			QueryCancellation cancellation) throws DatabaseWrapperOperationException {
  		LinkedList<AlbumItem> list = new LinkedList<AlbumItem>();		
 		
-		try (
-			Statement statement = ConnectionManager.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY,ResultSet.CONCUR_READ_ONLY);
-			ResultSet rs = statement.executeQuery(queryString); ) {
+		checkNotCancelled(cancellation);
+		Connection connection = readConnection == null ? ConnectionManager.getConnection() : readConnection.getConnection();
+		long schemaVersion = AlbumSchemaCache.getVersion();
+		
+		try (ResultSet rs = executeCachedQuery(query, readConnection)) {
 	
 			// Retrieve table metadata
 			ResultSetMetaData metaData = rs.getMetaData();
 
 			int columnCount = metaData.getColumnCount();
+			String albumName = null;
+			String[] fieldNames = null;
+			FieldType[] types = null;
+			boolean[] quicksearchable = null;
+			
 			// For each albumItem
 			while (rs.next()) {
+				checkNotCancelled(cancellation);
+				
+				// Resolve the field metadata once per query instead of once per field value
+				if (fieldNames == null) {
+					if (tableName == null) {
+						tableName = metaData.getTableName(1);
+					}
+					AlbumSchema albumSchema = AlbumSchemaCache.getSchemaForTable(tableName, connection, schemaVersion);
+					albumName = albumSchema.getAlbumName();
+					fieldNames = new String[columnCount + 1];
+					types = new FieldType[columnCount + 1];
+					quicksearchable = new boolean[columnCount + 1];
+					
+					for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+						fieldNames[columnIndex] = metaData.getColumnName(columnIndex);
+						types[columnIndex] = albumSchema.containsField(fieldNames[columnIndex]) ? 
+								albumSchema.getFieldType(fieldNames[columnIndex]) : HelperOperations.detectDataType(tableName, fieldNames[columnIndex], connection);
+						quicksearchable[columnIndex] = albumSchema.isQuickSearchable(fieldNames[columnIndex]);
+					}
+				}
+				
 				// Create a new AlbumItem instance
-				AlbumItem albumItem = new AlbumItem("");
+				AlbumItem albumItem = new AlbumItem(albumName);
 				// Each ItemField
 				for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
-
 					// Add new field
-					String fieldName = metaData.getColumnName(columnIndex);
-					String tableName = metaData.getTableName(1);
-					String albumName = DatabaseOperations.getAlbumName(tableName);
-					
-					albumItem.setAlbumName(albumName);
-					
-					FieldType type = HelperOperations.detectDataType(tableName, fieldName);
+					String fieldName = fieldNames[columnIndex];
+					FieldType type = types[columnIndex];
 					Object value = HelperOperations.fetchFieldItemValue(rs, columnIndex, type, albumName);
-					boolean quicksearchable = isAlbumFieldQuicksearchable(albumName, fieldName);
+					
 					// omit the typeinfo field and set the contentVersion separately
 					if (type == FieldType.ID && fieldName.endsWith(DatabaseConstants.TYPE_INFO_COLUMN_NAME)){
 						continue;
 					} else if (type.equals(FieldType.UUID) && fieldName.equals(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME)) {
 						albumItem.setContentVersion((UUID) value);
 					} else {
-						albumItem.addField(fieldName, type, value, quicksearchable);
+						albumItem.addField(fieldName, type, value, quicksearchable[columnIndex]);
 					}
 				}
 				list.add(albumItem);
@@ -448,14 +694,11 @@ public final class QueryOperations {
 	}
 	
 	static boolean isAlbumFieldQuicksearchable(String albumName, String fieldName) throws DatabaseWrapperOperationException {
-		List<String> quicksearchableFieldNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-		return quicksearchableFieldNames.contains(fieldName);
+		return AlbumSchemaCache.getSchemaForAlbum(albumName).isQuickSearchable(fieldName);
 	}
 
 	static boolean isAlbumQuicksearchable(String albumName) throws DatabaseWrapperOperationException {
-		List<String> quicksearchableFieldNames = getIndexedColumnNames(DatabaseStringUtilities.generateTableName(albumName));
-
-		return quicksearchableFieldNames.size() >= 1;
+		return AlbumSchemaCache.getSchemaForAlbum(albumName).hasQuickSearchableFields();
 	}
 	
 	static boolean isPictureAlbum(String albumName) throws DatabaseWrapperOperationException {
@@ -482,12 +725,22 @@ public final class QueryOperations {
 	}
 	
 	static String getAlbumName(String tableName) throws DatabaseWrapperOperationException {
+		return getAlbumName(tableName, ConnectionManager.getConnection());
+	}
+	
+	/** See {@link #getAlbumName(String)}. The album master table is read on the specified connection if the schema is not cached */
+	static String getAlbumName(String tableName, Connection connection) throws DatabaseWrapperOperationException {
+		AlbumSchema cachedAlbumSchema = AlbumSchemaCache.getCachedSchemaForTable(tableName);
+		if (cachedAlbumSchema != null) {
+			return cachedAlbumSchema.getAlbumName();
+		}
+		
 		String query = " SELECT " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUMNAME_IN_ALBUM_MASTER_TABLE) +
 				   	   "   FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseConstants.ALBUM_MASTER_TABLE_NAME) +
 				       "  WHERE " + DatabaseStringUtilities.transformColumnNameToSelectQueryName(DatabaseConstants.ALBUM_TABLENAME_IN_ALBUM_MASTER_TABLE) + 
 				   						"=" + DatabaseStringUtilities.encloseNameWithQuotes(tableName);
 	
-		try (Statement statement = ConnectionManager.getConnection().createStatement();
+		try (Statement statement = connection.createStatement();
 			 ResultSet resultSet = statement.executeQuery(query)) {		
 			
 			if (resultSet.next()) {
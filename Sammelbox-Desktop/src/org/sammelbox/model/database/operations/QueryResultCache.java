@@ -0,0 +1,249 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.model.database.operations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.ParameterizedQuery;
+
+/**
+ * Caches the results of recently executed queries, so that switching between an album, its views and previous quick searches
+ * does not execute the same SQL again. Results are keyed by their album, their normalized SQL along the parameters and the 
+ * data version of the album. All operations which change the content or the structure of an album must invalidate the album.
+ * The invalidation is repeated once the changes have been committed. Hence results which have been fetched before are never 
+ * returned afterwards, even if they have been fetched on a read connection while an enclosing savepoint was still open.
+ * Callers receive copies of the cached album items, since they alter them (e.g. by loading their pictures) while other threads
+ * may retrieve the same result.
+ */
+public final class QueryResultCache {
+	/** The maximum number of album items within all cached results. Counts take up a single item */
+	private static final int MAX_CACHED_ALBUM_ITEMS = 2000;
+	/** Larger results are only fetched to process all items at once (e.g. exports), which is not repeated right away */
+	private static final int MAX_CACHED_ALBUM_ITEMS_PER_RESULT = 250;
+	
+	/** The data version of each album which has been changed since the cache was cleared, by the table name of the album */
+	private static final Map<String, Long> DATA_VERSIONS_BY_TABLE_NAME = new HashMap<String, Long>();
+	/** The data version of all albums which have not been changed since the cache was cleared */
+	private static long initialDataVersion = 0;
+	private static long latestDataVersion = 0;
+	private static int numberOfCachedAlbumItems = 0;
+	/** The cached results in access order, such that the least recently used result is evicted first */
+	private static final Map<ResultKey, Object> RESULTS = new LinkedHashMap<ResultKey, Object>(16, 0.75f, true);
+	
+	private QueryResultCache() {
+		// use static methods
+	}
+	
+	/**
+	 * Returns the current data version of the album. It must be retrieved before the query is executed and passed on when the 
+	 * result is cached, so that results which are invalidated while the query is running are not cached under the new version.
+	 */
+	static synchronized long getDataVersion(String albumName) {
+		return getDataVersionOfTable(DatabaseStringUtilities.generateTableName(albumName));
+	}
+	
+	/** Returns copies of the cached album items of the query or null if they are not cached for the data version */
+	@SuppressWarnings("unchecked")
+	static synchronized List<AlbumItem> getAlbumItems(String albumName, ParameterizedQuery query, long dataVersion) {
+		List<AlbumItem> cachedAlbumItems = (List<AlbumItem>) RESULTS.get(new ResultKey(albumName, query, dataVersion));
+		return cachedAlbumItems == null ? null : copyOf(cachedAlbumItems);
+	}
+	
+	/**
+	 * Caches copies of the album items of the query, such that the passed items remain with the caller
+	 * @return the passed album items
+	 */
+	static synchronized List<AlbumItem> putAlbumItems(String albumName, ParameterizedQuery query, long dataVersion, List<AlbumItem> albumItems) {
+		if (albumItems.size() <= MAX_CACHED_ALBUM_ITEMS_PER_RESULT) {
+			put(new ResultKey(albumName, query, dataVersion), copyOf(albumItems));
+		}
+		
+		return albumItems;
+	}
+	
+	/** Returns the cached number of results of the query or null if it is not cached for the data version */
+	static synchronized Long getNumberOfResults(String albumName, ParameterizedQuery query, long dataVersion) {
+		return (Long) RESULTS.get(new ResultKey(albumName, query, dataVersion));
+	}
+	
+	static synchronized void putNumberOfResults(String albumName, ParameterizedQuery query, long dataVersion, long numberOfResults) {
+		put(new ResultKey(albumName, query, dataVersion), numberOfResults);
+	}
+	
+	/**
+	 * Removes all cached results of the album and increases its data version. Since read connections see the old content until 
+	 * the changes are committed, this happens once more after the commit.
+	 * @param albumName The name of the album whose content or structure has been changed.
+	 */
+	static void invalidate(final String albumName) {
+		removeResults(albumName);
+		DatabaseIntegrityManager.runAfterCommit(new Runnable() {
+			@Override
+			public void run() {
+				removeResults(albumName);
+			}
+		});
+	}
+	
+	private static synchronized void removeResults(String albumName) {
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		DATA_VERSIONS_BY_TABLE_NAME.put(tableName, ++latestDataVersion);
+		
+		Iterator<Map.Entry<ResultKey, Object>> resultIterator = RESULTS.entrySet().iterator();
+		while (resultIterator.hasNext()) {
+			Map.Entry<ResultKey, Object> result = resultIterator.next();
+			if (result.getKey().tableName.equals(tableName)) {
+				numberOfCachedAlbumItems -= sizeOf(result.getValue());
+				resultIterator.remove();
+			}
+		}
+	}
+	
+	/** Removes all cached results. Must be called whenever the underlying database is exchanged (e.g. restore, new connection) */
+	public static synchronized void invalidateAll() {
+		DATA_VERSIONS_BY_TABLE_NAME.clear();
+		initialDataVersion = ++latestDataVersion;
+		RESULTS.clear();
+		numberOfCachedAlbumItems = 0;
+	}
+	
+	private static void put(ResultKey resultKey, Object result) {
+		// The album has been changed while the query was running, hence the result might already be outdated
+		if (resultKey.dataVersion != getDataVersionOfTable(resultKey.tableName)) {
+			return;
+		}
+		
+		Object previousResult = RESULTS.put(resultKey, result);
+		numberOfCachedAlbumItems += sizeOf(result) - (previousResult == null ? 0 : sizeOf(previousResult));
+		
+		Iterator<Object> resultIterator = RESULTS.values().iterator();
+		while (numberOfCachedAlbumItems > MAX_CACHED_ALBUM_ITEMS && resultIterator.hasNext()) {
+			numberOfCachedAlbumItems -= sizeOf(resultIterator.next());
+			resultIterator.remove();
+		}
+	}
+	
+	/** Copies the fields of the album items. The pictures are left out, since they are loaded lazily by each copy */
+	private static List<AlbumItem> copyOf(List<AlbumItem> albumItems) {
+		List<AlbumItem> copies = new ArrayList<AlbumItem>(albumItems.size());
+		
+		for (AlbumItem albumItem : albumItems) {
+			AlbumItem copy = new AlbumItem(albumItem.getAlbumName());
+			for (ItemField itemField : albumItem.getFields()) {
+				copy.addField(itemField.getName(), itemField.getType(), itemField.getValue(), itemField.isQuickSearchable());
+			}
+			copy.setContentVersion(albumItem.getContentVersion());
+			copies.add(copy);
+		}
+		
+		return copies;
+	}
+	
+	private static long getDataVersionOfTable(String tableName) {
+		Long dataVersion = DATA_VERSIONS_BY_TABLE_NAME.get(tableName);
+		return dataVersion == null ? initialDataVersion : dataVersion;
+	}
+	
+	private static int sizeOf(Object result) {
+		return result instanceof List ? Math.max(1, ((List<?>) result).size()) : 1;
+	}
+	
+	/** 
+	 * Collapses all whitespace outside of quoted literals and names (including names in square brackets) into single blanks and removes it next to parentheses and
+	 * commas, such that queries which differ only in their formatting share the cached result.
+	 */
+	static String normalizeSql(String sql) {
+		StringBuilder normalizedSql = new StringBuilder(sql.length());
+		char closingQuote = 0;
+		boolean pendingBlank = false;
+		
+		for (int i=0; i<sql.length(); i++) {
+			char character = sql.charAt(i);
+			
+			if (closingQuote == 0 && Character.isWhitespace(character)) {
+				pendingBlank = true;
+				continue;
+			}
+			
+			if (pendingBlank && normalizedSql.length() > 0 && !isSeparator(character) 
+					&& !isSeparator(normalizedSql.charAt(normalizedSql.length() - 1))) {
+				normalizedSql.append(' ');
+			}
+			pendingBlank = false;
+			
+			if (closingQuote == 0 && (character == '\'' || character == '"')) {
+				closingQuote = character;
+			} else if (closingQuote == 0 && character == '[') {
+				closingQuote = ']';
+			} else if (character == closingQuote) {
+				// doubled quotes within a literal are read as closing and reopening it
+				closingQuote = 0;
+			}
+			
+			normalizedSql.append(character);
+		}
+		
+		return normalizedSql.toString();
+	}
+	
+	private static boolean isSeparator(char character) {
+		return character == '(' || character == ')' || character == ',';
+	}
+	
+	/** Identifies a result by the album, the normalized SQL, the parameters and the data version of the album */
+	private static final class ResultKey {
+		private final String tableName;
+		private final String normalizedSql;
+		private final List<Object> parameters;
+		private final long dataVersion;
+		
+		private ResultKey(String albumName, ParameterizedQuery query, long dataVersion) {
+			this.tableName = DatabaseStringUtilities.generateTableName(albumName);
+			this.normalizedSql = normalizeSql(query.getSql());
+			this.parameters = query.getParameters();
+			this.dataVersion = dataVersion;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * (31 * (31 * tableName.hashCode() + normalizedSql.hashCode()) + parameters.hashCode()) + (int) (dataVersion ^ (dataVersion >>> 32));
+		}
+		
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof ResultKey)) {
+				return false;
+			}
+			
+			ResultKey otherKey = (ResultKey) object;
+			return dataVersion == otherKey.dataVersion && tableName.equals(otherKey.tableName) 
+					&& normalizedSql.equals(otherKey.normalizedSql) && parameters.equals(otherKey.parameters);
+		}
+	}
+}
@@ -21,13 +21,19 @@ package org.sammelbox.model.database.operations;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.ThumbnailPack;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.AlbumItem;
@@ -37,7 +43,6 @@ import org.sammelbox.model.album.ItemField;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.album.OptionType;
 import org.sammelbox.model.database.DatabaseStringUtilities;
-import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.slf4j.Logger;
@@ -53,6 +58,10 @@ public final class UpdateOperations {
 	static void renameAlbum(String oldAlbumName, String newAlbumName) throws DatabaseWrapperOperationException {		
 		String savepointName =  DatabaseIntegrityManager.createSavepoint();
 		try {
+			// The triggers of the quicksearch table refer to it by name, hence it is recreated after the renaming
+			List<MetaItemField> fields = QueryOperations.getAlbumItemFieldNamesAndTypes(oldAlbumName);
+			DeleteOperations.dropQuickSearchTable(oldAlbumName);
+			
 			// Rename the album table
 			renameTable(oldAlbumName, newAlbumName);
 			
@@ -66,11 +75,17 @@ public final class UpdateOperations {
 			String newPictureTableName = DatabaseStringUtilities.generatePictureTableName(newAlbumName);
 			renameTable(oldPictureTableName, newPictureTableName);
 			
+			// Index names are global within the database, hence the picture table index must follow the table name
+			DeleteOperations.dropPictureTableIndex(oldAlbumName);
+			CreateOperations.createPictureTableIndexIfItDoesNotExist(newAlbumName);
+			
 			// Rename the picture folder
 			FileSystemAccessWrapper.renameAlbumPictureFolder(oldAlbumName, newAlbumName);
 			
 			// Change the entry in the album master table. OptionType.UNKNOWN indicates no change of the picture storing 
 			updateAlbumInAlbumMasterTable(oldAlbumName, newAlbumName, OptionType.UNKNOWN);			
+			
+			CreateOperations.createQuickSearchTable(newAlbumName, fields);
 	
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
@@ -79,6 +94,10 @@ public final class UpdateOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(oldAlbumName);
+			AlbumSchemaCache.invalidate(newAlbumName);
+			QueryResultCache.invalidate(oldAlbumName);
+			QueryResultCache.invalidate(newAlbumName);
 		}
 	}
 	
@@ -122,34 +141,13 @@ public final class UpdateOperations {
 		
 		String savepointName = DatabaseIntegrityManager.createSavepoint();		
 		try {
-			// Backup the old data in java objects
-			List<AlbumItem> albumItems = QueryOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName));
-
-			// Create the new table pointing to new typeinfo
-			boolean hasPictureField = QueryOperations.isPictureAlbum(albumName);
 			List<MetaItemField> newFields = QueryOperations.getAlbumItemFieldNamesAndTypes(albumName);
 			newFields = renameFieldInMetaItemList(oldMetaItemField, newMetaItemField, newFields);
 		
-			// Drop the old table + typeTable
-			DeleteOperations.dropTable(albumName);
-			DeleteOperations.dropTable(DatabaseStringUtilities.generateTypeInfoTableName(albumName));
-
-			// the following three columns are automatically created by createNewAlbumTable
-			newFields = removeFieldFromMetaItemList(new MetaItemField("id", FieldType.ID), newFields);
-			newFields = removeFieldFromMetaItemList(new MetaItemField(DatabaseConstants.TYPE_INFO_COLUMN_NAME, FieldType.ID), newFields);
-
-			CreateOperations.createNewAlbumTable(newFields, albumName, 
-					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)), hasPictureField);	
-
-			// Restore the old data from the java objects in the new tables [rename column]
-			renameFieldInAlbumItemList(oldMetaItemField, newMetaItemField, albumItems);
-		
-			// Re-add all album items
-			for (AlbumItem albumItem : albumItems) {
-				CreateOperations.addAlbumItem(albumItem, false, false);
-			}
+			// The renamed column receives the values of the old column
+			rebuildAlbumTable(albumName, newFields, 
+					Collections.singletonMap(newMetaItemField.getName(), oldMetaItemField.getName()));
 			
-			rebuildIndexForTable(albumName, newFields);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
 			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
@@ -158,6 +156,8 @@ public final class UpdateOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);
+			QueryResultCache.invalidate(albumName);
 		}		
 	}
 
@@ -170,30 +170,12 @@ public final class UpdateOperations {
 
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		try {
-			// Backup the old data in java objects
-			List<AlbumItem> albumItems = QueryOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName));
-			// Create the new table pointing to new typeinfo
-			boolean hasPictureField = QueryOperations.isPictureAlbum(albumName);
 			List<MetaItemField> newFields = QueryOperations.getAlbumItemFieldNamesAndTypes(albumName);
 			newFields = reorderFieldInMetaItemList(metaItemField, preceedingField, newFields);
 
-			// Drop the old table + typeTable
-			DeleteOperations.dropTable(DatabaseStringUtilities.generateTableName(albumName));
-			DeleteOperations.dropTable(DatabaseStringUtilities.generateTypeInfoTableName(albumName));
-
-			// Create the new table pointing to new typeinfo
-			CreateOperations.createNewAlbumTable(newFields, albumName, 
-					DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)), hasPictureField);
-
-			// Restore the old data from the temporary tables in the new tables [reorder column]
-			List<AlbumItem> newAlbumItems = reorderFieldInAlbumItemList(metaItemField, preceedingField, albumItems);
-			// replace the empty picField with the saved raw PicField 
-			for (AlbumItem albumItem : newAlbumItems) {
-				albumItem.setAlbumName(albumName);
-				CreateOperations.addAlbumItem(albumItem, false, false);				
-			}
-
-			rebuildIndexForTable(albumName, newFields);
+			// The columns keep their names, only their order changes
+			rebuildAlbumTable(albumName, newFields, Collections.<String, String>emptyMap());
+			
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
 			if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
@@ -202,6 +184,8 @@ public final class UpdateOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 
@@ -214,14 +198,18 @@ public final class UpdateOperations {
 			if (metaItemField.isQuickSearchable() && !quickSearchableColumnNames.contains(metaItemField.getName())) {
 				// Enable for quicksearch feature
 				quickSearchableColumnNames.add(metaItemField.getName());
-	
-				DeleteOperations.dropIndex(albumName);
- 				CreateOperations.createIndex(albumName, quickSearchableColumnNames);			
 			} else if (!metaItemField.isQuickSearchable()){	
 				// Disable for quicksearch feature
 				quickSearchableColumnNames.remove(metaItemField.getName());
-				CreateOperations.createIndex(albumName, quickSearchableColumnNames);
-			}				
+			}
+			
+			DeleteOperations.dropIndex(DatabaseStringUtilities.generateTableName(albumName));
+			CreateOperations.createIndex(albumName, quickSearchableColumnNames);
+			
+			// The full-text table mirrors the fields which are quicksearchable according to the new index
+			AlbumSchemaCache.invalidate(albumName);
+			CreateOperations.createQuickSearchTable(albumName, QueryOperations.getAlbumItemFieldNamesAndTypes(albumName));
+			
 			updateSchemaVersion(albumName);
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException dwoe) {
@@ -231,6 +219,8 @@ public final class UpdateOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);
+			QueryResultCache.invalidate(albumName);
 		}		
 	}
 	
@@ -288,34 +278,65 @@ public final class UpdateOperations {
 	}
 	
 	/**
-	 * Renames a field in all the album items in the list. Returns the result in a new list.
-	 * @param oldMetaItemField The metaItemField to be renamed.
-	 * @param newMetaItemField The metaItemField containing the new name.
-	 * @param albumList The list of album items whose field is to be renamed.
-	 * @return The new list of album items.
+	 * Rebuilds the table of an album with the given fields inside the database. The new table is filled by a single 
+	 * INSERT INTO ... SELECT statement and replaces the old one afterwards, hence the album items are never loaded into memory.
+	 * Item ids and content versions are kept, so that the pictures of the album remain attached to their items.
+	 * @param albumName The name of the album whose table is rebuilt.
+	 * @param newFields The fields of the rebuilt table in their new order. Internal columns must not be part of this list.
+	 * @param renamedColumns Maps the name of a new field to the name of the old column providing its values. Fields which
+	 * are not contained receive the values of the old column with the same name.
+	 * @throws DatabaseWrapperOperationException 
 	 */
-	private static List<AlbumItem> renameFieldInAlbumItemList(MetaItemField oldMetaItemField, MetaItemField newMetaItemField, final List<AlbumItem> albumList) {
-		List<AlbumItem> newAlbumItemList = albumList;
-		for (AlbumItem albumItem: newAlbumItemList) {
-			albumItem.renameField(oldMetaItemField, newMetaItemField);
+	static void rebuildAlbumTable(String albumName, List<MetaItemField> newFields, Map<String, String> renamedColumns) throws DatabaseWrapperOperationException {
+		String tableName = DatabaseStringUtilities.generateTableName(albumName);
+		String rebuildTableName = DatabaseStringUtilities.generateTempTableName(albumName);
+		boolean hasContentVersion = AlbumSchemaCache.getSchemaForAlbum(albumName).containsField(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		
+		// Create the new table along with its type info table next to the old ones
+		DeleteOperations.dropTable(DatabaseStringUtilities.encloseNameWithQuotes(rebuildTableName));
+		CreateOperations.createAlbumTable(newFields, rebuildTableName);
+		
+		StringBuilder targetColumns = new StringBuilder("id");
+		StringBuilder sourceColumns = new StringBuilder("id");
+		for (MetaItemField metaItemField : newFields) {
+			String columnName = metaItemField.getName();
+			String sourceColumnName = renamedColumns.containsKey(columnName) ? renamedColumns.get(columnName) : columnName;
+			
+			targetColumns.append(", ").append(DatabaseStringUtilities.encloseNameWithQuotes(columnName));
+			sourceColumns.append(", ").append(DatabaseStringUtilities.transformColumnNameToSelectQueryName(sourceColumnName));
 		}
-		return newAlbumItemList; 
-	}
-
-	/**
-	 * Moves a field of an album item to a new position. Returns the result in a new list. 
-	 * @param metaItemField The field to be moved.
-	 * @param precedingField The field which will precede the specified item after the reordering. If null the item will be moved to the top
-	 * of the list. 
-	 * @param albumList The list of album items in their original ordering.
-	 * @return The list of album items in their new order. Content remains untouched.
-	 */
-	private static List<AlbumItem> reorderFieldInAlbumItemList(MetaItemField metaItemField, MetaItemField precedingField, final List<AlbumItem> albumList) {
-		List<AlbumItem> newAlbumItemList = albumList;
-		for (AlbumItem albumItem: newAlbumItemList) {
-			albumItem.reorderField(metaItemField, precedingField);
+		targetColumns.append(", ").append(DatabaseConstants.CONTENT_VERSION_COLUMN_NAME);
+		sourceColumns.append(", ").append(hasContentVersion ? DatabaseConstants.CONTENT_VERSION_COLUMN_NAME : "NULL");
+		targetColumns.append(", ").append(DatabaseConstants.TYPE_INFO_COLUMN_NAME);
+		sourceColumns.append(", ").append(DatabaseConstants.TYPE_INFO_FOREIGN_KEY);
+		
+		String copyQuery = "INSERT INTO " + DatabaseStringUtilities.encloseNameWithQuotes(rebuildTableName) + 
+				" (" + targetColumns + ") SELECT " + sourceColumns + " FROM " + DatabaseStringUtilities.encloseNameWithQuotes(tableName);
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.executeUpdate(copyQuery);
+		} catch (SQLException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
+		}
+		
+		// Dropping the old table removes its quicksearch index as well. The old type info table can only be dropped afterwards
+		DeleteOperations.dropTable(DatabaseStringUtilities.encloseNameWithQuotes(tableName));
+		DeleteOperations.dropTable(DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTypeInfoTableName(albumName)));
+		
+		// Renaming the type info table also updates the foreign key reference of the new album table
+		if (!renameTable(DatabaseStringUtilities.generateTypeInfoTableName(rebuildTableName), DatabaseStringUtilities.generateTypeInfoTableName(albumName))
+				|| !renameTable(rebuildTableName, tableName)) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE);
+		}
+		
+		AlbumSchemaCache.invalidate(albumName);
+		
+		// The old table is gone already, hence an album without quicksearch table must not be committed
+		try {
+			rebuildIndexForTable(albumName, newFields);
+		} catch (DatabaseWrapperOperationException e) {
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, e);
 		}
-		return newAlbumItemList; 
 	}
 	
 	static void appendNewAlbumField(String albumName, MetaItemField metaItemField) throws DatabaseWrapperOperationException {
@@ -334,7 +355,9 @@ public final class UpdateOperations {
 				throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, dwoe);
 			}
 		} finally {
-			DatabaseIntegrityManager.releaseSavepoint(savepointName);			
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			AlbumSchemaCache.invalidate(albumName);			
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 	
@@ -390,6 +413,8 @@ public final class UpdateOperations {
 			}
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			// Items which have been cached along their pictures must be fetched again
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 	
@@ -492,10 +517,10 @@ public final class UpdateOperations {
 	}
 
 	/**
-	 * Rebuilds the index for a table after an alter table operation. 
+	 * Rebuilds the index and the full-text quicksearch table for a table after an alter table operation. 
 	 * @param albumName The album to which these fields belong.
 	 * @param items The items containing the information of whether they are quicksearchable.
-	 * @throws DatabaseWrapperOperationException 
+	 * @throws DatabaseWrapperOperationException If the index or the quicksearch table could not be created. Both are rolled back.
 	 */
 	static void rebuildIndexForTable(String albumName, List<MetaItemField> fields) throws DatabaseWrapperOperationException {
 		List<String> quicksearchColumnNames = new ArrayList<String>();
@@ -504,17 +529,15 @@ public final class UpdateOperations {
 				quicksearchColumnNames.add(metaItemField.getName());
 			}
 		}
-		if (!quicksearchColumnNames.isEmpty()){
-			String savepointName = DatabaseIntegrityManager.createSavepoint();
-			try {
-				CreateOperations.createIndex(albumName, quicksearchColumnNames);
-			} catch (DatabaseWrapperOperationException e) {
-				if (e.getErrorState().equals(DBErrorState.ERROR_DIRTY_STATE)) {
-					DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
-				}
-			}finally {
-				DatabaseIntegrityManager.releaseSavepoint(savepointName);
-			}
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			CreateOperations.createIndex(albumName, quicksearchColumnNames);
+			CreateOperations.createQuickSearchTable(albumName, fields);
+		} catch (DatabaseWrapperOperationException e) {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE, e);
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
 		}
 	}
 	
@@ -576,25 +599,9 @@ public final class UpdateOperations {
 			preparedStatement.setString(parameterIndex, id.toString());
 			preparedStatement.executeUpdate();
 
-			// Get those physical picture files that are currently still referenced
+			// Get those pictures that are currently still referenced
 			List<AlbumItemPicture> picturesBeforeUpdate = QueryOperations.getAlbumItemPictures(albumItem.getAlbumName(), albumItem.getItemID());
 			
-			// Remove those physical pictures that are no longer needed. However, the table records will remain for the moment
-			for (AlbumItemPicture stillReferencedPicture : picturesBeforeUpdate) {
-				boolean pictureIsNoLongerNeeded = true;
-				
-				for (AlbumItemPicture albumItemPicture : albumItem.getPictures()) {
-					if (stillReferencedPicture.getOriginalPictureName().equals(albumItemPicture.getOriginalPictureName())) {
-						pictureIsNoLongerNeeded = false;
-					}
-				}
-				
-				if (pictureIsNoLongerNeeded) {
-					FileSystemAccessWrapper.deleteFile(stillReferencedPicture.getThumbnailPicturePath());
-					FileSystemAccessWrapper.deleteFile(stillReferencedPicture.getOriginalPicturePath());
-				}
-			}
-			
 			// Update picture table by first deleting all pictures for this album item, and then rewriting the references
 			DeleteOperations.removeAllPicturesForAlbumItemFromPictureTable(albumItem);
 			for (AlbumItemPicture albumItemPicture : albumItem.getPictures()) {				
@@ -602,6 +609,11 @@ public final class UpdateOperations {
 				CreateOperations.addAlbumItemPicture(albumItemPicture);
 			}
 			
+			// The previous references are released only after the new ones have been added. Thus the physical files of 
+			// pictures which are kept are not deleted, but only those which are no longer needed
+			DeleteOperations.releasePictures(picturesBeforeUpdate);
+			ThumbnailPack.removeThumbnails(albumItem.getAlbumName(), getRemovedPictures(picturesBeforeUpdate, albumItem.getPictures()));
+			
 			updateContentVersion(albumItem.getAlbumName(), id, UUID.randomUUID());
 			DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
 		} catch (DatabaseWrapperOperationException e) {
@@ -612,9 +624,27 @@ public final class UpdateOperations {
 			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);			
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			QueryResultCache.invalidate(albumItem.getAlbumName());
 		}		
 	}
 	
+	/** Returns those of the previous pictures whose thumbnail is not used by any of the current pictures */
+	private static List<AlbumItemPicture> getRemovedPictures(List<AlbumItemPicture> previousPictures, List<AlbumItemPicture> currentPictures) {
+		Set<String> currentThumbnailNames = new HashSet<String>();
+		for (AlbumItemPicture currentPicture : currentPictures) {
+			currentThumbnailNames.add(currentPicture.getThumbnailPictureName());
+		}
+		
+		List<AlbumItemPicture> removedPictures = new ArrayList<AlbumItemPicture>();
+		for (AlbumItemPicture previousPicture : previousPictures) {
+			if (!currentThumbnailNames.contains(previousPicture.getThumbnailPictureName())) {
+				removedPictures.add(previousPicture);
+			}
+		}
+		
+		return removedPictures;
+	}
+	
 	static void updateContentVersion(String albumName, long itemID, UUID newUuid) throws DatabaseWrapperOperationException {	
 		String savepointName = DatabaseIntegrityManager.createSavepoint();
 		
@@ -634,6 +664,7 @@ public final class UpdateOperations {
 			throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, sqlEx);
 		} finally {
 			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			QueryResultCache.invalidate(albumName);
 		}
 	}
 
@@ -6,6 +6,12 @@ public class ApplicationSettings {
 	private Language userDefinedLanguage = Language.UNKNOWN;
 	private String dateFormat = "dd/MM/yyyy";
 	private boolean detailedViewIsDefault = true;
+	/** If enabled, the browser shows the thumbnails from the thumbnail pack of the album instead of the thumbnail files */
+	private boolean thumbnailPackIsEnabled = false;
+	/** If enabled, the database is kept in write-ahead log mode so that queries on pooled read connections do not wait for edits */
+	private boolean writeAheadLogIsEnabled = false;
+	/** The maximum number of read connections which are opened next to the connection for writing */
+	private int readConnectionPoolSize = 3;
 	
 	public ApplicationSettings() {}
 	
@@ -32,4 +38,28 @@ public class ApplicationSettings {
 	public void setDetailedViewIsDefault(boolean detailedViewIsDefault) {
 		this.detailedViewIsDefault = detailedViewIsDefault;
 	}
+
+	public boolean isThumbnailPackEnabled() {
+		return thumbnailPackIsEnabled;
+	}
+
+	public void setThumbnailPackIsEnabled(boolean thumbnailPackIsEnabled) {
+		this.thumbnailPackIsEnabled = thumbnailPackIsEnabled;
+	}
+
+	public boolean isWriteAheadLogEnabled() {
+		return writeAheadLogIsEnabled;
+	}
+
+	public void setWriteAheadLogIsEnabled(boolean writeAheadLogIsEnabled) {
+		this.writeAheadLogIsEnabled = writeAheadLogIsEnabled;
+	}
+
+	public int getReadConnectionPoolSize() {
+		return readConnectionPoolSize;
+	}
+
+	public void setReadConnectionPoolSize(int readConnectionPoolSize) {
+		this.readConnectionPoolSize = readConnectionPoolSize;
+	}
 }
\ No newline at end of file
@@ -21,7 +21,8 @@ package org.sammelbox.view.browser;
 import java.io.InputStream;
 
 import org.sammelbox.model.album.AlbumItem;
-import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.AlbumItemStore.FirstResults;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
 
@@ -34,14 +35,15 @@ public final class BrowserFacade {
 	public static void loadHelpPage() { Utilities.loadHelpPage(); }
 	public static String getAnchorForAlbumItemId(long anchorId) { return Utilities.getAnchorForAlbumItemId(anchorId); }
 	public static void jumpToAnchor(String anchor) { Utilities.jumpToAnchor(anchor); }
-	public static void performBrowserQueryAndShow(String sqlQuery) { Utilities.performBrowserQueryAndShow(ApplicationUI.getAlbumItemBrowser(), sqlQuery); }
+	public static void performBrowserQueryAndShow(String sqlQuery) { Utilities.performBrowserQueryAndShow(ApplicationUI.getAlbumItemBrowser(), new ParameterizedQuery(sqlQuery)); }
+	public static void performBrowserQueryAndShow(ParameterizedQuery query) { Utilities.performBrowserQueryAndShow(ApplicationUI.getAlbumItemBrowser(), query); }
 	public static void showImageViewer(String pathToPicture, long albumItemId) { PictureViewCreator.showPicture(albumItemId); }
 	public static void resetFutureJumpAnchor() {Utilities.setFutureJumpAnchor(UIConstants.NO_ANCHOR_DEFINED);}
 	public static void setFutureJumpAnchor(String futureJumpAnchor) { Utilities.setFutureJumpAnchor(futureJumpAnchor); }
 	public static String getFutureJumpAnchor() { return Utilities.getFutureJumpAnchor(); }
 	public static void returnFromImageViewer() { Utilities.returnFromImageViewer(); }
 	public static void addAdditionalAlbumItems() { Utilities.addAdditionalAlbumItems(); }
-	public static void showResultSet(AlbumItemResultSet resultSet) { Utilities.showResultSet(ApplicationUI.getAlbumItemBrowser(), resultSet); }
+	public static void showFirstResults(FirstResults firstResults) { Utilities.showFirstResults(ApplicationUI.getAlbumItemBrowser(), firstResults); }
 	public static void loadHtmlFromInputStream(InputStream fileInputStream) { Utilities.loadHtmlPage(ApplicationUI.getAlbumItemBrowser(), fileInputStream); }
 	public static void showCreateNewAlbumPage(AlbumItem albumItem) { FeedbackCreator.showCreateNewAlbumPage(ApplicationUI.getAlbumItemBrowser(), albumItem); }
 	public static void showCreateAlterAlbumPage(AlbumItem albumItem) { FeedbackCreator.showCreateAlterAlbumPage(ApplicationUI.getAlbumItemBrowser(), albumItem); }
@@ -30,17 +30,11 @@ import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.ItemField;
 import org.sammelbox.model.album.OptionType;
+import org.sammelbox.model.album.PictureRendition;
 import org.sammelbox.model.album.StarRating;
-import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseConstants;
-import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.ApplicationUI;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public final class DetailedItemCreator {
-	private static final Logger LOGGER = LoggerFactory.getLogger(DetailedItemCreator.class);
-	
 	private DetailedItemCreator() {
 	}
 	
@@ -49,20 +43,21 @@ public final class DetailedItemCreator {
 	}
 	
 	static String getImageAndDetailContainer(AlbumItem albumItem, boolean hasButtonsAndLinks) {
+		return getImageAndDetailContainer(albumItem, hasButtonsAndLinks, Utilities.isSelectedAlbumPictureAlbum());
+	}
+	
+	/** Use this method when creating the containers of several items, so that the picture state of the album is only queried once */
+	static String getImageAndDetailContainer(AlbumItem albumItem, boolean hasButtonsAndLinks, boolean isPictureAlbum) {
 		StringBuilder htmlDataColumnContent = new StringBuilder();
 		StringBuilder htmlPictureColumnContent = new StringBuilder();
 		StringBuilder albumItemTableRowHtml = new StringBuilder();
-		addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemTableRowHtml, hasButtonsAndLinks);
+		addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemTableRowHtml, hasButtonsAndLinks, isPictureAlbum);
 
 		return albumItemTableRowHtml.toString();
 	}
-
-	static void addImageAndDetailContainer(AlbumItem albumItem, StringBuilder htmlDataColumnContent, StringBuilder htmlPictureColumnContent, StringBuilder albumItemTableRowHtml) {
-		addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemTableRowHtml, true);
-	}
 	
 	static void addImageAndDetailContainer(AlbumItem albumItem, StringBuilder htmlDataColumnContent, StringBuilder htmlPictureColumnContent, 
-			StringBuilder albumItems, boolean hasButtonsAndLinks) {
+			StringBuilder albumItems, boolean hasButtonsAndLinks, boolean isPictureAlbum) {
 		
 		// the id of the current album item
 		long id = -1;	
@@ -106,16 +101,12 @@ public final class DetailedItemCreator {
 			}
 		}
 				
-		try {
-			List<AlbumItemPicture> pictures = albumItem.getPictures();
-			if (DatabaseOperations.isPictureAlbum(ApplicationUI.getSelectedAlbum()) || !pictures.isEmpty()) {
-				
-				htmlPictureColumnContent.append(			
-					"<div class=\"mainPictureWrapper\">" + getMainPictureHtml(id, pictures, hasButtonsAndLinks) + "</div>" +
-		            "<div>" + getAlternativePicturesHtml(id, pictures, hasButtonsAndLinks) + "</div>");
-			}
-		} catch (DatabaseWrapperOperationException ex) {
-			LOGGER.error("An issue regarding the album item picture occured", ex);
+		List<AlbumItemPicture> pictures = albumItem.getPictures();
+		if (isPictureAlbum || !pictures.isEmpty()) {
+			
+			htmlPictureColumnContent.append(			
+				"<div class=\"mainPictureWrapper\">" + getMainPictureHtml(id, pictures, hasButtonsAndLinks) + "</div>" +
+	            "<div>" + getAlternativePicturesHtml(id, pictures, hasButtonsAndLinks) + "</div>");
 		}
 
 		if (hasButtonsAndLinks) {
@@ -174,6 +165,7 @@ public final class DetailedItemCreator {
 		if (pictures.size() > 1) {
 			for(AlbumItemPicture picture : pictures) {
 				String escapedJavascriptFilePath = Utilities.escapeBackslashesInFilePath(picture.getThumbnailPicturePath());
+				String escapedSmallPicturePath = Utilities.escapeBackslashesInFilePath(picture.getPicturePath(PictureRendition.SMALL));
 				htmlBuilder.append("<div class=\"thumbnailWrapper\">");
 				
 				htmlBuilder.append("<a ");
@@ -183,7 +175,7 @@ public final class DetailedItemCreator {
 				htmlBuilder.append(" onMouseOver=\"change(&quot;imageId" + id + "&quot;, &quot;" + escapedJavascriptFilePath + "&quot;)\">");
 								
 				htmlBuilder.append("<img alt=\"\" onMouseOver=\"this.style.cursor=&quot;pointer&quot;\" "
-				        + "class=\"thumbnailPicture\" src=\"" + escapedJavascriptFilePath + "\">");
+				        + "class=\"thumbnailPicture\" src=\"" + escapedSmallPicturePath + "\">");
 				      
 				if (hasButtonsAndLinks) {
 					htmlBuilder.append("</a>");
@@ -208,7 +200,7 @@ public final class DetailedItemCreator {
 			mainPictureHtml = "<img id=\"imageId" + id + "\" " +
 					          " alt=\"\"" +
 							  " class=\"mainPicture\"" +
-							  " src=\"" + albumItemPictures.get(0).getThumbnailPicturePath() + "\"";
+							  " src=\"" + Utilities.getThumbnailSource(albumItemPictures.get(0)) + "\"";
 			
 			if (hasButtonsAndLinks) {
 				mainPictureHtml += " onMouseOver=\"changeCursorToHand(&quot;imageId" + id + "&quot;)\""
@@ -18,6 +18,8 @@
 
 package org.sammelbox.view.browser;
 
+import java.util.List;
+
 import org.eclipse.swt.browser.Browser;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.i18n.DictKeys;
@@ -42,12 +44,17 @@ public final class DetailedViewCreator {
 		StringBuilder htmlDataColumnContent = new StringBuilder();
 		StringBuilder htmlPictureColumnContent = new StringBuilder();
 
+		// Retrieve the pictures of all shown album items at once
+		List<AlbumItem> albumItems = AlbumItemStore.getAlbumItems(AlbumItemStore.getStopIndex());
+		Utilities.loadPicturesOfAlbumItems(albumItems);
+		boolean isPictureAlbum = Utilities.isSelectedAlbumPictureAlbum();
+		
 		// Add all available album items to a html table
-		for (AlbumItem albumItem : AlbumItemStore.getAlbumItems(AlbumItemStore.getStopIndex())) {
+		for (AlbumItem albumItem : albumItems) {
 			htmlDataColumnContent.delete(0, htmlDataColumnContent.length());
 			htmlPictureColumnContent.delete(0, htmlPictureColumnContent.length());
 
-			DetailedItemCreator.addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemDetailDivContainers);
+			DetailedItemCreator.addImageAndDetailContainer(albumItem, htmlDataColumnContent, htmlPictureColumnContent, albumItemDetailDivContainers, true, isPictureAlbum);
 		}
 
 		// If no album items have been found
@@ -16,7 +16,7 @@ public final class GalleryItemCreator {
 	}
 	
 	private static String getThumbnailForFirstPicture(AlbumItem albumItem) {
-		return ((albumItem.getFirstPicture() != null) ? albumItem.getFirstPicture().getThumbnailPicturePath() : FileSystemLocations.getPlaceholderPNG());
+		return ((albumItem.getFirstPicture() != null) ? Utilities.getThumbnailSource(albumItem.getFirstPicture()) : FileSystemLocations.getPlaceholderPNG());
 	}
 	
 	static void addImageContainer(AlbumItem albumItem, StringBuilder htmlBuilder) {
@@ -28,23 +28,20 @@ import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.AlbumItemStore;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.ItemField;
-import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
-import org.sammelbox.model.database.operations.DatabaseOperations;
-import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.UIConstants;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public final class GalleryViewCreator {
-	private static final Logger LOGGER = LoggerFactory.getLogger(GalleryViewCreator.class);
-	
 	private GalleryViewCreator() {
 	}
 	
 	static void showOverviewAlbum(Browser browser) {
 		StringBuilder galleryItemHtmlBuilder = new StringBuilder();
 		
-		for (AlbumItem albumItem : AlbumItemStore.getAlbumItems(AlbumItemStore.getStopIndex())) {
+		// Retrieve the pictures of all shown album items at once
+		List<AlbumItem> albumItems = AlbumItemStore.getAlbumItems(AlbumItemStore.getStopIndex());
+		Utilities.loadPicturesOfAlbumItems(albumItems);
+		
+		for (AlbumItem albumItem : albumItems) {
 			String picturePath = "";
 			long id = 0;
 
@@ -59,18 +56,11 @@ public final class GalleryViewCreator {
 				}
 			}		
 
-			List<AlbumItemPicture> pictures = null;
-			try {
-				pictures = DatabaseOperations.getAlbumItemPictures(ApplicationUI.getSelectedAlbum(), id);
-			} catch (DatabaseWrapperOperationException ex) {
-				LOGGER.error("An error occured while retrieving the pictures associated with the album item #'" + 
-					id + "' from the album '" + ApplicationUI.getSelectedAlbum() + "'", ex);
-			}
-			
+			List<AlbumItemPicture> pictures = albumItem.getPictures();
 			if (pictures == null || pictures.isEmpty()) {
 				picturePath = FileSystemLocations.getPlaceholderPNG();
 			} else {
-				picturePath = pictures.get(0).getThumbnailPicturePath();
+				picturePath = Utilities.getThumbnailSource(pictures.get(0));
 			}
 			
 			galleryItemHtmlBuilder.append("<div id=\"imageId" + id + "\" " +
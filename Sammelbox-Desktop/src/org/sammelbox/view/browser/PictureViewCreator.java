@@ -23,6 +23,7 @@ import java.util.List;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.PictureRendition;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
@@ -46,7 +47,7 @@ public final class PictureViewCreator {
 			
 			String originalPathToPicture = "";
 			if (pictures.size() >= 1) {
-				originalPathToPicture = pictures.get(0).getOriginalPicturePath();
+				originalPathToPicture = pictures.get(0).getPicturePath(PictureRendition.LARGE);
 			}
 	
 			StringBuilder smallPictures = new StringBuilder();
@@ -54,7 +55,7 @@ public final class PictureViewCreator {
 				int counter = 1;
 	
 				for (AlbumItemPicture picture : pictures) {
-					String escapedPicturePath = Utilities.escapeBackslashesInFilePath(picture.getOriginalPicturePath());
+					String escapedPicturePath = Utilities.escapeBackslashesInFilePath(picture.getPicturePath(PictureRendition.LARGE));
 					smallPictures.append(
 							"<a onMouseover='change(\"bigimg\", \"" + escapedPicturePath + "\");maximizeImageSize(\"bigimg\", 150, 30);'>" + 
 									"  <img border=\"1\" " +
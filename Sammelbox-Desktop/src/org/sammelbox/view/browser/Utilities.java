@@ -18,16 +18,27 @@
 
 package org.sammelbox.view.browser;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.bind.DatatypeConverter;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.browser.Browser;
 import org.eclipse.swt.widgets.Display;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.ThumbnailPack;
+import org.sammelbox.controller.settings.SettingsManager;
 import org.sammelbox.model.album.AlbumItem;
-import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.album.AlbumItemStore.FirstResults;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
@@ -57,21 +68,17 @@ public final class Utilities {
 	 * to the album view, the last generated HTML output is saved  */
 	private static String lastPageAsHtml;
 
-	static void performBrowserQueryAndShow(Browser browser, String sqlQuery) {				
+	static void performBrowserQueryAndShow(Browser browser, ParameterizedQuery query) {				
 		try {
-			AlbumItemStore.reinitializeStore(DatabaseOperations.executeSQLQuery(sqlQuery));
+			AlbumItemStore.reinitializeStore(ApplicationUI.getSelectedAlbum(), query);
 		} catch (DatabaseWrapperOperationException ex) {
-			LOGGER.error("An error occured while reinitializing the album item store using the following SQL query (" + sqlQuery + ")", ex);
+			LOGGER.error("An error occured while reinitializing the album item store using the following SQL query (" + query + ")", ex);
 		}
 		showAlbum(browser);
 	}
 
-	static void showResultSet(Browser browser, AlbumItemResultSet albumItemResultSet) {
-		try {
-			AlbumItemStore.reinitializeStore(albumItemResultSet);
-		} catch (DatabaseWrapperOperationException ex) {
-			LOGGER.error("Could not reinitialize album item store", ex);
-		}
+	static void showFirstResults(Browser browser, FirstResults firstResults) {
+		AlbumItemStore.reinitializeStore(firstResults);
 		showAlbum(browser);
 	}
 
@@ -114,6 +121,42 @@ public final class Utilities {
 		}
 	}
 	
+	/** Loads the pictures of all given album items of the selected album with a single query, 
+	 * so that the album items do not query their pictures one by one while the page is built */
+	static void loadPicturesOfAlbumItems(List<AlbumItem> albumItems) {
+		if (albumItems.isEmpty()) {
+			return;
+		}
+		
+		List<Long> albumItemIds = new ArrayList<Long>(albumItems.size());
+		for (AlbumItem albumItem : albumItems) {
+			albumItemIds.add(albumItem.getItemID());
+		}
+		
+		try {
+			Map<Long, List<AlbumItemPicture>> picturesByAlbumItemId = 
+					DatabaseOperations.getAlbumItemPictures(ApplicationUI.getSelectedAlbum(), albumItemIds);
+			
+			for (AlbumItem albumItem : albumItems) {
+				List<AlbumItemPicture> pictures = picturesByAlbumItemId.get(albumItem.getItemID());
+				albumItem.setPictures(pictures == null ? new ArrayList<AlbumItemPicture>() : pictures);
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("An error occured while retrieving the pictures of the album items from the album '" + 
+					ApplicationUI.getSelectedAlbum() + "'", ex);
+		}
+	}
+	
+	/** Returns true if the selected album may contain pictures. False if it may not or if the state could not be determined */
+	static boolean isSelectedAlbumPictureAlbum() {
+		try {
+			return DatabaseOperations.isPictureAlbum(ApplicationUI.getSelectedAlbum());
+		} catch (DatabaseWrapperOperationException ex) {
+			LOGGER.error("An error occured while checking whether the album '" + ApplicationUI.getSelectedAlbum() + "' contains pictures", ex);
+			return false;
+		}
+	}
+	
 	static void loadHtmlPage(Browser browser, InputStream fileInputStream) {
 		browser.setText(FileSystemAccessWrapper.readInputStreamIntoString(fileInputStream));
 	}
@@ -167,10 +210,13 @@ public final class Utilities {
 				StringBuilder rows = new StringBuilder();
 
 				AlbumItemStore.increaseStopIndex();
-				for (AlbumItem albumItem : (AlbumItemStore.getAlbumItemsInRange(
-						AlbumItemStore.getPreviousStopIndex() + 1, AlbumItemStore.getStopIndex())))
-				{
-					rows.append(DetailedItemCreator.getImageAndDetailContainer(albumItem));
+				List<AlbumItem> albumItems = AlbumItemStore.getAlbumItemsInRange(
+						AlbumItemStore.getPreviousStopIndex() + 1, AlbumItemStore.getStopIndex());
+				loadPicturesOfAlbumItems(albumItems);
+				
+				boolean isPictureAlbum = isSelectedAlbumPictureAlbum();
+				for (AlbumItem albumItem : albumItems) {
+					rows.append(DetailedItemCreator.getImageAndDetailContainer(albumItem, true, isPictureAlbum));
 				}
 
 
@@ -191,9 +237,11 @@ public final class Utilities {
 				StringBuilder divs = new StringBuilder();
 
 				AlbumItemStore.increaseStopIndex();
-				for (AlbumItem albumItem : (AlbumItemStore.getAlbumItemsInRange(
-						AlbumItemStore.getPreviousStopIndex() + 1, AlbumItemStore.getStopIndex())))
-				{					
+				List<AlbumItem> albumItems = AlbumItemStore.getAlbumItemsInRange(
+						AlbumItemStore.getPreviousStopIndex() + 1, AlbumItemStore.getStopIndex());
+				loadPicturesOfAlbumItems(albumItems);
+				
+				for (AlbumItem albumItem : albumItems) {					
 					divs.append(GalleryItemCreator.getImageContainer(albumItem));
 				}
 
@@ -221,4 +269,26 @@ public final class Utilities {
 	public static String escapeBackslashesInFilePath(String filePath) {
 		return filePath.replaceAll("\\\\", "\\\\\\\\");	
 	}
+	
+	/**
+	 * Returns the source of the thumbnail of the given picture for an img tag. If thumbnail packs are enabled, the thumbnail 
+	 * is embedded from the pack of the album as data URI, so that the browser does not open one file per thumbnail.
+	 * @param picture the picture whose thumbnail is shown
+	 * @return either a data URI or the path to the thumbnail file
+	 */
+	static String getThumbnailSource(AlbumItemPicture picture) {
+		if (SettingsManager.getSettings().isThumbnailPackEnabled()) {
+			try {
+				byte[] thumbnail = ThumbnailPack.forAlbum(picture.getAlbumName()).getThumbnail(
+						picture.getThumbnailPictureName(), new File(picture.getThumbnailPicturePath()));
+				
+				String mediaType = "png".equalsIgnoreCase(FileSystemAccessWrapper.getFileExtension(picture.getThumbnailPictureName())) ? "image/png" : "image/jpeg";
+				return "data:" + mediaType + ";base64," + DatatypeConverter.printBase64Binary(thumbnail);
+			} catch (IOException ex) {
+				LOGGER.warn("The thumbnail " + picture.getThumbnailPictureName() + " could not be read from the thumbnail pack", ex);
+			}
+		}
+		
+		return picture.getThumbnailPicturePath();
+	}
 }
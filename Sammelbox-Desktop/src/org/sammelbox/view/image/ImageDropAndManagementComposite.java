@@ -20,6 +20,8 @@ package org.sammelbox.view.image;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -48,16 +50,29 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Widget;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
 import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.PictureRendition;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
 import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.image.ImageProcessingService.PictureProcessingListener;
 import org.sammelbox.view.various.ComponentFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ImageDropAndManagementComposite extends Composite implements DropTargetListener{
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageDropAndManagementComposite.class);
+	/** The length of the longer side of the picture previews */
+	private static final int PREVIEW_SIZE_IN_PIXELS = 100;
 	/** A list of images pointing to copies of the original files, located within the corresponding album folder */
 	private LinkedList<AlbumItemPicture> pictures = new LinkedList<AlbumItemPicture>();
+	/** All pictures which have been processed by this composite, including the ones which have been removed again */
+	private List<AlbumItemPicture> processedPictures = new ArrayList<AlbumItemPicture>();
 	/** An inner composite presenting the pictures */
 	private Composite imageComposite;
 
@@ -109,17 +124,11 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 				String firstFile = openFileDialog.open();
 				if (firstFile != null) {
 					String selectionFolder = new File(firstFile).getParent();
-					String[] filenames = openFileDialog.getFileNames();
-					for (String filename : filenames) {
-						AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(
-								new File(selectionFolder + File.separatorChar + filename), GuiController.getGuiState().getSelectedAlbum());
-						if (picture == null) {
-							showDroppedUnsupportedFileMessageBox(filename);
-						} else {
-							pictures.add(picture);
-						}
+					List<File> pictureFiles = new ArrayList<File>();
+					for (String filename : openFileDialog.getFileNames()) {
+						pictureFiles.add(new File(selectionFolder + File.separatorChar + filename));
 					}
-					refreshImageComposite();
+					processAndAddPictures(pictureFiles);
 				}
 			}
 			
@@ -147,7 +156,29 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 		addDisposeListener(new DisposeListener() {			
 			@Override
 			public void widgetDisposed(DisposeEvent arg0) {
-				disposeAllChildren();				
+				disposeAllChildren();
+				discardUnsavedPictures(processedPictures);
+			}
+		});
+	}
+	
+	/** Discards the pictures which have not been saved. This is queued behind a previously submitted save of the item, 
+	 * hence saved pictures are recognized and kept */
+	private static void discardUnsavedPictures(final List<AlbumItemPicture> processedPictures) {
+		if (processedPictures.isEmpty()) {
+			return;
+		}
+		
+		DatabaseExecutor.submit(new DatabaseTask<Void>() {
+			@Override
+			public Void execute() {
+				try {
+					DatabaseOperations.discardUnsavedPictures(processedPictures);
+				} catch (DatabaseWrapperOperationException ex) {
+					LOGGER.error("The files of unsaved pictures could not be discarded", ex);
+				}
+				
+				return null;
 			}
 		});
 	}
@@ -172,30 +203,20 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 	public void refreshImageComposite() {
 		disposeAllChildren();
 
+		final ScaledImageCache scaledImageCache = ScaledImageCache.getInstance(getDisplay());
+		
 		for (final AlbumItemPicture picture : pictures) {			
-			Image originalImage = new Image(Display.getCurrent(), picture.getOriginalPicturePath());
-			final Image scaledImage;
-			
-			int originalWidth = originalImage.getImageData().width;
-			int originalHeight = originalImage.getImageData().height;
-			
-			if (originalWidth < originalHeight) {
-				scaledImage = new Image(Display.getCurrent(), originalImage.getImageData().scaledTo(
-					(int) Math.round(originalImage.getImageData().width / ((double)(originalImage.getImageData().height / 100.0))), 100));
-			} else {
-				scaledImage = new Image(Display.getCurrent(), originalImage.getImageData().scaledTo(
-					100, (int) Math.round(originalImage.getImageData().height / ((double)(originalImage.getImageData().width / 100.0)))));
-			}
+			// The preview is smaller than the thumbnail, hence there is no need to decode the original
+			final String picturePath = picture.getPicturePath(PictureRendition.THUMBNAIL);
 			
 			Label pictureLabel = new Label(imageComposite, SWT.NONE);
-			pictureLabel.setImage(scaledImage);
+			pictureLabel.setImage(scaledImageCache.acquire(picturePath, PREVIEW_SIZE_IN_PIXELS));
 			pictureLabel.addDisposeListener(new DisposeListener() {				
 				@Override
 				public void widgetDisposed(DisposeEvent arg0) {
-					scaledImage.dispose();	
+					scaledImageCache.release(picturePath, PREVIEW_SIZE_IN_PIXELS);	
 				}
 			});
-			originalImage.dispose();
 
 			Button deleteButton = new Button(imageComposite, SWT.NONE);
 			deleteButton.setText(Translator.get(DictKeys.BUTTON_REMOVE));
@@ -208,10 +229,16 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 			});					
 			
 			InputStream istream = this.getClass().getClassLoader().getResourceAsStream("graphics/arrow-up.png");
-			Image arrowUp = new Image(Display.getCurrent(),istream);
+			final Image arrowUp = new Image(Display.getCurrent(),istream);
 
 			Button upButton = new Button(imageComposite, SWT.NONE);
 			upButton.setImage(arrowUp);
+			upButton.addDisposeListener(new DisposeListener() {
+				@Override
+				public void widgetDisposed(DisposeEvent arg0) {
+					arrowUp.dispose();
+				}
+			});
 			upButton.addSelectionListener(new SelectionAdapter() {
 				@Override
 				public void widgetSelected(SelectionEvent e) {
@@ -229,10 +256,16 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 			});
 			
 			istream = this.getClass().getClassLoader().getResourceAsStream("graphics/arrow-down.png");
-			Image arrowDown = new Image(Display.getCurrent(),istream);
+			final Image arrowDown = new Image(Display.getCurrent(),istream);
 			
 			Button downButton = new Button(imageComposite, SWT.NONE);
 			downButton.setImage(arrowDown);
+			downButton.addDisposeListener(new DisposeListener() {
+				@Override
+				public void widgetDisposed(DisposeEvent arg0) {
+					arrowDown.dispose();
+				}
+			});
 			downButton.addSelectionListener(new SelectionAdapter() {
 				@Override
 				public void widgetSelected(SelectionEvent e) {
@@ -285,16 +318,11 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 		if (event.data instanceof String[]) {
 			String[] filenames = (String[]) event.data;
 			if (filenames.length > 0){
+				List<File> pictureFiles = new ArrayList<File>();
 				for (String filename : filenames) {
-					AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(
-							new File(filename), GuiController.getGuiState().getSelectedAlbum());
-					if (picture == null) {
-						showDroppedUnsupportedFileMessageBox(filename);
-					} else {
-						pictures.add(picture);
-					}
+					pictureFiles.add(new File(filename));
 				}
-				refreshImageComposite();
+				processAndAddPictures(pictureFiles);
 			}
 		}
 	}
@@ -303,6 +331,36 @@ public class ImageDropAndManagementComposite extends Composite implements DropTa
 	public void dropAccept(DropTargetEvent arg0) {	
 	}
 	
+	/** Processes the pictures in the background and adds them as soon as all of them are available */
+	private void processAndAddPictures(List<File> pictureFiles) {
+		ImageProcessingService.processInBackground(pictureFiles, GuiController.getGuiState().getSelectedAlbum(), new PictureProcessingListener() {
+			@Override
+			public void pictureProcessed(File pictureFile, AlbumItemPicture picture) {
+				if (isDisposed()) {
+					if (picture != null) {
+						discardUnsavedPictures(Arrays.asList(picture));
+					}
+					
+					return;
+				}
+				
+				if (picture == null) {
+					showDroppedUnsupportedFileMessageBox(pictureFile.getPath());
+				} else {
+					pictures.add(picture);
+					processedPictures.add(picture);
+				}
+			}
+			
+			@Override
+			public void allPicturesProcessed() {
+				if (!isDisposed()) {
+					refreshImageComposite();
+				}
+			}
+		});
+	}
+	
 	/** This method displays a message box informing the user of trying to drop the unsupported file */
 	public void showDroppedUnsupportedFileMessageBox(String filePathToUnsupportedFile) {
 	    ComponentFactory.getMessageBox(Translator.get(DictKeys.DIALOG_TITLE_INVALID_IMAGE_FILE_FORMAT), 
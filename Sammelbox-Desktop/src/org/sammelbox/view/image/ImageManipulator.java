@@ -18,91 +18,147 @@
 
 package org.sammelbox.view.image;
 
-import java.awt.Image;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.imaging.ImageFormat;
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.ImageWriteException;
 import org.apache.commons.imaging.Imaging;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
-import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.PictureStore;
 import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.PictureRendition;
 import org.sammelbox.view.ApplicationUI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class ImageManipulator {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationUI.class);
-	
-	/** The maximum height of a thumb nail in pixels. Only originals with a higher resolution will be resized */
-	private static final int MAX_HEIGHT_IN_PIXELS = 200;
-	/** The maximum width of a thumb nail in pixels. Only originals with a higher resolution will be resized */
-	private static final int MAX_WIDTH_IN_PIXELS = 200;
+	private static final String JPEG_EXTENSION = "jpg";
+	private static final String PNG_EXTENSION = "png";
 	
 	private ImageManipulator() {
 		// not needed
 	}
 
 	
-	/**This method is used to copy originals, and create thumb nails, within the picture folder. 
-	 * It uses Apache imaging instead of SWT which seems to leak memory.
+	/**This method is used to copy originals into the picture store, and create the renditions (see PictureRendition) 
+	 * within the thumbnail folder. All files are named after the content hash of the original. Hence a picture which 
+	 * has already been stored is neither decoded nor copied again, but its files are shared.
+	 * It uses Java2D and Apache imaging instead of SWT which seems to leak memory. The original is never decoded in full
+	 * resolution if its format supports subsampling (see ImageScaler).
+	 * The returned picture holds a pending reference to its files (see PictureStore), which is released once the picture 
+	 * has been saved. Pictures which are not saved must be discarded via DatabaseOperations.discardUnsavedPictures.
 	 * @param pictureFile the original image
 	 * @param album the album to which the image should be assigned 
-	 * @return a picture pointing to the location of the original file and thumb nail within the album */	
+	 * @return a picture pointing to the location of the original file and its renditions */	
 	public static AlbumItemPicture adaptAndStoreImageForCollectorUsingApacheImaging(File pictureFile, String album) {
+		AlbumItemPicture picture = null;
+		boolean isStored = false;
+		
 		try {
-			BufferedImage thumbnailImage = Imaging.getBufferedImage(pictureFile);
-			
-			int imageWidth = thumbnailImage.getWidth();
-			int imageHeight	= thumbnailImage.getHeight();
+			String originalPictureName = PictureStore.getOriginalPictureName(PictureStore.computeContentHash(pictureFile), 
+					FileSystemAccessWrapper.getFileExtension(pictureFile.getName()));
+			picture = new AlbumItemPicture(PictureStore.getThumbnailPictureName(originalPictureName), 
+					originalPictureName, album, AlbumItemPicture.PICTURE_ID_UNDEFINED);
+			PictureStore.addPendingReference(picture);
 			
-			String identifierForOriginal = UUID.randomUUID().toString();
-			String identifierForThumbnail = UUID.randomUUID().toString();
-			
-			String newFileNameForOriginal = identifierForOriginal + "." + FileSystemAccessWrapper.getFileExtension(pictureFile.getName());
-			String newFileNameForThumbnail = identifierForThumbnail + ".png";
+			// The original is stored last, hence its presence indicates that all renditions have been stored as well
+			if (new File(PictureStore.getOriginalPicturePath(originalPictureName)).exists()) {
+				addStoredRenditions(picture);
+				isStored = true;
+				return picture;
+			}
 			
-			String newFileLocationForOriginal = FileSystemAccessWrapper.getFilePathForAlbum(album) + File.separatorChar + newFileNameForOriginal;
-			String newFileLocationForThumbnail = FileSystemLocations.getThumbnailsDir() + File.separatorChar + newFileNameForThumbnail;
+			// The original is read only once. The smaller renditions are scaled from the larger ones
+			BufferedImage largeImage = ImageScaler.readScaledImage(pictureFile, 
+					PictureRendition.LARGE.getMaxSizeInPixels(), PictureRendition.LARGE.getMaxSizeInPixels());
+			BufferedImage thumbnailImage = scaleToRendition(largeImage, PictureRendition.THUMBNAIL);
+			BufferedImage smallImage = scaleToRendition(thumbnailImage, PictureRendition.SMALL);
 			
+			storeRendition(thumbnailImage, picture.getThumbnailPictureName());
+			picture.setSmallPictureName(storeRendition(smallImage, PictureStore.getSmallPictureName(originalPictureName)));
 			
-			if (imageWidth > MAX_WIDTH_IN_PIXELS || imageHeight > MAX_HEIGHT_IN_PIXELS) {
-				int newWidth = 0, newHeight = 0;
-				double imageRatio = 0.0;
-
-				if (imageWidth >= imageHeight) {
-					imageRatio = ((double) imageWidth / (double) imageHeight);
-					newWidth = MAX_WIDTH_IN_PIXELS;
-					newHeight = (int) (MAX_WIDTH_IN_PIXELS / imageRatio);
-				} else {
-					imageRatio = ((double) imageHeight / (double) imageWidth);
-					newHeight = MAX_HEIGHT_IN_PIXELS;
-					newWidth = (int) (MAX_HEIGHT_IN_PIXELS / imageRatio);
-				}
-				Image resizedImage = thumbnailImage.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-				thumbnailImage = new BufferedImage(newWidth, newHeight, thumbnailImage.getType());
-				thumbnailImage.getGraphics().drawImage(resizedImage, 0, 0 , null);
+			// Smaller originals are shown as they are, instead of a copy of the same size
+			if (Math.max(largeImage.getWidth(), largeImage.getHeight()) >= PictureRendition.LARGE.getMaxSizeInPixels()) {
+				picture.setLargePictureName(storeLargeRendition(largeImage, originalPictureName));
 			}
-
-			final ImageFormat format = ImageFormat.IMAGE_FORMAT_PNG;
-            final Map<String,Object> optionalParams = new HashMap<String,Object>();
-            File thumbnailDestination = new File(newFileLocationForThumbnail); 
-            Imaging.writeImage(thumbnailImage, thumbnailDestination, format, optionalParams);
 			
-			FileSystemAccessWrapper.copyFile(new File(pictureFile.getPath()), new File(newFileLocationForOriginal));
-						
-			return new AlbumItemPicture(newFileNameForThumbnail, newFileNameForOriginal, album, AlbumItemPicture.PICTURE_ID_UNDEFINED);
+			PictureStore.storeOriginalPicture(pictureFile, originalPictureName);
+			isStored = true;
+			
+			return picture;
 			
 		} catch (IOException | ImageReadException | ImageWriteException ex) {
 			LOGGER.error("An error occured while manipulating an image", ex);
+		} finally {
+			if (picture != null && !isStored) {
+				PictureStore.releasePendingReference(picture);
+			}
 		}
 		
 		return null;
 	}
+	
+	/** Adds the renditions which have been stored when the same picture was added before */
+	private static void addStoredRenditions(AlbumItemPicture picture) {
+		String originalPictureName = picture.getOriginalPictureName();
+		picture.setSmallPictureName(PictureStore.getSmallPictureName(originalPictureName));
+		
+		for (String extension : new String[] { JPEG_EXTENSION, PNG_EXTENSION }) {
+			String largePictureName = PictureStore.getLargePictureName(originalPictureName, extension);
+			if (new File(PictureStore.getRenditionPath(largePictureName)).exists()) {
+				picture.setLargePictureName(largePictureName);
+			}
+		}
+	}
+	
+	private static BufferedImage scaleToRendition(BufferedImage image, PictureRendition rendition) {
+		Dimension scaledSize = ImageScaler.getScaledSize(image.getWidth(), image.getHeight(), 
+				rendition.getMaxSizeInPixels(), rendition.getMaxSizeInPixels());
+		
+		return ImageScaler.scaleDown(image, scaledSize.width, scaledSize.height);
+	}
+	
+	/** Stores the rendition as PNG within the thumbnail folder
+	 * @return the file name of the stored rendition */
+	private static String storeRendition(BufferedImage image, String fileName) throws IOException, ImageWriteException {
+		final Map<String,Object> optionalParams = new HashMap<String,Object>();
+		Imaging.writeImage(image, PictureStore.getRenditionFileForWriting(fileName), ImageFormat.IMAGE_FORMAT_PNG, optionalParams);
+		
+		return fileName;
+	}
+	
+	/** Stores the large rendition within the thumbnail folder. Opaque pictures are stored as JPEG, which is considerably
+	 * smaller than PNG for photos at this size
+	 * @return the file name of the stored rendition */
+	private static String storeLargeRendition(BufferedImage image, String originalPictureName) throws IOException, ImageWriteException {
+		if (image.getColorModel().hasAlpha()) {
+			return storeRendition(image, PictureStore.getLargePictureName(originalPictureName, PNG_EXTENSION));
+		}
+		
+		// The JPEG writer does not support all image types (e.g. indexed colors)
+		BufferedImage rgbImage = image;
+		if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+			rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+			Graphics2D graphics = rgbImage.createGraphics();
+			graphics.drawImage(image, 0, 0, null);
+			graphics.dispose();
+		}
+		
+		String fileName = PictureStore.getLargePictureName(originalPictureName, JPEG_EXTENSION);
+		if (!ImageIO.write(rgbImage, JPEG_EXTENSION, PictureStore.getRenditionFileForWriting(fileName))) {
+			throw new IOException("No JPEG writer is available");
+		}
+		
+		return fileName;
+	}
 }
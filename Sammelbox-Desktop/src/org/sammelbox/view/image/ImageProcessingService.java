@@ -0,0 +1,184 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.eclipse.swt.widgets.Display;
+import org.sammelbox.controller.DaemonThreadFactory;
+import org.sammelbox.controller.i18n.DictKeys;
+import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.view.ApplicationUI;
+import org.sammelbox.view.composites.StatusBarComposite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies pictures into their album and creates their thumbnails on a pool of worker threads, one per available core.
+ * Since every decoded original can occupy a large part of the heap, only a limited number of pictures is processed or
+ * waiting to be processed at the same time. Further submissions block until a picture has been finished.
+ */
+public final class ImageProcessingService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageProcessingService.class);
+	private static final int NUMBER_OF_WORKERS = Runtime.getRuntime().availableProcessors();
+	/** The maximum number of pictures which are processed or queued at the same time */
+	private static final int MAX_PENDING_PICTURES = 2 * NUMBER_OF_WORKERS;
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(NUMBER_OF_WORKERS, new DaemonThreadFactory("Image processing"));
+	/** Submits the pictures of background requests, so that the UI thread never blocks on a full queue */
+	private static final ExecutorService DISPATCHER = Executors.newSingleThreadExecutor(new DaemonThreadFactory("Image processing dispatcher"));
+	private static final Semaphore PENDING_PICTURES = new Semaphore(MAX_PENDING_PICTURES);
+
+	/** Is informed on the UI thread about the pictures processed in the background */
+	public interface PictureProcessingListener {
+		/**
+		 * Called for every picture in the order of the submitted files
+		 * @param pictureFile the original picture file
+		 * @param picture the stored picture, or null if the file could not be processed (e.g. an unsupported format)
+		 */
+		void pictureProcessed(File pictureFile, AlbumItemPicture picture);
+
+		/** Called once after all pictures have been processed */
+		void allPicturesProcessed();
+	}
+
+	private ImageProcessingService() {
+		// use static methods
+	}
+
+	/**
+	 * Schedules the picture to be copied into the album and its thumbnail to be created.
+	 * Blocks while the maximum number of pictures is already pending.
+	 * @param pictureFile the original picture
+	 * @param albumName the album to which the picture should be assigned
+	 * @return a future which yields the stored picture, or null if the picture could not be processed
+	 * @throws InterruptedException if the thread is interrupted while waiting for a picture to be finished
+	 */
+	public static Future<AlbumItemPicture> submit(final File pictureFile, final String albumName) throws InterruptedException {
+		PENDING_PICTURES.acquire();
+
+		try {
+			return WORKERS.submit(new Callable<AlbumItemPicture>() {
+				@Override
+				public AlbumItemPicture call() {
+					try {
+						return ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(pictureFile, albumName);
+					} finally {
+						PENDING_PICTURES.release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			PENDING_PICTURES.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the stored picture of a submitted picture, waiting for it if necessary
+	 * @return the stored picture, or null if the picture could not be processed
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public static AlbumItemPicture getProcessedPicture(Future<AlbumItemPicture> processedPicture) throws InterruptedException {
+		try {
+			return processedPicture.get();
+		} catch (ExecutionException ex) {
+			LOGGER.error("An error occured while processing a picture", ex.getCause());
+			return null;
+		}
+	}
+
+	/**
+	 * Processes all pictures in the background without blocking the calling thread. The progress is shown in the status bar
+	 * and the listener is informed about every picture. Must be called on the UI thread.
+	 * @param pictureFiles the original pictures
+	 * @param albumName the album to which the pictures should be assigned
+	 * @param listener the listener which is informed on the UI thread
+	 */
+	public static void processInBackground(List<File> pictureFiles, final String albumName, final PictureProcessingListener listener) {
+		final Display display = Display.getCurrent();
+		final List<File> files = new ArrayList<File>(pictureFiles);
+
+		DISPATCHER.execute(new Runnable() {
+			@Override
+			public void run() {
+				Queue<Future<AlbumItemPicture>> pendingPictures = new ArrayDeque<Future<AlbumItemPicture>>();
+				int numberOfProcessedPictures = 0;
+
+				try {
+					for (File pictureFile : files) {
+						pendingPictures.add(submit(pictureFile, albumName));
+
+						// report finished pictures while the remaining ones are submitted
+						while (!pendingPictures.isEmpty() && pendingPictures.peek().isDone()) {
+							reportPicture(display, listener, files, numberOfProcessedPictures++, getProcessedPicture(pendingPictures.poll()));
+						}
+					}
+
+					while (!pendingPictures.isEmpty()) {
+						reportPicture(display, listener, files, numberOfProcessedPictures++, getProcessedPicture(pendingPictures.poll()));
+					}
+				} catch (InterruptedException ex) {
+					LOGGER.error("The processing of the pictures has been interrupted", ex);
+					Thread.currentThread().interrupt();
+				} finally {
+					asyncExec(display, new Runnable() {
+						@Override
+						public void run() {
+							listener.allPicturesProcessed();
+						}
+					});
+				}
+			}
+		});
+	}
+
+	private static void reportPicture(Display display, final PictureProcessingListener listener, final List<File> files,
+			final int pictureIndex, final AlbumItemPicture picture) {
+
+		asyncExec(display, new Runnable() {
+			@Override
+			public void run() {
+				int numberOfProcessedPictures = pictureIndex + 1;
+				StatusBarComposite.getInstance(ApplicationUI.getShell()).writeStatus(
+						Translator.get(DictKeys.STATUSBAR_PICTURES_PROCESSED, numberOfProcessedPictures, files.size()),
+						numberOfProcessedPictures == files.size());
+
+				listener.pictureProcessed(files.get(pictureIndex), picture);
+			}
+		});
+	}
+
+	private static void asyncExec(Display display, Runnable runnable) {
+		if (!display.isDisposed()) {
+			display.asyncExec(runnable);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates downscaled versions of pictures without decoding the original resolution if possible. The picture is read with
+ * source subsampling, so only every n-th pixel of every n-th row is decoded. The subsampled picture, which is still at least
+ * twice as large as requested, is then halved step by step using bilinear interpolation until it has the requested size.
+ * Formats which cannot be subsampled while reading (e.g. TIFF or ICO) are decoded completely and downscaled the same way.
+ */
+public final class ImageScaler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageScaler.class);
+	/** The subsampled picture is kept at least this many times larger than requested, since subsampling does not interpolate */
+	private static final int MIN_OVERSAMPLING_FACTOR = 2;
+
+	private ImageScaler() {
+		// use static methods
+	}
+
+	/**
+	 * Reads the picture and scales it down to fit into the given bounds while keeping its aspect ratio.
+	 * Pictures which already fit are not enlarged.
+	 * @param pictureFile the picture to be read
+	 * @param maxWidth the maximum width of the scaled picture in pixels
+	 * @param maxHeight the maximum height of the scaled picture in pixels
+	 * @return the scaled picture
+	 * @throws IOException if the file cannot be read
+	 * @throws ImageReadException if the file is not a supported picture
+	 */
+	public static BufferedImage readScaledImage(File pictureFile, int maxWidth, int maxHeight) throws IOException, ImageReadException {
+		BufferedImage image = readSubsampledImage(pictureFile, maxWidth, maxHeight);
+
+		if (image == null) {
+			image = Imaging.getBufferedImage(pictureFile);
+		}
+
+		Dimension scaledSize = getScaledSize(image.getWidth(), image.getHeight(), maxWidth, maxHeight);
+		return scaleDown(image, scaledSize.width, scaledSize.height);
+	}
+
+	/**
+	 * Computes the largest size which fits into the given bounds while keeping the aspect ratio
+	 * @return the computed size, or the original size if it already fits into the bounds
+	 */
+	public static Dimension getScaledSize(int width, int height, int maxWidth, int maxHeight) {
+		if (width <= maxWidth && height <= maxHeight) {
+			return new Dimension(width, height);
+		}
+
+		if (width >= height) {
+			return new Dimension(maxWidth, Math.max(1, (int) (maxWidth / ((double) width / (double) height))));
+		}
+
+		return new Dimension(Math.max(1, (int) (maxHeight / ((double) height / (double) width))), maxHeight);
+	}
+
+	/**
+	 * Scales the image down to the given size by halving it repeatedly. Every step uses bilinear interpolation, thus every
+	 * pixel of the result is based on all pixels of the original which it covers.
+	 * @return a new image of type TYPE_INT_RGB (or TYPE_INT_ARGB if the image is translucent), or the image itself if it
+	 * already has the given size
+	 */
+	public static BufferedImage scaleDown(BufferedImage image, int width, int height) {
+		if (image.getWidth() == width && image.getHeight() == height) {
+			return image;
+		}
+
+		int imageType = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		BufferedImage scaledImage = image;
+		int currentWidth = image.getWidth();
+		int currentHeight = image.getHeight();
+
+		do {
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+
+			BufferedImage nextImage = new BufferedImage(currentWidth, currentHeight, imageType);
+			Graphics2D graphics = nextImage.createGraphics();
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(scaledImage, 0, 0, currentWidth, currentHeight, null);
+			graphics.dispose();
+
+			scaledImage = nextImage;
+		} while (currentWidth != width || currentHeight != height);
+
+		return scaledImage;
+	}
+
+	/**
+	 * Reads the picture with the largest subsampling which keeps it at least MIN_OVERSAMPLING_FACTOR times larger than requested
+	 * @return the subsampled picture, or null if no reader of the format is available
+	 */
+	private static BufferedImage readSubsampledImage(File pictureFile, int maxWidth, int maxHeight) throws IOException {
+		try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(pictureFile)) {
+			if (imageInputStream == null) {
+				throw new IOException("The file " + pictureFile + " cannot be read");
+			}
+
+			Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+			if (!imageReaders.hasNext()) {
+				return null;
+			}
+
+			ImageReader imageReader = imageReaders.next();
+			try {
+				imageReader.setInput(imageInputStream, true, true);
+
+				int width = imageReader.getWidth(0);
+				int height = imageReader.getHeight(0);
+				Dimension scaledSize = getScaledSize(width, height, maxWidth, maxHeight);
+				int subsampling = Math.max(1, Math.min(width / (MIN_OVERSAMPLING_FACTOR * scaledSize.width),
+						height / (MIN_OVERSAMPLING_FACTOR * scaledSize.height)));
+
+				ImageReadParam imageReadParam = imageReader.getDefaultReadParam();
+				imageReadParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+				return imageReader.read(0, imageReadParam);
+			} catch (IIOException ex) {
+				// e.g. CMYK JPEGs are not supported by the default reader
+				LOGGER.info("The picture " + pictureFile + " cannot be subsampled while reading", ex);
+				return null;
+			} finally {
+				imageReader.dispose();
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.view.image;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.widgets.Display;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps recently shown pictures scaled to a certain size, so that they are not decoded and scaled again whenever the
+ * showing composite is rebuilt. There is one cache per display, whose images are disposed together with the display.
+ * Images are acquired by the widgets showing them and must be released when these are disposed. Only images which are
+ * not used by any widget are disposed, in least recently used order, as soon as the cache exceeds its maximum size.
+ * All methods must be called on the UI thread of the display.
+ */
+final class ScaledImageCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScaledImageCache.class);
+	/** The maximum size of the pixels of all cached images. Images which are in use can exceed this size */
+	private static final long MAX_SIZE_IN_BYTES = 16 * 1024 * 1024;
+	private static final Map<Display, ScaledImageCache> CACHES_BY_DISPLAY = new HashMap<Display, ScaledImageCache>();
+	
+	private final Display display;
+	/** The cached images by picture path and size, in access order */
+	private final LinkedHashMap<String, CachedImage> cachedImages = new LinkedHashMap<String, CachedImage>(16, 0.75f, true);
+	private long sizeInBytes = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	
+	private static final class CachedImage {
+		private final Image image;
+		private final long sizeInBytes;
+		private int numberOfUsers = 0;
+		
+		private CachedImage(Image image) {
+			this.image = image;
+			this.sizeInBytes = 4L * image.getBounds().width * image.getBounds().height;
+		}
+	}
+	
+	private ScaledImageCache(Display display) {
+		this.display = display;
+	}
+	
+	/** Returns the cache of the given display, which is created on first use */
+	static synchronized ScaledImageCache getInstance(final Display display) {
+		ScaledImageCache cache = CACHES_BY_DISPLAY.get(display);
+		
+		if (cache == null) {
+			final ScaledImageCache newCache = new ScaledImageCache(display);
+			display.disposeExec(new Runnable() {
+				@Override
+				public void run() {
+					newCache.clear();
+					
+					synchronized (ScaledImageCache.class) {
+						CACHES_BY_DISPLAY.remove(display);
+					}
+				}
+			});
+			
+			CACHES_BY_DISPLAY.put(display, newCache);
+			cache = newCache;
+		}
+		
+		return cache;
+	}
+	
+	/**
+	 * Returns the picture scaled so that its longer side has the given size. The image must not be disposed, 
+	 * but released using {@link #release(String, int)} as soon as it is no longer shown.
+	 * @param picturePath the path of the picture
+	 * @param sizeInPixels the length of the longer side of the scaled picture
+	 * @return the scaled image
+	 */
+	Image acquire(String picturePath, int sizeInPixels) {
+		String key = getKey(picturePath, sizeInPixels);
+		CachedImage cachedImage = cachedImages.get(key);
+		
+		if (cachedImage == null) {
+			missCount++;
+			cachedImage = new CachedImage(loadScaledImage(picturePath, sizeInPixels));
+			cachedImage.numberOfUsers++;
+			cachedImages.put(key, cachedImage);
+			sizeInBytes += cachedImage.sizeInBytes;
+			evictUnusedImages();
+		} else {
+			hitCount++;
+			cachedImage.numberOfUsers++;
+		}
+		
+		return cachedImage.image;
+	}
+	
+	/**
+	 * Releases an image which has been acquired before. It stays cached until it is evicted by newly loaded images,
+	 * hence the images of a rebuilt composite can be released before they are acquired again.
+	 * @param picturePath the path of the picture
+	 * @param sizeInPixels the size which has been used to acquire the image
+	 */
+	void release(String picturePath, int sizeInPixels) {
+		CachedImage cachedImage = cachedImages.get(getKey(picturePath, sizeInPixels));
+		
+		if (cachedImage != null && cachedImage.numberOfUsers > 0) {
+			cachedImage.numberOfUsers--;
+		}
+	}
+	
+	long getHitCount() {
+		return hitCount;
+	}
+	
+	long getMissCount() {
+		return missCount;
+	}
+	
+	/** Disposes unused images, starting with the least recently used one, until the cache fits into its maximum size */
+	private void evictUnusedImages() {
+		Iterator<CachedImage> iterator = cachedImages.values().iterator();
+		
+		while (sizeInBytes > MAX_SIZE_IN_BYTES && iterator.hasNext()) {
+			CachedImage cachedImage = iterator.next();
+			
+			if (cachedImage.numberOfUsers == 0) {
+				cachedImage.image.dispose();
+				sizeInBytes -= cachedImage.sizeInBytes;
+				iterator.remove();
+			}
+		}
+	}
+	
+	private void clear() {
+		LOGGER.debug("Disposing the scaled image cache after {} hits and {} misses", hitCount, missCount);
+		
+		for (CachedImage cachedImage : cachedImages.values()) {
+			cachedImage.image.dispose();
+		}
+		
+		cachedImages.clear();
+		sizeInBytes = 0;
+	}
+	
+	private Image loadScaledImage(String picturePath, int sizeInPixels) {
+		// the image data is scaled before it is turned into an image, so that the picture occupies no native resources
+		ImageData imageData = new ImageData(picturePath);
+		
+		if (imageData.width < imageData.height) {
+			return new Image(display, imageData.scaledTo((int) Math.round(imageData.width / (imageData.height / (double) sizeInPixels)), sizeInPixels));
+		}
+		
+		return new Image(display, imageData.scaledTo(sizeInPixels, (int) Math.round(imageData.height / (imageData.width / (double) sizeInPixels))));
+	}
+	
+	private static String getKey(String picturePath, int sizeInPixels) {
+		return sizeInPixels + File.pathSeparator + picturePath;
+	}
+}
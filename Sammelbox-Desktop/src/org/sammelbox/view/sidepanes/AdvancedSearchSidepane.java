@@ -308,12 +308,12 @@ public final class AdvancedSearchSidepane {
 					if (fieldToSortCombo.getSelectionIndex() != -1) {
 						AlbumViewManager.addAlbumView(
 								viewName, ApplicationUI.getSelectedAlbum(), 
-								QueryBuilder.buildQuery(queryComponents, connectByAnd, album, 
+								QueryBuilder.buildParameterizedQuery(queryComponents, connectByAnd, album, 
 										fieldToSortCombo.getItem(fieldToSortCombo.getSelectionIndex()), sortAscendingButton.getSelection()));
 					} else {
 						AlbumViewManager.addAlbumView(
 								viewName, ApplicationUI.getSelectedAlbum(), 
-								QueryBuilder.buildQuery(queryComponents, connectByAnd, album));						
+								QueryBuilder.buildParameterizedQuery(queryComponents, connectByAnd, album));						
 					}
 				} else {
 					ComponentFactory.getMessageBox(
@@ -39,6 +39,9 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.MetaItemFieldFilter;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.i18n.DictKeys;
@@ -158,22 +161,8 @@ public final class AlterAlbumSidepane {
 					itemAtNewPosition.setText(2, FieldType.translateFieldType((FieldType) metaItemField.getType()));
 					itemAtNewPosition.setChecked(metaItemField.isQuickSearchable());					
 
-					try {
-						String albumName = albumNameText.getData().toString();
-						if (newPosition == 0) {
-							DatabaseOperations.reorderAlbumItemField(albumName, metaItemField, null);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_UP, metaItemField.getName()));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						} else {
-							TableItem moveAfterTableItem = albumFieldNamesAndTypesTable.getItem(newPosition-1);
-							MetaItemField moveAfterField = new MetaItemField(moveAfterTableItem.getText(1), FieldType.valueOfTranslatedFieldType(moveAfterTableItem.getText(2)), moveAfterTableItem.getChecked());
-							DatabaseOperations.reorderAlbumItemField(albumName, metaItemField, moveAfterField);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_UP, metaItemField.getName()));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						}
-					} catch (DatabaseWrapperOperationException ex) {
-						LOGGER.error("Couldn't reorder album items", ex);
-					}
+					AlterAlbumSidepane.moveAlbumItemFieldInBackground(albumNameText.getData().toString(), metaItemField, newPosition, 
+							Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_UP, metaItemField.getName()), yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 				}
 			}
 		});
@@ -181,7 +170,7 @@ public final class AlterAlbumSidepane {
 		renameAlbumButton.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				String newAlbumName = albumNameText.getText();
+				final String newAlbumName = albumNameText.getText();
 
 				boolean isAlbumNameValid;
 				try {
@@ -203,37 +192,49 @@ public final class AlterAlbumSidepane {
 					return;
 				}
 
-				String oldAlbumName = albumNameText.getData().toString();
-				try {
-					DatabaseOperations.renameAlbum(oldAlbumName, newAlbumName);
-					albumNameText.setData(newAlbumName);
-					ApplicationUI.refreshAlbumList();
-					ApplicationUI.setSelectedAlbum(newAlbumName);
-
-					BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUM_RENAMED, oldAlbumName, newAlbumName));
+				final String oldAlbumName = albumNameText.getData().toString();
+				DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+					@Override
+					public Void execute() throws DatabaseWrapperOperationException {
+						DatabaseOperations.renameAlbum(oldAlbumName, newAlbumName);
+						return null;
+					}
+				}, new DatabaseTaskCallback<Void>() {
+					@Override
+					public void taskSucceeded(Void result) {
+						albumNameText.setData(newAlbumName);
+						ApplicationUI.refreshAlbumList();
+						ApplicationUI.setSelectedAlbum(newAlbumName);
+						
+						BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUM_RENAMED, oldAlbumName, newAlbumName));
+						
+						AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+					}
 					
-					AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-				} catch (DatabaseWrapperOperationException ex) {
-					LOGGER.error("Could rename the album with name '" + oldAlbumName + "' to '" + newAlbumName, ex);
-					albumNameText.setText(albumNameText.getData().toString());
-				}
+					@Override
+					public void taskFailed(DatabaseWrapperOperationException ex) {
+						LOGGER.error("Could rename the album with name '" + oldAlbumName + "' to '" + newAlbumName, ex);
+						albumNameText.setText(albumNameText.getData().toString());
+					}
+				});
 			}
 		});
 		
 		yesButtonForIncludingImages.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				String albumName = albumNameText.getData().toString();
+				final String albumName = albumNameText.getData().toString();
 
 				try {
 					if (!DatabaseOperations.isPictureAlbum(albumName)) {
-						try {
-							DatabaseOperations.setAlbumPictureFunctionality(albumName, true);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUM_PICTURES_ENABLED));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						} catch (DatabaseWrapperOperationException failedDatabaseWrapperOperationException){
-							LOGGER.error("Pictures could not be enabled for the album");
-						}
+						AlterAlbumSidepane.alterAlbumInBackground(new DatabaseTask<Void>() {
+							@Override
+							public Void execute() throws DatabaseWrapperOperationException {
+								DatabaseOperations.setAlbumPictureFunctionality(albumName, true);
+								return null;
+							}
+						}, Translator.get(DictKeys.BROWSER_ALBUM_PICTURES_ENABLED), "Pictures could not be enabled for the album", 
+						yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 					}
 				} catch(DatabaseWrapperOperationException ex) {
 					LOGGER.error("A database error occured", ex);
@@ -244,16 +245,21 @@ public final class AlterAlbumSidepane {
 		noButtonForIncludingImages.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				String currentAlbumName = albumNameText.getData().toString();
+				final String currentAlbumName = albumNameText.getData().toString();
 				try {
 					if (DatabaseOperations.isPictureAlbum(currentAlbumName)) {
 						boolean removalConfirmed = ComponentFactory.showYesNoDialog(alterAlbumComposite, 
 								Translator.get(DictKeys.DIALOG_TITLE_DELETE_ALBUM_PICTURES), 
 								Translator.get(DictKeys.DIALOG_CONTENT_DELETE_ALBUM_PICTURES));
 						if (removalConfirmed) {
-							DatabaseOperations.setAlbumPictureFunctionality(currentAlbumName, false);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUM_PICTURES_DISABLED));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+							AlterAlbumSidepane.alterAlbumInBackground(new DatabaseTask<Void>() {
+								@Override
+								public Void execute() throws DatabaseWrapperOperationException {
+									DatabaseOperations.setAlbumPictureFunctionality(currentAlbumName, false);
+									return null;
+								}
+							}, Translator.get(DictKeys.BROWSER_ALBUM_PICTURES_DISABLED), "Pictures could not be disabled for the album", 
+							yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 						} else {
 							yesButtonForIncludingImages.setSelection(true);
 							noButtonForIncludingImages.setSelection(false);
@@ -280,22 +286,8 @@ public final class AlterAlbumSidepane {
 					itemAtNewPosition.setText(2, FieldType.translateFieldType((FieldType) metaItemField.getType()));
 					itemAtNewPosition.setChecked(metaItemField.isQuickSearchable());
 
-					try {
-						String albumName = albumNameText.getData().toString();
-						if (newPosition == 0) {
-							DatabaseOperations.reorderAlbumItemField(albumName, metaItemField, null);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_DOWN, metaItemField.getName()));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						} else {
-							TableItem moveAfterTableItem = albumFieldNamesAndTypesTable.getItem(newPosition - 1);
-							MetaItemField moveAfterField = new MetaItemField(moveAfterTableItem.getText(1), FieldType.valueOfTranslatedFieldType(moveAfterTableItem.getText(2)), moveAfterTableItem.getChecked());
-							DatabaseOperations.reorderAlbumItemField(albumName, metaItemField, moveAfterField);
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_DOWN, metaItemField.getName()));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						}
-					} catch (DatabaseWrapperOperationException ex) {
-						LOGGER.error("A database error occured", ex);
-					}
+					AlterAlbumSidepane.moveAlbumItemFieldInBackground(albumNameText.getData().toString(), metaItemField, newPosition, 
+							Translator.get(DictKeys.BROWSER_ALBUMFIELD_MOVED_DOWN, metaItemField.getName()), yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 				}
 			}
 		});
@@ -305,27 +297,38 @@ public final class AlterAlbumSidepane {
 		rename.setText(Translator.get(DictKeys.DROPDOWN_RENAME));
 		rename.addSelectionListener(new SelectionAdapter() {
 			public void widgetSelected(SelectionEvent e) {
-				TableItem item = albumFieldNamesAndTypesTable.getItem(albumFieldNamesAndTypesTable.getSelectionIndex());
+				final TableItem item = albumFieldNamesAndTypesTable.getItem(albumFieldNamesAndTypesTable.getSelectionIndex());
 
 				TextInputDialog textInputDialog = new TextInputDialog(parentComposite.getShell());
-				String newFieldName = textInputDialog.open(
+				final String newFieldName = textInputDialog.open(
 						Translator.get(DictKeys.DIALOG_TITLE_RENAME_FIELD),
 						Translator.get(DictKeys.DIALOG_CONTENT_RENAME_FIELD), item.getText(1), 
 						Translator.get(DictKeys.DIALOG_BUTTON_RENAME_FIELD));
 
 				if (newFieldName != null) {	    			
-					MetaItemField oldMetaItemField = new MetaItemField(item.getText(1), FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked());
-					MetaItemField newMetaItemField = new MetaItemField(newFieldName, FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked());
-
-					String albumName = albumNameText.getData().toString();
-					try {
-					    DatabaseOperations.renameAlbumItemField( albumName, oldMetaItemField, newMetaItemField);
-					    item.setText(1, newFieldName);
-						BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_RENAMED, oldMetaItemField.getName(), newMetaItemField.getName()));
-						AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-					} catch (DatabaseWrapperOperationException ex) {
-						LOGGER.error("An error occured while renaming the album field", ex);
-					}
+					final MetaItemField oldMetaItemField = new MetaItemField(item.getText(1), FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked());
+					final MetaItemField newMetaItemField = new MetaItemField(newFieldName, FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked());
+
+					final String albumName = albumNameText.getData().toString();
+					DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+						@Override
+						public Void execute() throws DatabaseWrapperOperationException {
+							DatabaseOperations.renameAlbumItemField(albumName, oldMetaItemField, newMetaItemField);
+							return null;
+						}
+					}, new DatabaseTaskCallback<Void>() {
+						@Override
+						public void taskSucceeded(Void result) {
+							item.setText(1, newFieldName);
+							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_RENAMED, oldMetaItemField.getName(), newMetaItemField.getName()));
+							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+						}
+						
+						@Override
+						public void taskFailed(DatabaseWrapperOperationException ex) {
+							LOGGER.error("An error occured while renaming the album field", ex);
+						}
+					});
 				}
 			}
 		});
@@ -342,17 +345,20 @@ public final class AlterAlbumSidepane {
 							Translator.get(DictKeys.DIALOG_CONTENT_DELETE_ALBUM_ITEM));
 					if (removalConfirmed) {
 						TableItem item = albumFieldNamesAndTypesTable.getItem(albumFieldNamesAndTypesTable.getSelectionIndex());
+						final MetaItemField metaItemField = new MetaItemField(item.getText(1), FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked());
 
-						String albumName = albumNameText.getData().toString();
-						try {
-							DatabaseOperations.removeAlbumItemField(albumName, new MetaItemField(item.getText(1), FieldType.valueOfTranslatedFieldType(item.getText(2)), item.getChecked()));
-							BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_REMOVED, item.getText(1)));
-							AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-						} catch (DatabaseWrapperOperationException ex) {
-							LOGGER.error("An error occured while trying to delete an album item from the " + albumName + " album", ex);
-						}
-
-						item.dispose();				
+						final String albumName = albumNameText.getData().toString();
+						item.dispose();
+						
+						AlterAlbumSidepane.alterAlbumInBackground(new DatabaseTask<Void>() {
+							@Override
+							public Void execute() throws DatabaseWrapperOperationException {
+								DatabaseOperations.removeAlbumItemField(albumName, metaItemField);
+								return null;
+							}
+						}, Translator.get(DictKeys.BROWSER_ALBUMFIELD_REMOVED, metaItemField.getName()), 
+						"An error occured while trying to delete an album item from the " + albumName + " album", 
+						yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 					}					
 				}
 			}
@@ -402,20 +408,21 @@ public final class AlterAlbumSidepane {
 				} 
 
 				if (event.detail == SWT.CHECK) {
-					MetaItemField metaItemField = new MetaItemField(
+					final MetaItemField metaItemField = new MetaItemField(
 							albumFieldNamesAndTypesTable.getItem(index).getText(1),
 							FieldType.valueOfTranslatedFieldType(albumFieldNamesAndTypesTable.getItem(index).getText(2)),
 							albumFieldNamesAndTypesTable.getItem(index).getChecked());
 
-					String albumName = albumNameText.getData().toString();
-					try {
-						DatabaseOperations.updateQuickSearchable(albumName, metaItemField);
-						BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_NOW_QUICKSEARCHABLE, metaItemField.getName()));
-						AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-					} catch (DatabaseWrapperOperationException ex) {
-						LOGGER.error("A database error occured while trying to make the '" + metaItemField + "' " +
-								"in the '" + albumName + "' album quicksearchable", ex);
-					}
+					final String albumName = albumNameText.getData().toString();
+					AlterAlbumSidepane.alterAlbumInBackground(new DatabaseTask<Void>() {
+						@Override
+						public Void execute() throws DatabaseWrapperOperationException {
+							DatabaseOperations.updateQuickSearchable(albumName, metaItemField);
+							return null;
+						}
+					}, Translator.get(DictKeys.BROWSER_ALBUMFIELD_NOW_QUICKSEARCHABLE, metaItemField.getName()), 
+					"A database error occured while trying to make the '" + metaItemField + "' in the '" + albumName + "' album quicksearchable", 
+					yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
 				}
 			}
 		});
@@ -435,8 +442,8 @@ public final class AlterAlbumSidepane {
 				}
 
 
-				MetaItemField metaItemField = new MetaItemField(fieldNameText.getText(), FieldType.valueOfTranslatedFieldType(fieldTypeCombo.getText()), false);
-				String albumName = albumNameText.getData().toString();
+				final MetaItemField metaItemField = new MetaItemField(fieldNameText.getText(), FieldType.valueOfTranslatedFieldType(fieldTypeCombo.getText()), false);
+				final String albumName = albumNameText.getData().toString();
 
 				try {
 					if (!DatabaseOperations.isItemFieldNameAvailable(albumName, metaItemField.getName())) {
@@ -446,16 +453,33 @@ public final class AlterAlbumSidepane {
 						fieldNameText.selectAll();
 						fieldNameText.setFocus();
 					} else {
-						DatabaseOperations.appendNewAlbumField(albumName, metaItemField);
-						TableItem item = new TableItem(albumFieldNamesAndTypesTable, SWT.NONE);
-						item.setText(1, fieldNameText.getText());
-						item.setText(2, fieldTypeCombo.getText());
-	
-						BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_ADDED, fieldNameText.getText(), fieldTypeCombo.getText()));
+						final String fieldType = fieldTypeCombo.getText();
 						
-						AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
-	
-						fieldNameText.setText("");
+						DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+							@Override
+							public Void execute() throws DatabaseWrapperOperationException {
+								DatabaseOperations.appendNewAlbumField(albumName, metaItemField);
+								return null;
+							}
+						}, new DatabaseTaskCallback<Void>() {
+							@Override
+							public void taskSucceeded(Void result) {
+								TableItem item = new TableItem(albumFieldNamesAndTypesTable, SWT.NONE);
+								item.setText(1, metaItemField.getName());
+								item.setText(2, fieldType);
+			
+								BrowserFacade.addModificationToAlterationList(Translator.get(DictKeys.BROWSER_ALBUMFIELD_ADDED, metaItemField.getName(), fieldType));
+								
+								AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+			
+								fieldNameText.setText("");
+							}
+							
+							@Override
+							public void taskFailed(DatabaseWrapperOperationException ex) {
+								LOGGER.error("A database error occured while appending the field '" + metaItemField.getName() + "' to the album '" + albumName + "'", ex);
+							}
+						});
 					}
 				} catch (DatabaseWrapperOperationException ex) {
 					LOGGER.error("A database error occured while checking whether '" + metaItemField.getName() + "' is avialable as album name", ex);
@@ -469,6 +493,46 @@ public final class AlterAlbumSidepane {
 		return alterAlbumComposite;
 	}
 	
+	/** Alters the album on the database thread. Once the album has been altered, the modification is added to the 
+	 * alteration list and the page is updated. Otherwise the error message is logged */
+	private static void alterAlbumInBackground(DatabaseTask<Void> alteration, final String modification, final String errorMessage, 
+			final Button yesButtonForIncludingImages, final Table albumFieldNamesAndTypesTable) {
+		
+		DatabaseExecutor.executeInBackground(alteration, new DatabaseTaskCallback<Void>() {
+			@Override
+			public void taskSucceeded(Void result) {
+				BrowserFacade.addModificationToAlterationList(modification);
+				AlterAlbumSidepane.updateAlterAlbumPage(yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+			}
+			
+			@Override
+			public void taskFailed(DatabaseWrapperOperationException ex) {
+				LOGGER.error(errorMessage, ex);
+			}
+		});
+	}
+	
+	/** Moves the field, which is already shown at its new position in the table, behind the field preceding it in the table */
+	private static void moveAlbumItemFieldInBackground(final String albumName, final MetaItemField metaItemField, int newPosition, 
+			String modification, Button yesButtonForIncludingImages, Table albumFieldNamesAndTypesTable) {
+		
+		final MetaItemField moveAfterField;
+		if (newPosition == 0) {
+			moveAfterField = null;
+		} else {
+			TableItem moveAfterTableItem = albumFieldNamesAndTypesTable.getItem(newPosition - 1);
+			moveAfterField = new MetaItemField(moveAfterTableItem.getText(1), FieldType.valueOfTranslatedFieldType(moveAfterTableItem.getText(2)), moveAfterTableItem.getChecked());
+		}
+		
+		AlterAlbumSidepane.alterAlbumInBackground(new DatabaseTask<Void>() {
+			@Override
+			public Void execute() throws DatabaseWrapperOperationException {
+				DatabaseOperations.reorderAlbumItemField(albumName, metaItemField, moveAfterField);
+				return null;
+			}
+		}, modification, "Couldn't reorder album items", yesButtonForIncludingImages, albumFieldNamesAndTypesTable);
+	}
+	
 	private static void updateAlterAlbumPage(Button yesButtonForIncludingImages, Table albumFieldNamesAndTypesTable) {
 		boolean containsImages = false;
 		if (yesButtonForIncludingImages.getSelection()) {
@@ -45,6 +45,9 @@ import org.eclipse.swt.widgets.DateTime;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Text;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
@@ -287,25 +290,36 @@ public final class BasicAlbumItemSidepane {
 					}
 				}
 			
-				try {
-					if (isUpdateAlbumItemComposite) {
-						albumItem.addField("id", FieldType.ID, albumItemId);
+				final AlbumItem albumItemToSave = albumItem;
+				DatabaseExecutor.executeInBackground(new DatabaseTask<Long>() {
+					@Override
+					public Long execute() throws DatabaseWrapperOperationException {
+						if (isUpdateAlbumItemComposite) {
+							albumItemToSave.addField("id", FieldType.ID, albumItemId);
+							
+							DatabaseOperations.updateAlbumItem(albumItemToSave);
+							return albumItemId;
+						}
 						
-						DatabaseOperations.updateAlbumItem(albumItem);
-						BrowserFacade.generateAlbumItemUpdatedPage(albumItemId);
-					} else {						
 						// Create album item
-						BrowserFacade.generateAlbumItemAddedPage(DatabaseOperations.addAlbumItem(albumItem, true));
+						return DatabaseOperations.addAlbumItem(albumItemToSave, true);
 					}
-					
-					GuiController.getGuiState().setUnsavedAlbumItem(false);
-					
-					// Update GUI
-					ApplicationUI.changeRightCompositeTo(PanelType.EMPTY, EmptySidepane.build(ApplicationUI.getThreePanelComposite()));
-					WelcomePageManager.updateLastModifiedWithCurrentDate(ApplicationUI.getSelectedAlbum());
-				} catch (DatabaseWrapperOperationException ex) {
-					LOGGER.error("A database related error occured", ex);
-				}
+				}, new DatabaseTaskCallback<Long>() {
+					@Override
+					public void taskSucceeded(Long savedAlbumItemId) {
+						if (isUpdateAlbumItemComposite) {
+							BrowserFacade.generateAlbumItemUpdatedPage(savedAlbumItemId);
+						} else {
+							BrowserFacade.generateAlbumItemAddedPage(savedAlbumItemId);
+						}
+						
+						GuiController.getGuiState().setUnsavedAlbumItem(false);
+						
+						// Update GUI
+						ApplicationUI.changeRightCompositeTo(PanelType.EMPTY, EmptySidepane.build(ApplicationUI.getThreePanelComposite()));
+						WelcomePageManager.updateLastModifiedWithCurrentDate(ApplicationUI.getSelectedAlbum());
+					}
+				});
 			}
 		};
 	}
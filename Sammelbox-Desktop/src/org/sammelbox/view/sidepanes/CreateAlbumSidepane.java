@@ -38,6 +38,9 @@ import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
@@ -292,7 +295,7 @@ public final class CreateAlbumSidepane {
 
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				String albumName = albumNameText.getText();
+				final String albumName = albumNameText.getText();
 
 				try {
 					if (!DatabaseOperations.isAlbumNameAvailable(albumName)) {
@@ -315,7 +318,7 @@ public final class CreateAlbumSidepane {
 					return;
 				}				
 
-				ArrayList<MetaItemField> metaItemFields = new ArrayList<MetaItemField>();
+				final ArrayList<MetaItemField> metaItemFields = new ArrayList<MetaItemField>();
 
 				for ( int i=0 ; i < albumFieldNamesAndTypesTable.getItemCount() ; i++ ) {					
 					metaItemFields.add(
@@ -325,28 +328,34 @@ public final class CreateAlbumSidepane {
 									albumFieldNamesAndTypesTable.getItem(i).getChecked()));
 				}
 
-				boolean willContainImages = false;
-				if (yesButtonForIncludingImages.getSelection()) {
-					willContainImages = true;
-				}
-
-				try {
-					DatabaseOperations.createNewAlbum(albumName, metaItemFields, willContainImages);
-				} catch (DatabaseWrapperOperationException failedDatabaseWrapperOperationException) {
-					ComponentFactory.getMessageBox(Translator.get(DictKeys.DIALOG_TITLE_ALBUM_CREATE_ERROR),
-							Translator.get(DictKeys.DIALOG_CONTENT_ALBUM_CREATE_ERROR, 
-							albumName), 
-							SWT.ICON_ERROR).open();
-					return;
-				}
+				final boolean willContainImages = yesButtonForIncludingImages.getSelection();
 
-				// Correctly select and display the selected album.
-				ApplicationUI.refreshAlbumList();
-				ApplicationUI.setSelectedAlbum(albumName);
-				
-				BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(albumName));
-
-				ApplicationUI.changeRightCompositeTo(PanelType.EMPTY, EmptySidepane.build(parentComposite));
+				DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+					@Override
+					public Void execute() throws DatabaseWrapperOperationException {
+						DatabaseOperations.createNewAlbum(albumName, metaItemFields, willContainImages);
+						return null;
+					}
+				}, new DatabaseTaskCallback<Void>() {
+					@Override
+					public void taskSucceeded(Void result) {
+						// Correctly select and display the selected album.
+						ApplicationUI.refreshAlbumList();
+						ApplicationUI.setSelectedAlbum(albumName);
+						
+						BrowserFacade.performBrowserQueryAndShow(QueryBuilder.createSelectStarQuery(albumName));
+
+						ApplicationUI.changeRightCompositeTo(PanelType.EMPTY, EmptySidepane.build(parentComposite));
+					}
+					
+					@Override
+					public void taskFailed(DatabaseWrapperOperationException ex) {
+						ComponentFactory.getMessageBox(Translator.get(DictKeys.DIALOG_TITLE_ALBUM_CREATE_ERROR),
+								Translator.get(DictKeys.DIALOG_CONTENT_ALBUM_CREATE_ERROR, 
+								albumName), 
+								SWT.ICON_ERROR).open();
+					}
+				});
 			}
 		});
 
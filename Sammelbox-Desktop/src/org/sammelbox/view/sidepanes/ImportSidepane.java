@@ -13,12 +13,17 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.events.EventObservable;
 import org.sammelbox.controller.events.SammelboxEvent;
 import org.sammelbox.controller.filesystem.importing.CSVImporter;
 import org.sammelbox.controller.filesystem.importing.ImportException;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
 import org.sammelbox.view.ApplicationUI;
 import org.sammelbox.view.various.ComponentFactory;
 
@@ -198,27 +203,50 @@ public final class ImportSidepane {
 		importButton.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				try {
-					if (yesButton.getSelection()) {
-						CSVImporter.importCSV(albumNameText.getText(), csvFileNameLabel.getData("CSV_FILE") != null ? ((File) csvFileNameLabel.getData("CSV_FILE")).getAbsolutePath() : "", 
-							separatorCharText.getText(), imageColumnText.getText(), imageSeparatorText.getText(), false);
-					} else {
-						CSVImporter.importCSV(albumNameText.getText(), csvFileNameLabel.getData("CSV_FILE") != null ? ((File) csvFileNameLabel.getData("CSV_FILE")).getAbsolutePath() : "", 
-								separatorCharText.getText(), false);
+				final String albumName = albumNameText.getText();
+				final String csvFilePath = csvFileNameLabel.getData("CSV_FILE") != null ? ((File) csvFileNameLabel.getData("CSV_FILE")).getAbsolutePath() : "";
+				final String separationCharacter = separatorCharText.getText();
+				final boolean importPictures = yesButton.getSelection();
+				final String pictureColumnName = imageColumnText.getText();
+				final String pictureSeparationCharacter = imageSeparatorText.getText();
+				
+				// The items are added on the database thread, which is the only thread writing to the database
+				DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+					@Override
+					public Void execute() throws DatabaseWrapperOperationException {
+						try {
+							if (importPictures) {
+								CSVImporter.importCSV(albumName, csvFilePath, separationCharacter, pictureColumnName, pictureSeparationCharacter, false);
+							} else {
+								CSVImporter.importCSV(albumName, csvFilePath, separationCharacter, false);
+							}
+						} catch (ImportException ex) {
+							// previous chunks of the import might have been committed already
+							throw new DatabaseWrapperOperationException(DBErrorState.ERROR_DIRTY_STATE, ex);
+						}
+						
+						return null;
+					}
+				}, new DatabaseTaskCallback<Void>() {
+					@Override
+					public void taskSucceeded(Void result) {
+						ComponentFactory.getMessageBox(
+								Translator.toBeTranslated("Import successful"), 
+								Translator.toBeTranslated("The CSV file has been successfully imported"), 
+								SWT.ICON_INFORMATION).open();
+						
+						EventObservable.addEventToQueue(SammelboxEvent.ALBUM_LIST_UPDATED);
 					}
 					
-					ComponentFactory.getMessageBox(
-							Translator.toBeTranslated("Import successful"), 
-							Translator.toBeTranslated("The CSV file has been successfully imported"), 
-							SWT.ICON_INFORMATION).open();
-					
-					EventObservable.addEventToQueue(SammelboxEvent.ALBUM_LIST_UPDATED);
-				} catch (ImportException ex) {
-					ComponentFactory.getMessageBox(
-							Translator.toBeTranslated("Import unsuccessful"), 
-							Translator.toBeTranslated("The import of the CSV failed due to the following reason: " + ex.getMessage()), 
-							SWT.ERROR).open();
-				}
+					@Override
+					public void taskFailed(DatabaseWrapperOperationException ex) {
+						String reason = ex.getCause() instanceof ImportException ? ex.getCause().getMessage() : ex.getMessage();
+						ComponentFactory.getMessageBox(
+								Translator.toBeTranslated("Import unsuccessful"), 
+								Translator.toBeTranslated("The import of the CSV failed due to the following reason: " + reason), 
+								SWT.ERROR).open();
+					}
+				});
 			}
 		});
 		
@@ -34,6 +34,9 @@ import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.MenuItem;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.swt.widgets.Text;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTaskCallback;
 import org.sammelbox.controller.GuiController;
 import org.sammelbox.controller.events.EventObservable;
 import org.sammelbox.controller.events.SammelboxEvent;
@@ -214,15 +217,28 @@ public final class QuickControlSidepane {
 							SWT.ICON_WARNING | SWT.YES | SWT.NO);
 					
 					if (messageBox.open() == SWT.YES) {
-						try {							
-							DatabaseOperations.removeAlbumAndAlbumPictures(ApplicationUI.getSelectedAlbum());
-							AlbumViewManager.removeAlbumViewsFromAlbum(ApplicationUI.getSelectedAlbum());
-							BrowserFacade.showAlbumDeletedPage(ApplicationUI.getSelectedAlbum());
-							GuiController.getGuiState().setSelectedAlbum(GuiState.NO_ALBUM_SELECTED);
-							ApplicationUI.refreshAlbumList();
-						} catch (DatabaseWrapperOperationException ex) {
-							LOGGER.error("A database error occured while removing the following album: '" + ApplicationUI.getSelectedAlbum() + "'", ex);
-						}
+						final String albumName = ApplicationUI.getSelectedAlbum();
+						
+						DatabaseExecutor.executeInBackground(new DatabaseTask<Void>() {
+							@Override
+							public Void execute() throws DatabaseWrapperOperationException {
+								DatabaseOperations.removeAlbumAndAlbumPictures(albumName);
+								return null;
+							}
+						}, new DatabaseTaskCallback<Void>() {
+							@Override
+							public void taskSucceeded(Void result) {
+								AlbumViewManager.removeAlbumViewsFromAlbum(albumName);
+								BrowserFacade.showAlbumDeletedPage(albumName);
+								GuiController.getGuiState().setSelectedAlbum(GuiState.NO_ALBUM_SELECTED);
+								ApplicationUI.refreshAlbumList();
+							}
+							
+							@Override
+							public void taskFailed(DatabaseWrapperOperationException ex) {
+								LOGGER.error("A database error occured while removing the following album: '" + albumName + "'", ex);
+							}
+						});
 					}
 				}
 			}
@@ -269,7 +285,7 @@ public final class QuickControlSidepane {
 				GuiController.getGuiState().setSelectedView(viewListItem);
 				EventObservable.addEventToQueue(SammelboxEvent.ALBUM_VIEW_SELECTED);
 				
-				BrowserFacade.performBrowserQueryAndShow(AlbumViewManager.getSqlQueryByViewName(
+				BrowserFacade.performBrowserQueryAndShow(AlbumViewManager.getQueryByViewName(
 						GuiController.getGuiState().getSelectedAlbum(), GuiController.getGuiState().getSelectedView()));
 
 				WelcomePageManager.increaseClickCountForAlbumOrView(viewList.getItem(viewList.getSelectionIndex()));
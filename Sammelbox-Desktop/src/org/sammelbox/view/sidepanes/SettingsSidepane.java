@@ -31,9 +31,11 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
 import org.sammelbox.controller.i18n.DictKeys;
 import org.sammelbox.controller.i18n.Language;
 import org.sammelbox.controller.i18n.Translator;
+import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.settings.SettingsManager;
 import org.sammelbox.model.settings.ApplicationSettings;
 import org.sammelbox.view.various.ComponentFactory;
@@ -106,6 +108,28 @@ public final class SettingsSidepane {
 			dateFormatSelectionCombo.setText(EUROPEAN_DOT);
 		}
 		
+		Label thumbnailPackSelection = new Label(innerComposite, SWT.NONE);
+		thumbnailPackSelection.setText(Translator.toBeTranslated("Thumbnail Pack"));
+		
+		final Button thumbnailPackButton = new Button(innerComposite, SWT.CHECK);
+		thumbnailPackButton.setToolTipText(Translator.toBeTranslated("Keeps the thumbnails of each album within a single file. Speeds up large galleries"));
+		thumbnailPackButton.setSelection(SettingsManager.getSettings().isThumbnailPackEnabled());
+		
+		Label writeAheadLogSelection = new Label(innerComposite, SWT.NONE);
+		writeAheadLogSelection.setText(Translator.toBeTranslated("Concurrent Reading"));
+		
+		final Button writeAheadLogButton = new Button(innerComposite, SWT.CHECK);
+		writeAheadLogButton.setToolTipText(Translator.toBeTranslated("Keeps the database in write-ahead log mode, so that searches and galleries do not wait for edits"));
+		writeAheadLogButton.setSelection(SettingsManager.getSettings().isWriteAheadLogEnabled());
+		
+		Label readConnectionPoolSizeSelection = new Label(innerComposite, SWT.NONE);
+		readConnectionPoolSizeSelection.setText(Translator.toBeTranslated("Concurrent Readers"));
+		
+		final Spinner readConnectionPoolSizeSpinner = new Spinner(innerComposite, SWT.BORDER);
+		readConnectionPoolSizeSpinner.setMinimum(1);
+		readConnectionPoolSizeSpinner.setMaximum(ConnectionManager.MAX_READ_CONNECTION_POOL_SIZE);
+		readConnectionPoolSizeSpinner.setSelection(SettingsManager.getSettings().getReadConnectionPoolSize());
+		
 		Label seperator = new Label(settingsComposite, SWT.SEPARATOR | SWT.HORIZONTAL);
 		GridData gridDataForSeperator = new GridData(GridData.FILL_BOTH);
 		gridDataForSeperator.heightHint = 15;
@@ -122,6 +146,9 @@ public final class SettingsSidepane {
 				appSettings.setUserDefinedLanguage(Language.valueOf(languageCombo.getItem(languageCombo.getSelectionIndex())));
 				appSettings.setDetailedViewIsDefault(viewSelectionCombo.getSelectionIndex() == 0);
 				appSettings.setDateFormat(DATE_EXAMPLES_TO_FORMATS.get(dateFormatSelectionCombo.getItem(dateFormatSelectionCombo.getSelectionIndex())));
+				appSettings.setThumbnailPackIsEnabled(thumbnailPackButton.getSelection());
+				appSettings.setWriteAheadLogIsEnabled(writeAheadLogButton.getSelection());
+				appSettings.setReadConnectionPoolSize(readConnectionPoolSizeSpinner.getSelection());
 				SettingsManager.setApplicationSettings(appSettings);
 				
 				Translator.setLanguageManually(Language.valueOf(languageCombo.getItem(languageCombo.getSelectionIndex())));
@@ -30,7 +30,12 @@ import org.sammelbox.album.CreateAlbumTests;
 import org.sammelbox.album.RemoveAlbumTests;
 import org.sammelbox.albumitems.AddAlbumItemTests;
 import org.sammelbox.albumitems.AlbumItemPictureTests;
+import org.sammelbox.albumitems.DatabaseExecutorTests;
+import org.sammelbox.albumitems.ImageProcessingServiceTests;
+import org.sammelbox.albumitems.ImageScalerTests;
+import org.sammelbox.albumitems.PictureStoreTests;
 import org.sammelbox.albumitems.RemoveAlbumItemTests;
+import org.sammelbox.albumitems.ThumbnailPackTests;
 import org.sammelbox.albumitems.UpdateAlbumItemTests;
 import org.sammelbox.albumviews.GeneralAlbumViewTests;
 import org.sammelbox.albumviews.ModifyAlbumViewTests;
@@ -39,10 +44,14 @@ import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.exporting.ExportTests;
+import org.sammelbox.exporting.FileTransferTests;
 import org.sammelbox.importing.CSVImportTests;
 import org.sammelbox.searching.AdvancedSearchTests;
 import org.sammelbox.searching.QuickSearchTests;
+import org.sammelbox.searching.QueryResultCacheTests;
+import org.sammelbox.searching.ReadConnectionPoolTests;
 import org.sammelbox.sidepanes.SidepaneCreationTests;
+import org.sammelbox.utilities.CollectionGeneratorTests;
 
 @RunWith(Suite.class)
 
@@ -57,6 +66,11 @@ import org.sammelbox.sidepanes.SidepaneCreationTests;
 	RemoveAlbumItemTests.class,
 	UpdateAlbumItemTests.class,
 	AlbumItemPictureTests.class,
+	ImageProcessingServiceTests.class,
+	ImageScalerTests.class,
+	PictureStoreTests.class,
+	ThumbnailPackTests.class,
+	DatabaseExecutorTests.class,
 	
 	GeneralAlbumViewTests.class,
 	ModifyAlbumViewTests.class,
@@ -64,11 +78,16 @@ import org.sammelbox.sidepanes.SidepaneCreationTests;
 	
 	AdvancedSearchTests.class,
 	QuickSearchTests.class,
+	ReadConnectionPoolTests.class,
+	QueryResultCacheTests.class,
 	
 	ExportTests.class,
+	FileTransferTests.class,
 	CSVImportTests.class,
 	
-	SidepaneCreationTests.class
+	SidepaneCreationTests.class,
+	
+	CollectionGeneratorTests.class
 })
 
 public class TestExecuter {
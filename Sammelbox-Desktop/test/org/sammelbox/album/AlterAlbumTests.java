@@ -22,6 +22,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -227,6 +229,41 @@ public class AlterAlbumTests {
 		}
 	}
 
+	@Test
+	public void testFailedQuickSearchRebuildRollsBackRename() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+
+			List<MetaItemField> metaDataItems = DatabaseOperations.getAlbumItemFieldNamesAndTypes("DVDs");
+			long originalAlbumItemCount = DatabaseOperations.getNumberOfItemsInAlbum("DVDs");
+			
+			// A view in place of the quicksearch table cannot be dropped by the rebuild of the quicksearch table
+			String quickSearchTableName = DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateQuickSearchTableName("DVDs"));
+			try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+				for (String operation : new String[] {"INSERT", "UPDATE", "DELETE"}) {
+					statement.execute("DROP TRIGGER IF EXISTS " + DatabaseStringUtilities.encloseNameWithQuotes(
+							DatabaseStringUtilities.generateQuickSearchTriggerName("DVDs", operation)));
+				}
+				statement.execute("DROP TABLE IF EXISTS " + quickSearchTableName);
+				statement.execute("CREATE VIEW " + quickSearchTableName + " AS SELECT 1");
+			}
+			
+			MetaItemField dvdTitleField = metaDataItems.get(0);
+			try {
+				DatabaseOperations.renameAlbumItemField("DVDs", dvdTitleField, new MetaItemField("DVD Title", FieldType.TEXT, true));
+				fail("The rename should fail since the quicksearch table could not be rebuilt");
+			} catch (DatabaseWrapperOperationException e) {
+				// expected
+			}
+			
+			metaDataItems = DatabaseOperations.getAlbumItemFieldNamesAndTypes("DVDs");
+			assertTrue("The rename should have been rolled back", metaDataItems.get(0).getName().equals(dvdTitleField.getName()));
+			assertTrue("The album item count incorrectly changed", originalAlbumItemCount == DatabaseOperations.getNumberOfItemsInAlbum("DVDs"));
+		} catch (DatabaseWrapperOperationException | SQLException e) {
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void testRenameAlbum() {
 		try {
@@ -465,6 +502,27 @@ public class AlterAlbumTests {
 		}
 	}
 	
+	@Test
+	public void testAlterationsKeepSingleAlbumEntry() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			final int numberOfAlbums = DatabaseOperations.getListOfAllAlbums().size();
+			
+			Map<Integer, MetaItemField> metaItemFields = DatabaseOperations.getAlbumItemMetaMap("Music CDs");
+			DatabaseOperations.renameAlbumItemField("Music CDs", metaItemFields.get(3), new MetaItemField("Band", metaItemFields.get(3).getType()));
+			DatabaseOperations.reorderAlbumItemField("Music CDs", DatabaseOperations.getAlbumItemMetaMap("Music CDs").get(4), null);
+			DatabaseOperations.removeAlbumItemField("Music CDs", DatabaseOperations.getAlbumItemMetaMap("Music CDs").get(2));
+			
+			assertTrue("Altering the fields of an album should not register the album a second time", 
+					numberOfAlbums == DatabaseOperations.getListOfAllAlbums().size());
+			assertTrue("The renamed field should be part of the album", 
+					!DatabaseOperations.isItemFieldNameAvailable("Music CDs", "Band"));
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testSetQuicksearableOnAlbumWithSpace() {
 		try {
@@ -18,13 +18,28 @@
 
 package org.sammelbox.album;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.Date;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -32,10 +47,14 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.BackupManifest;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
 import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.HomeDirectorySwitch;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.ItemField;
@@ -44,6 +63,7 @@ import org.sammelbox.model.album.OptionType;
 import org.sammelbox.model.database.DatabaseStringUtilities;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.view.image.ImageManipulator;
 
 public class BackupRestoreTests {
 	@BeforeClass
@@ -272,6 +292,242 @@ public class BackupRestoreTests {
 		}
 	}
 
+	@Test
+	public void testBackupStoresPicturesAndDeflatesOtherFiles() {
+		createBookAlbum();
+		fillBookAlbum();
+		
+		String backupPath = FileSystemLocations.TEMP_DIR + File.separatorChar + "testBackupStoresPicturesAndDeflatesOtherFiles.cbk";
+		try {
+			DatabaseIntegrityManager.backupToFile(backupPath);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("testBackupStoresPicturesAndDeflatesOtherFiles raised an exception");
+		}
+		
+		try (ZipFile backup = new ZipFile(backupPath)) {
+			ZipEntry placeholder = backup.getEntry("app-data/placeholder.png");
+			assertTrue("Pictures should be stored as they are", placeholder != null && placeholder.getMethod() == ZipEntry.STORED);
+			assertArrayEquals("The stored picture should be equal to the original", 
+					Files.readAllBytes(Paths.get(FileSystemLocations.getPlaceholderPNG())), readEntry(backup, placeholder));
+			
+			ZipEntry database = backup.getEntry(FileSystemLocations.DATABASE_TO_RESTORE_NAME);
+			assertTrue("The database should be deflated", database != null && database.getMethod() == ZipEntry.DEFLATED 
+					&& database.getCompressedSize() < database.getSize() && readEntry(backup, database).length == database.getSize());
+			
+			assertTrue("The open database should not be part of the backup", backup.getEntry(FileSystemLocations.DATABASE_NAME) == null);
+		} catch (IOException e) {
+			fail("The backup could not be read");
+		} finally {
+			new File(backupPath).delete();
+		}
+	}
+	
+	@Test
+	public void testIncrementalBackupContainsOnlyNewPictures() {
+		File backupDirectory = new File(FileSystemLocations.TEMP_DIR, "testIncrementalBackup");
+		FileSystemAccessWrapper.deleteDirectoryRecursively(backupDirectory);
+		
+		try {
+			createBookAlbum();
+			AlbumItemPicture firstPicture = addBookWithPicture(TestExecuter.PATH_TO_TEST_PICTURE_1);
+			String firstIncrement = DatabaseIntegrityManager.backupIncrementallyToDirectory(backupDirectory.getPath());
+			
+			AlbumItemPicture secondPicture = addBookWithPicture(TestExecuter.PATH_TO_TEST_PICTURE_2);
+			String secondIncrement = DatabaseIntegrityManager.backupIncrementallyToDirectory(backupDirectory.getPath());
+			
+			try (ZipFile increment = new ZipFile(secondIncrement)) {
+				assertTrue("The increment should contain the thumbnail of the new picture", 
+						increment.getEntry(getPathWithinHome(secondPicture.getThumbnailPicturePath())) != null);
+				assertTrue("The increment should not contain the picture of the previous increment", 
+						increment.getEntry(getPathWithinHome(firstPicture.getOriginalPicturePath())) == null
+						&& increment.getEntry(getPathWithinHome(firstPicture.getThumbnailPicturePath())) == null);
+				assertTrue("The increment should contain the complete database", 
+						increment.getEntry(FileSystemLocations.DATABASE_TO_RESTORE_NAME) != null);
+			}
+			
+			DatabaseIntegrityManager.restoreFromFile(firstIncrement);
+			assertTrue("The first increment should contain one book", DatabaseOperations.getNumberOfItemsInAlbum("Books") == 1);
+			assertTrue("The picture of the first increment should be restored", new File(firstPicture.getOriginalPicturePath()).exists());
+			assertTrue("The picture of the second increment should not be restored", !new File(secondPicture.getOriginalPicturePath()).exists());
+			
+			DatabaseIntegrityManager.restoreFromFile(secondIncrement);
+			assertTrue("The second increment should contain two books", DatabaseOperations.getNumberOfItemsInAlbum("Books") == 2);
+			assertTrue("The picture of the first increment should be restored from the first increment", 
+					new File(firstPicture.getOriginalPicturePath()).exists() && new File(firstPicture.getThumbnailPicturePath()).exists());
+			assertTrue("The picture of the second increment should be restored", new File(secondPicture.getOriginalPicturePath()).exists());
+		} catch (DatabaseWrapperOperationException | IOException e) {
+			fail("testIncrementalBackupContainsOnlyNewPictures raised an exception");
+		} finally {
+			FileSystemAccessWrapper.deleteDirectoryRecursively(backupDirectory);
+		}
+	}
+	
+	@Test
+	public void testAutoSavesAreCompressedAndRotated() throws InterruptedException {
+		createBookAlbum();
+		
+		try {
+			for (int i=0; i<7; i++) {
+				Thread.sleep(2);
+				DatabaseIntegrityManager.updateLastDatabaseChangeTimeStamp();
+				DatabaseIntegrityManager.backupAutoSave();
+			}
+			
+			List<File> autoSaves = DatabaseIntegrityManager.getAllAutoSaves();
+			assertTrue("Only the five most recent autosaves should be kept", autoSaves.size() == 5);
+			
+			DatabaseIntegrityManager.backupAutoSave();
+			assertTrue("No autosave should be created when the database has not been changed", 
+					DatabaseIntegrityManager.getAllAutoSaves().equals(autoSaves));
+			
+			byte[] header = new byte[16];
+			try (DataInputStream inputStream = new DataInputStream(new GZIPInputStream(new FileInputStream(autoSaves.get(0))))) {
+				inputStream.readFully(header);
+			}
+			assertTrue("The autosave should be a compressed copy of the database", new String(header, "ISO-8859-1").startsWith("SQLite format 3"));
+		} catch (DatabaseWrapperOperationException | IOException e) {
+			fail("testAutoSavesAreCompressedAndRotated raised an exception");
+		}
+	}
+	
+	@Test
+	public void testFailedRestoreKeepsTheCurrentAlbums() throws IOException {
+		createBookAlbum();
+		fillBookAlbum();
+		
+		// a backup whose database is corrupt
+		File corruptBackup = new File(FileSystemLocations.TEMP_DIR, "testFailedRestoreKeepsTheCurrentAlbums.cbk");
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(corruptBackup))) {
+			zipOutputStream.putNextEntry(new ZipEntry(FileSystemLocations.DATABASE_TO_RESTORE_NAME));
+			zipOutputStream.write(new byte[4096]);
+			zipOutputStream.closeEntry();
+		}
+		
+		try {
+			DatabaseIntegrityManager.restoreFromFile(corruptBackup.getPath());
+			fail("The corrupt backup should not be restored");
+		} catch (DatabaseWrapperOperationException e) {
+			// expected
+		} finally {
+			corruptBackup.delete();
+		}
+		
+		try {
+			DatabaseIntegrityManager.restoreFromFile(new File(FileSystemLocations.TEMP_DIR, "missingBackup.cbk").getPath());
+			fail("The missing backup should not be restored");
+		} catch (DatabaseWrapperOperationException e) {
+			// expected
+		}
+		
+		try {
+			assertTrue("The albums should be kept", DatabaseOperations.getNumberOfItemsInAlbum("Books") == 3);
+			assertTrue("The pictures should be kept", new File(FileSystemLocations.getPlaceholderPNG()).exists());
+			assertTrue("The staging directory should be removed", 
+					!new File(FileSystemLocations.getActiveHomeDir() + ".restore").exists());
+		} catch (DatabaseWrapperOperationException e) {
+			fail("The database should still be accessible");
+		}
+	}
+	
+	@Test
+	public void testManifestPathsOutsideOfTheStagingDirectoryAreRejected() throws IOException {
+		File backupDirectory = Files.createTempDirectory("testManifestPaths").toFile();
+		File stagingDirectory = new File(backupDirectory, "staging");
+		File manifestFile = new File(backupDirectory, BackupManifest.MANIFEST_ENTRY_NAME);
+		
+		try {
+			// the files of the increment itself have been extracted already
+			assertTrue("The staging directory should be created", stagingDirectory.mkdir());
+			try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(new File(backupDirectory, "previous.cbk")))) {
+				zipOutputStream.putNextEntry(new ZipEntry("evil.txt"));
+				zipOutputStream.write("evil".getBytes("UTF-8"));
+				zipOutputStream.closeEntry();
+			}
+			Files.write(manifestFile.toPath(), Arrays.asList("# Sammelbox backup manifest 1", "0\t4\t0\tprevious.cbk\tevil.txt\t../evil.txt"), 
+					StandardCharsets.UTF_8);
+			
+			try {
+				BackupManifest.readFromFile(manifestFile).extractFilesOfPreviousIncrements(backupDirectory, "current.cbk", stagingDirectory);
+				fail("A path outside of the staging directory should be rejected");
+			} catch (IOException ex) {
+				// expected
+			}
+			assertTrue("No file should be written outside of the staging directory", !new File(backupDirectory, "evil.txt").exists());
+		} finally {
+			FileSystemAccessWrapper.deleteDirectoryRecursively(backupDirectory);
+		}
+	}
+	
+	@Test
+	public void testHomeDirectorySwitchKeepsTheLockFileAndCanBeReverted() throws IOException {
+		File parentDirectory = Files.createTempDirectory("testHomeDirectorySwitch").toFile();
+		File homeDirectory = new File(parentDirectory, "home");
+		File stagingDirectory = new File(parentDirectory, "staging");
+		File lockFile = new File(homeDirectory, "app-data" + File.separator + ".lock");
+		
+		try {
+			Files.createDirectories(new File(homeDirectory, "thumbnails").toPath());
+			Files.createDirectories(lockFile.getParentFile().toPath());
+			Files.write(lockFile.toPath(), new byte[] { 1 });
+			Files.write(new File(homeDirectory, "app-data" + File.separator + "settings.xml").toPath(), new byte[] { 2 });
+			Files.write(new File(homeDirectory, "thumbnails" + File.separator + "old.png").toPath(), new byte[] { 3 });
+			Files.createDirectories(new File(stagingDirectory, "app-data").toPath());
+			Files.createDirectories(new File(stagingDirectory, "thumbnails").toPath());
+			Files.write(new File(stagingDirectory, "app-data" + File.separator + "settings.xml").toPath(), new byte[] { 4 });
+			Files.write(new File(stagingDirectory, "thumbnails" + File.separator + "new.png").toPath(), new byte[] { 5 });
+			
+			HomeDirectorySwitch homeDirectorySwitch = new HomeDirectorySwitch(
+					stagingDirectory, homeDirectory, new File(parentDirectory, "previous"), lockFile);
+			homeDirectorySwitch.apply();
+			
+			assertTrue("The lock file should be kept in place", lockFile.exists());
+			assertArrayEquals("The staged file should replace the current one", new byte[] { 4 }, 
+					Files.readAllBytes(new File(homeDirectory, "app-data" + File.separator + "settings.xml").toPath()));
+			assertTrue("The staged folder should replace the current one", new File(homeDirectory, "thumbnails" + File.separator + "new.png").exists() 
+					&& !new File(homeDirectory, "thumbnails" + File.separator + "old.png").exists());
+			
+			homeDirectorySwitch.revert();
+			
+			assertTrue("The lock file should be kept in place", lockFile.exists());
+			assertArrayEquals("The current file should be moved back", new byte[] { 2 }, 
+					Files.readAllBytes(new File(homeDirectory, "app-data" + File.separator + "settings.xml").toPath()));
+			assertTrue("The current folder should be moved back", new File(homeDirectory, "thumbnails" + File.separator + "old.png").exists() 
+					&& new File(stagingDirectory, "thumbnails" + File.separator + "new.png").exists());
+		} finally {
+			FileSystemAccessWrapper.deleteDirectoryRecursively(parentDirectory);
+		}
+	}
+	
+	private static AlbumItemPicture addBookWithPicture(String picturePath) throws DatabaseWrapperOperationException {
+		AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(new File(picturePath), "Books");
+		
+		AlbumItem item = new AlbumItem("Books");
+		List<ItemField> fields = new ArrayList<ItemField>();
+		fields.add(new ItemField("Book Title", FieldType.TEXT, picturePath));
+		item.setFields(fields);
+		item.setPictures(new ArrayList<AlbumItemPicture>(Arrays.asList(picture)));
+		DatabaseOperations.addAlbumItem(item, true);
+		
+		return picture;
+	}
+	
+	private static String getPathWithinHome(String path) {
+		return new File(FileSystemLocations.getActiveHomeDir()).toURI().relativize(new File(path).toURI()).getPath();
+	}
+	
+	private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+		try (InputStream inputStream = zipFile.getInputStream(entry)) {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = inputStream.read(buffer)) != -1) {
+				content.write(buffer, 0, length);
+			}
+			
+			return content.toByteArray();
+		}
+	}
+
 	@Test
 	public void testRestoreOfSingleAlbum() {
 		testBackupOfSingleAlbum();
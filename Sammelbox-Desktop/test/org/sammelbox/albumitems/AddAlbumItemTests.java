@@ -41,6 +41,7 @@ import org.sammelbox.model.album.ItemField;
 import org.sammelbox.model.album.MetaItemField;
 import org.sammelbox.model.album.OptionType;
 import org.sammelbox.model.album.StarRating;
+import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 
@@ -207,6 +208,44 @@ public class AddAlbumItemTests {
 		}
 	}
 
+	@Test
+	public void testBulkAlbumItemAddition() {
+		final String albumName = "Books";
+		final int numberOfItems = 25;
+		
+		List<AlbumItem> items = new ArrayList<AlbumItem>();
+		for (int i=0; i<numberOfItems; i++) {
+			List<ItemField> fields = new ArrayList<ItemField>();
+			fields.add( new ItemField("Book Title", FieldType.TEXT, "book's title " + i));
+			fields.add( new ItemField("Author", FieldType.TEXT, "the author"));
+			// every third item lacks the price to mix items with different fields within a chunk
+			if (i % 3 != 0) {
+				fields.add( new ItemField("Price", FieldType.DECIMAL, (double) i));
+			}
+			fields.add( new ItemField("In Stock", FieldType.OPTION, OptionType.NO));
+			
+			items.add(new AlbumItem(albumName, fields));
+		}
+		
+		try {
+			DatabaseOperations.addAlbumItems(albumName, items, 10);
+			
+			Assert.assertEquals("All items should have been added", numberOfItems, DatabaseOperations.getNumberOfItemsInAlbum(albumName));
+			
+			List<UUID> contentVersions = new ArrayList<UUID>();
+			for (AlbumItem actualAlbumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery(albumName))) {
+				Assert.assertNotNull("Every added item should have a content version", actualAlbumItem.getContentVersion());
+				Assert.assertFalse("Every added item should have its own content version", contentVersions.contains(actualAlbumItem.getContentVersion()));
+				contentVersions.add(actualAlbumItem.getContentVersion());
+			}
+			
+			AlbumItem firstAlbumItem = DatabaseOperations.getAlbumItem(albumName, 1);
+			Assert.assertEquals("The values of the first item should be stored", "book's title 0", firstAlbumItem.getField("Book Title").getValue());
+		} catch( DatabaseWrapperOperationException e) {
+			fail("Album Items could not be inserted into album");
+		}
+	}
+
 	private void createBooksAlbum() {
 		final String albumName = "Books";
 		MetaItemField titleField = new MetaItemField("Book Title", FieldType.TEXT, true);
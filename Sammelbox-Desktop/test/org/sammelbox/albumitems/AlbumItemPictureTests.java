@@ -1,9 +1,12 @@
 package org.sammelbox.albumitems;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.After;
@@ -14,8 +17,10 @@ import org.junit.Test;
 import org.sammelbox.TestExecuter;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
 import org.sammelbox.model.album.FieldType;
 import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.album.PictureRendition;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
@@ -148,4 +153,58 @@ public class AlbumItemPictureTests {
 			fail(e.toString());
 		}
 	}
+	
+	@Test
+	public void testBulkPictureRetrievalMatchesSingleItemRetrieval() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			List<Long> albumItemIds = new ArrayList<>();
+			for (AlbumItem albumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("DVDs"))) {
+				albumItemIds.add(albumItem.getItemID());
+			}
+			
+			Map<Long, List<AlbumItemPicture>> picturesByAlbumItemId = DatabaseOperations.getAlbumItemPictures("DVDs", albumItemIds);
+			
+			for (Long albumItemId : albumItemIds) {
+				List<Long> expectedPictureIds = getPictureIds(DatabaseOperations.getAlbumItemPictures("DVDs", albumItemId));
+				
+				assertEquals("The bulk retrieval should return the same pictures as the single item retrieval",
+						expectedPictureIds, getPictureIds(picturesByAlbumItemId.get(albumItemId)));
+			}
+			
+			assertTrue("No pictures should be returned if no album items are requested", 
+					DatabaseOperations.getAlbumItemPictures("DVDs", new ArrayList<Long>()).isEmpty());
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.toString());
+		}
+	}
+	
+	@Test
+	public void testPicturesOfPreviousVersionsUseExistingFilesAsRenditions() {
+		try {
+			// the backup has been created before renditions were introduced
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			AlbumItemPicture picture = DatabaseOperations.getAlbumItemPictures("DVDs", 1).get(0);
+			
+			assertTrue("There should be no renditions", picture.getSmallPictureName() == null && picture.getLargePictureName() == null);
+			assertEquals("The thumbnail should substitute the small rendition", 
+					picture.getThumbnailPicturePath(), picture.getPicturePath(PictureRendition.SMALL));
+			assertEquals("The original should substitute the large rendition", 
+					picture.getOriginalPicturePath(), picture.getPicturePath(PictureRendition.LARGE));
+		} catch (DatabaseWrapperOperationException e) {
+			fail(e.toString());
+		}
+	}
+	
+	private static List<Long> getPictureIds(List<AlbumItemPicture> pictures) {
+		List<Long> pictureIds = new ArrayList<>();
+		if (pictures != null) {
+			for (AlbumItemPicture picture : pictures) {
+				pictureIds.add(picture.getPictureID());
+			}
+		}
+		return pictureIds;
+	}
 }
\ No newline at end of file
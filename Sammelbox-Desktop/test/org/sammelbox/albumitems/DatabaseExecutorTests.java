@@ -0,0 +1,141 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.DatabaseExecutor;
+import org.sammelbox.controller.DatabaseExecutor.DatabaseTask;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException.DBErrorState;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+public class DatabaseExecutorTests {
+	private static final String ALBUM_NAME = "Books";
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+		
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testTasksAreExecutedOnTheDatabaseThreadInTheOrderOfSubmission() throws Exception {
+		final List<String> titles = Collections.synchronizedList(new ArrayList<String>());
+		List<Future<Long>> addedAlbumItems = new ArrayList<>();
+		
+		for (int i=0; i<10; i++) {
+			final String title = "Book " + i;
+			titles.add(title);
+			
+			addedAlbumItems.add(DatabaseExecutor.submit(new DatabaseTask<Long>() {
+				@Override
+				public Long execute() throws DatabaseWrapperOperationException {
+					assertTrue("The task should be executed on the database thread", DatabaseExecutor.isDatabaseThread());
+					
+					AlbumItem albumItem = new AlbumItem(ALBUM_NAME, Arrays.asList(new ItemField("Title", FieldType.TEXT, title)));
+					return DatabaseOperations.addAlbumItem(albumItem, true);
+				}
+			}));
+		}
+		
+		long previousAlbumItemId = 0;
+		for (int i=0; i<addedAlbumItems.size(); i++) {
+			long albumItemId = addedAlbumItems.get(i).get();
+			assertTrue("The items should be added in the order of submission", albumItemId > previousAlbumItemId);
+			assertTrue("The item should be stored with its title", 
+					titles.get(i).equals(DatabaseOperations.getAlbumItem(ALBUM_NAME, albumItemId).getField("Title").getValue()));
+			previousAlbumItemId = albumItemId;
+		}
+		
+		assertTrue("The calling thread is not the database thread", !DatabaseExecutor.isDatabaseThread());
+	}
+	
+	@Test
+	public void testFailureOfTaskIsPassedOnToTheCaller() {
+		final DatabaseWrapperOperationException failure = new DatabaseWrapperOperationException(DBErrorState.ERROR_CLEAN_STATE);
+		
+		try {
+			DatabaseExecutor.execute(new DatabaseTask<Void>() {
+				@Override
+				public Void execute() throws DatabaseWrapperOperationException {
+					throw failure;
+				}
+			});
+			fail("The failure of the task should be passed on");
+		} catch (DatabaseWrapperOperationException ex) {
+			assertTrue("The failure of the task should be passed on unchanged", ex == failure);
+		}
+	}
+	
+	@Test
+	public void testNestedTaskIsExecutedDirectly() throws DatabaseWrapperOperationException {
+		long numberOfItems = DatabaseExecutor.execute(new DatabaseTask<Long>() {
+			@Override
+			public Long execute() throws DatabaseWrapperOperationException {
+				// waiting for a task which is queued behind the running task would never return
+				return DatabaseExecutor.execute(new DatabaseTask<Long>() {
+					@Override
+					public Long execute() throws DatabaseWrapperOperationException {
+						return DatabaseOperations.getNumberOfItemsInAlbum(ALBUM_NAME);
+					}
+				});
+			}
+		});
+		
+		assertTrue("The new album should not contain any items", numberOfItems == 0);
+	}
+}
@@ -0,0 +1,141 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.album.PictureRendition;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.view.image.ImageProcessingService;
+
+public class ImageProcessingServiceTests {
+	private static final String ALBUM_NAME = "Pictures";
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+		
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, Arrays.asList(new MetaItemField("Name", FieldType.TEXT)), true);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testAllSubmittedPicturesAreStored() throws InterruptedException {
+		String[] testPictures = { TestExecuter.PATH_TO_TEST_PICTURE_1, TestExecuter.PATH_TO_TEST_PICTURE_2, TestExecuter.PATH_TO_TEST_PICTURE_3 };
+		
+		// more pictures than can be pending at once, hence submitting has to wait for finished pictures
+		List<Future<AlbumItemPicture>> processedPictures = new ArrayList<>();
+		for (int i=0; i<10 * Runtime.getRuntime().availableProcessors(); i++) {
+			processedPictures.add(ImageProcessingService.submit(new File(testPictures[i % testPictures.length]), ALBUM_NAME));
+		}
+		
+		Set<String> originalPictureNames = new HashSet<>();
+		for (Future<AlbumItemPicture> processedPicture : processedPictures) {
+			AlbumItemPicture picture = ImageProcessingService.getProcessedPicture(processedPicture);
+			
+			assertTrue("Every picture should be processed", picture != null);
+			assertTrue("The original picture should be stored", new File(picture.getOriginalPicturePath()).exists());
+			assertTrue("The thumbnail should be stored", new File(picture.getThumbnailPicturePath()).exists());
+			assertTrue("The small rendition should be stored", new File(picture.getPicturePath(PictureRendition.SMALL)).exists());
+			assertTrue("The original is smaller than the large rendition and should be used instead", 
+					picture.getLargePictureName() == null && picture.getPicturePath(PictureRendition.LARGE).equals(picture.getOriginalPicturePath()));
+			originalPictureNames.add(picture.getOriginalPictureName());
+		}
+		
+		assertTrue("Every distinct picture should be stored under its own name", originalPictureNames.size() == testPictures.length);
+	}
+	
+	@Test
+	public void testAllRenditionsOfLargePictureAreStored() throws Exception {
+		File pictureFile = File.createTempFile("sammelbox-renditions", ".png");
+		try {
+			ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB), "png", pictureFile);
+			AlbumItemPicture picture = ImageProcessingService.getProcessedPicture(ImageProcessingService.submit(pictureFile, ALBUM_NAME));
+			
+			assertTrue("Every rendition should fit into its size", 
+					ImageIO.read(new File(picture.getPicturePath(PictureRendition.SMALL))).getWidth() == 64 &&
+					ImageIO.read(new File(picture.getPicturePath(PictureRendition.THUMBNAIL))).getWidth() == 200 &&
+					ImageIO.read(new File(picture.getPicturePath(PictureRendition.LARGE))).getWidth() == 1280);
+			
+			// the renditions should survive a round trip through the database
+			AlbumItem albumItem = new AlbumItem(ALBUM_NAME, Arrays.asList(new ItemField("Name", FieldType.TEXT, "Large")));
+			albumItem.setPictures(Arrays.asList(picture));
+			long albumItemID = DatabaseOperations.addAlbumItem(albumItem, true);
+			AlbumItemPicture storedPicture = DatabaseOperations.getAlbumItemPictures(ALBUM_NAME, albumItemID).get(0);
+			
+			assertTrue("The small rendition should be stored in the picture table", picture.getSmallPictureName().equals(storedPicture.getSmallPictureName()));
+			assertTrue("The large rendition should be stored in the picture table", picture.getLargePictureName().equals(storedPicture.getLargePictureName()));
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(ALBUM_NAME, albumItemID));
+			for (String picturePath : picture.getAllPicturePaths()) {
+				assertTrue("Every rendition should be deleted together with the album item", !new File(picturePath).exists());
+			}
+		} finally {
+			pictureFile.delete();
+		}
+	}
+	
+	@Test
+	public void testUnsupportedPictureYieldsNoPicture() throws InterruptedException {
+		Future<AlbumItemPicture> processedPicture = ImageProcessingService.submit(new File(TestExecuter.PATH_TO_TEST_CBK), ALBUM_NAME);
+		
+		assertTrue("A file which is not a picture should not be stored", ImageProcessingService.getProcessedPicture(processedPicture) == null);
+	}
+}
@@ -0,0 +1,74 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.view.image.ImageScaler;
+
+public class ImageScalerTests {
+	@Test
+	public void testLargePictureIsScaledToFit() throws IOException, ImageReadException {
+		BufferedImage image = new BufferedImage(3000, 2000, BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.RED);
+		graphics.fillRect(0, 0, 3000, 2000);
+		graphics.dispose();
+		
+		File pictureFile = File.createTempFile("sammelbox-scaling", ".jpg");
+		try {
+			ImageIO.write(image, "jpg", pictureFile);
+			BufferedImage scaledImage = ImageScaler.readScaledImage(pictureFile, 200, 200);
+			
+			assertTrue("The picture should keep its aspect ratio within the bounds", 
+					scaledImage.getWidth() == 200 && scaledImage.getHeight() == 133);
+			assertTrue("The scaled picture should be stored as integer RGB", scaledImage.getType() == BufferedImage.TYPE_INT_RGB);
+			assertTrue("The color should be preserved", new Color(scaledImage.getRGB(100, 66)).getRed() > 240);
+		} finally {
+			pictureFile.delete();
+		}
+	}
+	
+	@Test
+	public void testTranslucentPictureKeepsAlpha() throws IOException, ImageReadException {
+		// the test picture is a translucent PNG of 222x243 pixels
+		BufferedImage scaledImage = ImageScaler.readScaledImage(new File(TestExecuter.PATH_TO_TEST_PICTURE_1), 200, 200);
+		
+		assertTrue("The picture should be scaled to fit the height", scaledImage.getWidth() == 182 && scaledImage.getHeight() == 200);
+		assertTrue("The alpha channel should be preserved", scaledImage.getType() == BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	@Test
+	public void testSmallPictureIsNotEnlarged() throws IOException, ImageReadException {
+		BufferedImage scaledImage = ImageScaler.readScaledImage(new File(TestExecuter.PATH_TO_TEST_PICTURE_1), 1000, 1000);
+		
+		assertTrue("The picture should keep its size", scaledImage.getWidth() == 222 && scaledImage.getHeight() == 243);
+	}
+}
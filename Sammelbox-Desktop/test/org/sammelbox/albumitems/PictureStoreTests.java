@@ -0,0 +1,283 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.PictureStore;
+import org.sammelbox.controller.filesystem.PictureStoreMigration;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.view.image.ImageManipulator;
+
+public class PictureStoreTests {
+	private static final String BOOKS_ALBUM_NAME = "Books";
+	private static final String MAGAZINES_ALBUM_NAME = "Magazines";
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+		
+		try {
+			DatabaseOperations.createNewAlbum(BOOKS_ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), true);
+			DatabaseOperations.createNewAlbum(MAGAZINES_ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), true);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testSamePictureIsStoredOnlyOnce() {
+		AlbumItemPicture firstPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+		AlbumItemPicture secondPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, MAGAZINES_ALBUM_NAME);
+		AlbumItemPicture otherPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_2, BOOKS_ALBUM_NAME);
+		
+		assertTrue("The original should be named after its content", PictureStore.isContentAddressed(firstPicture.getOriginalPictureName()));
+		assertEquals("The same picture should share the original", firstPicture.getOriginalPictureName(), secondPicture.getOriginalPictureName());
+		assertEquals("The same picture should share the thumbnail", firstPicture.getThumbnailPictureName(), secondPicture.getThumbnailPictureName());
+		assertEquals("The same picture should share the small rendition", firstPicture.getSmallPictureName(), secondPicture.getSmallPictureName());
+		assertTrue("A different picture should be stored separately", 
+				!firstPicture.getOriginalPictureName().equals(otherPicture.getOriginalPictureName()));
+		assertEquals("The original should be stored only once", 1, new File(firstPicture.getOriginalPicturePath()).getParentFile().list().length);
+	}
+	
+	@Test
+	public void testSharedPictureIsDeletedWithTheLastReference() {
+		try {
+			AlbumItemPicture picture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			long bookID = addAlbumItemWithPicture(BOOKS_ALBUM_NAME, picture);
+			long magazineID = addAlbumItemWithPicture(MAGAZINES_ALBUM_NAME, storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, MAGAZINES_ALBUM_NAME));
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID));
+			assertPictureFilesExist("The picture should be kept as long as another album item references it", picture, true);
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(MAGAZINES_ALBUM_NAME, magazineID));
+			assertPictureFilesExist("The picture should be deleted together with the last reference", picture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSharedPictureIsKeptWhileItIsProcessedButNotSaved() {
+		try {
+			long bookID = addAlbumItemWithPicture(BOOKS_ALBUM_NAME, storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME));
+			AlbumItemPicture processedPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, MAGAZINES_ALBUM_NAME);
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID));
+			assertPictureFilesExist("The picture should be kept while a processed picture has not been saved yet", processedPicture, true);
+			
+			long magazineID = addAlbumItemWithPicture(MAGAZINES_ALBUM_NAME, processedPicture);
+			assertPictureFilesExist("The picture should be kept after it has been saved", processedPicture, true);
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(MAGAZINES_ALBUM_NAME, magazineID));
+			assertPictureFilesExist("The picture should be deleted together with the last reference", processedPicture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testDiscardedPicturesAreDeletedUnlessTheyAreReferenced() {
+		try {
+			AlbumItemPicture savedPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			addAlbumItemWithPicture(BOOKS_ALBUM_NAME, savedPicture);
+			AlbumItemPicture sharedPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			AlbumItemPicture unsavedPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_2, BOOKS_ALBUM_NAME);
+			
+			DatabaseOperations.discardUnsavedPictures(Arrays.asList(savedPicture, sharedPicture, unsavedPicture));
+			assertPictureFilesExist("A discarded picture should be kept if an album item references it", sharedPicture, true);
+			assertPictureFilesExist("A discarded picture should be deleted if nothing references it", unsavedPicture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testUpdateDeletesOnlyPicturesWhichAreNoLongerReferenced() {
+		try {
+			AlbumItemPicture keptPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			AlbumItemPicture removedPicture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_2, BOOKS_ALBUM_NAME);
+			long bookID = addAlbumItemWithPicture(BOOKS_ALBUM_NAME, keptPicture, removedPicture);
+			
+			AlbumItem book = DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID);
+			book.setPictures(new ArrayList<AlbumItemPicture>(Arrays.asList(book.getFirstPicture())));
+			DatabaseOperations.updateAlbumItem(book);
+			
+			assertPictureFilesExist("The picture which is kept should not be deleted", keptPicture, true);
+			assertPictureFilesExist("The picture which has been removed should be deleted", removedPicture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPicturesAreKeptIfTheirReleaseIsRolledBack() {
+		try {
+			AlbumItemPicture picture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			long bookID = addAlbumItemWithPicture(BOOKS_ALBUM_NAME, picture);
+			
+			// The enclosing savepoint keeps the release of the last reference from being committed
+			String savepointName = DatabaseIntegrityManager.createSavepoint();
+			try {
+				DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID));
+				assertPictureFilesExist("The picture should be kept until the release has been committed", picture, true);
+			} finally {
+				DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+				DatabaseIntegrityManager.releaseSavepoint(savepointName);
+			}
+			
+			assertEquals("The rollback should restore the reference", 1, DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID).getPictures().size());
+			assertPictureFilesExist("The referenced picture should still exist after the rollback", picture, true);
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem(BOOKS_ALBUM_NAME, bookID));
+			assertPictureFilesExist("The picture should be deleted once the release has been committed", picture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testRemovingAnAlbumKeepsPicturesOfOtherAlbums() {
+		try {
+			AlbumItemPicture picture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+			addAlbumItemWithPicture(BOOKS_ALBUM_NAME, picture);
+			addAlbumItemWithPicture(MAGAZINES_ALBUM_NAME, storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, MAGAZINES_ALBUM_NAME));
+			
+			DatabaseOperations.removeAlbumAndAlbumPictures(BOOKS_ALBUM_NAME);
+			assertPictureFilesExist("The picture should be kept as long as another album references it", picture, true);
+			
+			DatabaseOperations.removeAlbumAndAlbumPictures(MAGAZINES_ALBUM_NAME);
+			assertPictureFilesExist("The picture should be deleted together with the last album referencing it", picture, false);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPicturesOfPreviousVersionsAreReferenced() {
+		try {
+			// the backup has been created before pictures were stored by their content
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			AlbumItemPicture picture = DatabaseOperations.getAlbumItemPictures("DVDs", 1).get(0);
+			assertTrue("The original should be stored within the album folder", 
+					!PictureStore.isContentAddressed(picture.getOriginalPictureName()) && new File(picture.getOriginalPicturePath()).exists());
+			
+			DatabaseOperations.deleteAlbumItem(DatabaseOperations.getAlbumItem("DVDs", 1));
+			assertTrue("The original should be deleted together with its only reference", !new File(picture.getOriginalPicturePath()).exists());
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPicturesOfPreviousVersionsAreMovedIntoTheFanOut() {
+		try {
+			// the backup has been created before the pictures were spread over subfolders
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			AlbumItemPicture picture = DatabaseOperations.getAlbumItemPictures("DVDs", 1).get(0);
+			File thumbnailsDirectory = new File(FileSystemLocations.getThumbnailsDir());
+			
+			assertTrue("The thumbnail should be located within the fan-out", new File(picture.getThumbnailPicturePath())
+					.getParentFile().getParentFile().getParentFile().equals(thumbnailsDirectory));
+			assertTrue("The original should be located within the fan-out of the album folder", new File(picture.getOriginalPicturePath())
+					.getParentFile().getParentFile().getParentFile().getName().equals("DVDs"));
+			
+			for (File file : thumbnailsDirectory.listFiles()) {
+				assertTrue("No picture should remain directly within the thumbnail folder", file.isDirectory());
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPicturesAreFoundBeforeAndAfterTheyAreMovedIntoTheFanOut() throws Exception {
+		AlbumItemPicture picture = storePicture(TestExecuter.PATH_TO_TEST_PICTURE_1, BOOKS_ALBUM_NAME);
+		String shardedThumbnailPath = picture.getThumbnailPicturePath();
+		
+		// simulates a picture stored by a previous version
+		File unshardedThumbnail = new File(FileSystemLocations.getThumbnailsDir(), picture.getThumbnailPictureName());
+		assertTrue("The thumbnail should be moved out of the fan-out", new File(shardedThumbnailPath).renameTo(unshardedThumbnail));
+		assertEquals("The thumbnail should be found directly within the folder", unshardedThumbnail.getPath(), picture.getThumbnailPicturePath());
+		
+		assertEquals("The thumbnail should be moved", 1, PictureStoreMigration.migrate());
+		assertEquals("The thumbnail should be found within the fan-out", shardedThumbnailPath, picture.getThumbnailPicturePath());
+		assertTrue("The thumbnail should exist within the fan-out", new File(shardedThumbnailPath).exists() && !unshardedThumbnail.exists());
+	}
+	
+	private static AlbumItemPicture storePicture(String picturePath, String albumName) {
+		AlbumItemPicture picture = ImageManipulator.adaptAndStoreImageForCollectorUsingApacheImaging(new File(picturePath), albumName);
+		assertTrue("The picture should be stored", picture != null);
+		
+		return picture;
+	}
+	
+	private static long addAlbumItemWithPicture(String albumName, AlbumItemPicture... pictures) throws DatabaseWrapperOperationException {
+		AlbumItem albumItem = new AlbumItem(albumName, Arrays.asList(new ItemField("Title", FieldType.TEXT, "Title")));
+		albumItem.setPictures(new ArrayList<AlbumItemPicture>(Arrays.asList(pictures)));
+		
+		return DatabaseOperations.addAlbumItem(albumItem, true);
+	}
+	
+	private static void assertPictureFilesExist(String message, AlbumItemPicture picture, boolean expectedToExist) {
+		List<String> picturePaths = picture.getAllPicturePaths();
+		
+		for (String picturePath : picturePaths) {
+			assertEquals(message, expectedToExist, new File(picturePath).exists());
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.albumitems;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.PictureStoreMigration;
+import org.sammelbox.controller.filesystem.ThumbnailPack;
+
+public class ThumbnailPackTests {
+	private static final String ALBUM_NAME = "Packed";
+	private static final String RENAMED_ALBUM_NAME = "Renamed";
+	private static final int THUMBNAIL_SIZE_IN_BYTES = 100 * 1024;
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+		new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME)).mkdirs();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testThumbnailsAreServedFromThePack() throws IOException {
+		File thumbnailFile = new File(TestExecuter.PATH_TO_TEST_PICTURE_1);
+		byte[] expectedThumbnail = Files.readAllBytes(thumbnailFile.toPath());
+		
+		assertArrayEquals("The thumbnail should be read from its file", expectedThumbnail, 
+				ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("first.png", thumbnailFile));
+		
+		// the file is no longer needed once the thumbnail has been added
+		File missingFile = new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME), "missing.png");
+		assertArrayEquals("The thumbnail should be read from the pack", expectedThumbnail, 
+				ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("first.png", missingFile));
+		
+		ThumbnailPack.closeAll();
+		assertArrayEquals("The thumbnail should be read from the pack after reopening it", expectedThumbnail, 
+				ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("first.png", missingFile));
+	}
+	
+	@Test
+	public void testPackIsCompactedWhenMostThumbnailsAreRemoved() throws IOException {
+		ThumbnailPack thumbnailPack = ThumbnailPack.forAlbum(ALBUM_NAME);
+		byte[][] thumbnails = new byte[20][];
+		
+		for (int i=0; i<thumbnails.length; i++) {
+			thumbnails[i] = createThumbnailFile(i);
+			thumbnailPack.getThumbnail("thumbnail" + i, getThumbnailFile(i));
+			getThumbnailFile(i).delete();
+		}
+		
+		for (int i=0; i<15; i++) {
+			thumbnailPack.removeThumbnail("thumbnail" + i);
+		}
+		
+		File packFile = new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME), "thumbnails.1.pack");
+		assertTrue("The remaining thumbnails should have been compacted into the next generation", 
+				packFile.exists() && packFile.length() <= 10L * THUMBNAIL_SIZE_IN_BYTES);
+		
+		ThumbnailPack.closeAll();
+		thumbnailPack = ThumbnailPack.forAlbum(ALBUM_NAME);
+		for (int i=0; i<thumbnails.length; i++) {
+			assertTrue("Only the remaining thumbnails should be contained", thumbnailPack.containsThumbnail("thumbnail" + i) == i >= 15);
+		}
+		for (int i=15; i<thumbnails.length; i++) {
+			assertArrayEquals("The remaining thumbnails should survive the compaction", thumbnails[i], 
+					thumbnailPack.getThumbnail("thumbnail" + i, getThumbnailFile(i)));
+		}
+		
+		assertTrue("The previous generation should be deleted", 
+				!new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME), "thumbnails.0.pack").exists());
+	}
+	
+	@Test
+	public void testPackIsKeptByThePictureStoreMigration() throws IOException, InterruptedException {
+		byte[] thumbnail = createThumbnailFile(0);
+		ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("thumbnail0", getThumbnailFile(0));
+		ThumbnailPack.closeAll();
+		getThumbnailFile(0).delete();
+		
+		PictureStoreMigration.migrate();
+		
+		File albumDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME));
+		assertTrue("The pack should remain directly within the album folder", 
+				new File(albumDirectory, "thumbnails.0.pack").exists() && new File(albumDirectory, "thumbnails.0.idx").exists());
+		assertArrayEquals("The thumbnail should be read from the reopened pack", thumbnail, 
+				ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("thumbnail0", getThumbnailFile(0)));
+	}
+	
+	@Test
+	public void testAlbumFolderWithOpenPackCanBeRenamed() throws IOException {
+		byte[] thumbnail = createThumbnailFile(0);
+		ThumbnailPack thumbnailPack = ThumbnailPack.forAlbum(ALBUM_NAME);
+		thumbnailPack.getThumbnail("thumbnail0", getThumbnailFile(0));
+		assertArrayEquals("The thumbnail should be read from the pack", thumbnail, thumbnailPack.getThumbnail("thumbnail0", getThumbnailFile(0)));
+		
+		assertTrue("The album folder should be renamed", FileSystemAccessWrapper.renameAlbumPictureFolder(ALBUM_NAME, RENAMED_ALBUM_NAME));
+		File renamedAlbumDirectory = new File(FileSystemAccessWrapper.getFilePathForAlbum(RENAMED_ALBUM_NAME));
+		assertTrue("The pack file should be released, since Windows cannot rename folders containing open files", 
+				!isOpenedByThisProcess(new File(renamedAlbumDirectory, "thumbnails.0.pack")));
+		
+		try {
+			thumbnailPack.getThumbnail("thumbnail0", getThumbnailFile(0));
+			fail("The closed pack should not reopen its file");
+		} catch (IOException ex) {
+			// expected
+		}
+		
+		assertArrayEquals("The thumbnail should be read from the pack within the renamed folder", thumbnail, 
+				ThumbnailPack.forAlbum(RENAMED_ALBUM_NAME).getThumbnail("thumbnail0", new File(renamedAlbumDirectory, "missing.png")));
+	}
+	
+	@Test
+	public void testIncompleteIndexRecordIsIgnored() throws IOException {
+		byte[] thumbnail = createThumbnailFile(0);
+		ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("thumbnail0", getThumbnailFile(0));
+		ThumbnailPack.closeAll();
+		
+		// simulates a crash while the index record of another thumbnail was written
+		try (FileOutputStream index = new FileOutputStream(
+				new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME), "thumbnails.0.idx"), true)) {
+			index.write(new byte[] { 1, 0, 10, 't', 'h' });
+		}
+		
+		getThumbnailFile(0).delete();
+		assertArrayEquals("The complete records should still be read", thumbnail, 
+				ThumbnailPack.forAlbum(ALBUM_NAME).getThumbnail("thumbnail0", getThumbnailFile(0)));
+	}
+	
+	/** Returns true if the file is mapped or opened by this process. Always false if the proc file system is not available */
+	private static boolean isOpenedByThisProcess(File file) throws IOException {
+		String path = file.getCanonicalPath();
+		
+		File mappings = new File("/proc/self/maps");
+		if (mappings.exists()) {
+			for (String mapping : Files.readAllLines(mappings.toPath(), StandardCharsets.UTF_8)) {
+				if (mapping.endsWith(path)) {
+					return true;
+				}
+			}
+		}
+		
+		File[] fileDescriptors = new File("/proc/self/fd").listFiles();
+		for (File fileDescriptor : fileDescriptors == null ? new File[0] : fileDescriptors) {
+			try {
+				if (Files.readSymbolicLink(fileDescriptor.toPath()).toString().equals(path)) {
+					return true;
+				}
+			} catch (IOException ex) {
+				// the descriptor has been closed meanwhile
+			}
+		}
+		
+		return false;
+	}
+	
+	private static File getThumbnailFile(int index) {
+		return new File(FileSystemAccessWrapper.getFilePathForAlbum(ALBUM_NAME), "thumbnail" + index + ".png");
+	}
+	
+	private static byte[] createThumbnailFile(int index) throws IOException {
+		byte[] thumbnail = new byte[THUMBNAIL_SIZE_IN_BYTES];
+		new Random(index).nextBytes(thumbnail);
+		Arrays.fill(thumbnail, 0, 4, (byte) index);
+		Files.write(getThumbnailFile(index).toPath(), thumbnail);
+		
+		return thumbnail;
+	}
+}
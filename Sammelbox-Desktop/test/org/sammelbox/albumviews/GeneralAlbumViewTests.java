@@ -21,6 +21,8 @@ package org.sammelbox.albumviews;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
+
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.List;
 import org.junit.After;
@@ -30,11 +32,10 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sammelbox.TestExecuter;
 import org.sammelbox.controller.managers.AlbumViewManager;
-import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.controller.managers.AlbumViewManager.AlbumView;
-import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.view.ApplicationUI;
 
@@ -80,8 +81,7 @@ public class GeneralAlbumViewTests {
 			
 			for (AlbumView albumView : AlbumViewManager.getAlbumViews("DVDs")) {
 				if (albumView.getName().equals("Before 2000")) {
-					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-							ConnectionManager.getConnection(), albumView.getSqlQuery()));
+					AlbumItemStore.reinitializeStore(albumView.getAlbum(), albumView.getQuery());
 					
 					assertTrue("There should be 5 movies from before the year 2000 (or equal)", 
 							AlbumItemStore.getAllAlbumItems().size() == 5);
@@ -103,6 +103,28 @@ public class GeneralAlbumViewTests {
 		}
 	}
 	
+	@Test
+	public void testParameterizedViewIsRestored() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			
+			AlbumViewManager.initialize();
+			AlbumViewManager.addAlbumView("Before 2000", "DVDs", 
+					new ParameterizedQuery("SELECT * FROM DVDs WHERE [Year] <= ?", Arrays.asList(2000L)));
+			AlbumViewManager.initialize();
+			
+			ParameterizedQuery query = AlbumViewManager.getQueryByViewName("DVDs", "Before 2000");
+			assertTrue("The parameter of the view should be restored with its type", 
+					query.getParameters().equals(Arrays.<Object>asList(2000L)));
+			
+			AlbumItemStore.reinitializeStore("DVDs", query);
+			assertTrue("There should be 5 movies from before the year 2000 (or equal)", 
+					AlbumItemStore.getAllAlbumItems().size() == 5);
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
 	@Test
 	public void testRemoveView() {
 		try {
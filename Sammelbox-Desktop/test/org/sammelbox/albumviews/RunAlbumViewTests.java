@@ -33,7 +33,6 @@ import org.sammelbox.controller.managers.AlbumViewManager;
 import org.sammelbox.controller.managers.ConnectionManager;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
 import org.sammelbox.controller.managers.AlbumViewManager.AlbumView;
-import org.sammelbox.model.album.AlbumItemResultSet;
 import org.sammelbox.model.album.AlbumItemStore;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 
@@ -69,8 +68,7 @@ public class RunAlbumViewTests {
 			assertTrue("There should be one album view for the book album", albumViews.size() == 1);
 			
 			if (albumViews.get(0).getName().equals("Programming Languages")) {
-				AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-						ConnectionManager.getConnection(), albumViews.get(0).getSqlQuery()));
+				AlbumItemStore.reinitializeStore(albumViews.get(0).getAlbum(), albumViews.get(0).getQuery());
 				
 				assertTrue("There should be two books about programming languages", AlbumItemStore.getAllAlbumItems().size() == 2);
 			} else {
@@ -95,13 +93,11 @@ public class RunAlbumViewTests {
 			
 			for (AlbumView albumView : albumViews) {
 				if (albumView.getName().equals("Unwatched")) {
-					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-							ConnectionManager.getConnection(), albumView.getSqlQuery()));
+					AlbumItemStore.reinitializeStore(albumView.getAlbum(), albumView.getQuery());
 					
 					assertTrue("Both views should show three items", AlbumItemStore.getAllAlbumItems().size() == 3);
 				} else if (albumView.getName().equals("My favorite DVDs")) {
-					AlbumItemStore.reinitializeStore(new AlbumItemResultSet(
-							ConnectionManager.getConnection(), albumView.getSqlQuery()));
+					AlbumItemStore.reinitializeStore(albumView.getAlbum(), albumView.getQuery());
 					
 					assertTrue("Both views should show three items", AlbumItemStore.getAllAlbumItems().size() == 3);
 				} else {
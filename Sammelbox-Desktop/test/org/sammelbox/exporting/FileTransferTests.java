@@ -0,0 +1,143 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+package org.sammelbox.exporting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.filesystem.FileTransfer;
+
+public class FileTransferTests {
+	/** Larger than the stream buffer, so that streams are copied in several rounds */
+	private static final int CONTENT_SIZE_IN_BYTES = 1024 * 1024 + 17;
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testFileIsCopied() throws IOException {
+		byte[] content = createContent(1);
+		File sourceFile = createFile("source.bin", content);
+		File targetFile = getFile("target.bin");
+		
+		// an existing target is overwritten
+		Files.write(targetFile.toPath(), createContent(2));
+		FileTransfer.copyFile(sourceFile, targetFile);
+		
+		assertArrayEquals("The copy should have the content of the source", content, Files.readAllBytes(targetFile.toPath()));
+	}
+	
+	@Test
+	public void testStreamsRoundTrip() throws IOException {
+		byte[] content = createContent(3);
+		File targetFile = getFile("streamed.bin");
+		
+		FileTransfer.copyStreamToFile(new ByteArrayInputStream(content), targetFile);
+		assertArrayEquals("The file should have the content of the stream", content, Files.readAllBytes(targetFile.toPath()));
+		
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		FileTransfer.copyFileToStream(targetFile, outputStream);
+		assertArrayEquals("The stream should have the content of the file", content, outputStream.toByteArray());
+	}
+	
+	@Test
+	public void testFilesAreCopiedInParallel() throws IOException {
+		List<File[]> sourceAndTargetFiles = new ArrayList<File[]>();
+		List<byte[]> contents = new ArrayList<byte[]>();
+		
+		for (int i=0; i<10; i++) {
+			contents.add(createContent(10 + i));
+			sourceAndTargetFiles.add(new File[] { createFile("source" + i + ".bin", contents.get(i)), getFile("target" + i + ".bin") });
+		}
+		
+		FileTransfer.copyFilesInParallel(sourceAndTargetFiles);
+		
+		for (int i=0; i<sourceAndTargetFiles.size(); i++) {
+			assertArrayEquals("Every copy should have the content of its source", contents.get(i), 
+					Files.readAllBytes(sourceAndTargetFiles.get(i)[1].toPath()));
+		}
+	}
+	
+	@Test
+	public void testCopyIsAbortedIfTheThreadIsInterrupted() throws IOException {
+		File sourceFile = createFile("source.bin", createContent(4));
+		
+		Thread.currentThread().interrupt();
+		try {
+			FileTransfer.copyFile(sourceFile, getFile("target.bin"));
+			fail("The copy should be aborted since the thread has been interrupted");
+		} catch (IOException ex) {
+			assertTrue("The interrupt should be kept", Thread.currentThread().isInterrupted());
+		} finally {
+			// clears the interrupt for the following tests
+			Thread.interrupted();
+		}
+	}
+	
+	private static byte[] createContent(int seed) {
+		byte[] content = new byte[CONTENT_SIZE_IN_BYTES];
+		new Random(seed).nextBytes(content);
+		
+		return content;
+	}
+	
+	private static File getFile(String fileName) {
+		return new File(FileSystemLocations.TEMP_DIR, fileName);
+	}
+	
+	private static File createFile(String fileName, byte[] content) throws IOException {
+		File file = getFile(fileName);
+		Files.write(file.toPath(), content);
+		
+		return file;
+	}
+}
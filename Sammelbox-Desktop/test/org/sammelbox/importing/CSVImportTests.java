@@ -153,6 +153,36 @@ public class CSVImportTests {
 		}
 	}
 	
+	@Test
+	public void testCSVImportOfManyLinesIsAddedLazily() {
+		try {
+			StringBuilder csv = new StringBuilder("Title~TEXT;Pages~INTEGER\n");
+			for (int i=0; i<150; i++) {
+				csv.append("Book ").append(i).append(";").append(i).append("\n");
+			}
+			
+			String validCSVFilePath = FileSystemLocations.TEMP_DIR + File.separatorChar + "manyLines.csv";
+			FileSystemAccessWrapper.writeToFile(csv.toString(), validCSVFilePath);
+			CSVImporter.importCSV(IMPORT_ALBUM_NAME, validCSVFilePath, ";", false);
+			
+			assertTrue("All lines should have been imported, including those beyond the read ahead", 
+					TestQueries.getNumberOfRecordsInTable(DatabaseStringUtilities.generateTableName(IMPORT_ALBUM_NAME)) == 150);
+			
+			String faultyCSVFilePath = FileSystemLocations.TEMP_DIR + File.separatorChar + "manyLinesFaulty.csv";
+			FileSystemAccessWrapper.writeToFile(csv.toString().replace("Book", "Other Book") + "Faulty;no number\n", faultyCSVFilePath);
+			
+			try {
+				CSVImporter.importCSV("Faulty Import", faultyCSVFilePath, ";", false);
+				fail("The faulty last line should abort the import");
+			} catch (ImportException e) {
+				assertTrue("The items which were parsed before the faulty line should have been rolled back", 
+						TestQueries.getNumberOfRecordsInTable(DatabaseStringUtilities.generateTableName("Faulty Import")) == 0);
+			}
+		} catch (DatabaseWrapperOperationException | ImportException e) {
+			fail(e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testCSVImport4Faulty() {		
 		try {
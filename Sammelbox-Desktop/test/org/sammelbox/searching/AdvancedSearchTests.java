@@ -22,6 +22,10 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -30,7 +34,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sammelbox.TestExecuter;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.database.ParameterizedQuery;
 import org.sammelbox.model.database.QueryBuilder;
 import org.sammelbox.model.database.QueryComponent;
 import org.sammelbox.model.database.QueryOperator;
@@ -324,4 +330,86 @@ public class AdvancedSearchTests {
 			fail("testSearchArtistInEmptyMusicAlbumUsingQueryBuilder failed");
 		}
 	}
+
+	@Test
+	public void testPagedSearchReturnsEveryItemOnceInSortOrder() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			ParameterizedQuery sortedQuery = QueryBuilder.buildParameterizedQuery(new ArrayList<QueryComponent>(), true, "Books", "Price", false);
+			List<AlbumItem> albumItems = fetchAllPages("Books", sortedQuery, 2);
+			
+			assertTrue("All books should be part of the pages", 
+					albumItems.size() == DatabaseOperations.getNumberOfItemsInAlbum("Books"));
+			assertTrue("The number of results should match the number of paged items", 
+					albumItems.size() == DatabaseOperations.getNumberOfResults(sortedQuery));
+			
+			Set<Long> albumItemIds = new HashSet<Long>();
+			for (int i=0; i<albumItems.size(); i++) {
+				assertTrue("Every book should be part of exactly one page", albumItemIds.add(albumItems.get(i).getItemID()));
+				
+				if (i > 0) {
+					Double previousPrice = albumItems.get(i - 1).getField("Price").getValue();
+					Double price = albumItems.get(i).getField("Price").getValue();
+					assertTrue("The books should be sorted descending by price", previousPrice >= price);
+				}
+			}
+			
+			List<AlbumItem> unsortedAlbumItems = fetchAllPages("DVDs", new ParameterizedQuery(QueryBuilder.createSelectStarQuery("DVDs")), 3);
+			assertTrue("All DVDs should be part of the pages", 
+					unsortedAlbumItems.size() == DatabaseOperations.getNumberOfItemsInAlbum("DVDs"));
+			for (int i=1; i<unsortedAlbumItems.size(); i++) {
+				assertTrue("Unsorted pages should be ordered by id", 
+						unsortedAlbumItems.get(i - 1).getItemID() < unsortedAlbumItems.get(i).getItemID());
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("testPagedSearchReturnsEveryItemOnceInSortOrder failed");
+		}
+	}
+	
+	@Test
+	public void testParameterizedQueriesMatchInlinedQueries() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			List<List<QueryComponent>> queryComponentLists = new ArrayList<List<QueryComponent>>();
+			queryComponentLists.add(Arrays.asList(QueryBuilder.getQueryComponent("Price", QueryOperator.BIGGER_OR_EQUAL, "30.0")));
+			queryComponentLists.add(Arrays.asList(QueryBuilder.getQueryComponent("Author", QueryOperator.CONTAINS, "Helm")));
+			queryComponentLists.add(Arrays.asList(
+					QueryBuilder.getQueryComponent("Book Title", QueryOperator.CONTAINS, "Design"),
+					QueryBuilder.getQueryComponent("Price", QueryOperator.SMALLER, "40")));
+			
+			for (List<QueryComponent> queryComponents : queryComponentLists) {
+				ParameterizedQuery parameterizedQuery = QueryBuilder.buildParameterizedQuery(
+						new ArrayList<QueryComponent>(queryComponents), true, "Books", "Price", true);
+				String inlinedQuery = QueryBuilder.buildQuery(new ArrayList<QueryComponent>(queryComponents), true, "Books", "Price", true);
+				
+				assertTrue("The values should not be part of the SQL", !parameterizedQuery.getParameters().isEmpty());
+				assertTrue("The parameterized and the inlined query should count the same results", 
+						DatabaseOperations.getNumberOfResults(parameterizedQuery) == DatabaseOperations.getNumberOfResults(new ParameterizedQuery(inlinedQuery)));
+				
+				List<AlbumItem> parameterizedItems = fetchAllPages("Books", parameterizedQuery, 1);
+				List<AlbumItem> inlinedItems = fetchAllPages("Books", new ParameterizedQuery(inlinedQuery), 1);
+				assertTrue("The query should find some books", !parameterizedItems.isEmpty());
+				assertTrue("The parameterized and the inlined query should return the same number of books", 
+						parameterizedItems.size() == inlinedItems.size());
+				for (int i=0; i<parameterizedItems.size(); i++) {
+					assertTrue("The parameterized and the inlined query should return the same books", 
+							parameterizedItems.get(i).getItemID() == inlinedItems.get(i).getItemID());
+				}
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("testParameterizedQueriesMatchInlinedQueries failed");
+		}
+	}
+	
+	private List<AlbumItem> fetchAllPages(String albumName, ParameterizedQuery query, int pageSize) throws DatabaseWrapperOperationException {
+		List<AlbumItem> albumItems = new ArrayList<AlbumItem>();
+		List<AlbumItem> page = DatabaseOperations.getAlbumItemPage(albumName, query, null, pageSize);
+		
+		while (!page.isEmpty()) {
+			albumItems.addAll(page);
+			page = DatabaseOperations.getAlbumItemPage(albumName, query, page.get(page.size() - 1).getItemID(), pageSize);
+		}
+		
+		return albumItems;
+	}
 }
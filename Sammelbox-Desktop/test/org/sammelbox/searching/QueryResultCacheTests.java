@@ -0,0 +1,213 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.searching;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+public class QueryResultCacheTests {
+	private static final String ALBUM_NAME = "Books";
+	private static final String OTHER_ALBUM_NAME = "DVDs";
+	private static final int PAGE_SIZE = 10;
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+		
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), false);
+			DatabaseOperations.createNewAlbum(OTHER_ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), false);
+			addItem(ALBUM_NAME, "The Hobbit");
+			addItem(ALBUM_NAME, "Dune");
+			addItem(OTHER_ALBUM_NAME, "Alien");
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testRepeatedQueriesAreServedFromTheCache() throws Exception {
+		List<AlbumItem> firstPage = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		changeTitlesBehindTheCache(ALBUM_NAME);
+		List<AlbumItem> repeatedPage = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		
+		assertTrue("The page should contain both books", repeatedPage.size() == 2);
+		assertTrue("The repeated query should return the cached result", getTitle(repeatedPage.get(0)).equals(getTitle(firstPage.get(0))));
+		
+		ParameterizedQuery reformattedQuery = new ParameterizedQuery("SELECT  *\n\tFROM " + 
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(ALBUM_NAME)) + " ");
+		assertTrue("Queries which only differ in their formatting should share the cached result", 
+				getTitle(getFirstPage(ALBUM_NAME, reformattedQuery).get(0)).equals(getTitle(firstPage.get(0))));
+	}
+	
+	@Test
+	public void testCachedResultsAreNotAlteredByTheirCallers() throws DatabaseWrapperOperationException {
+		List<AlbumItem> firstPage = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		String title = getTitle(firstPage.get(0));
+		List<AlbumItemPicture> loadedPictures = new ArrayList<AlbumItemPicture>();
+		
+		firstPage.get(0).setFieldValue("Title", "Altered");
+		firstPage.get(0).setPictures(loadedPictures);
+		firstPage.clear();
+		
+		List<AlbumItem> repeatedPage = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		assertTrue("The cached page should still contain both books", repeatedPage.size() == 2);
+		assertTrue("The cached item should keep its title", getTitle(repeatedPage.get(0)).equals(title));
+		assertTrue("The pictures loaded by a caller should not be shared", repeatedPage.get(0).getPictures() != loadedPictures);
+	}
+	
+	@Test
+	public void testLiteralsAreNotNormalized() throws DatabaseWrapperOperationException {
+		addItem(ALBUM_NAME, "The  Hobbit");
+		
+		List<AlbumItem> singleBlankResults = getFirstPage(ALBUM_NAME, createTitleQuery("The Hobbit"));
+		List<AlbumItem> doubleBlankResults = getFirstPage(ALBUM_NAME, createTitleQuery("The  Hobbit"));
+		
+		assertTrue("Each query should find its own book", singleBlankResults.size() == 1 && doubleBlankResults.size() == 1);
+		assertTrue("Queries with different literals should not share the result", 
+				singleBlankResults.get(0).getItemID() != doubleBlankResults.get(0).getItemID());
+	}
+	
+	@Test
+	public void testBracketedNamesAreNotNormalized() throws DatabaseWrapperOperationException {
+		DatabaseOperations.appendNewAlbumField(ALBUM_NAME, new MetaItemField("Sub Title", FieldType.TEXT));
+		DatabaseOperations.appendNewAlbumField(ALBUM_NAME, new MetaItemField("Sub  Title", FieldType.TEXT));
+		DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, Arrays.asList(new ItemField("Title", FieldType.TEXT, "Dune Messiah"), 
+				new ItemField("Sub Title", FieldType.TEXT, "Dune"))), true);
+		
+		String selectStarQuery = createSelectStarQuery(ALBUM_NAME).getSql();
+		List<AlbumItem> singleBlankResults = getFirstPage(ALBUM_NAME, new ParameterizedQuery(selectStarQuery + " WHERE [Sub Title] = 'Dune'"));
+		List<AlbumItem> doubleBlankResults = getFirstPage(ALBUM_NAME, new ParameterizedQuery(selectStarQuery + " WHERE [Sub  Title] = 'Dune'"));
+		
+		assertTrue("Only the field with a single blank should contain the value", singleBlankResults.size() == 1 && doubleBlankResults.isEmpty());
+	}
+	
+	@Test
+	public void testChangesInvalidateOnlyTheChangedAlbum() throws Exception {
+		List<AlbumItem> books = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		long numberOfBooks = DatabaseOperations.getNumberOfResults(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME), null);
+		List<AlbumItem> dvds = getFirstPage(OTHER_ALBUM_NAME, createSelectStarQuery(OTHER_ALBUM_NAME));
+		
+		addItem(ALBUM_NAME, "Neuromancer");
+		
+		assertTrue("The count should include the added book", 
+				DatabaseOperations.getNumberOfResults(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME), null) == numberOfBooks + 1);
+		List<AlbumItem> booksAfterAddition = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		assertTrue("The page should include the added book", books.size() == 2 && booksAfterAddition.size() == 3);
+		
+		changeTitlesBehindTheCache(OTHER_ALBUM_NAME);
+		assertTrue("The results of other albums should still be cached", 
+				getTitle(getFirstPage(OTHER_ALBUM_NAME, createSelectStarQuery(OTHER_ALBUM_NAME)).get(0)).equals(getTitle(dvds.get(0))));
+	}
+	
+	@Test
+	public void testUpdatesAndDeletionsInvalidateTheAlbum() throws DatabaseWrapperOperationException {
+		AlbumItem hobbit = getFirstPage(ALBUM_NAME, createTitleQuery("The Hobbit")).get(0);
+		
+		AlbumItem updatedHobbit = DatabaseOperations.getAlbumItem(ALBUM_NAME, hobbit.getItemID());
+		updatedHobbit.setFieldValue("Title", "The Lord of the Rings");
+		DatabaseOperations.updateAlbumItem(updatedHobbit);
+		
+		assertTrue("The updated title should no longer be found", getFirstPage(ALBUM_NAME, createTitleQuery("The Hobbit")).isEmpty());
+		assertTrue("The new title should be found", getFirstPage(ALBUM_NAME, createTitleQuery("The Lord of the Rings")).size() == 1);
+		
+		DatabaseOperations.deleteAlbumItem(updatedHobbit);
+		assertTrue("The deleted book should no longer be found", 
+				getFirstPage(ALBUM_NAME, createTitleQuery("The Lord of the Rings")).isEmpty());
+	}
+	
+	@Test
+	public void testStructuralChangesInvalidateTheAlbum() throws DatabaseWrapperOperationException {
+		assertTrue("The book should be found by its title", getFirstPage(ALBUM_NAME, createTitleQuery("Dune")).size() == 1);
+		
+		DatabaseOperations.renameAlbumItemField(ALBUM_NAME, new MetaItemField("Title", FieldType.TEXT), new MetaItemField("Name", FieldType.TEXT));
+		
+		List<AlbumItem> books = getFirstPage(ALBUM_NAME, createSelectStarQuery(ALBUM_NAME));
+		assertTrue("The fetched items should have the renamed field", 
+				books.get(0).getField("Name") != null && books.get(0).getField("Title") == null);
+	}
+	
+	private static List<AlbumItem> getFirstPage(String albumName, ParameterizedQuery query) throws DatabaseWrapperOperationException {
+		return DatabaseOperations.getAlbumItemPage(albumName, query, null, PAGE_SIZE);
+	}
+	
+	private static ParameterizedQuery createSelectStarQuery(String albumName) {
+		return new ParameterizedQuery("SELECT * FROM " + 
+				DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)));
+	}
+	
+	private static ParameterizedQuery createTitleQuery(String title) {
+		// The title is inlined on purpose, such that literals are part of the SQL
+		return new ParameterizedQuery(createSelectStarQuery(ALBUM_NAME).getSql() + " WHERE Title = '" + title + "'");
+	}
+	
+	private static String getTitle(AlbumItem albumItem) {
+		return albumItem.getField("Title").getValue();
+	}
+	
+	/** Changes the titles without invalidating the cache, such that only results which are served by the cache keep the old titles */
+	private static void changeTitlesBehindTheCache(String albumName) throws SQLException {
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			statement.executeUpdate("UPDATE " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(albumName)) + 
+					" SET Title = 'Changed'");
+		}
+	}
+	
+	private static void addItem(String albumName, String title) throws DatabaseWrapperOperationException {
+		DatabaseOperations.addAlbumItem(new AlbumItem(albumName, Arrays.asList(new ItemField("Title", FieldType.TEXT, title))), true);
+	}
+}
@@ -30,7 +30,11 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sammelbox.TestExecuter;
 import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.model.album.AlbumItem;
 import org.sammelbox.model.album.AlbumItemResultSet;
+import org.sammelbox.model.album.AlbumItemStore;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.QueryCancellation;
 import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
 import org.sammelbox.model.database.operations.DatabaseOperations;
 
@@ -137,4 +141,88 @@ public class QuickSearchTests {
 			fail("Failed due to internal database error");
 		}
 	}
+	
+	@Test
+	public void testQuickSearchFollowsItemUpdateAndDeletion() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Zyxw");
+			
+			assertTrue("No item should match before the update", countResults(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)) == 0);
+			
+			AlbumItem albumItem = DatabaseOperations.getAlbumItem("DVDs", 1);
+			albumItem.getField("Title").setValue("Zyxwvut Returns");
+			DatabaseOperations.updateAlbumItem(albumItem);
+			
+			assertTrue("The updated item should be found by the prefix of its new title", 
+					countResults(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)) == 1);
+			
+			DatabaseOperations.deleteAlbumItem(albumItem);
+			
+			assertTrue("The deleted item should not be found anymore", 
+					countResults(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)) == 0);
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testBackgroundQuickSearchCanBeCancelled() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Smith");
+			ParameterizedQuery quickSearchQuery = DatabaseOperations.createQuickSearchQuery("DVDs", quickSearchTerms);
+			
+			assertTrue("The read connection should find the same items as a regular quick search", 
+					DatabaseOperations.getAlbumItemPage("DVDs", quickSearchQuery, null, 10, new QueryCancellation()).size() == 
+					countResults(DatabaseOperations.executeQuickSearch("DVDs", quickSearchTerms)));
+			
+			QueryCancellation cancellation = new QueryCancellation();
+			cancellation.cancel();
+			
+			try {
+				DatabaseOperations.getAlbumItemPage("DVDs", quickSearchQuery, null, 10, cancellation);
+				fail("A cancelled quick search should not return any results");
+			} catch (DatabaseWrapperOperationException e) {
+				assertTrue("The query should be marked as cancelled", cancellation.isCancelled());
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	@Test
+	public void testCancelledQuickSearchFailsDespiteCachedResults() {
+		try {
+			DatabaseIntegrityManager.restoreFromFile(TestExecuter.PATH_TO_TEST_CBK);
+			ArrayList<String> quickSearchTerms = new ArrayList<String>();
+			quickSearchTerms.add("Smith");
+			ParameterizedQuery quickSearchQuery = DatabaseOperations.createQuickSearchQuery("DVDs", quickSearchTerms);
+			
+			// caches the count and the pages of the search
+			AlbumItemStore.fetchFirstResults("DVDs", quickSearchQuery, new QueryCancellation());
+			
+			QueryCancellation cancellation = new QueryCancellation();
+			cancellation.cancel();
+			
+			try {
+				AlbumItemStore.fetchFirstResults("DVDs", quickSearchQuery, cancellation);
+				fail("A cancelled quick search should not return the cached results");
+			} catch (DatabaseWrapperOperationException e) {
+				assertTrue("The query should be marked as cancelled", cancellation.isCancelled());
+			}
+		} catch (DatabaseWrapperOperationException e) {
+			fail("Failed due to internal database error");
+		}
+	}
+	
+	private static int countResults(AlbumItemResultSet searchResults) throws DatabaseWrapperOperationException {
+		int counter = 0;
+		while (searchResults.moveToNext()) {
+			counter++;
+		}
+		return counter;
+	}
 }
\ No newline at end of file
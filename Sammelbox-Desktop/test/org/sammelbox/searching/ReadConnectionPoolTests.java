@@ -0,0 +1,201 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.searching;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.controller.managers.DatabaseIntegrityManager;
+import org.sammelbox.controller.managers.ReadConnection;
+import org.sammelbox.controller.settings.SettingsManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.ParameterizedQuery;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.AlbumSchemaCache;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+public class ReadConnectionPoolTests {
+	private static final String ALBUM_NAME = "Books";
+	private static final String SELECT_ALL_BOOKS = 
+			"SELECT * FROM " + DatabaseStringUtilities.encloseNameWithQuotes(DatabaseStringUtilities.generateTableName(ALBUM_NAME));
+	
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		SettingsManager.getSettings().setWriteAheadLogIsEnabled(true);
+		SettingsManager.getSettings().setReadConnectionPoolSize(2);
+		TestExecuter.resetTestHome();
+		
+		try {
+			DatabaseOperations.createNewAlbum(ALBUM_NAME, Arrays.asList(new MetaItemField("Title", FieldType.TEXT)), false);
+			addBook("The Hobbit");
+			addBook("Dune");
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SettingsManager.getSettings().setWriteAheadLogIsEnabled(false);
+		SettingsManager.getSettings().setReadConnectionPoolSize(3);
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testWritesDoNotWaitForRunningReads() throws Exception {
+		assertTrue("The database should be in write-ahead log mode", ConnectionManager.isWriteAheadLogEnabled());
+		
+		ReadConnection readConnection = ConnectionManager.acquireReadConnection();
+		try (ResultSet resultSet = readConnection.getPreparedStatement(SELECT_ALL_BOOKS).executeQuery()) {
+			assertTrue("The reader should see the first book", resultSet.next());
+			
+			long startTimeInMS = System.currentTimeMillis();
+			addBook("Neuromancer");
+			assertTrue("Adding an item should not wait for the reader", System.currentTimeMillis() - startTimeInMS < 1000);
+			
+			assertTrue("The reader should see the second book", resultSet.next());
+			assertTrue("The reader should not see the book which was added after its query started", !resultSet.next());
+		} finally {
+			ConnectionManager.releaseReadConnection(readConnection);
+		}
+		
+		assertTrue("Queries started afterwards should see the new book", 
+				DatabaseOperations.getNumberOfResults(new ParameterizedQuery(SELECT_ALL_BOOKS)) == 3);
+	}
+	
+	@Test
+	public void testBorrowersWaitIfAllReadConnectionsAreLent() throws Exception {
+		ReadConnection firstReadConnection = ConnectionManager.acquireReadConnection();
+		ReadConnection secondReadConnection = ConnectionManager.acquireReadConnection();
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		
+		try {
+			Future<Long> numberOfResults = executorService.submit(new Callable<Long>() {
+				@Override
+				public Long call() throws DatabaseWrapperOperationException {
+					return DatabaseOperations.getNumberOfResults(new ParameterizedQuery(SELECT_ALL_BOOKS));
+				}
+			});
+			
+			try {
+				numberOfResults.get(500, TimeUnit.MILLISECONDS);
+				fail("The query should wait since both read connections are lent");
+			} catch (TimeoutException ex) {
+				// expected
+			}
+			
+			ConnectionManager.releaseReadConnection(firstReadConnection);
+			firstReadConnection = null;
+			assertTrue("The query should proceed once a connection is released", numberOfResults.get(5, TimeUnit.SECONDS) == 2);
+		} finally {
+			ConnectionManager.releaseReadConnection(firstReadConnection);
+			ConnectionManager.releaseReadConnection(secondReadConnection);
+			executorService.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testSchemaIsLoadedOnTheReadConnectionOfTheQuery() throws Exception {
+		String tableName = DatabaseStringUtilities.generateTableName(ALBUM_NAME);
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		
+		try (Statement statement = ConnectionManager.getConnection().createStatement()) {
+			// Resembles an unfinished rebuild of the album table, which the read connections do not see
+			statement.execute("ALTER TABLE " + DatabaseStringUtilities.encloseNameWithQuotes(tableName) + 
+					" RENAME TO " + DatabaseStringUtilities.encloseNameWithQuotes(tableName + "_temptable"));
+			AlbumSchemaCache.invalidateAll();
+			
+			List<AlbumItem> albumItems = DatabaseOperations.getAlbumItemPage(ALBUM_NAME, new ParameterizedQuery(SELECT_ALL_BOOKS), null, 10);
+			assertTrue("The reader should load the committed schema and see both books", albumItems.size() == 2);
+		} finally {
+			DatabaseIntegrityManager.rollbackToSavepoint(savepointName);
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+	}
+	
+	@Test
+	public void testResultsFetchedBeforeTheCommitAreNotCached() throws Exception {
+		String savepointName = DatabaseIntegrityManager.createSavepoint();
+		try {
+			addBook("Neuromancer");
+			assertTrue("The reader should not see the uncommitted book", 
+					DatabaseOperations.getAlbumItemPage(ALBUM_NAME, new ParameterizedQuery(SELECT_ALL_BOOKS), null, 10).size() == 2);
+		} finally {
+			DatabaseIntegrityManager.releaseSavepoint(savepointName);
+		}
+		
+		assertTrue("The committed book should be found", 
+				DatabaseOperations.getAlbumItemPage(ALBUM_NAME, new ParameterizedQuery(SELECT_ALL_BOOKS), null, 10).size() == 3);
+	}
+	
+	@Test
+	public void testRollbackJournalIsRestoredIfWriteAheadLogIsDisabled() throws Exception {
+		File writeAheadLog = new File(FileSystemLocations.getDatabaseFile() + "-wal");
+		assertTrue("The write-ahead log should exist while the connection is open", writeAheadLog.exists());
+		
+		assertTrue("The log should be checkpointed outside of transactions", ConnectionManager.checkpointWriteAheadLog());
+		
+		SettingsManager.getSettings().setWriteAheadLogIsEnabled(false);
+		ConnectionManager.closeConnection();
+		assertTrue("Closing the connections should remove the write-ahead log", !writeAheadLog.exists());
+		
+		ConnectionManager.openConnection();
+		assertTrue("The database should be back in rollback journal mode", !ConnectionManager.isWriteAheadLogEnabled());
+		assertTrue("The items should be kept", 
+				DatabaseOperations.getNumberOfResults(new ParameterizedQuery(SELECT_ALL_BOOKS)) == 2);
+	}
+	
+	private static void addBook(String title) throws DatabaseWrapperOperationException {
+		DatabaseOperations.addAlbumItem(new AlbumItem(ALBUM_NAME, Arrays.asList(new ItemField("Title", FieldType.TEXT, title))), true);
+	}
+}
@@ -0,0 +1,342 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.utilities;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.imageio.ImageIO;
+
+import org.sammelbox.Sammelbox;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.controller.managers.ConnectionManager;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.album.OptionType;
+import org.sammelbox.model.album.StarRating;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+
+/**
+ * Generates large albums with synthetic items and procedurally drawn pictures, e.g. for load tests and benchmarks. 
+ * The items are written in batches through the persistence layer and are never held in memory completely. 
+ * Given the same settings and seed, the generated albums are identical (including the picture file names).
+ * 
+ * The album contains the configured number of fields of every type which can be assigned by the user. 
+ * ID and UUID fields are not generated, since every album already contains the item id and the content version.
+ */
+public class CollectionGenerator {
+	/** The field types which can be assigned to album fields by the user */
+	public static final List<FieldType> GENERATED_FIELD_TYPES = Arrays.asList(FieldType.TEXT, FieldType.DECIMAL, FieldType.DATE, 
+			FieldType.TIME, FieldType.STAR_RATING, FieldType.URL, FieldType.INTEGER, FieldType.OPTION);
+	private static final String[] WORDS = new String[] { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", 
+		"hotel", "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa" };
+	private static final int MAX_THUMBNAIL_SIZE_IN_PIXELS = 200;
+	private static final long MILLISECONDS_PER_DAY = 86400000L;
+	
+	/** Determines how often the values of a field repeat across the items of an album */
+	public enum ValueDistribution {
+		/** Every item has different values */
+		UNIQUE,
+		/** The values are uniformly drawn from the distinct values */
+		UNIFORM,
+		/** The values are drawn from the distinct values by Zipf's law, i.e. a few values are very frequent */
+		ZIPF
+	}
+	
+	private final long seed;
+	private int numberOfItems = 1000;
+	private int fieldsPerType = 1;
+	private double picturesPerItem = 0.0;
+	private ValueDistribution valueDistribution = ValueDistribution.UNIFORM;
+	private int numberOfDistinctValues = 100;
+	private int pictureWidth = 640;
+	private int pictureHeight = 480;
+	
+	public CollectionGenerator(long seed) {
+		this.seed = seed;
+	}
+	
+	public void setNumberOfItems(int numberOfItems) {
+		this.numberOfItems = numberOfItems;
+	}
+	
+	public void setFieldsPerType(int fieldsPerType) {
+		this.fieldsPerType = fieldsPerType;
+	}
+	
+	/** Sets the average number of pictures per item. E.g. 0.5 attaches a picture to every second item */
+	public void setPicturesPerItem(double picturesPerItem) {
+		this.picturesPerItem = picturesPerItem;
+	}
+	
+	public void setValueDistribution(ValueDistribution valueDistribution) {
+		this.valueDistribution = valueDistribution;
+	}
+	
+	/** Sets the number of distinct values per field for the uniform and the Zipf distribution */
+	public void setNumberOfDistinctValues(int numberOfDistinctValues) {
+		this.numberOfDistinctValues = numberOfDistinctValues;
+	}
+	
+	public void setPictureSize(int pictureWidth, int pictureHeight) {
+		this.pictureWidth = pictureWidth;
+		this.pictureHeight = pictureHeight;
+	}
+	
+	/** Creates an empty Sammelbox home in the specified directory, makes it the active home and opens the database connection */
+	public static void setUpHome(String homeDirectory) throws ClassNotFoundException, DatabaseWrapperOperationException {
+		ConnectionManager.closeConnection();
+		FileSystemLocations.setActiveHomeDir(homeDirectory);
+		Class.forName(Sammelbox.ORG_SQLITE_JDBC);
+		FileSystemAccessWrapper.updateSammelboxFileStructure();
+		ConnectionManager.openConnection();
+		FileSystemAccessWrapper.updateAlbumFileStructure(ConnectionManager.getConnection());
+	}
+	
+	/** Returns the fields of the generated albums. The first text field is quick searchable */
+	public List<MetaItemField> createFields() {
+		List<MetaItemField> fields = new ArrayList<MetaItemField>();
+		
+		for (int i=0; i<fieldsPerType; i++) {
+			for (FieldType fieldType : GENERATED_FIELD_TYPES) {
+				fields.add(new MetaItemField(fieldType.name() + " " + i, fieldType, fields.isEmpty()));
+			}
+		}
+		
+		return fields;
+	}
+	
+	/**
+	 * Creates a new album in the active home and fills it with the generated items and pictures.
+	 * @return the fields of the album
+	 */
+	public List<MetaItemField> generateAlbum(String albumName) throws DatabaseWrapperOperationException {
+		List<MetaItemField> fields = createFields();
+		DatabaseOperations.createNewAlbum(albumName, fields, picturesPerItem > 0);
+		new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName)).mkdirs();
+		DatabaseOperations.addAlbumItems(albumName, createAlbumItems(albumName, fields));
+		
+		return fields;
+	}
+	
+	private Iterable<AlbumItem> createAlbumItems(final String albumName, final List<MetaItemField> fields) {
+		return new Iterable<AlbumItem>() {
+			@Override
+			public Iterator<AlbumItem> iterator() {
+				final Random random = new Random(seed);
+				final double[] zipfDistribution = createZipfDistribution();
+				
+				return new Iterator<AlbumItem>() {
+					private int itemIndex = 0;
+					private int pictureIndex = 0;
+					
+					@Override
+					public boolean hasNext() {
+						return itemIndex < numberOfItems;
+					}
+					
+					@Override
+					public AlbumItem next() {
+						AlbumItem albumItem = new AlbumItem(albumName);
+						
+						for (MetaItemField field : fields) {
+							int valueIndex = nextValueIndex(random, zipfDistribution, itemIndex);
+							albumItem.addField(field.getName(), field.getType(), createValue(field.getType(), valueIndex), field.isQuickSearchable());
+						}
+						
+						// distributes the pictures evenly, e.g. 0.5 pictures per item attach a picture to every second item
+						int numberOfPictures = (int) ((itemIndex + 1) * picturesPerItem) - (int) (itemIndex * picturesPerItem);
+						List<AlbumItemPicture> pictures = new ArrayList<AlbumItemPicture>();
+						for (int i=0; i<numberOfPictures; i++) {
+							pictures.add(createAndStorePicture(albumName, pictureIndex++));
+						}
+						albumItem.setPictures(pictures);
+						
+						itemIndex++;
+						return albumItem;
+					}
+					
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+	
+	/** Returns the cumulative probabilities of the distinct values according to Zipf's law with exponent one */
+	private double[] createZipfDistribution() {
+		double[] cumulativeProbabilities = new double[numberOfDistinctValues];
+		double sum = 0.0;
+		
+		for (int i=0; i<numberOfDistinctValues; i++) {
+			sum += 1.0 / (i + 1);
+			cumulativeProbabilities[i] = sum;
+		}
+		for (int i=0; i<numberOfDistinctValues; i++) {
+			cumulativeProbabilities[i] /= sum;
+		}
+		
+		return cumulativeProbabilities;
+	}
+	
+	private int nextValueIndex(Random random, double[] zipfDistribution, int itemIndex) {
+		switch (valueDistribution) {
+		case UNIQUE:
+			return itemIndex;
+		case UNIFORM:
+			return random.nextInt(numberOfDistinctValues);
+		default:
+			int valueIndex = Arrays.binarySearch(zipfDistribution, random.nextDouble());
+			return Math.min(valueIndex >= 0 ? valueIndex : -valueIndex - 1, numberOfDistinctValues - 1);
+		}
+	}
+	
+	/** Maps the index of a value to a value of the field type. Different indices yield different values where the type permits it */
+	private static Object createValue(FieldType fieldType, int valueIndex) {
+		switch (fieldType) {
+		case TEXT:
+			return WORDS[valueIndex % WORDS.length] + " " + WORDS[(valueIndex / WORDS.length) % WORDS.length] + " " + valueIndex;
+		case DECIMAL:
+			return valueIndex / 4.0d;
+		case DATE:
+			return new Date(valueIndex * MILLISECONDS_PER_DAY);
+		case TIME:
+			return new Time((valueIndex * 1000L) % MILLISECONDS_PER_DAY);
+		case STAR_RATING:
+			return StarRating.values()[valueIndex % StarRating.values().length];
+		case URL:
+			return "http://www.sammelbox.org/items/" + valueIndex;
+		case INTEGER:
+			return valueIndex;
+		case OPTION:
+			return OptionType.values()[valueIndex % OptionType.values().length];
+		default:
+			throw new IllegalArgumentException("Values of the type " + fieldType + " are not generated");
+		}
+	}
+	
+	/** Draws the picture with the specified index, stores it together with its thumbnail and returns the unassigned picture */
+	private AlbumItemPicture createAndStorePicture(String albumName, int pictureIndex) {
+		String pictureName = UUID.nameUUIDFromBytes((seed + albumName + pictureIndex).getBytes(StandardCharsets.UTF_8)).toString();
+		String originalPictureName = pictureName + ".png";
+		String thumbnailPictureName = pictureName + "_thumbnail.png";
+		BufferedImage picture = drawPicture(new Random(seed + pictureIndex));
+		
+		int thumbnailWidth = MAX_THUMBNAIL_SIZE_IN_PIXELS;
+		int thumbnailHeight = MAX_THUMBNAIL_SIZE_IN_PIXELS;
+		if (pictureWidth >= pictureHeight) {
+			thumbnailHeight = Math.max(1, pictureHeight * MAX_THUMBNAIL_SIZE_IN_PIXELS / pictureWidth);
+		} else {
+			thumbnailWidth = Math.max(1, pictureWidth * MAX_THUMBNAIL_SIZE_IN_PIXELS / pictureHeight);
+		}
+		BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = thumbnail.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.drawImage(picture, 0, 0, thumbnailWidth, thumbnailHeight, null);
+		graphics.dispose();
+		
+		try {
+			ImageIO.write(picture, "png", new File(FileSystemAccessWrapper.getFilePathForAlbum(albumName), originalPictureName));
+			ImageIO.write(thumbnail, "png", new File(FileSystemLocations.getThumbnailsDir(), thumbnailPictureName));
+		} catch (IOException ex) {
+			throw new IllegalStateException("The generated picture " + pictureName + " could not be stored", ex);
+		}
+		
+		return new AlbumItemPicture(thumbnailPictureName, originalPictureName, albumName, AlbumItemPicture.PICTURE_ID_UNDEFINED);
+	}
+	
+	/** Draws a gradient covered by random rectangles and ovals, so that the pictures do not compress unrealistically well */
+	private BufferedImage drawPicture(Random random) {
+		BufferedImage picture = new BufferedImage(pictureWidth, pictureHeight, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = picture.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xFFFFFF)), 
+				pictureWidth, pictureHeight, new Color(random.nextInt(0xFFFFFF))));
+		graphics.fillRect(0, 0, pictureWidth, pictureHeight);
+		
+		for (int i=0; i<20; i++) {
+			graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+			int x = random.nextInt(pictureWidth);
+			int y = random.nextInt(pictureHeight);
+			int width = 1 + random.nextInt(Math.max(1, pictureWidth / 3));
+			int height = 1 + random.nextInt(Math.max(1, pictureHeight / 3));
+			
+			if (random.nextBoolean()) {
+				graphics.fillRect(x, y, width, height);
+			} else {
+				graphics.fillOval(x, y, width, height);
+			}
+		}
+		
+		graphics.dispose();
+		return picture;
+	}
+	
+	/**
+	 * Generates an album from the command line. The home directory is created if necessary and must not contain an album of the same name.
+	 * Usage: CollectionGenerator homeDirectory albumName numberOfItems [picturesPerItem] [fieldsPerType] [UNIQUE|UNIFORM|ZIPF] [seed]
+	 */
+	public static void main(String[] arguments) throws Exception {
+		if (arguments.length < 3) {
+			System.err.println("Usage: CollectionGenerator homeDirectory albumName numberOfItems " +
+					"[picturesPerItem] [fieldsPerType] [UNIQUE|UNIFORM|ZIPF] [seed]");
+			System.exit(1);
+		}
+		
+		CollectionGenerator generator = new CollectionGenerator(arguments.length > 6 ? Long.parseLong(arguments[6]) : 0L);
+		generator.setNumberOfItems(Integer.parseInt(arguments[2]));
+		if (arguments.length > 3) {
+			generator.setPicturesPerItem(Double.parseDouble(arguments[3]));
+		}
+		if (arguments.length > 4) {
+			generator.setFieldsPerType(Integer.parseInt(arguments[4]));
+		}
+		if (arguments.length > 5) {
+			generator.setValueDistribution(ValueDistribution.valueOf(arguments[5]));
+		}
+		
+		long startTime = System.currentTimeMillis();
+		setUpHome(arguments[0]);
+		generator.generateAlbum(arguments[1]);
+		ConnectionManager.closeConnection();
+		
+		System.out.println("Generated the album " + arguments[1] + " with " + arguments[2] + " items in " + 
+				(System.currentTimeMillis() - startTime) + " ms");
+	}
+}
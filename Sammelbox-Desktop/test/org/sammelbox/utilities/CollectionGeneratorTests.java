@@ -0,0 +1,127 @@
+/** -----------------------------------------------------------------
+ *    Sammelbox: Collection Manager - A free and open-source collection manager for Windows & Linux
+ *    Copyright (C) 2011 Jerome Wagener & Paul Bicheler
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ** ----------------------------------------------------------------- */
+
+
+package org.sammelbox.utilities;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sammelbox.TestExecuter;
+import org.sammelbox.controller.filesystem.FileSystemAccessWrapper;
+import org.sammelbox.controller.filesystem.FileSystemLocations;
+import org.sammelbox.model.album.AlbumItem;
+import org.sammelbox.model.album.AlbumItemPicture;
+import org.sammelbox.model.album.FieldType;
+import org.sammelbox.model.album.ItemField;
+import org.sammelbox.model.album.MetaItemField;
+import org.sammelbox.model.database.DatabaseStringUtilities;
+import org.sammelbox.model.database.QueryBuilder;
+import org.sammelbox.model.database.exceptions.DatabaseWrapperOperationException;
+import org.sammelbox.model.database.operations.DatabaseOperations;
+import org.sammelbox.utilities.CollectionGenerator.ValueDistribution;
+
+public class CollectionGeneratorTests {
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Before
+	public void setUp() {
+		TestExecuter.resetTestHome();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TestExecuter.resetTestHome();
+	}
+
+	@Test
+	public void testGeneratedAlbumContainsAllItemsAndPictures() {
+		try {
+			CollectionGenerator generator = new CollectionGenerator(7);
+			generator.setNumberOfItems(50);
+			generator.setPicturesPerItem(0.5);
+			generator.setPictureSize(64, 48);
+			List<MetaItemField> fields = generator.generateAlbum("Generated");
+			
+			Set<FieldType> fieldTypes = new HashSet<FieldType>();
+			for (MetaItemField field : fields) {
+				fieldTypes.add(field.getType());
+			}
+			assertTrue("The album should contain every user assignable field type", 
+					fieldTypes.containsAll(CollectionGenerator.GENERATED_FIELD_TYPES));
+			assertTrue("The album should contain all generated items", DatabaseOperations.getNumberOfItemsInAlbum("Generated") == 50);
+			assertTrue("Every second item should have a picture", 
+					TestQueries.getNumberOfRecordsInTable(DatabaseStringUtilities.generatePictureTableName("Generated")) == 25);
+			
+			for (AlbumItem albumItem : DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("Generated"))) {
+				for (AlbumItemPicture picture : DatabaseOperations.getAlbumItemPictures("Generated", albumItem.getItemID())) {
+					assertTrue("The original picture should be stored", new File(
+							FileSystemAccessWrapper.getFilePathForAlbum("Generated"), picture.getOriginalPictureName()).exists());
+					assertTrue("The thumbnail should be stored", new File(
+							FileSystemLocations.getThumbnailsDir(), picture.getThumbnailPictureName()).exists());
+				}
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testGeneratedAlbumsAreReproducible() {
+		try {
+			for (String albumName : new String[] { "First", "Second" }) {
+				CollectionGenerator generator = new CollectionGenerator(42);
+				generator.setNumberOfItems(30);
+				generator.setValueDistribution(ValueDistribution.ZIPF);
+				generator.generateAlbum(albumName);
+			}
+			
+			List<AlbumItem> firstAlbumItems = DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("First"));
+			List<AlbumItem> secondAlbumItems = DatabaseOperations.getAlbumItems(QueryBuilder.createSelectStarQuery("Second"));
+			
+			assertTrue("Both albums should contain the same number of items", firstAlbumItems.size() == secondAlbumItems.size());
+			for (int i=0; i<firstAlbumItems.size(); i++) {
+				for (ItemField itemField : firstAlbumItems.get(i).getFields()) {
+					if (itemField.getType() != FieldType.ID && itemField.getType() != FieldType.UUID) {
+						assertTrue("The same seed should generate the same values", 
+								itemField.getValue().equals(secondAlbumItems.get(i).getField(itemField.getName()).getValue()));
+					}
+				}
+			}
+		} catch (DatabaseWrapperOperationException ex) {
+			fail(ex.getMessage());
+		}
+	}
+}